@@ -0,0 +1,16 @@
+package ecommerce.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Liga as tarefas em segundo plano. Pode ser desligado com
+ * {@code ecommerce.agendamento.habilitado=false}.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "ecommerce.agendamento.habilitado", havingValue = "true", matchIfMissing = true)
+public class AgendamentoConfig
+{
+}
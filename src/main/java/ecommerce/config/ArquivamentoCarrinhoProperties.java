@@ -0,0 +1,29 @@
+package ecommerce.config;
+
+import java.time.Duration;
+import java.time.Period;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Arquivamento de carrinhos antigos ({@code ecommerce.carrinho.arquivamento.*}).
+ *
+ * @param habilitado      liga o arquivamento agendado
+ * @param idade           carrinhos sem alteração (ou criados, se nunca
+ *                        alterados) antes de hoje menos a idade são
+ *                        arquivados
+ * @param tamanhoLote     carrinhos movidos por transação
+ * @param maximoLotes     lotes por execução; o restante fica para a próxima
+ * @param pausaEntreLotes espera entre lotes, para não disputar conexões e
+ *                        travas com o checkout
+ */
+@ConfigurationProperties("ecommerce.carrinho.arquivamento")
+public record ArquivamentoCarrinhoProperties(
+		@DefaultValue("false") boolean habilitado,
+		@DefaultValue("90d") Period idade,
+		@DefaultValue("200") int tamanhoLote,
+		@DefaultValue("50") int maximoLotes,
+		@DefaultValue("200ms") Duration pausaEntreLotes)
+{
+}
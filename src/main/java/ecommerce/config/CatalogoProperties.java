@@ -0,0 +1,23 @@
+package ecommerce.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Catálogo de preços em memória ({@code ecommerce.catalogo.*}).
+ *
+ * @param habilitado   carrega o catálogo na inicialização e o mantém atualizado
+ * @param tamanhoPagina produtos lidos por consulta na carga completa
+ * @param margemDelta  quanto a atualização incremental relê antes da última
+ *                     gravação vista, cobrindo transações que confirmaram fora
+ *                     de ordem
+ */
+@ConfigurationProperties("ecommerce.catalogo")
+public record CatalogoProperties(
+		@DefaultValue("true") boolean habilitado,
+		@DefaultValue("1000") int tamanhoPagina,
+		@DefaultValue("5s") Duration margemDelta)
+{
+}
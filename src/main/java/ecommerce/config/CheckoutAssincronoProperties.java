@@ -0,0 +1,23 @@
+package ecommerce.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Checkout assíncrono ({@code ecommerce.checkout.assincrono.*}).
+ *
+ * @param threads       threads que processam os pedidos
+ * @param capacidadeFila pedidos aguardando processamento antes de rejeitar
+ * @param retencao      tempo em que um pedido concluído continua consultável
+ * @param esperaMaxima  teto do long-polling no endpoint de status
+ */
+@ConfigurationProperties("ecommerce.checkout.assincrono")
+public record CheckoutAssincronoProperties(
+		@DefaultValue("8") int threads,
+		@DefaultValue("500") int capacidadeFila,
+		@DefaultValue("15m") Duration retencao,
+		@DefaultValue("30s") Duration esperaMaxima)
+{
+}
@@ -0,0 +1,23 @@
+package ecommerce.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Despacho da outbox de compensações ({@code ecommerce.compensacao.*}).
+ *
+ * @param tamanhoLote      compensações lidas por lote
+ * @param maximoTentativas tentativas antes de marcar a compensação como falha
+ * @param backoffInicial   espera após a primeira falha; dobra a cada tentativa
+ * @param backoffMaximo    teto da espera entre tentativas
+ */
+@ConfigurationProperties("ecommerce.compensacao")
+public record CompensacaoProperties(
+		@DefaultValue("50") int tamanhoLote,
+		@DefaultValue("10") int maximoTentativas,
+		@DefaultValue("1s") Duration backoffInicial,
+		@DefaultValue("10m") Duration backoffMaximo)
+{
+}
@@ -0,0 +1,21 @@
+package ecommerce.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Cotações assinadas ({@code ecommerce.cotacao.*}).
+ *
+ * @param chave    chave HMAC em Base64; sem ela, cada instância sorteia a
+ *                 própria ao iniciar e só aceita as cotações que emitiu
+ * @param validade tempo em que uma cotação ainda dispensa o recálculo no
+ *                 checkout
+ */
+@ConfigurationProperties("ecommerce.cotacao")
+public record CotacaoProperties(
+		String chave,
+		@DefaultValue("15m") Duration validade)
+{
+}
@@ -0,0 +1,30 @@
+package ecommerce.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import ecommerce.eventos.EstrategiaEspera;
+import ecommerce.eventos.PoliticaAnelCheio;
+
+/**
+ * Anel de eventos do checkout ({@code ecommerce.checkout.eventos.*}).
+ *
+ * @param capacidade              posições do anel, potência de 2
+ * @param espera                  como os consumidores aguardam eventos
+ * @param politica                o que fazer quando o anel está cheio
+ * @param esperaMaximaPublicacao  com {@link PoliticaAnelCheio#AGUARDAR}, quanto
+ *                                a requisição espera por uma posição livre
+ * @param esperaDesligamento      quanto o desligamento aguarda cada
+ *                                consumidor esvaziar o anel
+ */
+@ConfigurationProperties("ecommerce.checkout.eventos")
+public record EventosCheckoutProperties(
+		@DefaultValue("4096") int capacidade,
+		@DefaultValue("DORMINDO") EstrategiaEspera espera,
+		@DefaultValue("DESCARTAR") PoliticaAnelCheio politica,
+		@DefaultValue("50us") Duration esperaMaximaPublicacao,
+		@DefaultValue("5s") Duration esperaDesligamento)
+{
+}
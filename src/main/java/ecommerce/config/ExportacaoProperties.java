@@ -0,0 +1,23 @@
+package ecommerce.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import ecommerce.service.FormatoExportacao;
+
+/**
+ * Exportação de carrinhos ({@code ecommerce.exportacao.*}).
+ *
+ * @param tamanhoBloco carrinhos mantidos no contexto de persistência entre duas
+ *                     limpezas
+ * @param arquivo      se informado, exporta para este arquivo na inicialização
+ *                     e encerra a aplicação (execução por linha de comando)
+ * @param formato      formato usado na execução por linha de comando
+ */
+@ConfigurationProperties("ecommerce.exportacao")
+public record ExportacaoProperties(
+		@DefaultValue("500") int tamanhoBloco,
+		String arquivo,
+		@DefaultValue("NDJSON") FormatoExportacao formato)
+{
+}
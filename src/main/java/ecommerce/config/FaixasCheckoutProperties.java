@@ -0,0 +1,29 @@
+package ecommerce.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Faixas de checkout por cliente ({@code ecommerce.checkout.faixas.*}).
+ *
+ * @param habilitado             desligado, o checkout roda na thread da
+ *                               requisição, sem serialização por cliente
+ * @param faixas                 threads; cada cliente cai sempre na mesma
+ * @param capacidadeFaixa        checkouts aguardando numa faixa antes de
+ *                               rejeitar
+ * @param maximoPendentesPorCliente checkouts de um mesmo cliente aguardando
+ *                               antes de rejeitar os seguintes
+ * @param esperaDesligamento     quanto o desligamento aguarda as faixas
+ *                               esvaziarem
+ */
+@ConfigurationProperties("ecommerce.checkout.faixas")
+public record FaixasCheckoutProperties(
+		@DefaultValue("true") boolean habilitado,
+		@DefaultValue("16") int faixas,
+		@DefaultValue("200") int capacidadeFaixa,
+		@DefaultValue("4") int maximoPendentesPorCliente,
+		@DefaultValue("30s") Duration esperaDesligamento)
+{
+}
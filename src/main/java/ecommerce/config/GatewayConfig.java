@@ -0,0 +1,72 @@
+package ecommerce.config;
+
+import java.util.List;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import ecommerce.external.IEstoqueExternal;
+import ecommerce.external.IPagamentoExternal;
+import ecommerce.external.fake.EstoqueSimulado;
+import ecommerce.external.fake.PagamentoSimulado;
+import ecommerce.external.resiliencia.CircuitosEndpoint;
+import ecommerce.external.resiliencia.EstoqueComHedging;
+import ecommerce.external.resiliencia.EstoqueResiliente;
+import ecommerce.external.resiliencia.GatewayProtegido;
+import ecommerce.external.resiliencia.PagamentoResiliente;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+@EnableConfigurationProperties(GatewayProperties.class)
+public class GatewayConfig
+{
+
+	@Bean
+	public GatewayProtegido gatewayPagamento(GatewayProperties properties)
+	{
+		return new GatewayProtegido("pagamento", properties.pagamento());
+	}
+
+	@Bean
+	public GatewayProtegido gatewayEstoque(GatewayProperties properties)
+	{
+		return new GatewayProtegido("estoque", properties.estoque());
+	}
+
+	@Bean
+	@Primary
+	public IPagamentoExternal pagamentoResiliente(PagamentoSimulado pagamento,
+			@Qualifier("gatewayPagamento") GatewayProtegido gateway)
+	{
+		return new PagamentoResiliente(pagamento, gateway);
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "ecommerce.gateway.hedging.habilitado", havingValue = "true")
+	public EstoqueComHedging estoqueComHedging(EstoqueSimulado estoque, GatewayProperties properties,
+			MeterRegistry registry)
+	{
+		return new EstoqueComHedging(estoque, "estoque", properties.hedging(), properties.estoque().threads(),
+				registry);
+	}
+
+	@Bean
+	@Primary
+	public IEstoqueExternal estoqueResiliente(EstoqueSimulado estoque,
+			@Qualifier("gatewayEstoque") GatewayProtegido gateway, ObjectProvider<EstoqueComHedging> hedging)
+	{
+		IEstoqueExternal comHedging = hedging.getIfAvailable();
+		return new EstoqueResiliente(comHedging != null ? comHedging : estoque, gateway);
+	}
+
+	@Bean
+	public CircuitosEndpoint circuitosEndpoint(List<GatewayProtegido> gateways)
+	{
+		return new CircuitosEndpoint(gateways);
+	}
+}
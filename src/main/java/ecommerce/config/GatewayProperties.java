@@ -0,0 +1,77 @@
+package ecommerce.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Políticas de resiliência dos gateways externos
+ * ({@code ecommerce.gateway.pagamento.*} e {@code ecommerce.gateway.estoque.*}).
+ */
+@ConfigurationProperties("ecommerce.gateway")
+public record GatewayProperties(@DefaultValue Politica pagamento, @DefaultValue Politica estoque,
+		@DefaultValue Hedging hedging)
+{
+
+	/**
+	 * @param janela           número de chamadas avaliadas pelo circuito e pela
+	 *                         janela de latência
+	 * @param taxaFalhaLimite  fração de falhas (0–1) que abre o circuito
+	 * @param chamadasMinimas  chamadas necessárias antes de avaliar a taxa e de
+	 *                         adaptar o tempo limite
+	 * @param tempoAberto      tempo em que o circuito rejeita chamadas antes de
+	 *                         sondar
+	 * @param sondasMeioAberto chamadas de teste no estado meio-aberto
+	 * @param percentil        percentil de latência usado no tempo limite
+	 * @param multiplicador    folga aplicada sobre o percentil
+	 * @param timeoutMinimo    piso do tempo limite adaptativo
+	 * @param timeoutMaximo    teto do tempo limite adaptativo
+	 * @param threads          threads dedicadas ao gateway
+	 * @param fila             chamadas aguardando thread antes de rejeitar
+	 */
+	public record Politica(
+			@DefaultValue("100") int janela,
+			@DefaultValue("0.5") double taxaFalhaLimite,
+			@DefaultValue("20") int chamadasMinimas,
+			@DefaultValue("30s") Duration tempoAberto,
+			@DefaultValue("3") int sondasMeioAberto,
+			@DefaultValue("0.99") double percentil,
+			@DefaultValue("2.0") double multiplicador,
+			@DefaultValue("200ms") Duration timeoutMinimo,
+			@DefaultValue("5s") Duration timeoutMaximo,
+			@DefaultValue("16") int threads,
+			@DefaultValue("64") int fila)
+	{
+	}
+
+	/**
+	 * Hedging de {@code verificarDisponibilidade} ({@code ecommerce.gateway.hedging.*}).
+	 * Não se aplica a {@code darBaixa} nem a {@code autorizarPagamento}.
+	 *
+	 * @param habilitado      liga o decorador de hedging no gateway de estoque
+	 * @param janela          amostras de latência consideradas
+	 * @param percentil       percentil de latência a partir do qual o hedge é
+	 *                        disparado
+	 * @param atrasoMinimo    atraso mínimo antes do hedge
+	 * @param amostrasMinimas amostras necessárias antes de começar a fazer hedge
+	 * @param taxaMaxima      fração máxima de chamadas que podem ser duplicadas
+	 * @param rajada          hedges acumuláveis para absorver picos
+	 * @param threads         threads dedicadas às consultas; nunca menos que as
+	 *                        threads do gateway de estoque mais a rajada, para
+	 *                        que as consultas em andamento não esperem na fila
+	 * @param fila            consultas aguardando thread antes de rejeitar
+	 */
+	public record Hedging(
+			@DefaultValue("false") boolean habilitado,
+			@DefaultValue("200") int janela,
+			@DefaultValue("0.95") double percentil,
+			@DefaultValue("10ms") Duration atrasoMinimo,
+			@DefaultValue("50") int amostrasMinimas,
+			@DefaultValue("0.05") double taxaMaxima,
+			@DefaultValue("10") int rajada,
+			@DefaultValue("8") int threads,
+			@DefaultValue("64") int fila)
+	{
+	}
+}
@@ -0,0 +1,65 @@
+package ecommerce.config;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import ecommerce.entity.TipoCliente;
+
+/**
+ * Limite de requisições de cotação e checkout ({@code ecommerce.limite.*}).
+ *
+ * @param habilitado  desligado, nenhuma requisição é limitada
+ * @param maximoBaldes baldes mantidos em memória (clientes e IPs somados por
+ *                    tabela); acima disso, os menos usados saem primeiro
+ * @param ociosidade  tempo sem requisições após o qual o balde é descartado;
+ *                    não deve ser menor que o tempo de recarregar a rajada
+ * @param porIp       também limita por endereço de origem; desligado por
+ *                    padrão, pois atrás de um proxy todas as requisições
+ *                    chegam do mesmo endereço. Exposta publicamente, a
+ *                    aplicação deve ligá-lo (com {@code cabecalhoIp}, atrás
+ *                    de proxy)
+ * @param cabecalhoIp cabeçalho preenchido pelo proxy confiável com o endereço
+ *                    do cliente (por exemplo {@code X-Forwarded-For}); vale o
+ *                    último endereço da lista, o acrescentado pelo proxy.
+ *                    Vazio, vale o endereço da conexão
+ * @param ip          taxa por endereço de origem
+ * @param padrao      taxa de clientes sem limite próprio em {@code tipos} e
+ *                    do balde único dos não encontrados
+ * @param tipos       taxa por tipo de cliente (por exemplo
+ *                    {@code tipos.OURO.por-segundo=20})
+ */
+@ConfigurationProperties("ecommerce.limite")
+public record LimiteRequisicoesProperties(
+		@DefaultValue("true") boolean habilitado,
+		@DefaultValue("100000") int maximoBaldes,
+		@DefaultValue("10m") Duration ociosidade,
+		@DefaultValue("false") boolean porIp,
+		String cabecalhoIp,
+		@DefaultValue Taxa ip,
+		@DefaultValue Taxa padrao,
+		Map<TipoCliente, Taxa> tipos)
+{
+
+	public LimiteRequisicoesProperties
+	{
+		tipos = tipos == null ? Map.of() : Map.copyOf(tipos);
+	}
+
+	public Taxa taxa(TipoCliente tipo)
+	{
+		return tipo == null ? padrao : tipos.getOrDefault(tipo, padrao);
+	}
+
+	/**
+	 * @param porSegundo requisições por segundo sustentadas
+	 * @param rajada     requisições aceitas de uma vez com o balde cheio
+	 */
+	public record Taxa(
+			@DefaultValue("5") double porSegundo,
+			@DefaultValue("10") int rajada)
+	{
+	}
+}
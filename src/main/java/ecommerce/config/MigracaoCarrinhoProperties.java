@@ -0,0 +1,18 @@
+package ecommerce.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Migração das linhas de carrinho para o formato compacto
+ * ({@code ecommerce.carrinho.migracao.*}).
+ *
+ * @param habilitada  liga a migração agendada
+ * @param tamanhoLote carrinhos migrados por execução (e por transação)
+ */
+@ConfigurationProperties("ecommerce.carrinho.migracao")
+public record MigracaoCarrinhoProperties(
+		@DefaultValue("false") boolean habilitada,
+		@DefaultValue("200") int tamanhoLote)
+{
+}
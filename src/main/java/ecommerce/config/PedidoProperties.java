@@ -0,0 +1,26 @@
+package ecommerce.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import ecommerce.service.ModoGravacaoPedido;
+
+/**
+ * Gravação do registro de pedidos ({@code ecommerce.pedido.*}).
+ *
+ * @param modo               síncrono ou em lote
+ * @param capacidadeFila     pedidos aguardando gravação; com a fila cheia, o
+ *                           checkout grava o próprio pedido de forma síncrona
+ * @param tamanhoLote        pedidos gravados por transação, no máximo
+ * @param esperaDesligamento quanto o desligamento aguarda a fila esvaziar
+ */
+@ConfigurationProperties("ecommerce.pedido")
+public record PedidoProperties(
+		@DefaultValue("EM_LOTE") ModoGravacaoPedido modo,
+		@DefaultValue("10000") int capacidadeFila,
+		@DefaultValue("200") int tamanhoLote,
+		@DefaultValue("30s") Duration esperaDesligamento)
+{
+}
@@ -0,0 +1,38 @@
+package ecommerce.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import ecommerce.prazo.PrazoDataSource;
+
+@Configuration
+public class PrazoConfig
+{
+
+	/**
+	 * Envolve o {@link DataSource} para aplicar o prazo da requisição às queries.
+	 * Com a réplica habilitada, só os pools são envolvidos: o roteador e o proxy
+	 * preguiçoso apenas repassam conexões deles.
+	 */
+	@Bean
+	public static BeanPostProcessor prazoDataSourcePostProcessor()
+	{
+		return new BeanPostProcessor()
+		{
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName)
+			{
+				if (bean instanceof DataSource dataSource && !(bean instanceof PrazoDataSource)
+						&& !(bean instanceof LazyConnectionDataSourceProxy))
+				{
+					return new PrazoDataSource(dataSource);
+				}
+				return bean;
+			}
+		};
+	}
+}
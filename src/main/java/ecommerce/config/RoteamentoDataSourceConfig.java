@@ -0,0 +1,65 @@
+package ecommerce.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import ecommerce.roteamento.RoteamentoDataSource;
+
+/**
+ * Pools separados para o primário ({@code spring.datasource.*}) e para a
+ * réplica ({@code ecommerce.datasource.replica.*}), com transações somente
+ * leitura indo para a réplica. Cada pool é um bean próprio, então o Actuator
+ * publica {@code hikaricp.connections.*} com a tag {@code pool=primario} ou
+ * {@code pool=replica}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "ecommerce.datasource.replica.habilitada", havingValue = "true")
+public class RoteamentoDataSourceConfig
+{
+
+	@Bean
+	@ConfigurationProperties("spring.datasource.hikari")
+	public HikariDataSource dataSourcePrimario(DataSourceProperties properties)
+	{
+		HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		dataSource.setPoolName("primario");
+		return dataSource;
+	}
+
+	/** Fora da injeção por tipo para não competir com o {@code spring.datasource} do Boot. */
+	@Bean(autowireCandidate = false)
+	@ConfigurationProperties("ecommerce.datasource.replica")
+	public DataSourceProperties replicaDataSourceProperties()
+	{
+		return new DataSourceProperties();
+	}
+
+	@Bean
+	@ConfigurationProperties("ecommerce.datasource.replica.hikari")
+	public HikariDataSource dataSourceReplica()
+	{
+		HikariDataSource dataSource = replicaDataSourceProperties().initializeDataSourceBuilder()
+				.type(HikariDataSource.class).build();
+		dataSource.setPoolName("replica");
+		dataSource.setReadOnly(true);
+		return dataSource;
+	}
+
+	@Bean
+	@Primary
+	public DataSource dataSource(@Qualifier("dataSourcePrimario") DataSource primario,
+			@Qualifier("dataSourceReplica") DataSource replica)
+	{
+		return new LazyConnectionDataSourceProxy(new RoteamentoDataSource(primario, replica));
+	}
+}
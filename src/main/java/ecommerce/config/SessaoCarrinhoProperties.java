@@ -0,0 +1,25 @@
+package ecommerce.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Carrinhos ativos em memória ({@code ecommerce.carrinho.sessao.*}).
+ *
+ * @param habilitada      leituras e alterações de carrinho passam pela memória
+ *                        e são gravadas depois, em segundo plano
+ * @param maximoCarrinhos carrinhos mantidos em memória ao mesmo tempo
+ * @param ociosidade      tempo sem acesso após o qual o carrinho é gravado e
+ *                        sai da memória
+ * @param tamanhoLote     carrinhos gravados por transação
+ */
+@ConfigurationProperties("ecommerce.carrinho.sessao")
+public record SessaoCarrinhoProperties(
+		@DefaultValue("false") boolean habilitada,
+		@DefaultValue("100000") int maximoCarrinhos,
+		@DefaultValue("30m") Duration ociosidade,
+		@DefaultValue("100") int tamanhoLote)
+{
+}
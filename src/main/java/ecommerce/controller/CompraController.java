@@ -1,12 +1,27 @@
 package ecommerce.controller;
 
+import java.net.URI;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import ecommerce.dto.CompraDTO;
+import ecommerce.dto.CotacaoDTO;
+import ecommerce.dto.PedidoAssincronoDTO;
+import ecommerce.external.resiliencia.GatewayIndisponivelException;
+import ecommerce.limite.LimiteExcedidoException;
+import ecommerce.limite.LimiteRequisicoes;
+import ecommerce.prazo.PrazoEsgotadoException;
+import ecommerce.service.CheckoutAssincronoService;
+import ecommerce.service.CheckoutSobrecarregadoException;
 import ecommerce.service.CompraService;
+import ecommerce.service.FaixasCheckout;
+import ecommerce.service.PedidoAssincrono;
+import jakarta.servlet.http.HttpServletRequest;
 
 @RestController
 @RequestMapping("/")
@@ -14,25 +29,57 @@ public class CompraController
 {
 
 	private final CompraService compraService;
+	private final CheckoutAssincronoService checkoutAssincrono;
+	private final FaixasCheckout faixas;
+	private final LimiteRequisicoes limite;
 
 	@Autowired
-	public CompraController(CompraService compraService)
+	public CompraController(CompraService compraService, CheckoutAssincronoService checkoutAssincrono,
+			FaixasCheckout faixas, LimiteRequisicoes limite)
 	{
 		this.compraService = compraService;
+		this.checkoutAssincrono = checkoutAssincrono;
+		this.faixas = faixas;
+		this.limite = limite;
 	}
 
 	@PostMapping("/finalizar")
-	public ResponseEntity<CompraDTO> finalizarCompra(@RequestParam Long carrinhoId, @RequestParam Long clienteId)
+	public ResponseEntity<CompraDTO> finalizarCompra(@RequestParam Long carrinhoId, @RequestParam Long clienteId,
+			@RequestParam(required = false) String cotacao, HttpServletRequest request)
 	{
 		try
 		{
-			CompraDTO compraDTO = compraService.finalizarCompra(carrinhoId, clienteId);
+			limite.verificar(clienteId, limite.origem(request));
+			CompraDTO compraDTO = faixas.executar(clienteId,
+					() -> compraService.finalizarCompra(carrinhoId, clienteId, cotacao));
 			return ResponseEntity.ok(compraDTO);
 		}
 		catch (IllegalArgumentException e)
 		{
 			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new CompraDTO(false, null, e.getMessage()));
 		}
+		catch (PrazoEsgotadoException e)
+		{
+			return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(new CompraDTO(false, null, e.getMessage()));
+		}
+		catch (GatewayIndisponivelException e)
+		{
+			ResponseEntity.BodyBuilder resposta = ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE);
+			if (e.getRetryAfterSegundos() > 0)
+			{
+				resposta.header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSegundos()));
+			}
+			return resposta.body(new CompraDTO(false, null, e.getMessage()));
+		}
+		catch (CheckoutSobrecarregadoException e)
+		{
+			return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1")
+					.body(new CompraDTO(false, null, e.getMessage()));
+		}
+		catch (LimiteExcedidoException e)
+		{
+			return limiteExcedido(e).body(new CompraDTO(false, null, e.getMessage()));
+		}
 		catch (IllegalStateException e)
 		{
 			return ResponseEntity.status(HttpStatus.CONFLICT).body(new CompraDTO(false, null, e.getMessage()));
@@ -43,4 +90,107 @@ public class CompraController
 					.body(new CompraDTO(false, null, "Erro ao processar compra."));
 		}
 	}
+
+	@GetMapping("/cotacao")
+	public ResponseEntity<CotacaoDTO> cotar(@RequestParam Long carrinhoId, @RequestParam Long clienteId,
+			HttpServletRequest request)
+	{
+		try
+		{
+			limite.verificar(clienteId, limite.origem(request));
+			return ResponseEntity.ok(compraService.emitirCotacao(carrinhoId, clienteId));
+		}
+		catch (IllegalArgumentException e)
+		{
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new CotacaoDTO(carrinhoId, null, null, e.getMessage()));
+		}
+		catch (PrazoEsgotadoException e)
+		{
+			return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(new CotacaoDTO(carrinhoId, null, null, e.getMessage()));
+		}
+		catch (LimiteExcedidoException e)
+		{
+			return limiteExcedido(e).body(new CotacaoDTO(carrinhoId, null, null, e.getMessage()));
+		}
+		catch (Exception e)
+		{
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+					.body(new CotacaoDTO(carrinhoId, null, null, "Erro ao calcular cotação."));
+		}
+	}
+
+	@PostMapping("/finalizar/assincrono")
+	public ResponseEntity<PedidoAssincronoDTO> finalizarCompraAssincrona(@RequestParam Long carrinhoId,
+			@RequestParam Long clienteId, HttpServletRequest request)
+	{
+		try
+		{
+			limite.verificar(clienteId, limite.origem(request));
+			PedidoAssincrono pedido = checkoutAssincrono.enfileirar(carrinhoId, clienteId);
+			return ResponseEntity.accepted().location(URI.create("/pedidos/" + pedido.getId())).body(toDTO(pedido));
+		}
+		catch (IllegalArgumentException e)
+		{
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+					.body(new PedidoAssincronoDTO(null, null, new CompraDTO(false, null, e.getMessage())));
+		}
+		catch (CheckoutSobrecarregadoException e)
+		{
+			return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1")
+					.body(new PedidoAssincronoDTO(null, null, new CompraDTO(false, null, e.getMessage())));
+		}
+		catch (LimiteExcedidoException e)
+		{
+			return limiteExcedido(e)
+					.body(new PedidoAssincronoDTO(null, null, new CompraDTO(false, null, e.getMessage())));
+		}
+		catch (Exception e)
+		{
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+					.body(new PedidoAssincronoDTO(null, null, new CompraDTO(false, null, "Erro ao processar compra.")));
+		}
+	}
+
+	/**
+	 * Consulta um checkout assíncrono. Com {@code aguardarMs > 0}, segura a
+	 * requisição (long-polling) até o pedido terminar ou o prazo expirar.
+	 * Responde 200 com o resultado final ou 202 enquanto o pedido estiver em
+	 * andamento.
+	 */
+	@GetMapping("/pedidos/{id}")
+	public DeferredResult<ResponseEntity<PedidoAssincronoDTO>> consultarPedido(@PathVariable String id,
+			@RequestParam(defaultValue = "0") long aguardarMs)
+	{
+		PedidoAssincrono pedido = checkoutAssincrono.buscar(id).orElse(null);
+		if (pedido == null || pedido.getStatus().isFinal() || aguardarMs <= 0)
+		{
+			DeferredResult<ResponseEntity<PedidoAssincronoDTO>> imediato = new DeferredResult<>();
+			imediato.setResult(pedido == null ? ResponseEntity.notFound().build() : respostaStatus(pedido));
+			return imediato;
+		}
+
+		long limite = Math.min(aguardarMs, checkoutAssincrono.getProperties().esperaMaxima().toMillis());
+		DeferredResult<ResponseEntity<PedidoAssincronoDTO>> resultado = new DeferredResult<>(limite);
+		resultado.onTimeout(() -> resultado.setResult(respostaStatus(pedido)));
+		pedido.getResultado().whenComplete((compra, erro) -> resultado.setResult(respostaStatus(pedido)));
+		return resultado;
+	}
+
+	private static ResponseEntity.BodyBuilder limiteExcedido(LimiteExcedidoException e)
+	{
+		return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+				.header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSegundos()));
+	}
+
+	private static ResponseEntity<PedidoAssincronoDTO> respostaStatus(PedidoAssincrono pedido)
+	{
+		HttpStatus status = pedido.getStatus().isFinal() ? HttpStatus.OK : HttpStatus.ACCEPTED;
+		return ResponseEntity.status(status).body(toDTO(pedido));
+	}
+
+	private static PedidoAssincronoDTO toDTO(PedidoAssincrono pedido)
+	{
+		CompraDTO resultado = pedido.getResultado().getNow(null);
+		return new PedidoAssincronoDTO(pedido.getId(), pedido.getStatus().name(), resultado);
+	}
 }
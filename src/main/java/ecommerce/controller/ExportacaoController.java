@@ -0,0 +1,40 @@
+package ecommerce.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import ecommerce.service.ExportacaoCarrinhos;
+import ecommerce.service.FormatoExportacao;
+
+@RestController
+@RequestMapping("/exportacao")
+public class ExportacaoController
+{
+
+	private final ExportacaoCarrinhos exportacao;
+
+	@Autowired
+	public ExportacaoController(ExportacaoCarrinhos exportacao)
+	{
+		this.exportacao = exportacao;
+	}
+
+	/** Escreve a resposta à medida que lê os carrinhos, sem montá-la em memória. */
+	@GetMapping("/carrinhos")
+	public ResponseEntity<StreamingResponseBody> exportarCarrinhos(
+			@RequestParam(defaultValue = "NDJSON") FormatoExportacao formato)
+	{
+		StreamingResponseBody corpo = saida -> exportacao.exportar(formato, saida);
+		return ResponseEntity.ok()
+				.contentType(MediaType.parseMediaType(formato.getContentType()))
+				.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"carrinhos." + formato.getExtensao() + "\"")
+				.body(corpo);
+	}
+}
@@ -0,0 +1,8 @@
+package ecommerce.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public record CarrinhoExportadoDTO(Long id, Long clienteId, LocalDate data, List<LinhaExportadaDTO> itens)
+{
+}
@@ -0,0 +1,5 @@
+package ecommerce.dto;
+
+public record LinhaExportadaDTO(Long produtoId, Long quantidade)
+{
+}
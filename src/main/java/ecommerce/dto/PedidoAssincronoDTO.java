@@ -0,0 +1,5 @@
+package ecommerce.dto;
+
+public record PedidoAssincronoDTO(String id, String status, CompraDTO resultado)
+{
+}
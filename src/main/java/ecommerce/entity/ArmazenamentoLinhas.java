@@ -0,0 +1,10 @@
+package ecommerce.entity;
+
+/** Forma como as linhas de um {@link CarrinhoDeCompras} estão gravadas. */
+public enum ArmazenamentoLinhas
+{
+	/** Uma linha da tabela {@code ItemCompra} por item. */
+	ENTIDADE,
+	/** Pares (produto, quantidade) codificados na coluna {@code linhas_compactas} do carrinho. */
+	COMPACTO
+}
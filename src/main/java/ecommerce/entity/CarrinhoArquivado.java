@@ -0,0 +1,98 @@
+package ecommerce.entity;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.persistence.CollectionTable;
+import jakarta.persistence.ElementCollection;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.OrderColumn;
+import jakarta.persistence.Table;
+
+/**
+ * Carrinho movido da tabela quente pelo arquivamento por idade. Mantém o id
+ * original e as linhas nos dois formatos de armazenamento como uma linha por
+ * item, na ordem do carrinho. Só é inserido, nunca alterado.
+ */
+@Entity
+@Table(name = "carrinho_arquivado", indexes = @Index(name = "idx_carrinho_arquivado_cliente", columnList = "clienteId"))
+public class CarrinhoArquivado
+{
+
+	/** O mesmo id do {@link CarrinhoDeCompras} arquivado. */
+	@Id
+	private Long id;
+
+	private Long clienteId;
+
+	private LocalDate data;
+
+	@ElementCollection
+	@CollectionTable(name = "carrinho_arquivado_item", joinColumns = @JoinColumn(name = "carrinho_id"))
+	@OrderColumn(name = "posicao")
+	private List<ItemArquivado> itens = new ArrayList<>();
+
+	private Instant arquivadoEm;
+
+	public CarrinhoArquivado()
+	{
+	}
+
+	/** Copia o carrinho e as linhas, em qualquer dos formatos de armazenamento. */
+	public static CarrinhoArquivado de(CarrinhoDeCompras carrinho, Instant arquivadoEm)
+	{
+		CarrinhoArquivado arquivado = new CarrinhoArquivado();
+		arquivado.id = carrinho.getId();
+		arquivado.clienteId = carrinho.getCliente() == null ? null : carrinho.getCliente().getId();
+		arquivado.data = carrinho.getData();
+		arquivado.arquivadoEm = arquivadoEm;
+		if (carrinho.isCompacto())
+		{
+			LinhasCompactas linhas = carrinho.getLinhasCompactas();
+			for (int i = 0; linhas != null && i < linhas.tamanho(); i++)
+			{
+				arquivado.itens.add(new ItemArquivado(linhas.produtoId(i), linhas.quantidade(i)));
+			}
+		}
+		else
+		{
+			for (ItemCompra item : carrinho.getItens())
+			{
+				arquivado.itens.add(new ItemArquivado(item.getProduto() == null ? null : item.getProduto().getId(),
+						item.getQuantidade()));
+			}
+		}
+		return arquivado;
+	}
+
+	// Getters
+	public Long getId()
+	{
+		return id;
+	}
+
+	public Long getClienteId()
+	{
+		return clienteId;
+	}
+
+	public LocalDate getData()
+	{
+		return data;
+	}
+
+	public List<ItemArquivado> getItens()
+	{
+		return itens;
+	}
+
+	public Instant getArquivadoEm()
+	{
+		return arquivadoEm;
+	}
+}
@@ -2,23 +2,40 @@ package ecommerce.entity;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.OptimisticLock;
+
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 @Entity
+@Table(indexes = {
+		@Index(name = "idx_carrinho_cliente", columnList = "cliente_id"),
+		@Index(name = "idx_carrinho_data", columnList = "data") })
 public class CarrinhoDeCompras
 {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "carrinho_seq")
+	@SequenceGenerator(name = "carrinho_seq", sequenceName = "carrinho_seq", allocationSize = 50)
 	private Long id;
 
 	@ManyToOne // Um cliente pode ter vários carrinhos
@@ -26,11 +43,41 @@ public class CarrinhoDeCompras
 	private Cliente cliente;
 
 	@OneToMany(cascade = CascadeType.ALL, orphanRemoval = true) // Um carrinho tem vários itens
-	@JoinColumn(name = "carrinho_id") // Mapeamento de chave estrangeira na tabela ItemCompra
+	@BatchSize(size = 100) // Ao percorrer vários carrinhos, carrega os itens de até 100 numa consulta
+	@JoinColumn(name = "carrinho_id", nullable = false) // FK gravada no próprio INSERT do ItemCompra, sem UPDATE posterior
+	@OptimisticLock(excluded = true) // A versão sobe uma vez por alteração, em incrementarVersao
 	private List<ItemCompra> itens = new ArrayList<>();
 
 	private LocalDate data;
 
+	/**
+	 * Dia da última alteração das linhas, gravado junto com o incremento da
+	 * versão (ver {@code CarrinhoDeComprasRepository.tocar}). Nulo se o
+	 * carrinho nunca foi alterado depois de criado.
+	 */
+	@Column(name = "alterado_em")
+	@OptimisticLock(excluded = true)
+	private LocalDate alteradoEm;
+
+	/** Em {@link ArmazenamentoLinhas#COMPACTO}, as linhas ficam em {@code linhasCompactas} e {@code itens} fica vazio. */
+	@Enumerated(EnumType.STRING)
+	private ArmazenamentoLinhas armazenamento = ArmazenamentoLinhas.ENTIDADE;
+
+	@Convert(converter = LinhasCompactasConverter.class)
+	@Column(name = "linhas_compactas", length = 1_048_576)
+	@OptimisticLock(excluded = true)
+	private LinhasCompactas linhasCompactas;
+
+	/**
+	 * Controle de concorrência otimista. Mudanças nas linhas não versionam o
+	 * carrinho por si: quem as altera incrementa a versão uma vez por
+	 * alteração (ver {@code CarrinhoDeComprasRepository.incrementarVersao}),
+	 * mesmo quando só um {@code ItemCompra} muda.
+	 */
+	@Version
+	@ColumnDefault("0")
+	private Long versao;
+
 	public CarrinhoDeCompras()
 	{
 	}
@@ -83,4 +130,137 @@ public class CarrinhoDeCompras
 	{
 		this.data = data;
 	}
+
+	public LocalDate getAlteradoEm()
+	{
+		return alteradoEm;
+	}
+
+	/** Dia da última alteração ou, se nunca alterado, o da criação: a idade do carrinho. */
+	public LocalDate getUltimaAlteracao()
+	{
+		return alteradoEm != null ? alteradoEm : data;
+	}
+
+	public ArmazenamentoLinhas getArmazenamento()
+	{
+		return armazenamento;
+	}
+
+	public void setArmazenamento(ArmazenamentoLinhas armazenamento)
+	{
+		this.armazenamento = armazenamento;
+	}
+
+	public LinhasCompactas getLinhasCompactas()
+	{
+		return linhasCompactas;
+	}
+
+	public void setLinhasCompactas(LinhasCompactas linhasCompactas)
+	{
+		this.linhasCompactas = linhasCompactas;
+	}
+
+	public Long getVersao()
+	{
+		return versao;
+	}
+
+	public boolean isCompacto()
+	{
+		return armazenamento == ArmazenamentoLinhas.COMPACTO;
+	}
+
+	/** Soma {@code quantidade} à linha do produto, criando-a se ele ainda não estiver no carrinho. */
+	public void adicionarItem(Produto produto, long quantidade)
+	{
+		if (isCompacto())
+		{
+			linhasCompactas = linhas().somar(produto.getId(), quantidade);
+			return;
+		}
+		for (ItemCompra item : itens)
+		{
+			if (mesmoProduto(item, produto.getId()))
+			{
+				item.setQuantidade(item.getQuantidade() == null ? quantidade : item.getQuantidade() + quantidade);
+				return;
+			}
+		}
+		itens.add(new ItemCompra(null, produto, quantidade));
+	}
+
+	/**
+	 * Define a quantidade do produto; linhas duplicadas dele são descartadas.
+	 *
+	 * @throws IllegalArgumentException se o produto não estiver no carrinho
+	 */
+	public void alterarQuantidade(Long produtoId, long quantidade)
+	{
+		if (isCompacto())
+		{
+			linhasCompactas = linhas().comQuantidade(produtoId, quantidade);
+			return;
+		}
+		ItemCompra primeiro = null;
+		for (Iterator<ItemCompra> it = itens.iterator(); it.hasNext();)
+		{
+			ItemCompra item = it.next();
+			if (!mesmoProduto(item, produtoId))
+			{
+				continue;
+			}
+			if (primeiro == null)
+			{
+				primeiro = item;
+				item.setQuantidade(quantidade);
+			}
+			else
+			{
+				it.remove();
+			}
+		}
+		if (primeiro == null)
+		{
+			throw new IllegalArgumentException("Item não encontrado no carrinho.");
+		}
+	}
+
+	/** @throws IllegalArgumentException se o produto não estiver no carrinho */
+	public void removerItem(Long produtoId)
+	{
+		if (isCompacto())
+		{
+			linhasCompactas = linhas().sem(produtoId);
+			return;
+		}
+		if (!itens.removeIf(item -> mesmoProduto(item, produtoId)))
+		{
+			throw new IllegalArgumentException("Item não encontrado no carrinho.");
+		}
+	}
+
+	private LinhasCompactas linhas()
+	{
+		return linhasCompactas == null ? LinhasCompactas.VAZIAS : linhasCompactas;
+	}
+
+	private static boolean mesmoProduto(ItemCompra item, Long produtoId)
+	{
+		return item.getProduto() != null && produtoId.equals(item.getProduto().getId());
+	}
+
+	/**
+	 * Move os itens para a coluna compacta; as linhas de {@code ItemCompra} são
+	 * removidas no flush (orphanRemoval).
+	 *
+	 * @throws IllegalStateException se algum item não puder ser compactado
+	 */
+	public void compactarLinhas()
+	{
+		linhasCompactas = LinhasCompactas.de(itens);
+		itens.clear();
+		armazenamento = ArmazenamentoLinhas.COMPACTO;
+	}
 }
@@ -0,0 +1,72 @@
+package ecommerce.entity;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+
+/** Combinação de dimensões de um {@link VendaAgregada}. */
+@Embeddable
+public class ChaveVendaAgregada implements Serializable
+{
+
+	private static final long serialVersionUID = 1L;
+
+	@Enumerated(EnumType.STRING)
+	private Regiao regiao;
+
+	@Enumerated(EnumType.STRING)
+	private TipoCliente tipoCliente;
+
+	@Enumerated(EnumType.STRING)
+	private TipoProduto tipoProduto;
+
+	public ChaveVendaAgregada()
+	{
+	}
+
+	public ChaveVendaAgregada(Regiao regiao, TipoCliente tipoCliente, TipoProduto tipoProduto)
+	{
+		this.regiao = regiao;
+		this.tipoCliente = tipoCliente;
+		this.tipoProduto = tipoProduto;
+	}
+
+	// Getters
+	public Regiao getRegiao()
+	{
+		return regiao;
+	}
+
+	public TipoCliente getTipoCliente()
+	{
+		return tipoCliente;
+	}
+
+	public TipoProduto getTipoProduto()
+	{
+		return tipoProduto;
+	}
+
+	@Override
+	public boolean equals(Object o)
+	{
+		if (this == o)
+		{
+			return true;
+		}
+		if (!(o instanceof ChaveVendaAgregada outra))
+		{
+			return false;
+		}
+		return regiao == outra.regiao && tipoCliente == outra.tipoCliente && tipoProduto == outra.tipoProduto;
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return Objects.hash(regiao, tipoCliente, tipoProduto);
+	}
+}
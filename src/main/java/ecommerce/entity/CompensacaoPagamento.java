@@ -0,0 +1,161 @@
+package ecommerce.entity;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Cancelamento de pagamento pendente (outbox). Gravado quando a baixa no
+ * estoque falha após a autorização e executado depois pelo
+ * {@code DespachanteCompensacoes}.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_compensacao_status_proxima", columnList = "status, proximaTentativa"))
+public class CompensacaoPagamento
+{
+
+	public static final int TAMANHO_ULTIMO_ERRO = 500;
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	private Long clienteId;
+
+	private Long transacaoId;
+
+	@Enumerated(EnumType.STRING)
+	private StatusCompensacao status;
+
+	private int tentativas;
+
+	/** Momento a partir do qual o despachante pode (re)tentar o cancelamento. */
+	private Instant proximaTentativa;
+
+	/** Mensagem da última falha, cortada em {@link #TAMANHO_ULTIMO_ERRO} caracteres. */
+	@Column(length = TAMANHO_ULTIMO_ERRO)
+	private String ultimoErro;
+
+	private Instant criadaEm;
+
+	public CompensacaoPagamento()
+	{
+	}
+
+	public CompensacaoPagamento(Long clienteId, Long transacaoId, Instant agora)
+	{
+		this.clienteId = clienteId;
+		this.transacaoId = transacaoId;
+		this.status = StatusCompensacao.PENDENTE;
+		this.proximaTentativa = agora;
+		this.criadaEm = agora;
+	}
+
+	public void concluir()
+	{
+		this.tentativas++;
+		this.status = StatusCompensacao.CONCLUIDA;
+		this.ultimoErro = null;
+	}
+
+	public void registrarFalha(String erro, Instant proximaTentativa, int maximoTentativas)
+	{
+		this.tentativas++;
+		this.ultimoErro = erro == null || erro.length() <= TAMANHO_ULTIMO_ERRO ? erro
+				: erro.substring(0, TAMANHO_ULTIMO_ERRO);
+		this.proximaTentativa = proximaTentativa;
+		if (tentativas >= maximoTentativas)
+		{
+			this.status = StatusCompensacao.FALHOU;
+		}
+	}
+
+	// Getters e Setters
+	public Long getId()
+	{
+		return id;
+	}
+
+	public void setId(Long id)
+	{
+		this.id = id;
+	}
+
+	public Long getClienteId()
+	{
+		return clienteId;
+	}
+
+	public void setClienteId(Long clienteId)
+	{
+		this.clienteId = clienteId;
+	}
+
+	public Long getTransacaoId()
+	{
+		return transacaoId;
+	}
+
+	public void setTransacaoId(Long transacaoId)
+	{
+		this.transacaoId = transacaoId;
+	}
+
+	public StatusCompensacao getStatus()
+	{
+		return status;
+	}
+
+	public void setStatus(StatusCompensacao status)
+	{
+		this.status = status;
+	}
+
+	public int getTentativas()
+	{
+		return tentativas;
+	}
+
+	public void setTentativas(int tentativas)
+	{
+		this.tentativas = tentativas;
+	}
+
+	public Instant getProximaTentativa()
+	{
+		return proximaTentativa;
+	}
+
+	public void setProximaTentativa(Instant proximaTentativa)
+	{
+		this.proximaTentativa = proximaTentativa;
+	}
+
+	public String getUltimoErro()
+	{
+		return ultimoErro;
+	}
+
+	public void setUltimoErro(String ultimoErro)
+	{
+		this.ultimoErro = ultimoErro;
+	}
+
+	public Instant getCriadaEm()
+	{
+		return criadaEm;
+	}
+
+	public void setCriadaEm(Instant criadaEm)
+	{
+		this.criadaEm = criadaEm;
+	}
+}
@@ -0,0 +1,44 @@
+package ecommerce.entity;
+
+import jakarta.persistence.Embeddable;
+
+/** Linha de um carrinho arquivado, só com o id do produto e a quantidade. */
+@Embeddable
+public class ItemArquivado
+{
+
+	private Long produtoId;
+
+	private Long quantidade;
+
+	public ItemArquivado()
+	{
+	}
+
+	public ItemArquivado(Long produtoId, Long quantidade)
+	{
+		this.produtoId = produtoId;
+		this.quantidade = quantidade;
+	}
+
+	// Getters e Setters
+	public Long getProdutoId()
+	{
+		return produtoId;
+	}
+
+	public void setProdutoId(Long produtoId)
+	{
+		this.produtoId = produtoId;
+	}
+
+	public Long getQuantidade()
+	{
+		return quantidade;
+	}
+
+	public void setQuantidade(Long quantidade)
+	{
+		this.quantidade = quantidade;
+	}
+}
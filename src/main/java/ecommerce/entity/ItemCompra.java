@@ -1,18 +1,27 @@
 package ecommerce.entity;
 
+import ecommerce.precificacao.ItemPrecificavel;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
 
 @Entity
-public class ItemCompra
+@Table(indexes = {
+		// carrinho_id é mapeada pela coleção itens de CarrinhoDeCompras
+		@Index(name = "idx_item_compra_carrinho", columnList = "carrinho_id"),
+		@Index(name = "idx_item_compra_produto", columnList = "produto_id") })
+public class ItemCompra implements ItemPrecificavel
 {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "item_compra_seq")
+	@SequenceGenerator(name = "item_compra_seq", sequenceName = "item_compra_seq", allocationSize = 50)
 	private Long id;
 
 	@ManyToOne // Vários itens podem se referir ao mesmo produto
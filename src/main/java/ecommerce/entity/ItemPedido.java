@@ -0,0 +1,59 @@
+package ecommerce.entity;
+
+import java.math.BigDecimal;
+
+import jakarta.persistence.Embeddable;
+
+/** Linha do pedido como estava no carrinho no momento da compra. */
+@Embeddable
+public class ItemPedido
+{
+
+	private Long produtoId;
+
+	private Long quantidade;
+
+	private BigDecimal precoUnitario;
+
+	public ItemPedido()
+	{
+	}
+
+	public ItemPedido(Long produtoId, Long quantidade, BigDecimal precoUnitario)
+	{
+		this.produtoId = produtoId;
+		this.quantidade = quantidade;
+		this.precoUnitario = precoUnitario;
+	}
+
+	// Getters e Setters
+	public Long getProdutoId()
+	{
+		return produtoId;
+	}
+
+	public void setProdutoId(Long produtoId)
+	{
+		this.produtoId = produtoId;
+	}
+
+	public Long getQuantidade()
+	{
+		return quantidade;
+	}
+
+	public void setQuantidade(Long quantidade)
+	{
+		this.quantidade = quantidade;
+	}
+
+	public BigDecimal getPrecoUnitario()
+	{
+		return precoUnitario;
+	}
+
+	public void setPrecoUnitario(BigDecimal precoUnitario)
+	{
+		this.precoUnitario = precoUnitario;
+	}
+}
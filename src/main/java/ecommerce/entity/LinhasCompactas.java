@@ -0,0 +1,231 @@
+package ecommerce.entity;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Linhas de carrinho como dois vetores paralelos (id do produto, quantidade),
+ * na ordem em que foram incluídas. Imutável: alterações geram uma nova
+ * instância, o que basta para o dirty checking do Hibernate.
+ * <p>
+ * Formato gravado: um byte de versão, a quantidade de linhas e, para cada
+ * linha, a diferença do id do produto para o da linha anterior e a
+ * quantidade, todos em varint com zigzag. Linhas de um mesmo catálogo ocupam
+ * em geral 2 a 4 bytes.
+ */
+public final class LinhasCompactas
+{
+
+	public static final LinhasCompactas VAZIAS = new LinhasCompactas(new long[0], new long[0]);
+
+	private static final int VERSAO = 1;
+
+	private final long[] produtoIds;
+	private final long[] quantidades;
+
+	public LinhasCompactas(long[] produtoIds, long[] quantidades)
+	{
+		if (produtoIds.length != quantidades.length)
+		{
+			throw new IllegalArgumentException("Ids e quantidades devem ter o mesmo tamanho");
+		}
+		this.produtoIds = produtoIds.clone();
+		this.quantidades = quantidades.clone();
+	}
+
+	/**
+	 * @throws IllegalStateException se algum item não tiver produto persistido
+	 *                               ou quantidade, que o formato não representa
+	 */
+	public static LinhasCompactas de(List<ItemCompra> itens)
+	{
+		long[] ids = new long[itens.size()];
+		long[] qts = new long[itens.size()];
+		for (int i = 0; i < ids.length; i++)
+		{
+			ItemCompra item = itens.get(i);
+			if (item.getProduto() == null || item.getProduto().getId() == null || item.getQuantidade() == null)
+			{
+				throw new IllegalStateException("Item sem produto ou quantidade não pode ser compactado");
+			}
+			ids[i] = item.getProduto().getId();
+			qts[i] = item.getQuantidade();
+		}
+		return new LinhasCompactas(ids, qts);
+	}
+
+	public int tamanho()
+	{
+		return produtoIds.length;
+	}
+
+	public long produtoId(int indice)
+	{
+		return produtoIds[indice];
+	}
+
+	public long quantidade(int indice)
+	{
+		return quantidades[indice];
+	}
+
+	public long[] produtoIds()
+	{
+		return produtoIds.clone();
+	}
+
+	/** Soma {@code quantidade} à primeira linha do produto ou acrescenta uma linha no fim. */
+	public LinhasCompactas somar(long produtoId, long quantidade)
+	{
+		for (int i = 0; i < produtoIds.length; i++)
+		{
+			if (produtoIds[i] == produtoId)
+			{
+				long[] qts = quantidades.clone();
+				qts[i] += quantidade;
+				return new LinhasCompactas(produtoIds, qts);
+			}
+		}
+		long[] ids = Arrays.copyOf(produtoIds, produtoIds.length + 1);
+		long[] qts = Arrays.copyOf(quantidades, quantidades.length + 1);
+		ids[ids.length - 1] = produtoId;
+		qts[qts.length - 1] = quantidade;
+		return new LinhasCompactas(ids, qts);
+	}
+
+	/**
+	 * Define a quantidade do produto na primeira linha dele e descarta as
+	 * demais linhas do mesmo produto.
+	 *
+	 * @throws IllegalArgumentException se o produto não estiver nas linhas
+	 */
+	public LinhasCompactas comQuantidade(long produtoId, long quantidade)
+	{
+		return substituir(produtoId, quantidade);
+	}
+
+	/** @throws IllegalArgumentException se o produto não estiver nas linhas */
+	public LinhasCompactas sem(long produtoId)
+	{
+		return substituir(produtoId, -1L);
+	}
+
+	/** Com {@code quantidade} negativa, remove todas as linhas do produto. */
+	private LinhasCompactas substituir(long produtoId, long quantidade)
+	{
+		long[] ids = new long[produtoIds.length];
+		long[] qts = new long[produtoIds.length];
+		int tamanho = 0;
+		boolean encontrado = false;
+		for (int i = 0; i < produtoIds.length; i++)
+		{
+			if (produtoIds[i] != produtoId)
+			{
+				ids[tamanho] = produtoIds[i];
+				qts[tamanho++] = quantidades[i];
+			}
+			else if (!encontrado)
+			{
+				encontrado = true;
+				if (quantidade >= 0)
+				{
+					ids[tamanho] = produtoId;
+					qts[tamanho++] = quantidade;
+				}
+			}
+		}
+		if (!encontrado)
+		{
+			throw new IllegalArgumentException("Item não encontrado no carrinho.");
+		}
+		return new LinhasCompactas(Arrays.copyOf(ids, tamanho), Arrays.copyOf(qts, tamanho));
+	}
+
+	public byte[] codificar()
+	{
+		ByteArrayOutputStream saida = new ByteArrayOutputStream(2 + produtoIds.length * 4);
+		saida.write(VERSAO);
+		escreverVarint(saida, produtoIds.length);
+		long anterior = 0L;
+		for (int i = 0; i < produtoIds.length; i++)
+		{
+			escreverVarint(saida, zigzag(produtoIds[i] - anterior));
+			escreverVarint(saida, zigzag(quantidades[i]));
+			anterior = produtoIds[i];
+		}
+		return saida.toByteArray();
+	}
+
+	public static LinhasCompactas decodificar(byte[] dados)
+	{
+		if (dados.length == 0 || dados[0] != VERSAO)
+		{
+			throw new IllegalArgumentException("Formato de linhas compactas desconhecido");
+		}
+		int[] posicao = { 1 };
+		int tamanho = Math.toIntExact(lerVarint(dados, posicao));
+		long[] ids = new long[tamanho];
+		long[] qts = new long[tamanho];
+		long anterior = 0L;
+		for (int i = 0; i < tamanho; i++)
+		{
+			anterior += deszigzag(lerVarint(dados, posicao));
+			ids[i] = anterior;
+			qts[i] = deszigzag(lerVarint(dados, posicao));
+		}
+		return new LinhasCompactas(ids, qts);
+	}
+
+	private static long zigzag(long valor)
+	{
+		return (valor << 1) ^ (valor >> 63);
+	}
+
+	private static long deszigzag(long valor)
+	{
+		return (valor >>> 1) ^ -(valor & 1L);
+	}
+
+	private static void escreverVarint(ByteArrayOutputStream saida, long valor)
+	{
+		while ((valor & ~0x7FL) != 0L)
+		{
+			saida.write((int) ((valor & 0x7F) | 0x80));
+			valor >>>= 7;
+		}
+		saida.write((int) valor);
+	}
+
+	private static long lerVarint(byte[] dados, int[] posicao)
+	{
+		long valor = 0L;
+		for (int deslocamento = 0; deslocamento < 64; deslocamento += 7)
+		{
+			if (posicao[0] >= dados.length)
+			{
+				throw new IllegalArgumentException("Linhas compactas truncadas");
+			}
+			byte b = dados[posicao[0]++];
+			valor |= (long) (b & 0x7F) << deslocamento;
+			if ((b & 0x80) == 0)
+			{
+				return valor;
+			}
+		}
+		throw new IllegalArgumentException("Varint inválido nas linhas compactas");
+	}
+
+	@Override
+	public boolean equals(Object o)
+	{
+		return o instanceof LinhasCompactas outras && Arrays.equals(produtoIds, outras.produtoIds)
+				&& Arrays.equals(quantidades, outras.quantidades);
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return 31 * Arrays.hashCode(produtoIds) + Arrays.hashCode(quantidades);
+	}
+}
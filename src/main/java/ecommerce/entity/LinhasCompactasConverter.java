@@ -0,0 +1,21 @@
+package ecommerce.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+@Converter
+public class LinhasCompactasConverter implements AttributeConverter<LinhasCompactas, byte[]>
+{
+
+	@Override
+	public byte[] convertToDatabaseColumn(LinhasCompactas linhas)
+	{
+		return linhas == null ? null : linhas.codificar();
+	}
+
+	@Override
+	public LinhasCompactas convertToEntityAttribute(byte[] dados)
+	{
+		return dados == null ? null : LinhasCompactas.decodificar(dados);
+	}
+}
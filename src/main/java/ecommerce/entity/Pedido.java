@@ -0,0 +1,213 @@
+package ecommerce.entity;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.persistence.CollectionTable;
+import jakarta.persistence.ElementCollection;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+
+/**
+ * Registro de um checkout com pagamento autorizado: o carrinho como estava,
+ * a composição do preço cobrado e a transação de pagamento. Só é inserido,
+ * nunca alterado.
+ */
+@Entity
+@Table(indexes = {
+		@Index(name = "idx_pedido_cliente", columnList = "clienteId"),
+		@Index(name = "idx_pedido_transacao", columnList = "transacaoId") })
+public class Pedido
+{
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pedido_seq")
+	@SequenceGenerator(name = "pedido_seq", sequenceName = "pedido_seq", allocationSize = 50)
+	private Long id;
+
+	private Long carrinhoId;
+
+	private Long clienteId;
+
+	private Long transacaoId;
+
+	@Enumerated(EnumType.STRING)
+	private StatusPedido status;
+
+	@Enumerated(EnumType.STRING)
+	private Regiao regiao;
+
+	@Enumerated(EnumType.STRING)
+	private TipoCliente tipoCliente;
+
+	private BigDecimal subtotal;
+
+	private BigDecimal descontoTipo;
+
+	private BigDecimal descontoValor;
+
+	private BigDecimal frete;
+
+	private BigDecimal total;
+
+	@ElementCollection
+	@CollectionTable(name = "pedido_item", joinColumns = @JoinColumn(name = "pedido_id"))
+	private List<ItemPedido> itens = new ArrayList<>();
+
+	private Instant criadoEm;
+
+	public Pedido()
+	{
+	}
+
+	// Getters e Setters
+	public Long getId()
+	{
+		return id;
+	}
+
+	public void setId(Long id)
+	{
+		this.id = id;
+	}
+
+	public Long getCarrinhoId()
+	{
+		return carrinhoId;
+	}
+
+	public void setCarrinhoId(Long carrinhoId)
+	{
+		this.carrinhoId = carrinhoId;
+	}
+
+	public Long getClienteId()
+	{
+		return clienteId;
+	}
+
+	public void setClienteId(Long clienteId)
+	{
+		this.clienteId = clienteId;
+	}
+
+	public Long getTransacaoId()
+	{
+		return transacaoId;
+	}
+
+	public void setTransacaoId(Long transacaoId)
+	{
+		this.transacaoId = transacaoId;
+	}
+
+	public StatusPedido getStatus()
+	{
+		return status;
+	}
+
+	public void setStatus(StatusPedido status)
+	{
+		this.status = status;
+	}
+
+	public Regiao getRegiao()
+	{
+		return regiao;
+	}
+
+	public void setRegiao(Regiao regiao)
+	{
+		this.regiao = regiao;
+	}
+
+	public TipoCliente getTipoCliente()
+	{
+		return tipoCliente;
+	}
+
+	public void setTipoCliente(TipoCliente tipoCliente)
+	{
+		this.tipoCliente = tipoCliente;
+	}
+
+	public BigDecimal getSubtotal()
+	{
+		return subtotal;
+	}
+
+	public void setSubtotal(BigDecimal subtotal)
+	{
+		this.subtotal = subtotal;
+	}
+
+	public BigDecimal getDescontoTipo()
+	{
+		return descontoTipo;
+	}
+
+	public void setDescontoTipo(BigDecimal descontoTipo)
+	{
+		this.descontoTipo = descontoTipo;
+	}
+
+	public BigDecimal getDescontoValor()
+	{
+		return descontoValor;
+	}
+
+	public void setDescontoValor(BigDecimal descontoValor)
+	{
+		this.descontoValor = descontoValor;
+	}
+
+	public BigDecimal getFrete()
+	{
+		return frete;
+	}
+
+	public void setFrete(BigDecimal frete)
+	{
+		this.frete = frete;
+	}
+
+	public BigDecimal getTotal()
+	{
+		return total;
+	}
+
+	public void setTotal(BigDecimal total)
+	{
+		this.total = total;
+	}
+
+	public List<ItemPedido> getItens()
+	{
+		return itens;
+	}
+
+	public void setItens(List<ItemPedido> itens)
+	{
+		this.itens = itens;
+	}
+
+	public Instant getCriadoEm()
+	{
+		return criadoEm;
+	}
+
+	public void setCriadoEm(Instant criadoEm)
+	{
+		this.criadoEm = criadoEm;
+	}
+}
@@ -1,20 +1,35 @@
 package ecommerce.entity;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import ecommerce.precificacao.ProdutoPrecificavel;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 @Entity
-public class Produto
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "produto")
+@Table(indexes = @Index(name = "idx_produto_atualizado_em", columnList = "atualizadoEm"))
+public class Produto implements ProdutoPrecificavel
 {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "produto_seq")
+	@SequenceGenerator(name = "produto_seq", sequenceName = "produto_seq", allocationSize = 50)
 	private Long id;
 
 	private String nome;
@@ -38,6 +53,13 @@ public class Produto
 	@Enumerated(EnumType.STRING)
 	private TipoProduto tipo;
 
+	@Version
+	private Long versao;
+
+	/** Última gravação; base da atualização incremental do catálogo de preços. */
+	@UpdateTimestamp
+	private Instant atualizadoEm;
+
 	public Produto()
 	{
 	}
@@ -157,4 +179,14 @@ public class Produto
 	{
 		this.tipo = tipo;
 	}
+
+	public Long getVersao()
+	{
+		return versao;
+	}
+
+	public Instant getAtualizadoEm()
+	{
+		return atualizadoEm;
+	}
 }
\ No newline at end of file
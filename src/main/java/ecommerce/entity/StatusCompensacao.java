@@ -0,0 +1,6 @@
+package ecommerce.entity;
+
+public enum StatusCompensacao
+{
+	PENDENTE, CONCLUIDA, FALHOU
+}
@@ -0,0 +1,9 @@
+package ecommerce.entity;
+
+public enum StatusPedido
+{
+	/** Pagamento autorizado e baixa no estoque feita. */
+	CONCLUIDO,
+	/** Pagamento autorizado, mas a baixa falhou e o cancelamento foi agendado. */
+	ESTORNADO
+}
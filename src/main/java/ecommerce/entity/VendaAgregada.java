@@ -0,0 +1,62 @@
+package ecommerce.entity;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+
+/**
+ * Totais de vendas concluídas de uma combinação de região, tipo de cliente e
+ * tipo de produto, acumulados desde o início. Cada instância soma aqui o que
+ * vendeu desde a sua gravação anterior.
+ */
+@Entity
+@Table(name = "venda_agregada")
+public class VendaAgregada
+{
+
+	@EmbeddedId
+	private ChaveVendaAgregada chave;
+
+	private long unidades;
+
+	/** Subtotal cobrado pelas linhas, antes dos descontos e do frete. */
+	private BigDecimal receita;
+
+	private Instant atualizadoEm;
+
+	public VendaAgregada()
+	{
+	}
+
+	public VendaAgregada(ChaveVendaAgregada chave, long unidades, BigDecimal receita, Instant atualizadoEm)
+	{
+		this.chave = chave;
+		this.unidades = unidades;
+		this.receita = receita;
+		this.atualizadoEm = atualizadoEm;
+	}
+
+	// Getters
+	public ChaveVendaAgregada getChave()
+	{
+		return chave;
+	}
+
+	public long getUnidades()
+	{
+		return unidades;
+	}
+
+	public BigDecimal getReceita()
+	{
+		return receita;
+	}
+
+	public Instant getAtualizadoEm()
+	{
+		return atualizadoEm;
+	}
+}
@@ -0,0 +1,245 @@
+package ecommerce.eventos;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import ecommerce.config.EventosCheckoutProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Anel de eventos do checkout: um vetor de {@link EventoCheckout} alocado uma
+ * vez, com uma thread por {@link ConsumidorEventosCheckout}. Publicar é
+ * reservar a próxima sequência com um CAS, reescrever a posição e marcá-la
+ * como publicada; não há alocação, trava nem espera pelo consumidor.
+ * <p>
+ * Cada consumidor anda com a própria sequência e recebe todos os eventos na
+ * ordem. Quando o mais lento está uma volta inteira atrás, a publicação segue
+ * a {@link PoliticaAnelCheio}: descarta na hora ou gira por no máximo
+ * {@code esperaMaximaPublicacao} antes de descartar. Eventos pendentes no
+ * desligamento são entregues até {@code esperaDesligamento}.
+ * <p>
+ * Métricas: {@code checkout.eventos.publicados},
+ * {@code checkout.eventos.descartados}, {@code checkout.eventos.pendentes}
+ * (eventos ainda não vistos pelo consumidor mais lento) e
+ * {@code checkout.eventos.falhas} por consumidor.
+ */
+@Component
+@EnableConfigurationProperties(EventosCheckoutProperties.class)
+public class AnelEventosCheckout implements PublicadorEventosCheckout, DisposableBean
+{
+
+	private static final Logger LOG = LoggerFactory.getLogger(AnelEventosCheckout.class);
+
+	private final EventoCheckout[] eventos;
+	// sequência publicada em cada posição; o consumidor só lê a posição quando ela bate com a esperada
+	private final AtomicLongArray publicados;
+	private final int mascara;
+	private final AtomicLong cursor = new AtomicLong(-1L);
+	private final EventosCheckoutProperties properties;
+	private final List<Processador> processadores = new ArrayList<>();
+	private final Counter descartados;
+
+	// menor sequência já consumida por todos, da última vez que foi calculada; só cresce
+	private volatile long consumidoPorTodos = -1L;
+	private volatile boolean encerrando;
+
+	@Autowired
+	public AnelEventosCheckout(EventosCheckoutProperties properties, ObjectProvider<ConsumidorEventosCheckout> consumidores,
+			MeterRegistry registry)
+	{
+		this(properties, consumidores.orderedStream().toList(), registry);
+	}
+
+	public AnelEventosCheckout(EventosCheckoutProperties properties, List<ConsumidorEventosCheckout> consumidores,
+			MeterRegistry registry)
+	{
+		int capacidade = properties.capacidade();
+		if (capacidade <= 0 || Integer.bitCount(capacidade) != 1)
+		{
+			throw new IllegalArgumentException("Capacidade do anel deve ser uma potência de 2");
+		}
+		this.properties = properties;
+		this.eventos = new EventoCheckout[capacidade];
+		for (int i = 0; i < capacidade; i++)
+		{
+			eventos[i] = new EventoCheckout();
+		}
+		this.publicados = new AtomicLongArray(capacidade);
+		for (int i = 0; i < capacidade; i++)
+		{
+			publicados.set(i, -1L);
+		}
+		this.mascara = capacidade - 1;
+
+		FunctionCounter.builder("checkout.eventos.publicados", cursor, c -> c.get() + 1).register(registry);
+		this.descartados = Counter.builder("checkout.eventos.descartados").register(registry);
+		Gauge.builder("checkout.eventos.pendentes", this, a -> a.cursor.get() - a.menorConsumida(a.cursor.get()))
+				.register(registry);
+
+		for (ConsumidorEventosCheckout consumidor : consumidores)
+		{
+			String nome = consumidor.getClass().getSimpleName();
+			processadores.add(new Processador(consumidor, nome,
+					Counter.builder("checkout.eventos.falhas").tag("consumidor", nome).register(registry)));
+		}
+		for (Processador processador : processadores)
+		{
+			processador.thread.start();
+		}
+	}
+
+	@Override
+	public boolean publicar(TipoEventoCheckout tipo, Long carrinhoId, Long clienteId, Long transacaoId,
+			BigDecimal total)
+	{
+		long sequencia = reservar();
+		if (sequencia < 0)
+		{
+			descartados.increment();
+			return false;
+		}
+		int indice = (int) (sequencia & mascara);
+		eventos[indice].preencher(sequencia, tipo, carrinhoId, clienteId, transacaoId, total,
+				System.currentTimeMillis());
+		publicados.lazySet(indice, sequencia);
+		return true;
+	}
+
+	/** @return a sequência reservada, ou -1 se o anel continuar cheio */
+	private long reservar()
+	{
+		long prazo = 0L;
+		while (true)
+		{
+			long atual = cursor.get();
+			long proxima = atual + 1;
+			// a posição de proxima ainda guarda o evento de uma volta atrás
+			long volta = proxima - eventos.length;
+			if (volta > consumidoPorTodos)
+			{
+				long consumida = menorConsumida(atual);
+				consumidoPorTodos = consumida;
+				if (volta > consumida)
+				{
+					if (encerrando || properties.politica() == PoliticaAnelCheio.DESCARTAR)
+					{
+						return -1L;
+					}
+					long agora = System.nanoTime();
+					if (prazo == 0L)
+					{
+						prazo = agora + properties.esperaMaximaPublicacao().toNanos();
+					}
+					else if (agora - prazo >= 0)
+					{
+						return -1L;
+					}
+					Thread.onSpinWait();
+					continue;
+				}
+			}
+			if (cursor.compareAndSet(atual, proxima))
+			{
+				return proxima;
+			}
+		}
+	}
+
+	/** Sem consumidores, tudo até {@code padrao} conta como consumido. */
+	private long menorConsumida(long padrao)
+	{
+		long menor = padrao;
+		for (Processador processador : processadores)
+		{
+			menor = Math.min(menor, processador.sequencia.get());
+		}
+		return menor;
+	}
+
+	@Override
+	public void destroy() throws InterruptedException
+	{
+		encerrando = true;
+		long prazo = System.nanoTime() + properties.esperaDesligamento().toNanos();
+		for (Processador processador : processadores)
+		{
+			long restante = Math.max(1L, (prazo - System.nanoTime()) / 1_000_000L);
+			processador.thread.join(restante);
+			if (processador.thread.isAlive())
+			{
+				LOG.warn("Consumidor {} não esvaziou o anel a tempo; eventos restantes descartados", processador.nome);
+				processador.thread.interrupt();
+			}
+		}
+	}
+
+	private final class Processador implements Runnable
+	{
+
+		private final ConsumidorEventosCheckout consumidor;
+		private final String nome;
+		private final Counter falhas;
+		private final AtomicLong sequencia = new AtomicLong(-1L);
+		private final Thread thread;
+
+		Processador(ConsumidorEventosCheckout consumidor, String nome, Counter falhas)
+		{
+			this.consumidor = consumidor;
+			this.nome = nome;
+			this.falhas = falhas;
+			this.thread = new Thread(this, "eventos-checkout-" + nome);
+			this.thread.setDaemon(true);
+		}
+
+		@Override
+		public void run()
+		{
+			long proxima = sequencia.get() + 1;
+			int rodada = 0;
+			while (!Thread.currentThread().isInterrupted())
+			{
+				int indice = (int) (proxima & mascara);
+				if (publicados.get(indice) == proxima)
+				{
+					try
+					{
+						consumidor.aoReceber(eventos[indice]);
+					}
+					catch (RuntimeException e)
+					{
+						falhas.increment();
+						LOG.warn("Consumidor {} falhou no evento {}", nome, proxima, e);
+					}
+					sequencia.lazySet(proxima++);
+					rodada = 0;
+				}
+				else if (encerrando && proxima > cursor.get())
+				{
+					return;
+				}
+				else
+				{
+					properties.espera().aguardar(rodada);
+					if (rodada < Integer.MAX_VALUE)
+					{
+						rodada++;
+					}
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,18 @@
+package ecommerce.eventos;
+
+/**
+ * Consumidor de eventos do checkout. Cada bean deste tipo ganha uma thread
+ * própria no {@link AnelEventosCheckout} e recebe todos os eventos, na ordem
+ * de publicação, sem atrasar o checkout. Um consumidor lento só afeta os
+ * eventos seguintes, conforme a {@link PoliticaAnelCheio}.
+ */
+@FunctionalInterface
+public interface ConsumidorEventosCheckout
+{
+
+	/**
+	 * Chamado na thread do consumidor. Exceções são contadas e registradas em
+	 * log; o evento seguinte é entregue normalmente.
+	 */
+	void aoReceber(EventoCheckout evento);
+}
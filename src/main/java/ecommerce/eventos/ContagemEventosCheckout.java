@@ -0,0 +1,33 @@
+package ecommerce.eventos;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/** Conta os eventos do checkout por tipo em {@code checkout.eventos{tipo}}. */
+@Component
+public class ContagemEventosCheckout implements ConsumidorEventosCheckout
+{
+
+	private final Map<TipoEventoCheckout, Counter> contadores = new EnumMap<>(TipoEventoCheckout.class);
+
+	@Autowired
+	public ContagemEventosCheckout(MeterRegistry registry)
+	{
+		for (TipoEventoCheckout tipo : TipoEventoCheckout.values())
+		{
+			contadores.put(tipo, Counter.builder("checkout.eventos").tag("tipo", tipo.name()).register(registry));
+		}
+	}
+
+	@Override
+	public void aoReceber(EventoCheckout evento)
+	{
+		contadores.get(evento.getTipo()).increment();
+	}
+}
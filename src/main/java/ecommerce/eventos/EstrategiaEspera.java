@@ -0,0 +1,65 @@
+package ecommerce.eventos;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Como a thread de um consumidor espera o próximo evento. Troca latência de
+ * entrega por CPU ociosa.
+ */
+public enum EstrategiaEspera
+{
+	/** Gira sem ceder a CPU: menor latência, um núcleo ocupado por consumidor. */
+	OCUPADA
+	{
+		@Override
+		void aguardar(int rodada)
+		{
+			Thread.onSpinWait();
+		}
+	},
+	/** Gira por pouco tempo e então cede a CPU a cada rodada. */
+	CEDENDO
+	{
+		@Override
+		void aguardar(int rodada)
+		{
+			if (rodada < GIROS)
+			{
+				Thread.onSpinWait();
+			}
+			else
+			{
+				Thread.yield();
+			}
+		}
+	},
+	/**
+	 * Gira, cede e então dorme por intervalos que dobram até cerca de 1 ms:
+	 * sem eventos, a thread fica praticamente parada.
+	 */
+	DORMINDO
+	{
+		@Override
+		void aguardar(int rodada)
+		{
+			if (rodada < GIROS)
+			{
+				Thread.onSpinWait();
+			}
+			else if (rodada < 2 * GIROS)
+			{
+				Thread.yield();
+			}
+			else
+			{
+				LockSupport.parkNanos(1L << Math.min(rodada - 2 * GIROS, MAIOR_EXPOENTE));
+			}
+		}
+	};
+
+	private static final int GIROS = 100;
+	private static final int MAIOR_EXPOENTE = 20;
+
+	/** @param rodada esperas seguidas sem evento, a partir de zero */
+	abstract void aguardar(int rodada);
+}
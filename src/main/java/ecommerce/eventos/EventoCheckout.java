@@ -0,0 +1,75 @@
+package ecommerce.eventos;
+
+import java.math.BigDecimal;
+
+/**
+ * Posição do anel de eventos. As instâncias são criadas uma vez, com o anel,
+ * e reescritas a cada volta: o consumidor deve copiar o que quiser guardar
+ * antes de retornar de {@link ConsumidorEventosCheckout#aoReceber}.
+ */
+public final class EventoCheckout
+{
+
+	private long sequencia;
+	private TipoEventoCheckout tipo;
+	private Long carrinhoId;
+	private Long clienteId;
+	private Long transacaoId;
+	private BigDecimal total;
+	private long instante;
+
+	EventoCheckout()
+	{
+	}
+
+	void preencher(long sequencia, TipoEventoCheckout tipo, Long carrinhoId, Long clienteId, Long transacaoId,
+			BigDecimal total, long instante)
+	{
+		this.sequencia = sequencia;
+		this.tipo = tipo;
+		this.carrinhoId = carrinhoId;
+		this.clienteId = clienteId;
+		this.transacaoId = transacaoId;
+		this.total = total;
+		this.instante = instante;
+	}
+
+	/** Posição do evento na ordem de publicação, a partir de zero. */
+	public long getSequencia()
+	{
+		return sequencia;
+	}
+
+	public TipoEventoCheckout getTipo()
+	{
+		return tipo;
+	}
+
+	public Long getCarrinhoId()
+	{
+		return carrinhoId;
+	}
+
+	public Long getClienteId()
+	{
+		return clienteId;
+	}
+
+	/** Transação de pagamento; {@code null} antes da autorização. */
+	public Long getTransacaoId()
+	{
+		return transacaoId;
+	}
+
+	/** Total cobrado; {@code null} antes do cálculo do preço. */
+	public BigDecimal getTotal()
+	{
+		return total;
+	}
+
+	/** Momento da publicação, em milissegundos desde a época. */
+	public long getInstante()
+	{
+		return instante;
+	}
+}
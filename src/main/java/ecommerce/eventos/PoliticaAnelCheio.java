@@ -0,0 +1,13 @@
+package ecommerce.eventos;
+
+/** O que a publicação faz quando o consumidor mais lento está uma volta atrás. */
+public enum PoliticaAnelCheio
+{
+	/** Descarta o evento na hora. */
+	DESCARTAR,
+	/**
+	 * Aguarda, girando, até a espera máxima de publicação que o consumidor
+	 * libere uma posição; esgotada a espera, descarta.
+	 */
+	AGUARDAR
+}
@@ -0,0 +1,15 @@
+package ecommerce.eventos;
+
+import java.math.BigDecimal;
+
+/** Ponto de publicação dos eventos do checkout. Nunca bloqueia nem lança. */
+@FunctionalInterface
+public interface PublicadorEventosCheckout
+{
+
+	/** Descarta todos os eventos. */
+	PublicadorEventosCheckout NENHUM = (tipo, carrinhoId, clienteId, transacaoId, total) -> false;
+
+	/** @return {@code false} se o evento foi descartado */
+	boolean publicar(TipoEventoCheckout tipo, Long carrinhoId, Long clienteId, Long transacaoId, BigDecimal total);
+}
@@ -0,0 +1,16 @@
+package ecommerce.eventos;
+
+/** Etapas do checkout publicadas no {@link AnelEventosCheckout}. */
+public enum TipoEventoCheckout
+{
+	/** Carrinho carregado, antes da consulta ao estoque. */
+	INICIADO,
+	/** Estoque recusou a disponibilidade; nada foi cobrado. */
+	SEM_ESTOQUE,
+	/** Gateway não autorizou o pagamento. */
+	PAGAMENTO_RECUSADO,
+	/** Pagamento autorizado e baixa no estoque confirmada. */
+	CONCLUIDO,
+	/** Pagamento autorizado, mas a baixa falhou: o estorno foi agendado. */
+	COMPENSADO
+}
@@ -0,0 +1,205 @@
+package ecommerce.external.resiliencia;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Disjuntor por contagem: avalia a taxa de falhas das últimas {@code janela}
+ * chamadas e abre quando ela atinge o limite. Aberto, rejeita chamadas até
+ * {@code tempoAberto} expirar; então passa a meio-aberto e libera
+ * {@code sondas} chamadas de teste. Todas com sucesso fecham o circuito;
+ * qualquer falha o reabre.
+ */
+public class CircuitBreaker
+{
+
+	private static final Logger LOG = LoggerFactory.getLogger(CircuitBreaker.class);
+
+	public enum Estado
+	{
+		FECHADO, ABERTO, MEIO_ABERTO
+	}
+
+	private final String nome;
+	private final boolean[] resultados;
+	private final double taxaFalhaLimite;
+	private final int chamadasMinimas;
+	private final long tempoAbertoNanos;
+	private final int sondas;
+	private final LongSupplier relogio;
+
+	private Estado estado = Estado.FECHADO;
+	private int proximo;
+	private int registrados;
+	private int falhas;
+	private long abertoAte;
+	private int sondasEmCurso;
+	private int sondasComSucesso;
+
+	private final Map<Estado, Long> transicoes = new EnumMap<>(Estado.class);
+	private Instant ultimaTransicao;
+
+	public CircuitBreaker(String nome, int janela, double taxaFalhaLimite, int chamadasMinimas, Duration tempoAberto,
+			int sondas)
+	{
+		this(nome, janela, taxaFalhaLimite, chamadasMinimas, tempoAberto, sondas, System::nanoTime);
+	}
+
+	CircuitBreaker(String nome, int janela, double taxaFalhaLimite, int chamadasMinimas, Duration tempoAberto,
+			int sondas, LongSupplier relogio)
+	{
+		if (janela <= 0 || sondas <= 0)
+		{
+			throw new IllegalArgumentException("Janela e sondas devem ser maiores que zero");
+		}
+		this.nome = nome;
+		this.resultados = new boolean[janela];
+		this.taxaFalhaLimite = taxaFalhaLimite;
+		this.chamadasMinimas = Math.min(chamadasMinimas, janela);
+		this.tempoAbertoNanos = tempoAberto.toNanos();
+		this.sondas = sondas;
+		this.relogio = relogio;
+	}
+
+	/**
+	 * @return {@code true} se a chamada pode seguir; {@code false} se o circuito
+	 *         está aberto ou se todas as sondas do meio-aberto já estão em curso.
+	 */
+	public synchronized boolean tentarAdquirir()
+	{
+		switch (estado)
+		{
+			case FECHADO:
+				return true;
+			case ABERTO:
+				if (relogio.getAsLong() - abertoAte < 0)
+				{
+					return false;
+				}
+				transicionar(Estado.MEIO_ABERTO);
+				// segue para o meio-aberto
+			case MEIO_ABERTO:
+			default:
+				if (sondasEmCurso >= sondas)
+				{
+					return false;
+				}
+				sondasEmCurso++;
+				return true;
+		}
+	}
+
+	/**
+	 * Devolve uma permissão obtida em {@link #tentarAdquirir()} sem registrar
+	 * resultado (a chamada foi abandonada por motivo alheio ao gateway).
+	 */
+	public synchronized void liberar()
+	{
+		if (estado == Estado.MEIO_ABERTO && sondasEmCurso > 0)
+		{
+			sondasEmCurso--;
+		}
+	}
+
+	public synchronized void registrarSucesso()
+	{
+		if (estado == Estado.MEIO_ABERTO)
+		{
+			if (++sondasComSucesso >= sondas)
+			{
+				transicionar(Estado.FECHADO);
+			}
+			return;
+		}
+		registrar(false);
+	}
+
+	public synchronized void registrarFalha()
+	{
+		if (estado == Estado.MEIO_ABERTO)
+		{
+			transicionar(Estado.ABERTO);
+			return;
+		}
+		registrar(true);
+		if (estado == Estado.FECHADO && registrados >= chamadasMinimas
+				&& (double) falhas / registrados >= taxaFalhaLimite)
+		{
+			transicionar(Estado.ABERTO);
+		}
+	}
+
+	private void registrar(boolean falha)
+	{
+		if (registrados == resultados.length)
+		{
+			if (resultados[proximo])
+			{
+				falhas--;
+			}
+		}
+		else
+		{
+			registrados++;
+		}
+		resultados[proximo] = falha;
+		if (falha)
+		{
+			falhas++;
+		}
+		proximo = (proximo + 1) % resultados.length;
+	}
+
+	private void transicionar(Estado novo)
+	{
+		Estado anterior = estado;
+		estado = novo;
+		sondasEmCurso = 0;
+		sondasComSucesso = 0;
+		if (novo == Estado.ABERTO)
+		{
+			abertoAte = relogio.getAsLong() + tempoAbertoNanos;
+		}
+		if (novo == Estado.FECHADO)
+		{
+			proximo = 0;
+			registrados = 0;
+			falhas = 0;
+		}
+		transicoes.merge(novo, 1L, Long::sum);
+		ultimaTransicao = Instant.now();
+		LOG.warn("Circuito '{}' mudou de {} para {}", nome, anterior, novo);
+	}
+
+	public String getNome()
+	{
+		return nome;
+	}
+
+	public synchronized Estado getEstado()
+	{
+		return estado;
+	}
+
+	/** Nanossegundos até o circuito aceitar sondas, ou zero se não estiver aberto. */
+	public synchronized long nanosAteSondagem()
+	{
+		return estado == Estado.ABERTO ? Math.max(0L, abertoAte - relogio.getAsLong()) : 0L;
+	}
+
+	public synchronized Map<Estado, Long> getTransicoes()
+	{
+		return new EnumMap<>(transicoes);
+	}
+
+	public synchronized Instant getUltimaTransicao()
+	{
+		return ultimaTransicao;
+	}
+}
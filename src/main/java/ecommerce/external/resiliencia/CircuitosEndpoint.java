@@ -0,0 +1,63 @@
+package ecommerce.external.resiliencia;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+
+/**
+ * Expõe em {@code /actuator/circuitos} o estado, as transições e o tempo limite
+ * adaptativo de cada gateway protegido.
+ */
+@Endpoint(id = "circuitos")
+public class CircuitosEndpoint
+{
+
+	private final List<GatewayProtegido> gateways;
+
+	public CircuitosEndpoint(List<GatewayProtegido> gateways)
+	{
+		this.gateways = gateways;
+	}
+
+	@ReadOperation
+	public Map<String, Map<String, Object>> circuitos()
+	{
+		Map<String, Map<String, Object>> resposta = new LinkedHashMap<>();
+		for (GatewayProtegido gateway : gateways)
+		{
+			resposta.put(gateway.getNome(), descrever(gateway));
+		}
+		return resposta;
+	}
+
+	@ReadOperation
+	public Map<String, Object> circuito(@Selector String nome)
+	{
+		return gateways.stream()
+				.filter(g -> g.getNome().equals(nome))
+				.findFirst()
+				.map(this::descrever)
+				.orElse(null);
+	}
+
+	private Map<String, Object> descrever(GatewayProtegido gateway)
+	{
+		CircuitBreaker circuito = gateway.getCircuito();
+		long percentil = gateway.getLatencias().percentilNanos();
+
+		Map<String, Object> dados = new LinkedHashMap<>();
+		dados.put("estado", circuito.getEstado());
+		dados.put("transicoes", circuito.getTransicoes());
+		dados.put("ultimaTransicao", circuito.getUltimaTransicao());
+		dados.put("timeoutAtualMs", TimeUnit.NANOSECONDS.toMillis(gateway.timeoutAtualNanos()));
+		dados.put("latenciaPercentilMs", percentil < 0 ? null : TimeUnit.NANOSECONDS.toMillis(percentil));
+		dados.put("amostras", gateway.getLatencias().amostras());
+		dados.put("filaPendente", gateway.getFilaPendente());
+		return dados;
+	}
+}
@@ -0,0 +1,57 @@
+package ecommerce.external.resiliencia;
+
+import java.util.List;
+
+import ecommerce.config.GatewayProperties;
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.external.IEstoqueExternal;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Aplica {@link Hedging} somente a {@link #verificarDisponibilidade}, que é
+ * uma consulta idempotente. {@link #darBaixa} altera o estoque e é sempre
+ * repassada uma única vez ao delegate; não há decorador equivalente para
+ * {@code IPagamentoExternal}. O {@link Hedging} é criado aqui e não sai
+ * daqui; fechar este decorador encerra o pool dele.
+ */
+public class EstoqueComHedging implements IEstoqueExternal, AutoCloseable
+{
+
+	private final IEstoqueExternal delegate;
+	private final Hedging hedging;
+
+	/**
+	 * @param concorrencia chamadas simultâneas que podem chegar (as threads do
+	 *                     gateway que envolve este decorador)
+	 */
+	public EstoqueComHedging(IEstoqueExternal delegate, String nome, GatewayProperties.Hedging config,
+			int concorrencia, MeterRegistry registry)
+	{
+		this(delegate, new Hedging(nome, config, concorrencia, registry));
+	}
+
+	EstoqueComHedging(IEstoqueExternal delegate, Hedging hedging)
+	{
+		this.delegate = delegate;
+		this.hedging = hedging;
+	}
+
+	@Override
+	public final EstoqueBaixaDTO darBaixa(List<Long> produtosIds, List<Long> produtosQuantidades)
+	{
+		return delegate.darBaixa(produtosIds, produtosQuantidades);
+	}
+
+	@Override
+	public DisponibilidadeDTO verificarDisponibilidade(List<Long> produtosIds, List<Long> produtosQuantidades)
+	{
+		return hedging.executar(() -> delegate.verificarDisponibilidade(produtosIds, produtosQuantidades));
+	}
+
+	@Override
+	public void close()
+	{
+		hedging.close();
+	}
+}
@@ -0,0 +1,36 @@
+package ecommerce.external.resiliencia;
+
+import java.util.List;
+
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.external.IEstoqueExternal;
+
+/**
+ * Decorador de {@link IEstoqueExternal} que passa todas as chamadas por um
+ * {@link GatewayProtegido}.
+ */
+public class EstoqueResiliente implements IEstoqueExternal
+{
+
+	private final IEstoqueExternal delegate;
+	private final GatewayProtegido gateway;
+
+	public EstoqueResiliente(IEstoqueExternal delegate, GatewayProtegido gateway)
+	{
+		this.delegate = delegate;
+		this.gateway = gateway;
+	}
+
+	@Override
+	public EstoqueBaixaDTO darBaixa(List<Long> produtosIds, List<Long> produtosQuantidades)
+	{
+		return gateway.executar(() -> delegate.darBaixa(produtosIds, produtosQuantidades));
+	}
+
+	@Override
+	public DisponibilidadeDTO verificarDisponibilidade(List<Long> produtosIds, List<Long> produtosQuantidades)
+	{
+		return gateway.executar(() -> delegate.verificarDisponibilidade(produtosIds, produtosQuantidades));
+	}
+}
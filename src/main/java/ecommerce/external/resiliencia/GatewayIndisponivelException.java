@@ -0,0 +1,30 @@
+package ecommerce.external.resiliencia;
+
+/**
+ * Falha rápida de um gateway externo (circuito aberto, tempo limite ou fila
+ * esgotada). Estende {@link IllegalStateException} para continuar coberta pelo
+ * tratamento existente do {@code CompraController}, que a traduz em 503.
+ */
+public class GatewayIndisponivelException extends IllegalStateException
+{
+
+	private static final long serialVersionUID = 1L;
+
+	private final long retryAfterSegundos;
+
+	public GatewayIndisponivelException(String mensagem)
+	{
+		this(mensagem, 0L);
+	}
+
+	public GatewayIndisponivelException(String mensagem, long retryAfterSegundos)
+	{
+		super(mensagem);
+		this.retryAfterSegundos = retryAfterSegundos;
+	}
+
+	public long getRetryAfterSegundos()
+	{
+		return retryAfterSegundos;
+	}
+}
@@ -0,0 +1,234 @@
+package ecommerce.external.resiliencia;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ecommerce.config.GatewayProperties.Politica;
+import ecommerce.prazo.ContextoPrazo;
+import ecommerce.prazo.PrazoEsgotadoException;
+
+/**
+ * Executa chamadas a um gateway externo atrás de um {@link CircuitBreaker}, com
+ * tempo limite adaptativo derivado do percentil de latência recente e um pool
+ * de threads próprio (bulkhead), para que um gateway lento não esgote as
+ * threads do outro.
+ */
+public class GatewayProtegido implements AutoCloseable
+{
+
+	private final String nome;
+	private final CircuitBreaker circuito;
+	private final JanelaLatencia latencias;
+	private final ThreadPoolExecutor executor;
+	private final double multiplicador;
+	private final long timeoutMinimoNanos;
+	private final long timeoutMaximoNanos;
+	private final int amostrasMinimas;
+
+	public GatewayProtegido(String nome, Politica politica)
+	{
+		this.nome = nome;
+		this.circuito = new CircuitBreaker(nome, politica.janela(), politica.taxaFalhaLimite(),
+				politica.chamadasMinimas(), politica.tempoAberto(), politica.sondasMeioAberto());
+		this.latencias = new JanelaLatencia(politica.janela(), politica.percentil());
+		this.multiplicador = politica.multiplicador();
+		this.timeoutMinimoNanos = politica.timeoutMinimo().toNanos();
+		this.timeoutMaximoNanos = politica.timeoutMaximo().toNanos();
+		this.amostrasMinimas = politica.chamadasMinimas();
+
+		AtomicInteger sequencia = new AtomicInteger();
+		this.executor = new ThreadPoolExecutor(politica.threads(), politica.threads(), 60L, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(politica.fila()), r -> {
+					Thread t = new Thread(r, "gateway-" + nome + "-" + sequencia.incrementAndGet());
+					t.setDaemon(true);
+					return t;
+				});
+		this.executor.allowCoreThreadTimeOut(true);
+	}
+
+	public <T> T executar(Callable<T> chamada)
+	{
+		return executar(chamada, timeoutMaximoNanos);
+	}
+
+	/**
+	 * Executa a chamada usando o menor entre o tempo limite adaptativo,
+	 * {@code limiteNanos} e o prazo restante da requisição. Estourar o prazo da
+	 * requisição não conta como falha do gateway.
+	 */
+	public <T> T executar(Callable<T> chamada, long limiteNanos)
+	{
+		long restante = exigirPrazoEAdquirir();
+		long adaptativo = Math.min(timeoutAtualNanos(), limiteNanos);
+		boolean limitadoPeloPrazo = restante < adaptativo;
+		long timeout = limitadoPeloPrazo ? restante : adaptativo;
+		long inicio = System.nanoTime();
+		Future<T> futuro = submeter(chamada);
+
+		try
+		{
+			T resultado = futuro.get(timeout, TimeUnit.NANOSECONDS);
+			latencias.registrar(System.nanoTime() - inicio);
+			circuito.registrarSucesso();
+			return resultado;
+		}
+		catch (TimeoutException e)
+		{
+			futuro.cancel(true);
+			if (limitadoPeloPrazo)
+			{
+				circuito.liberar();
+				throw new PrazoEsgotadoException(nome);
+			}
+			latencias.registrar(timeout);
+			circuito.registrarFalha();
+			throw new GatewayIndisponivelException("Tempo limite excedido no serviço de " + nome + ".");
+		}
+		catch (ExecutionException e)
+		{
+			throw falha(e);
+		}
+		catch (InterruptedException e)
+		{
+			futuro.cancel(true);
+			Thread.currentThread().interrupt();
+			circuito.registrarFalha();
+			throw new GatewayIndisponivelException("Chamada ao serviço de " + nome + " interrompida.");
+		}
+	}
+
+	/**
+	 * Como {@link #executar(Callable)}, mas a chamada, depois de submetida, nunca
+	 * é abandonada: nem o tempo limite adaptativo nem o prazo da requisição a
+	 * cancelam, e uma interrupção de quem chamou só é repassada ao final. O
+	 * circuito, o bulkhead e o prazo valem apenas antes de ela começar.
+	 * <p>
+	 * Para chamadas cujo efeito no fornecedor não pode ficar sem resposta, como
+	 * autorizar um pagamento: abandoná-la deixaria uma cobrança possivelmente
+	 * feita sem o id da transação para estorná-la. O limite de espera fica com
+	 * o próprio cliente HTTP do fornecedor.
+	 */
+	public <T> T executarAteConcluir(Callable<T> chamada)
+	{
+		exigirPrazoEAdquirir();
+		long inicio = System.nanoTime();
+		Future<T> futuro = submeter(chamada);
+
+		boolean interrompida = false;
+		try
+		{
+			while (true)
+			{
+				try
+				{
+					T resultado = futuro.get();
+					latencias.registrar(System.nanoTime() - inicio);
+					circuito.registrarSucesso();
+					return resultado;
+				}
+				catch (InterruptedException e)
+				{
+					interrompida = true;
+				}
+				catch (ExecutionException e)
+				{
+					throw falha(e);
+				}
+			}
+		}
+		finally
+		{
+			if (interrompida)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/** @return o prazo restante da requisição, já com a permissão do circuito obtida */
+	private long exigirPrazoEAdquirir()
+	{
+		long restante = ContextoPrazo.atual().restanteNanos();
+		if (restante <= 0)
+		{
+			throw new PrazoEsgotadoException(nome);
+		}
+		if (!circuito.tentarAdquirir())
+		{
+			long segundos = TimeUnit.NANOSECONDS.toSeconds(circuito.nanosAteSondagem()) + 1;
+			throw new GatewayIndisponivelException("Serviço de " + nome + " indisponível no momento.", segundos);
+		}
+		return restante;
+	}
+
+	private <T> Future<T> submeter(Callable<T> chamada)
+	{
+		try
+		{
+			return executor.submit(chamada);
+		}
+		catch (RejectedExecutionException e)
+		{
+			circuito.registrarFalha();
+			throw new GatewayIndisponivelException("Serviço de " + nome + " sobrecarregado.");
+		}
+	}
+
+	private RuntimeException falha(ExecutionException e)
+	{
+		circuito.registrarFalha();
+		if (e.getCause() instanceof RuntimeException re)
+		{
+			return re;
+		}
+		return new GatewayIndisponivelException("Falha no serviço de " + nome + ".");
+	}
+
+	/**
+	 * Tempo limite atual: percentil de latência × multiplicador, restrito ao
+	 * intervalo [mínimo, máximo]. Sem amostras suficientes, usa o máximo.
+	 */
+	public long timeoutAtualNanos()
+	{
+		long percentil = latencias.percentilNanos();
+		if (percentil < 0 || latencias.amostras() < amostrasMinimas)
+		{
+			return timeoutMaximoNanos;
+		}
+		long adaptativo = (long) (percentil * multiplicador);
+		return Math.max(timeoutMinimoNanos, Math.min(timeoutMaximoNanos, adaptativo));
+	}
+
+	public String getNome()
+	{
+		return nome;
+	}
+
+	public CircuitBreaker getCircuito()
+	{
+		return circuito;
+	}
+
+	public JanelaLatencia getLatencias()
+	{
+		return latencias;
+	}
+
+	public int getFilaPendente()
+	{
+		return executor.getQueue().size();
+	}
+
+	@Override
+	public void close()
+	{
+		executor.shutdownNow();
+	}
+}
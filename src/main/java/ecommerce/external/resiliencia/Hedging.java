@@ -0,0 +1,287 @@
+package ecommerce.external.resiliencia;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import ecommerce.config.GatewayProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Requisições "hedged": se a primeira chamada não responder dentro do
+ * percentil de latência configurado, dispara uma segunda e usa a que
+ * terminar primeiro com sucesso.
+ * <p>
+ * O número de chamadas extras é limitado por um orçamento: cada chamada
+ * primária credita {@code taxaMaxima} fichas (até {@code rajada}) e cada hedge
+ * consome uma, de modo que no longo prazo no máximo {@code taxaMaxima} das
+ * chamadas são duplicadas.
+ * <p>
+ * As consultas rodam num pool próprio com fila limitada. Quando quem chamou
+ * desiste (a thread do {@link GatewayProtegido} é interrompida ao estourar o
+ * tempo limite), as duas consultas são canceladas; a que perde para a outra
+ * também, liberando a thread.
+ * <p>
+ * Só deve envolver consultas idempotentes; por isso a classe é restrita ao
+ * pacote e só {@link EstoqueComHedging#verificarDisponibilidade} a usa, sem
+ * que outro código possa duplicar {@code darBaixa} ou uma autorização de
+ * pagamento.
+ */
+class Hedging implements AutoCloseable
+{
+
+	private static final long FICHA = 1_000_000L;
+
+	private final JanelaLatencia latencias;
+	private final long atrasoMinimoNanos;
+	private final int amostrasMinimas;
+	private final long creditoPorChamada;
+	private final long saldoMaximo;
+	private final AtomicLong saldo;
+	private final ThreadPoolExecutor executor;
+
+	private final Counter enviados;
+	private final Counter vitorias;
+	private final Counter negados;
+
+	Hedging(String nome, GatewayProperties.Hedging config, MeterRegistry registry)
+	{
+		this(nome, config, 0, registry);
+	}
+
+	/**
+	 * @param concorrencia chamadas simultâneas que podem chegar (as threads do
+	 *                     gateway que envolve este hedging)
+	 */
+	Hedging(String nome, GatewayProperties.Hedging config, int concorrencia, MeterRegistry registry)
+	{
+		this.latencias = new JanelaLatencia(config.janela(), config.percentil());
+		this.atrasoMinimoNanos = config.atrasoMinimo().toNanos();
+		this.amostrasMinimas = config.amostrasMinimas();
+		this.creditoPorChamada = (long) (config.taxaMaxima() * FICHA);
+		this.saldoMaximo = (long) config.rajada() * FICHA;
+		this.saldo = new AtomicLong(saldoMaximo);
+
+		int threads = Math.max(config.threads(), concorrencia + config.rajada());
+		AtomicInteger sequencia = new AtomicInteger();
+		this.executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(config.fila()), r -> {
+					Thread t = new Thread(r, "hedging-" + nome + "-" + sequencia.incrementAndGet());
+					t.setDaemon(true);
+					return t;
+				});
+		this.executor.allowCoreThreadTimeOut(true);
+
+		this.enviados = Counter.builder("gateway.hedging.enviados").tag("gateway", nome).register(registry);
+		this.vitorias = Counter.builder("gateway.hedging.vitorias").tag("gateway", nome).register(registry);
+		this.negados = Counter.builder("gateway.hedging.negados").tag("gateway", nome).register(registry);
+	}
+
+	<T> T executar(Supplier<T> consulta)
+	{
+		creditar();
+		long atraso = atrasoNanos();
+		long inicio = System.nanoTime();
+
+		CompletableFuture<T> primeira = new CompletableFuture<>();
+		Future<?> tarefaPrimeira;
+		try
+		{
+			tarefaPrimeira = submeter(consulta, primeira);
+		}
+		catch (RejectedExecutionException e)
+		{
+			throw new GatewayIndisponivelException("Consultas com hedging sobrecarregadas.");
+		}
+		primeira.whenComplete((r, e) -> latencias.registrar(System.nanoTime() - inicio));
+
+		CompletableFuture<T> segunda = null;
+		Future<?> tarefaSegunda = null;
+		try
+		{
+			if (atraso < 0)
+			{
+				return aguardar(primeira);
+			}
+
+			try
+			{
+				return primeira.get(atraso, TimeUnit.NANOSECONDS);
+			}
+			catch (TimeoutException e)
+			{
+				// segue para o hedge
+			}
+			catch (ExecutionException e)
+			{
+				throw desembrulhar(e.getCause());
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				throw new GatewayIndisponivelException("Consulta interrompida.");
+			}
+
+			if (!debitar())
+			{
+				negados.increment();
+				return aguardar(primeira);
+			}
+			segunda = new CompletableFuture<>();
+			try
+			{
+				tarefaSegunda = submeter(consulta, segunda);
+			}
+			catch (RejectedExecutionException e)
+			{
+				negados.increment();
+				return aguardar(primeira);
+			}
+			enviados.increment();
+
+			CompletableFuture<T> vencedora = primeiroSucesso(primeira, segunda);
+			T resultado = aguardar(vencedora);
+			if (!primeira.isDone() || primeira.isCompletedExceptionally())
+			{
+				vitorias.increment();
+			}
+			return resultado;
+		}
+		finally
+		{
+			// sem efeito nas que já terminaram
+			cancelar(primeira, tarefaPrimeira);
+			cancelar(segunda, tarefaSegunda);
+		}
+	}
+
+	private <T> Future<?> submeter(Supplier<T> consulta, CompletableFuture<T> resultado)
+	{
+		return executor.submit(() -> {
+			try
+			{
+				resultado.complete(consulta.get());
+			}
+			catch (Throwable e)
+			{
+				resultado.completeExceptionally(e);
+			}
+		});
+	}
+
+	private static void cancelar(CompletableFuture<?> resultado, Future<?> tarefa)
+	{
+		if (resultado != null && !resultado.isDone())
+		{
+			resultado.cancel(false);
+		}
+		if (tarefa != null)
+		{
+			tarefa.cancel(true);
+		}
+	}
+
+	/** Consultas aguardando thread. */
+	int getFilaPendente()
+	{
+		return executor.getQueue().size();
+	}
+
+	/** Atraso antes do hedge, ou {@code -1} enquanto não houver amostras suficientes. */
+	long atrasoNanos()
+	{
+		if (latencias.amostras() < amostrasMinimas)
+		{
+			return -1L;
+		}
+		return Math.max(atrasoMinimoNanos, latencias.percentilNanos());
+	}
+
+	private void creditar()
+	{
+		saldo.getAndUpdate(s -> Math.min(saldoMaximo, s + creditoPorChamada));
+	}
+
+	private boolean debitar()
+	{
+		long atual;
+		do
+		{
+			atual = saldo.get();
+			if (atual < FICHA)
+			{
+				return false;
+			}
+		}
+		while (!saldo.compareAndSet(atual, atual - FICHA));
+		return true;
+	}
+
+	private static <T> CompletableFuture<T> primeiroSucesso(CompletableFuture<T> a, CompletableFuture<T> b)
+	{
+		CompletableFuture<T> resultado = new CompletableFuture<>();
+		AtomicInteger falhas = new AtomicInteger();
+		for (CompletableFuture<T> f : List.of(a, b))
+		{
+			f.whenComplete((valor, erro) -> {
+				if (erro == null)
+				{
+					resultado.complete(valor);
+				}
+				else if (falhas.incrementAndGet() == 2)
+				{
+					resultado.completeExceptionally(erro);
+				}
+			});
+		}
+		return resultado;
+	}
+
+	private static <T> T aguardar(CompletableFuture<T> futuro)
+	{
+		try
+		{
+			return futuro.get();
+		}
+		catch (ExecutionException e)
+		{
+			throw desembrulhar(e.getCause());
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new GatewayIndisponivelException("Consulta interrompida.");
+		}
+	}
+
+	private static RuntimeException desembrulhar(Throwable causa)
+	{
+		while (causa instanceof CompletionException && causa.getCause() != null)
+		{
+			causa = causa.getCause();
+		}
+		if (causa instanceof RuntimeException re && !(causa instanceof CancellationException))
+		{
+			return re;
+		}
+		return new GatewayIndisponivelException("Falha na consulta.");
+	}
+
+	@Override
+	public void close()
+	{
+		executor.shutdownNow();
+	}
+}
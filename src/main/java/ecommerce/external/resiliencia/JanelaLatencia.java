@@ -0,0 +1,76 @@
+package ecommerce.external.resiliencia;
+
+import java.util.Arrays;
+
+/**
+ * Janela circular com as latências (em nanossegundos) das chamadas mais
+ * recentes a um gateway. O percentil é recalculado de forma preguiçosa a cada
+ * {@link #RECALCULO} amostras para não ordenar a janela a cada chamada.
+ */
+public class JanelaLatencia
+{
+
+	private static final int RECALCULO = 16;
+
+	private final long[] amostras;
+	private final double percentil;
+
+	private int proxima;
+	private int total;
+	private int desdeUltimoCalculo;
+	private long percentilAtual = -1L;
+
+	public JanelaLatencia(int tamanho, double percentil)
+	{
+		if (tamanho <= 0)
+		{
+			throw new IllegalArgumentException("Tamanho da janela deve ser maior que zero");
+		}
+		if (percentil <= 0.0 || percentil > 1.0)
+		{
+			throw new IllegalArgumentException("Percentil deve estar no intervalo (0, 1]");
+		}
+		this.amostras = new long[tamanho];
+		this.percentil = percentil;
+	}
+
+	public synchronized void registrar(long latenciaNanos)
+	{
+		amostras[proxima] = latenciaNanos;
+		proxima = (proxima + 1) % amostras.length;
+		if (total < amostras.length)
+		{
+			total++;
+		}
+		if (++desdeUltimoCalculo >= RECALCULO)
+		{
+			percentilAtual = -1L;
+		}
+	}
+
+	/**
+	 * @return a latência no percentil configurado, ou {@code -1} se ainda não
+	 *         houver amostras.
+	 */
+	public synchronized long percentilNanos()
+	{
+		if (total == 0)
+		{
+			return -1L;
+		}
+		if (percentilAtual < 0)
+		{
+			long[] copia = Arrays.copyOf(amostras, total);
+			Arrays.sort(copia);
+			int indice = (int) Math.ceil(percentil * total) - 1;
+			percentilAtual = copia[Math.max(0, indice)];
+			desdeUltimoCalculo = 0;
+		}
+		return percentilAtual;
+	}
+
+	public synchronized int amostras()
+	{
+		return total;
+	}
+}
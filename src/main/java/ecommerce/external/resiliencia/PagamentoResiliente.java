@@ -0,0 +1,39 @@
+package ecommerce.external.resiliencia;
+
+import ecommerce.dto.PagamentoDTO;
+import ecommerce.external.IPagamentoExternal;
+
+/**
+ * Decorador de {@link IPagamentoExternal} que passa todas as chamadas por um
+ * {@link GatewayProtegido}. A autorização, depois de enviada, é sempre
+ * aguardada até o fim ({@link GatewayProtegido#executarAteConcluir}): a
+ * cobrança pode já ter sido feita, e só a resposta traz o id da transação
+ * para estorná-la.
+ */
+public class PagamentoResiliente implements IPagamentoExternal
+{
+
+	private final IPagamentoExternal delegate;
+	private final GatewayProtegido gateway;
+
+	public PagamentoResiliente(IPagamentoExternal delegate, GatewayProtegido gateway)
+	{
+		this.delegate = delegate;
+		this.gateway = gateway;
+	}
+
+	@Override
+	public PagamentoDTO autorizarPagamento(Long clienteId, Double custoTotal)
+	{
+		return gateway.executarAteConcluir(() -> delegate.autorizarPagamento(clienteId, custoTotal));
+	}
+
+	@Override
+	public void cancelarPagamento(Long clienteId, Long pagamentoTransacaoId)
+	{
+		gateway.executar(() -> {
+			delegate.cancelarPagamento(clienteId, pagamentoTransacaoId);
+			return null;
+		});
+	}
+}
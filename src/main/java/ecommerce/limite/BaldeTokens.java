@@ -0,0 +1,59 @@
+package ecommerce.limite;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import ecommerce.config.LimiteRequisicoesProperties.Taxa;
+
+/**
+ * Balde de tokens guardado num único {@code long}: o instante em que o balde
+ * estaria cheio de novo (algoritmo GCRA). Aceitar uma requisição é um CAS que
+ * empurra esse instante um intervalo à frente; sem trava e sem thread de
+ * recarga.
+ */
+final class BaldeTokens
+{
+
+	private final long intervaloNanos;
+	private final long toleranciaNanos;
+	// instante, em nanoTime, a partir do qual o balde está cheio
+	private final AtomicLong cheioEm;
+
+	BaldeTokens(Taxa taxa, long agora)
+	{
+		if (taxa.porSegundo() <= 0 || taxa.rajada() <= 0)
+		{
+			throw new IllegalArgumentException("Taxa e rajada devem ser positivas");
+		}
+		this.intervaloNanos = Math.max(1L, Math.round(1_000_000_000d / taxa.porSegundo()));
+		this.toleranciaNanos = intervaloNanos * taxa.rajada();
+		this.cheioEm = new AtomicLong(agora);
+	}
+
+	/** @return 0 se houver token agora, ou quantos nanossegundos faltam para o próximo; não consome */
+	long espera(long agora)
+	{
+		long atual = cheioEm.get();
+		long base = atual - agora > 0 ? atual : agora;
+		return Math.max(0L, base + intervaloNanos - agora - toleranciaNanos);
+	}
+
+	/** @return 0 se a requisição foi aceita, ou quantos nanossegundos faltam para o próximo token */
+	long consumir(long agora)
+	{
+		while (true)
+		{
+			long atual = cheioEm.get();
+			long base = atual - agora > 0 ? atual : agora;
+			long proximo = base + intervaloNanos;
+			long excesso = proximo - agora - toleranciaNanos;
+			if (excesso > 0)
+			{
+				return excesso;
+			}
+			if (cheioEm.compareAndSet(atual, proximo))
+			{
+				return 0L;
+			}
+		}
+	}
+}
@@ -0,0 +1,25 @@
+package ecommerce.limite;
+
+/**
+ * O cliente ou o endereço de origem passou da taxa permitida. Estende
+ * {@link IllegalStateException}; o {@code CompraController} a traduz em 429
+ * com {@code Retry-After}.
+ */
+public class LimiteExcedidoException extends IllegalStateException
+{
+
+	private static final long serialVersionUID = 1L;
+
+	private final long retryAfterSegundos;
+
+	public LimiteExcedidoException(String mensagem, long retryAfterSegundos)
+	{
+		super(mensagem);
+		this.retryAfterSegundos = retryAfterSegundos;
+	}
+
+	public long getRetryAfterSegundos()
+	{
+		return retryAfterSegundos;
+	}
+}
@@ -0,0 +1,187 @@
+package ecommerce.limite;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import ecommerce.config.LimiteRequisicoesProperties;
+import ecommerce.entity.TipoCliente;
+import ecommerce.service.ClienteService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Limita cotações e checkouts por cliente e, opcionalmente, por endereço de
+ * origem, com um {@link BaldeTokens} por chave. Os baldes ficam em tabelas
+ * Caffeine com tamanho máximo e descarte por ociosidade: a memória não cresce
+ * com o número de clientes ou endereços vistos, e um balde descartado volta
+ * cheio, como estaria se tivesse sido mantido.
+ * <p>
+ * A taxa do cliente depende do {@link TipoCliente}, lido do banco só ao criar
+ * o balde; mudanças de tipo valem quando o balde é recriado. Ids de clientes
+ * inexistentes dividem um único balde, com a taxa padrão, e com ele vazio um
+ * id ainda sem balde é recusado antes da consulta: ids variados não ganham
+ * baldes cheios nem geram consultas além dessa taxa. Durante uma rajada
+ * dessas, clientes reais ainda sem balde também esperam; exposta
+ * publicamente, a aplicação deve ligar também o limite por endereço.
+ * <p>
+ * Antes do cliente, o balde do endereço só é conferido, sem consumir: uma
+ * origem variando ids de cliente é contida sem gerar consultas além da taxa
+ * do endereço, e uma requisição que o cliente recusa não gasta o token do
+ * endereço, compartilhado com outros clientes.
+ * <p>
+ * Métricas: {@code limite.requisicoes.rejeitadas} por {@code origem}
+ * ({@code cliente} ou {@code ip}) e {@code limite.requisicoes.baldes} por
+ * tabela.
+ */
+@Component
+@EnableConfigurationProperties(LimiteRequisicoesProperties.class)
+public class LimiteRequisicoes
+{
+
+	private final ClienteService customerService;
+	private final LimiteRequisicoesProperties properties;
+	private final Ticker ticker;
+	private final Cache<Long, BaldeTokens> porCliente;
+	private final Cache<String, BaldeTokens> porIp;
+	// um único balde para todos os ids de clientes inexistentes
+	private final BaldeTokens inexistentes;
+	private final Counter rejeitadasCliente;
+	private final Counter rejeitadasIp;
+
+	@Autowired
+	public LimiteRequisicoes(ClienteService customerService, LimiteRequisicoesProperties properties,
+			MeterRegistry registry)
+	{
+		this(customerService, properties, registry, Ticker.systemTicker());
+	}
+
+	LimiteRequisicoes(ClienteService customerService, LimiteRequisicoesProperties properties, MeterRegistry registry,
+			Ticker ticker)
+	{
+		this.customerService = customerService;
+		this.properties = properties;
+		this.ticker = ticker;
+		this.porCliente = tabela(properties, ticker);
+		this.porIp = tabela(properties, ticker);
+		this.inexistentes = new BaldeTokens(properties.padrao(), ticker.read());
+
+		Gauge.builder("limite.requisicoes.baldes", porCliente, Cache::estimatedSize).tag("tabela", "cliente")
+				.register(registry);
+		Gauge.builder("limite.requisicoes.baldes", porIp, Cache::estimatedSize).tag("tabela", "ip")
+				.register(registry);
+		this.rejeitadasCliente = Counter.builder("limite.requisicoes.rejeitadas").tag("origem", "cliente")
+				.register(registry);
+		this.rejeitadasIp = Counter.builder("limite.requisicoes.rejeitadas").tag("origem", "ip").register(registry);
+	}
+
+	private static <K> Cache<K, BaldeTokens> tabela(LimiteRequisicoesProperties properties, Ticker ticker)
+	{
+		return Caffeine.newBuilder()
+				.maximumSize(properties.maximoBaldes())
+				.expireAfterAccess(properties.ociosidade())
+				.ticker(ticker)
+				.executor(Runnable::run)
+				.<K, BaldeTokens>build();
+	}
+
+	/**
+	 * @return o endereço do cliente: o último do {@code cabecalhoIp}
+	 *         configurado, se presente, ou o da conexão
+	 */
+	public String origem(HttpServletRequest request)
+	{
+		String cabecalho = properties.cabecalhoIp();
+		String encaminhado = cabecalho == null || cabecalho.isBlank() ? null : request.getHeader(cabecalho);
+		if (encaminhado != null)
+		{
+			String ultimo = encaminhado.substring(encaminhado.lastIndexOf(',') + 1).trim();
+			if (!ultimo.isEmpty())
+			{
+				return ultimo;
+			}
+		}
+		return request.getRemoteAddr();
+	}
+
+	/**
+	 * Consome um token do cliente e, depois, outro do endereço.
+	 *
+	 * @param ip endereço de origem; {@code null} dispensa o limite por endereço
+	 * @throws LimiteExcedidoException se algum dos baldes estiver vazio
+	 */
+	public void verificar(Long clienteId, String ip)
+	{
+		if (!properties.habilitado())
+		{
+			return;
+		}
+		long agora = ticker.read();
+		BaldeTokens endereco = properties.porIp() && ip != null
+				? porIp.get(ip, k -> new BaldeTokens(properties.ip(), agora))
+				: null;
+		if (endereco != null)
+		{
+			verificarEndereco(endereco.espera(agora));
+		}
+		if (clienteId != null)
+		{
+			BaldeTokens balde = porCliente.getIfPresent(clienteId);
+			if (balde == null)
+			{
+				// sem token para inexistentes, nem consulta: o id pode ser um deles
+				balde = inexistentes.espera(agora) > 0 ? inexistentes
+						: porCliente.get(clienteId, id -> criarBalde(id, agora));
+			}
+			long espera = balde.consumir(agora);
+			if (espera > 0)
+			{
+				rejeitadasCliente.increment();
+				throw excedido(espera);
+			}
+		}
+		if (endereco != null)
+		{
+			// outro cliente pode ter levado o último token desde a conferência
+			verificarEndereco(endereco.consumir(agora));
+		}
+	}
+
+	private void verificarEndereco(long espera)
+	{
+		if (espera > 0)
+		{
+			rejeitadasIp.increment();
+			throw excedido(espera);
+		}
+	}
+
+	/** @return o balde pela taxa do tipo do cliente, ou o compartilhado se ele não existir */
+	private BaldeTokens criarBalde(Long clienteId, long agora)
+	{
+		TipoCliente tipo;
+		try
+		{
+			tipo = customerService.buscarPorId(clienteId).getTipo();
+		}
+		catch (IllegalArgumentException e)
+		{
+			return inexistentes;
+		}
+		return new BaldeTokens(properties.taxa(tipo), agora);
+	}
+
+	private static LimiteExcedidoException excedido(long esperaNanos)
+	{
+		long segundos = Math.max(1L, (esperaNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+		return new LimiteExcedidoException("Muitas requisições, tente novamente mais tarde.", segundos);
+	}
+}
@@ -0,0 +1,30 @@
+package ecommerce.prazo;
+
+/**
+ * Prazo da requisição em andamento na thread atual. Definido pelo
+ * {@link PrazoFilter}; fora de uma requisição vale {@link Prazo#SEM_PRAZO}.
+ */
+public final class ContextoPrazo
+{
+
+	private static final ThreadLocal<Prazo> ATUAL = ThreadLocal.withInitial(() -> Prazo.SEM_PRAZO);
+
+	private ContextoPrazo()
+	{
+	}
+
+	public static Prazo atual()
+	{
+		return ATUAL.get();
+	}
+
+	public static void definir(Prazo prazo)
+	{
+		ATUAL.set(prazo);
+	}
+
+	public static void limpar()
+	{
+		ATUAL.remove();
+	}
+}
@@ -0,0 +1,48 @@
+package ecommerce.prazo;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Verifica, antes de cada etapa do checkout, se o prazo da requisição ainda
+ * comporta a etapa e conta os estouros em {@code checkout.prazo.excedido}
+ * por etapa.
+ */
+@Component
+@EnableConfigurationProperties(PrazoProperties.class)
+public class ControlePrazo
+{
+
+	private final MeterRegistry registry;
+	private final PrazoProperties properties;
+
+	public ControlePrazo(MeterRegistry registry, PrazoProperties properties)
+	{
+		this.registry = registry;
+		this.properties = properties;
+	}
+
+	/** Controle sem reservas mínimas nem registro de métricas. */
+	public static ControlePrazo semReservas()
+	{
+		return new ControlePrazo(new SimpleMeterRegistry(),
+				new PrazoProperties("X-Prazo-Ms", Duration.ofSeconds(3), Duration.ofSeconds(30), Map.of()));
+	}
+
+	public void verificar(String etapa)
+	{
+		ContextoPrazo.atual().exigir(etapa, properties.reserva(etapa));
+	}
+
+	public void registrarExcedido(String etapa)
+	{
+		Counter.builder("checkout.prazo.excedido").tag("etapa", etapa).register(registry).increment();
+	}
+}
@@ -0,0 +1,51 @@
+package ecommerce.prazo;
+
+import java.time.Duration;
+
+/**
+ * Instante limite de uma requisição, medido em {@link System#nanoTime()}.
+ * {@link #SEM_PRAZO} representa trabalho sem limite (tarefas em segundo plano,
+ * checkout assíncrono).
+ */
+public final class Prazo
+{
+
+	public static final Prazo SEM_PRAZO = new Prazo(0L, false);
+
+	private final long limiteNanos;
+	private final boolean definido;
+
+	private Prazo(long limiteNanos, boolean definido)
+	{
+		this.limiteNanos = limiteNanos;
+		this.definido = definido;
+	}
+
+	public static Prazo daquiA(Duration orcamento)
+	{
+		return new Prazo(System.nanoTime() + orcamento.toNanos(), true);
+	}
+
+	public boolean isDefinido()
+	{
+		return definido;
+	}
+
+	/** Nanossegundos restantes; {@link Long#MAX_VALUE} se não houver prazo. */
+	public long restanteNanos()
+	{
+		return definido ? limiteNanos - System.nanoTime() : Long.MAX_VALUE;
+	}
+
+	/**
+	 * @throws PrazoEsgotadoException se restar menos que {@code reserva} para a
+	 *                                etapa
+	 */
+	public void exigir(String etapa, Duration reserva)
+	{
+		if (definido && restanteNanos() < reserva.toNanos())
+		{
+			throw new PrazoEsgotadoException(etapa);
+		}
+	}
+}
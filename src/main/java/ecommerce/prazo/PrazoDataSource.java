@@ -0,0 +1,71 @@
+package ecommerce.prazo;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Aplica o prazo da requisição como {@code queryTimeout} de cada statement
+ * JDBC. O JDBC trabalha em segundos, então o tempo restante é arredondado para
+ * cima (mínimo de 1 s).
+ */
+public class PrazoDataSource extends DelegatingDataSource
+{
+
+	public PrazoDataSource(DataSource alvo)
+	{
+		super(alvo);
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException
+	{
+		return envolver(super.getConnection());
+	}
+
+	@Override
+	public Connection getConnection(String usuario, String senha) throws SQLException
+	{
+		return envolver(super.getConnection(usuario, senha));
+	}
+
+	private static Connection envolver(Connection conexao)
+	{
+		return (Connection) Proxy.newProxyInstance(PrazoDataSource.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, (proxy, metodo, args) -> {
+					Object resultado;
+					try
+					{
+						resultado = metodo.invoke(conexao, args);
+					}
+					catch (InvocationTargetException e)
+					{
+						throw e.getTargetException();
+					}
+					if (resultado instanceof Statement statement)
+					{
+						aplicarPrazo(statement);
+					}
+					return resultado;
+				});
+	}
+
+	private static void aplicarPrazo(Statement statement) throws SQLException
+	{
+		Prazo prazo = ContextoPrazo.atual();
+		if (!prazo.isDefinido())
+		{
+			return;
+		}
+		long restanteMs = TimeUnit.NANOSECONDS.toMillis(Math.max(0L, prazo.restanteNanos()));
+		int segundos = (int) Math.max(1L, (restanteMs + 999L) / 1000L);
+		statement.setQueryTimeout(segundos);
+	}
+}
@@ -0,0 +1,24 @@
+package ecommerce.prazo;
+
+/**
+ * O prazo da requisição não comporta a etapa {@link #getEtapa()}. Estende
+ * {@link IllegalStateException}; o {@code CompraController} a traduz em 504.
+ */
+public class PrazoEsgotadoException extends IllegalStateException
+{
+
+	private static final long serialVersionUID = 1L;
+
+	private final String etapa;
+
+	public PrazoEsgotadoException(String etapa)
+	{
+		super("Prazo da requisição esgotado na etapa '" + etapa + "'.");
+		this.etapa = etapa;
+	}
+
+	public String getEtapa()
+	{
+		return etapa;
+	}
+}
@@ -0,0 +1,66 @@
+package ecommerce.prazo;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Abre o prazo da requisição a partir do cabeçalho configurado ou do
+ * orçamento padrão.
+ */
+@Component
+public class PrazoFilter extends OncePerRequestFilter
+{
+
+	private final PrazoProperties properties;
+
+	public PrazoFilter(PrazoProperties properties)
+	{
+		this.properties = properties;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException
+	{
+		ContextoPrazo.definir(Prazo.daquiA(orcamento(request.getHeader(properties.cabecalho()))));
+		try
+		{
+			chain.doFilter(request, response);
+		}
+		finally
+		{
+			ContextoPrazo.limpar();
+		}
+	}
+
+	@Override
+	protected boolean shouldNotFilterAsyncDispatch()
+	{
+		return true;
+	}
+
+	private Duration orcamento(String cabecalho)
+	{
+		if (cabecalho == null || cabecalho.isBlank())
+		{
+			return properties.padrao();
+		}
+		try
+		{
+			Duration informado = Duration.ofMillis(Math.max(0L, Long.parseLong(cabecalho.trim())));
+			return informado.compareTo(properties.maximo()) > 0 ? properties.maximo() : informado;
+		}
+		catch (NumberFormatException e)
+		{
+			return properties.padrao();
+		}
+	}
+}
@@ -0,0 +1,36 @@
+package ecommerce.prazo;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Prazo por requisição ({@code ecommerce.prazo.*}).
+ *
+ * @param cabecalho cabeçalho com o orçamento restante do cliente, em
+ *                  milissegundos
+ * @param padrao    orçamento usado quando o cabeçalho não é enviado
+ * @param maximo    teto aceito para o orçamento informado pelo cliente
+ * @param reservas  tempo mínimo que precisa restar para iniciar cada etapa
+ *                  (por exemplo {@code reservas.pagamento=300ms})
+ */
+@ConfigurationProperties("ecommerce.prazo")
+public record PrazoProperties(
+		@DefaultValue("X-Prazo-Ms") String cabecalho,
+		@DefaultValue("3s") Duration padrao,
+		@DefaultValue("30s") Duration maximo,
+		Map<String, Duration> reservas)
+{
+
+	public PrazoProperties
+	{
+		reservas = reservas == null ? Map.of() : Map.copyOf(reservas);
+	}
+
+	public Duration reserva(String etapa)
+	{
+		return reservas.getOrDefault(etapa, Duration.ZERO);
+	}
+}
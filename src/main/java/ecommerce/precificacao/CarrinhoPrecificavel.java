@@ -0,0 +1,21 @@
+package ecommerce.precificacao;
+
+import java.util.Collections;
+import java.util.List;
+
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+
+/**
+ * Projeção somente leitura do carrinho com a região e o nível do cliente dono,
+ * pronta para o cálculo do preço total.
+ */
+public record CarrinhoPrecificavel(Long carrinhoId, Long clienteId, Regiao regiao, TipoCliente tipoCliente,
+		List<? extends ItemPrecificavel> itens)
+{
+
+	public CarrinhoPrecificavel
+	{
+		itens = itens == null ? null : Collections.unmodifiableList(itens);
+	}
+}
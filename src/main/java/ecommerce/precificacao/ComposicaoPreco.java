@@ -0,0 +1,20 @@
+package ecommerce.precificacao;
+
+import java.math.BigDecimal;
+
+/**
+ * Como o total do pedido foi formado. Os componentes saem arredondados a duas
+ * casas individualmente, então a soma deles pode diferir do total em um
+ * centavo; o total é o valor cobrado.
+ *
+ * @param subtotal      soma de preço × quantidade dos itens
+ * @param descontoTipo  desconto por quantidade de itens do mesmo tipo
+ * @param descontoValor desconto pelo valor do subtotal já com o desconto por
+ *                      tipo
+ * @param frete         frete com taxas, fator da região e benefício do nível
+ * @param total         valor cobrado
+ */
+public record ComposicaoPreco(BigDecimal subtotal, BigDecimal descontoTipo, BigDecimal descontoValor,
+		BigDecimal frete, BigDecimal total)
+{
+}
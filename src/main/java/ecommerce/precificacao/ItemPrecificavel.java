@@ -0,0 +1,13 @@
+package ecommerce.precificacao;
+
+/**
+ * Linha de carrinho vista pelo cálculo do preço total. Implementado pela
+ * entidade {@code ItemCompra} e por projeções somente leitura.
+ */
+public interface ItemPrecificavel
+{
+
+	ProdutoPrecificavel getProduto();
+
+	Long getQuantidade();
+}
@@ -0,0 +1,38 @@
+package ecommerce.precificacao;
+
+import java.math.BigDecimal;
+
+import ecommerce.entity.ArmazenamentoLinhas;
+import ecommerce.entity.LinhasCompactas;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TipoProduto;
+
+/**
+ * Uma linha do resultado da consulta de precificação: os dados do carrinho e
+ * do cliente repetidos em cada linha, seguidos do item e do produto (nulos
+ * quando o carrinho não tem itens em {@code ItemCompra}).
+ */
+public record LinhaCarrinhoPrecificacao(Long carrinhoId, Long clienteId, Regiao regiao, TipoCliente tipoCliente,
+		ArmazenamentoLinhas armazenamento, LinhasCompactas linhasCompactas, Long itemId, Long quantidade,
+		Long produtoId, BigDecimal preco, BigDecimal pesoFisico, BigDecimal comprimento, BigDecimal largura,
+		BigDecimal altura, Boolean fragil, TipoProduto tipo)
+{
+
+	public boolean temItem()
+	{
+		return itemId != null;
+	}
+
+	public boolean compacto()
+	{
+		return armazenamento == ArmazenamentoLinhas.COMPACTO;
+	}
+
+	public LinhaPrecificavel item()
+	{
+		ProdutoPrecificacao produto = produtoId == null ? null
+				: new ProdutoPrecificacao(produtoId, preco, pesoFisico, comprimento, largura, altura, fragil, tipo);
+		return new LinhaPrecificavel(produto, quantidade);
+	}
+}
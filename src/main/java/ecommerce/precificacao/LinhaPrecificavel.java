@@ -0,0 +1,21 @@
+package ecommerce.precificacao;
+
+/**
+ * Linha de um carrinho gravado no formato compacto, com o produto já
+ * resolvido pelo id.
+ */
+public record LinhaPrecificavel(ProdutoPrecificavel produto, Long quantidade) implements ItemPrecificavel
+{
+
+	@Override
+	public ProdutoPrecificavel getProduto()
+	{
+		return produto;
+	}
+
+	@Override
+	public Long getQuantidade()
+	{
+		return quantidade;
+	}
+}
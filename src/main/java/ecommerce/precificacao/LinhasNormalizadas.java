@@ -0,0 +1,117 @@
+package ecommerce.precificacao;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Linhas de um carrinho com uma linha por produto: as repetidas são somadas
+ * na primeira ocorrência, mantendo a ordem. Ids e quantidades ficam em dois
+ * vetores paralelos, entregues aos gateways de estoque como listas sem cópia.
+ * <p>
+ * Preço, descontos, peso e taxa de frágeis são somas por linha, então o total
+ * não muda com a normalização. Linhas sem produto persistido, sem quantidade
+ * ou com quantidade não positiva não são somadas: seguem como estão para que
+ * a validação do cálculo as rejeite com a mesma mensagem. Só as que têm id e
+ * quantidade entram nos vetores.
+ */
+public final class LinhasNormalizadas
+{
+
+	private final long[] produtoIds;
+	private final long[] quantidades;
+	private final List<ItemPrecificavel> itens;
+
+	private LinhasNormalizadas(long[] produtoIds, long[] quantidades, List<ItemPrecificavel> itens)
+	{
+		this.produtoIds = produtoIds;
+		this.quantidades = quantidades;
+		this.itens = Collections.unmodifiableList(itens);
+	}
+
+	public static LinhasNormalizadas de(List<? extends ItemPrecificavel> linhas)
+	{
+		long[] ids = new long[linhas.size()];
+		long[] qts = new long[linhas.size()];
+		int tamanho = 0;
+		List<ItemPrecificavel> itens = new ArrayList<>(linhas.size());
+		// posição, em itens e nos vetores, da linha de cada produto já visto
+		Map<Long, int[]> posicoes = new HashMap<>(Math.max(16, linhas.size() * 2));
+		for (ItemPrecificavel linha : linhas)
+		{
+			ProdutoPrecificavel produto = linha.getProduto();
+			Long produtoId = produto == null ? null : produto.getId();
+			Long quantidade = linha.getQuantidade();
+			if (produtoId == null || quantidade == null)
+			{
+				itens.add(linha);
+				continue;
+			}
+			int[] posicao = quantidade > 0L ? posicoes.get(produtoId) : null;
+			if (posicao != null)
+			{
+				qts[posicao[1]] += quantidade;
+				itens.set(posicao[0], new LinhaPrecificavel(itens.get(posicao[0]).getProduto(), qts[posicao[1]]));
+				continue;
+			}
+			if (quantidade > 0L)
+			{
+				posicoes.put(produtoId, new int[] { itens.size(), tamanho });
+			}
+			ids[tamanho] = produtoId;
+			qts[tamanho++] = quantidade;
+			itens.add(linha);
+		}
+		return new LinhasNormalizadas(Arrays.copyOf(ids, tamanho), Arrays.copyOf(qts, tamanho), itens);
+	}
+
+	/** Linhas para o cálculo do preço, uma por produto. */
+	public List<ItemPrecificavel> itens()
+	{
+		return itens;
+	}
+
+	public int tamanho()
+	{
+		return produtoIds.length;
+	}
+
+	public List<Long> produtoIds()
+	{
+		return new VisaoLongs(produtoIds);
+	}
+
+	public List<Long> quantidades()
+	{
+		return new VisaoLongs(quantidades);
+	}
+
+	/** Lista somente leitura sobre um vetor de longs. */
+	private static final class VisaoLongs extends AbstractList<Long> implements RandomAccess
+	{
+
+		private final long[] valores;
+
+		VisaoLongs(long[] valores)
+		{
+			this.valores = valores;
+		}
+
+		@Override
+		public Long get(int indice)
+		{
+			return valores[indice];
+		}
+
+		@Override
+		public int size()
+		{
+			return valores.length;
+		}
+	}
+}
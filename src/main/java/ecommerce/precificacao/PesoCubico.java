@@ -0,0 +1,33 @@
+package ecommerce.precificacao;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/** Peso cúbico (kg) a partir das dimensões em centímetros. */
+public final class PesoCubico
+{
+
+	private static final BigDecimal DIVISOR = new BigDecimal("6000");
+
+	private PesoCubico()
+	{
+	}
+
+	/**
+	 * @return zero se alguma dimensão for nula
+	 * @throws IllegalArgumentException se alguma dimensão for negativa
+	 */
+	public static BigDecimal calcular(BigDecimal comprimento, BigDecimal largura, BigDecimal altura)
+	{
+		if (comprimento == null || largura == null || altura == null)
+		{
+			return BigDecimal.ZERO;
+		}
+		if (comprimento.signum() < 0 || largura.signum() < 0 || altura.signum() < 0)
+		{
+			throw new IllegalArgumentException("Dimensões não podem ser negativas");
+		}
+		BigDecimal volume = comprimento.multiply(largura).multiply(altura);
+		return volume.divide(DIVISOR, 2, RoundingMode.HALF_UP);
+	}
+}
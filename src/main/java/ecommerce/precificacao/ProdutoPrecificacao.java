@@ -0,0 +1,63 @@
+package ecommerce.precificacao;
+
+import java.math.BigDecimal;
+
+import ecommerce.entity.TipoProduto;
+
+/**
+ * Projeção de {@code Produto} com apenas os atributos do cálculo de preço,
+ * lida por expressão de construtor: não entra no contexto de persistência nem
+ * guarda snapshot para dirty checking.
+ */
+public record ProdutoPrecificacao(Long id, BigDecimal preco, BigDecimal pesoFisico, BigDecimal comprimento,
+		BigDecimal largura, BigDecimal altura, Boolean fragil, TipoProduto tipo) implements ProdutoPrecificavel
+{
+
+	@Override
+	public Long getId()
+	{
+		return id;
+	}
+
+	@Override
+	public BigDecimal getPreco()
+	{
+		return preco;
+	}
+
+	@Override
+	public BigDecimal getPesoFisico()
+	{
+		return pesoFisico;
+	}
+
+	@Override
+	public BigDecimal getComprimento()
+	{
+		return comprimento;
+	}
+
+	@Override
+	public BigDecimal getLargura()
+	{
+		return largura;
+	}
+
+	@Override
+	public BigDecimal getAltura()
+	{
+		return altura;
+	}
+
+	@Override
+	public Boolean isFragil()
+	{
+		return fragil;
+	}
+
+	@Override
+	public TipoProduto getTipo()
+	{
+		return tipo;
+	}
+}
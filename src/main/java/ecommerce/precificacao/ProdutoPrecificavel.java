@@ -0,0 +1,41 @@
+package ecommerce.precificacao;
+
+import java.math.BigDecimal;
+
+import ecommerce.entity.TipoProduto;
+
+/**
+ * Atributos de um produto usados no cálculo do preço total. Implementado pela
+ * entidade {@code Produto} e por projeções somente leitura.
+ */
+public interface ProdutoPrecificavel
+{
+
+	Long getId();
+
+	/** Preço unitário em reais (R$). */
+	BigDecimal getPreco();
+
+	/** Peso físico em quilogramas (kg). */
+	BigDecimal getPesoFisico();
+
+	/** Dimensões em centímetros (cm). */
+	BigDecimal getComprimento();
+
+	BigDecimal getLargura();
+
+	BigDecimal getAltura();
+
+	Boolean isFragil();
+
+	TipoProduto getTipo();
+
+	/**
+	 * Peso cúbico já calculado, quando a implementação o mantém (ver
+	 * {@link PesoCubico}); {@code null} faz o cálculo partir das dimensões.
+	 */
+	default BigDecimal getPesoCubico()
+	{
+		return null;
+	}
+}
@@ -0,0 +1,12 @@
+package ecommerce.precificacao;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import ecommerce.entity.TipoProduto;
+
+/** Atributos de preço de um produto com a versão e o instante da última gravação. */
+public record RegistroCatalogo(Long id, BigDecimal preco, BigDecimal pesoFisico, BigDecimal comprimento,
+		BigDecimal largura, BigDecimal altura, Boolean fragil, TipoProduto tipo, Long versao, Instant atualizadoEm)
+{
+}
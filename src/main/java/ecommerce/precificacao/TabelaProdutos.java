@@ -0,0 +1,323 @@
+package ecommerce.precificacao;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import ecommerce.entity.TipoProduto;
+
+/**
+ * Instantâneo imutável dos atributos de preço dos produtos, em colunas
+ * paralelas (uma posição por produto), indexado por id numa tabela de
+ * endereçamento aberto com chaves {@code long} primitivas e sondagem linear.
+ * O peso cúbico é calculado uma vez na construção.
+ * <p>
+ * Atualizações geram uma nova tabela ({@link #aplicar}) com cópias das
+ * colunas em que só as posições alteradas são regravadas; quem já obteve um
+ * produto continua lendo o instantâneo anterior, sem bloqueio.
+ */
+public final class TabelaProdutos
+{
+
+	public static final TabelaProdutos VAZIA = new TabelaProdutos(List.of());
+
+	private static final int LIVRE = -1;
+	private static final byte NULO = -1;
+	private static final TipoProduto[] TIPOS = TipoProduto.values();
+
+	private final long[] chaves;
+	private final int[] posicoes;
+	private final int mascara;
+
+	private final long[] ids;
+	private final long[] versoes;
+	private final BigDecimal[] precos;
+	private final BigDecimal[] pesosFisicos;
+	private final BigDecimal[] comprimentos;
+	private final BigDecimal[] larguras;
+	private final BigDecimal[] alturas;
+	private final BigDecimal[] pesosCubicos;
+	private final byte[] frageis;
+	private final byte[] tipos;
+
+	/** Registros com o mesmo id ficam com o de maior versão. */
+	public TabelaProdutos(List<RegistroCatalogo> registros)
+	{
+		Map<Long, RegistroCatalogo> unicos = new LinkedHashMap<>(registros.size() * 2);
+		for (RegistroCatalogo r : registros)
+		{
+			unicos.merge(r.id(), r, (a, b) -> versao(b) >= versao(a) ? b : a);
+		}
+		int n = unicos.size();
+		ids = new long[n];
+		versoes = new long[n];
+		precos = new BigDecimal[n];
+		pesosFisicos = new BigDecimal[n];
+		comprimentos = new BigDecimal[n];
+		larguras = new BigDecimal[n];
+		alturas = new BigDecimal[n];
+		pesosCubicos = new BigDecimal[n];
+		frageis = new byte[n];
+		tipos = new byte[n];
+
+		int capacidade = capacidade(n);
+		chaves = new long[capacidade];
+		posicoes = new int[capacidade];
+		mascara = capacidade - 1;
+		Arrays.fill(posicoes, LIVRE);
+
+		int i = 0;
+		for (RegistroCatalogo r : unicos.values())
+		{
+			gravar(i, r);
+			indexar(r.id(), i);
+			i++;
+		}
+	}
+
+	/**
+	 * Cópia de {@code base} com {@code n} posições: as existentes são copiadas
+	 * como estão, e o índice também, se ainda couber {@code n} ids nele.
+	 */
+	private TabelaProdutos(TabelaProdutos base, int n)
+	{
+		ids = Arrays.copyOf(base.ids, n);
+		versoes = Arrays.copyOf(base.versoes, n);
+		precos = Arrays.copyOf(base.precos, n);
+		pesosFisicos = Arrays.copyOf(base.pesosFisicos, n);
+		comprimentos = Arrays.copyOf(base.comprimentos, n);
+		larguras = Arrays.copyOf(base.larguras, n);
+		alturas = Arrays.copyOf(base.alturas, n);
+		pesosCubicos = Arrays.copyOf(base.pesosCubicos, n);
+		frageis = Arrays.copyOf(base.frageis, n);
+		tipos = Arrays.copyOf(base.tipos, n);
+
+		int capacidade = capacidade(n);
+		if (capacidade == base.chaves.length)
+		{
+			chaves = base.chaves.clone();
+			posicoes = base.posicoes.clone();
+			mascara = base.mascara;
+		}
+		else
+		{
+			chaves = new long[capacidade];
+			posicoes = new int[capacidade];
+			mascara = capacidade - 1;
+			Arrays.fill(posicoes, LIVRE);
+			for (int i = 0; i < base.ids.length; i++)
+			{
+				indexar(base.ids[i], i);
+			}
+		}
+	}
+
+	/** Menor potência de 2 com ao menos o dobro de posições que ids. */
+	private static int capacidade(int n)
+	{
+		return Integer.highestOneBit(Math.max(2, n * 2) - 1) << 1;
+	}
+
+	private void gravar(int p, RegistroCatalogo r)
+	{
+		ids[p] = r.id();
+		versoes[p] = versao(r);
+		precos[p] = r.preco();
+		pesosFisicos[p] = r.pesoFisico();
+		comprimentos[p] = r.comprimento();
+		larguras[p] = r.largura();
+		alturas[p] = r.altura();
+		pesosCubicos[p] = pesoCubico(r);
+		frageis[p] = r.fragil() == null ? NULO : (byte) (r.fragil() ? 1 : 0);
+		tipos[p] = r.tipo() == null ? NULO : (byte) r.tipo().ordinal();
+	}
+
+	private static long versao(RegistroCatalogo r)
+	{
+		return r.versao() == null ? 0L : r.versao();
+	}
+
+	/** Dimensões negativas ficam sem pré-cálculo: o cálculo do preço as rejeita. */
+	private static BigDecimal pesoCubico(RegistroCatalogo r)
+	{
+		try
+		{
+			return PesoCubico.calcular(r.comprimento(), r.largura(), r.altura());
+		}
+		catch (IllegalArgumentException e)
+		{
+			return null;
+		}
+	}
+
+	private static int espalhar(long id)
+	{
+		long h = id * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	private void indexar(long id, int posicao)
+	{
+		int s = espalhar(id) & mascara;
+		while (posicoes[s] != LIVRE)
+		{
+			s = (s + 1) & mascara;
+		}
+		chaves[s] = id;
+		posicoes[s] = posicao;
+	}
+
+	private int posicao(long id)
+	{
+		int s = espalhar(id) & mascara;
+		int p;
+		while ((p = posicoes[s]) != LIVRE)
+		{
+			if (chaves[s] == id)
+			{
+				return p;
+			}
+			s = (s + 1) & mascara;
+		}
+		return LIVRE;
+	}
+
+	public int tamanho()
+	{
+		return ids.length;
+	}
+
+	/** @return o produto, ou {@code null} se o id não estiver na tabela */
+	public ProdutoPrecificavel buscar(long id)
+	{
+		int p = posicao(id);
+		return p == LIVRE ? null : new Linha(this, p);
+	}
+
+	/** @return a versão do produto na tabela, ou {@code -1} se ausente */
+	public long versao(long id)
+	{
+		int p = posicao(id);
+		return p == LIVRE ? -1L : versoes[p];
+	}
+
+	/**
+	 * @return uma nova tabela com os registros mais novos que os atuais, ou esta
+	 *         mesma se nenhum for. Produtos já presentes mantêm a posição;
+	 *         novos entram no fim.
+	 */
+	public TabelaProdutos aplicar(List<RegistroCatalogo> alterados)
+	{
+		Map<Long, RegistroCatalogo> novos = new LinkedHashMap<>();
+		int inclusoes = 0;
+		for (RegistroCatalogo r : alterados)
+		{
+			RegistroCatalogo anterior = novos.get(r.id());
+			if (versao(r) > versao(r.id()) && (anterior == null || versao(r) >= versao(anterior)))
+			{
+				novos.put(r.id(), r);
+				if (anterior == null && posicao(r.id()) == LIVRE)
+				{
+					inclusoes++;
+				}
+			}
+		}
+		if (novos.isEmpty())
+		{
+			return this;
+		}
+		TabelaProdutos nova = new TabelaProdutos(this, ids.length + inclusoes);
+		int fim = ids.length;
+		for (RegistroCatalogo r : novos.values())
+		{
+			int p = posicao(r.id());
+			if (p == LIVRE)
+			{
+				p = fim++;
+				nova.indexar(r.id(), p);
+			}
+			nova.gravar(p, r);
+		}
+		return nova;
+	}
+
+	private Boolean fragil(int p)
+	{
+		return frageis[p] == NULO ? null : frageis[p] == 1;
+	}
+
+	private TipoProduto tipo(int p)
+	{
+		return tipos[p] == NULO ? null : TIPOS[tipos[p]];
+	}
+
+	/** Visão de uma posição da tabela; não copia os atributos. */
+	private static final class Linha implements ProdutoPrecificavel
+	{
+
+		private final TabelaProdutos tabela;
+		private final int p;
+
+		Linha(TabelaProdutos tabela, int p)
+		{
+			this.tabela = tabela;
+			this.p = p;
+		}
+
+		@Override
+		public Long getId()
+		{
+			return tabela.ids[p];
+		}
+
+		@Override
+		public BigDecimal getPreco()
+		{
+			return tabela.precos[p];
+		}
+
+		@Override
+		public BigDecimal getPesoFisico()
+		{
+			return tabela.pesosFisicos[p];
+		}
+
+		@Override
+		public BigDecimal getComprimento()
+		{
+			return tabela.comprimentos[p];
+		}
+
+		@Override
+		public BigDecimal getLargura()
+		{
+			return tabela.larguras[p];
+		}
+
+		@Override
+		public BigDecimal getAltura()
+		{
+			return tabela.alturas[p];
+		}
+
+		@Override
+		public Boolean isFragil()
+		{
+			return tabela.fragil(p);
+		}
+
+		@Override
+		public TipoProduto getTipo()
+		{
+			return tabela.tipo(p);
+		}
+
+		@Override
+		public BigDecimal getPesoCubico()
+		{
+			return tabela.pesosCubicos[p];
+		}
+	}
+}
@@ -0,0 +1,26 @@
+package ecommerce.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import ecommerce.entity.CarrinhoArquivado;
+
+/**
+ * Consulta explícita ao arquivo de carrinhos. As consultas de
+ * {@link CarrinhoDeComprasRepository} só enxergam a tabela quente.
+ */
+@Repository
+public interface CarrinhoArquivadoRepository extends JpaRepository<CarrinhoArquivado, Long>
+{
+
+	@Query("""
+			select a from CarrinhoArquivado a
+			left join fetch a.itens
+			where a.id = :carrinhoId and a.clienteId = :clienteId""")
+	Optional<CarrinhoArquivado> findComItensByIdAndClienteId(@Param("carrinhoId") Long carrinhoId,
+			@Param("clienteId") Long clienteId);
+}
@@ -1,16 +1,137 @@
 package ecommerce.repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import ecommerce.entity.CarrinhoDeCompras;
 import ecommerce.entity.Cliente;
+import ecommerce.precificacao.LinhaCarrinhoPrecificacao;
+import jakarta.persistence.QueryHint;
 
 @Repository
 public interface CarrinhoDeComprasRepository extends JpaRepository<CarrinhoDeCompras, Long>
 {
 
 	Optional<CarrinhoDeCompras> findByIdAndCliente(Long id, Cliente cliente);
+
+	/**
+	 * Carrega o carrinho com o cliente, os itens e os produtos num único SELECT,
+	 * evitando uma consulta para a coleção e outra por produto.
+	 */
+	@Query("""
+			select c from CarrinhoDeCompras c
+			join fetch c.cliente
+			left join fetch c.itens i
+			left join fetch i.produto
+			where c.id = :id and c.cliente = :cliente""")
+	Optional<CarrinhoDeCompras> findComItensByIdAndCliente(@Param("id") Long id, @Param("cliente") Cliente cliente);
+
+	/**
+	 * Projeção plana do carrinho para precificação: uma linha por item (ou uma
+	 * só, sem item, se o carrinho estiver vazio ou compacto), sem entidades.
+	 */
+	@Query("""
+			select new ecommerce.precificacao.LinhaCarrinhoPrecificacao(
+				c.id, cl.id, cl.regiao, cl.tipo, c.armazenamento, c.linhasCompactas, i.id, i.quantidade,
+				p.id, p.preco, p.pesoFisico, p.comprimento, p.largura, p.altura, p.fragil, p.tipo)
+			from CarrinhoDeCompras c
+			join c.cliente cl
+			left join c.itens i
+			left join i.produto p
+			where c.id = :carrinhoId and cl.id = :clienteId
+			order by i.id""")
+	List<LinhaCarrinhoPrecificacao> findLinhasParaPrecificacao(@Param("carrinhoId") Long carrinhoId,
+			@Param("clienteId") Long clienteId);
+
+	/**
+	 * Carrinho para alteração, sem join fetch: os itens vêm sob demanda e só
+	 * os do carrinho alterado são lidos.
+	 */
+	@Query("""
+			select c from CarrinhoDeCompras c
+			where c.id = :carrinhoId and c.cliente.id = :clienteId""")
+	Optional<CarrinhoDeCompras> findParaAlteracao(@Param("carrinhoId") Long carrinhoId,
+			@Param("clienteId") Long clienteId);
+
+	/**
+	 * Incrementa a versão do carrinho se ela ainda for {@code versao}. Marca
+	 * uma alteração das linhas, que por si não versionam o carrinho, e registra
+	 * {@code hoje} como o dia dela.
+	 *
+	 * @return 1, ou 0 se outra transação já alterou o carrinho
+	 */
+	@Modifying
+	@Query("""
+			update CarrinhoDeCompras c set c.versao = c.versao + 1, c.alteradoEm = :hoje
+			where c.id = :carrinhoId and c.versao = :versao""")
+	int incrementarVersao(@Param("carrinhoId") Long carrinhoId, @Param("versao") Long versao,
+			@Param("hoje") LocalDate hoje);
+
+	/**
+	 * Como {@link #incrementarVersao}, sem condicionar à versão lida: registra
+	 * {@code hoje} como dia da última alteração e invalida a cópia que outra
+	 * transação tenha lido dos carrinhos (o arquivamento só os apaga se a
+	 * versão não mudou).
+	 *
+	 * @return quantos dos carrinhos ainda existem
+	 */
+	@Modifying
+	@Query("""
+			update CarrinhoDeCompras c set c.versao = c.versao + 1, c.alteradoEm = :hoje
+			where c.id in :ids""")
+	int tocar(@Param("ids") Collection<Long> ids, @Param("hoje") LocalDate hoje);
+
+	boolean existsByIdAndClienteId(Long id, Long clienteId);
+
+	/** Ids dos carrinhos ainda gravados como entidades, em ordem, após {@code aposId}. */
+	@Query("""
+			select c.id from CarrinhoDeCompras c
+			where (c.armazenamento is null or c.armazenamento = ecommerce.entity.ArmazenamentoLinhas.ENTIDADE)
+			and c.id > :aposId
+			order by c.id""")
+	List<Long> findIdsParaCompactar(@Param("aposId") Long aposId, Pageable pagina);
+
+	/**
+	 * Ids, em ordem e após {@code aposId}, dos carrinhos cuja última alteração
+	 * (ou criação, se nunca alterados) é anterior a {@code limite}.
+	 */
+	@Query("""
+			select c.id from CarrinhoDeCompras c
+			where coalesce(c.alteradoEm, c.data) < :limite and c.id > :aposId
+			order by c.id""")
+	List<Long> findIdsParaArquivar(@Param("limite") LocalDate limite, @Param("aposId") Long aposId, Pageable pagina);
+
+	@Query("""
+			select c from CarrinhoDeCompras c
+			join fetch c.cliente
+			left join fetch c.itens i
+			left join fetch i.produto
+			where c.id in :ids
+			order by c.id""")
+	List<CarrinhoDeCompras> findComItensByIdIn(@Param("ids") Collection<Long> ids);
+
+	/**
+	 * Todos os carrinhos, com o cliente, em ordem de id, lidos sob demanda de
+	 * um único cursor. Exige transação aberta e o fechamento do stream.
+	 */
+	@Query("""
+			select c from CarrinhoDeCompras c
+			join fetch c.cliente
+			order by c.id""")
+	@QueryHints({ @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+			@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+			@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false") })
+	Stream<CarrinhoDeCompras> streamTodosComCliente();
 }
@@ -0,0 +1,21 @@
+package ecommerce.repository;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import ecommerce.entity.CompensacaoPagamento;
+import ecommerce.entity.StatusCompensacao;
+
+@Repository
+public interface CompensacaoPagamentoRepository extends JpaRepository<CompensacaoPagamento, Long>
+{
+
+	List<CompensacaoPagamento> findByStatusAndProximaTentativaLessThanEqualOrderByProximaTentativa(
+			StatusCompensacao status, Instant limite, Pageable pagina);
+
+	long countByStatus(StatusCompensacao status);
+}
@@ -0,0 +1,15 @@
+package ecommerce.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import ecommerce.entity.Pedido;
+
+@Repository
+public interface PedidoRepository extends JpaRepository<Pedido, Long>
+{
+
+	Optional<Pedido> findByTransacaoId(Long transacaoId);
+}
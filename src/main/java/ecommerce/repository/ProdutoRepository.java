@@ -1,11 +1,46 @@
 package ecommerce.repository;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import ecommerce.entity.Produto;
+import ecommerce.precificacao.ProdutoPrecificacao;
+import ecommerce.precificacao.RegistroCatalogo;
 
 @Repository
 public interface ProdutoRepository extends JpaRepository<Produto, Long>
 {
+
+	/** Somente os atributos usados no preço, sem instanciar entidades. */
+	@Query("""
+			select new ecommerce.precificacao.ProdutoPrecificacao(
+				p.id, p.preco, p.pesoFisico, p.comprimento, p.largura, p.altura, p.fragil, p.tipo)
+			from Produto p
+			where p.id in :ids""")
+	List<ProdutoPrecificacao> findPrecificacaoByIdIn(@Param("ids") Collection<Long> ids);
+
+	@Query("""
+			select new ecommerce.precificacao.RegistroCatalogo(
+				p.id, p.preco, p.pesoFisico, p.comprimento, p.largura, p.altura, p.fragil, p.tipo,
+				p.versao, p.atualizadoEm)
+			from Produto p
+			where p.id > :aposId
+			order by p.id""")
+	List<RegistroCatalogo> findCatalogoAposId(@Param("aposId") Long aposId, Pageable pagina);
+
+	@Query("""
+			select new ecommerce.precificacao.RegistroCatalogo(
+				p.id, p.preco, p.pesoFisico, p.comprimento, p.largura, p.altura, p.fragil, p.tipo,
+				p.versao, p.atualizadoEm)
+			from Produto p
+			where p.atualizadoEm >= :desde
+			order by p.atualizadoEm""")
+	List<RegistroCatalogo> findCatalogoAtualizadosDesde(@Param("desde") Instant desde);
 }
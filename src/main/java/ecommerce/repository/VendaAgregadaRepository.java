@@ -0,0 +1,50 @@
+package ecommerce.repository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import ecommerce.entity.ChaveVendaAgregada;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TipoProduto;
+import ecommerce.entity.VendaAgregada;
+
+@Repository
+public interface VendaAgregadaRepository extends JpaRepository<VendaAgregada, ChaveVendaAgregada>
+{
+
+	/**
+	 * Soma {@code unidades} e {@code receita} aos totais gravados da
+	 * combinação, sem ler antes: outras instâncias podem somar ao mesmo tempo.
+	 *
+	 * @return 1, ou 0 se a combinação ainda não tiver linha
+	 */
+	@Modifying
+	@Query("""
+			update VendaAgregada v
+			set v.unidades = v.unidades + :unidades, v.receita = v.receita + :receita, v.atualizadoEm = :agora
+			where v.chave.regiao = :regiao and v.chave.tipoCliente = :tipoCliente
+			and v.chave.tipoProduto = :tipoProduto""")
+	int somar(@Param("regiao") Regiao regiao, @Param("tipoCliente") TipoCliente tipoCliente,
+			@Param("tipoProduto") TipoProduto tipoProduto, @Param("unidades") long unidades,
+			@Param("receita") BigDecimal receita, @Param("agora") Instant agora);
+
+	/**
+	 * Cria a linha da combinação. Falha com violação de chave se outra
+	 * instância a criou antes; nunca sobrescreve.
+	 */
+	@Modifying
+	@Query(nativeQuery = true, value = """
+			insert into venda_agregada (regiao, tipo_cliente, tipo_produto, unidades, receita, atualizado_em)
+			values (:#{#regiao.name()}, :#{#tipoCliente.name()}, :#{#tipoProduto.name()}, :unidades, :receita,
+			:agora)""")
+	int inserir(@Param("regiao") Regiao regiao, @Param("tipoCliente") TipoCliente tipoCliente,
+			@Param("tipoProduto") TipoProduto tipoProduto, @Param("unidades") long unidades,
+			@Param("receita") BigDecimal receita, @Param("agora") Instant agora);
+}
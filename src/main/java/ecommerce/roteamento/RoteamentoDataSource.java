@@ -0,0 +1,47 @@
+package ecommerce.roteamento;
+
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Encaminha as conexões de transações somente leitura para a réplica e todas
+ * as demais (inclusive as obtidas fora de transação) para o primário.
+ * <p>
+ * O Spring só marca a transação como somente leitura depois de abri-la, então
+ * este {@link DataSource} precisa ficar atrás de um
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy},
+ * que adia a obtenção da conexão física até o primeiro statement.
+ */
+public class RoteamentoDataSource extends AbstractRoutingDataSource
+{
+
+	public enum Destino
+	{
+		PRIMARIO, REPLICA
+	}
+
+	public RoteamentoDataSource(DataSource primario, DataSource replica)
+	{
+		setTargetDataSources(Map.of(Destino.PRIMARIO, primario, Destino.REPLICA, replica));
+		setDefaultTargetDataSource(primario);
+		setLenientFallback(false);
+		afterPropertiesSet();
+	}
+
+	/** Destino da conexão para a transação da thread atual. */
+	public static Destino destinoAtual()
+	{
+		return TransactionSynchronizationManager.isActualTransactionActive()
+				&& TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? Destino.REPLICA : Destino.PRIMARIO;
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey()
+	{
+		return destinoAtual();
+	}
+}
@@ -0,0 +1,12 @@
+package ecommerce.service;
+
+/**
+ * Destino das compensações de pagamento disparadas pelo checkout quando a
+ * baixa no estoque falha após a autorização.
+ */
+@FunctionalInterface
+public interface AgendadorCompensacao
+{
+
+	void agendar(Long clienteId, Long transacaoPagamentoId);
+}
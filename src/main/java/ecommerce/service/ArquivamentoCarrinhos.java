@@ -0,0 +1,145 @@
+package ecommerce.service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import ecommerce.config.ArquivamentoCarrinhoProperties;
+import ecommerce.entity.CarrinhoArquivado;
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.repository.CarrinhoArquivadoRepository;
+import ecommerce.repository.CarrinhoDeComprasRepository;
+import jakarta.persistence.EntityManager;
+
+/**
+ * Move para {@link CarrinhoArquivado} os carrinhos sem alteração há mais que a
+ * idade configurada (contada da criação, se nunca alterados), mantendo a tabela quente (e os índices que
+ * o checkout percorre) do tamanho dos carrinhos em uso. Percorre os ids em
+ * ordem, um lote por transação curta, com uma pausa entre lotes; cada
+ * execução move no máximo {@code maximoLotes} lotes.
+ * <p>
+ * Carrinhos na sessão em memória ficam para a próxima execução. Um carrinho
+ * alterado durante a cópia, ou carregado na sessão nesse meio tempo (o que
+ * incrementa a versão), faz o lote inteiro ser desfeito pela versão e
+ * repetido na próxima execução. Arquivados só são lidos por
+ * {@link CarrinhoArquivadoRepository}.
+ */
+@Component
+@EnableConfigurationProperties(ArquivamentoCarrinhoProperties.class)
+public class ArquivamentoCarrinhos
+{
+
+	private static final Logger LOG = LoggerFactory.getLogger(ArquivamentoCarrinhos.class);
+
+	private final CarrinhoDeComprasRepository repository;
+	private final EntityManager entityManager;
+	private final SessaoCarrinhos sessao;
+	private final TransactionTemplate transacao;
+	private final ArquivamentoCarrinhoProperties properties;
+
+	@Autowired
+	public ArquivamentoCarrinhos(CarrinhoDeComprasRepository repository, EntityManager entityManager,
+			SessaoCarrinhos sessao, PlatformTransactionManager transactionManager,
+			ArquivamentoCarrinhoProperties properties)
+	{
+		this.repository = repository;
+		this.entityManager = entityManager;
+		this.sessao = sessao;
+		this.transacao = new TransactionTemplate(transactionManager);
+		this.properties = properties;
+	}
+
+	@Scheduled(fixedDelayString = "${ecommerce.carrinho.arquivamento.intervalo-ms:3600000}")
+	public void arquivarAntigos()
+	{
+		if (properties.habilitado())
+		{
+			arquivar(LocalDate.now().minus(properties.idade()));
+		}
+	}
+
+	/**
+	 * Arquiva os carrinhos com última alteração anterior a {@code limite}, até
+	 * {@code maximoLotes} lotes.
+	 *
+	 * @return quantidade de carrinhos arquivados
+	 */
+	public long arquivar(LocalDate limite)
+	{
+		long arquivados = 0;
+		long aposId = 0L;
+		for (int lote = 0; lote < properties.maximoLotes(); lote++)
+		{
+			if (lote > 0 && !properties.pausaEntreLotes().isZero())
+			{
+				LockSupport.parkNanos(properties.pausaEntreLotes().toNanos());
+			}
+			List<Long> ids = repository.findIdsParaArquivar(limite, aposId,
+					PageRequest.of(0, properties.tamanhoLote()));
+			if (ids.isEmpty())
+			{
+				break;
+			}
+			aposId = ids.get(ids.size() - 1);
+			List<Long> livres = new ArrayList<>(ids.size());
+			for (Long id : ids)
+			{
+				if (sessao == null || !sessao.contem(id))
+				{
+					livres.add(id);
+				}
+			}
+			if (livres.isEmpty())
+			{
+				continue;
+			}
+			try
+			{
+				arquivados += transacao.execute(status -> moverLote(livres, limite));
+			}
+			catch (OptimisticLockingFailureException e)
+			{
+				LOG.warn("Lote de {} carrinhos alterado durante o arquivamento; repetido na próxima execução",
+						livres.size());
+			}
+		}
+		if (arquivados > 0)
+		{
+			LOG.info("{} carrinhos anteriores a {} arquivados", arquivados, limite);
+		}
+		return arquivados;
+	}
+
+	private long moverLote(List<Long> ids, LocalDate limite)
+	{
+		Instant agora = Instant.now();
+		List<CarrinhoDeCompras> antigos = new ArrayList<>(ids.size());
+		for (CarrinhoDeCompras carrinho : repository.findComItensByIdIn(ids))
+		{
+			// a lista de ids pode vir de uma réplica atrasada
+			LocalDate ultimaAlteracao = carrinho.getUltimaAlteracao();
+			if (ultimaAlteracao != null && ultimaAlteracao.isBefore(limite)
+					&& (sessao == null || !sessao.contem(carrinho.getId())))
+			{
+				entityManager.persist(CarrinhoArquivado.de(carrinho, agora));
+				antigos.add(carrinho);
+			}
+		}
+		repository.deleteAll(antigos);
+		repository.flush();
+		return antigos.size();
+	}
+}
@@ -1,26 +1,312 @@
 package ecommerce.service;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import ecommerce.entity.CarrinhoDeCompras;
 import ecommerce.entity.Cliente;
+import ecommerce.entity.LinhasCompactas;
+import ecommerce.precificacao.CarrinhoPrecificavel;
+import ecommerce.precificacao.LinhaCarrinhoPrecificacao;
+import ecommerce.precificacao.LinhaPrecificavel;
+import ecommerce.precificacao.ProdutoPrecificacao;
+import ecommerce.precificacao.ProdutoPrecificavel;
 import ecommerce.repository.CarrinhoDeComprasRepository;
+import ecommerce.repository.ProdutoRepository;
 
 @Service
 public class CarrinhoDeComprasService
 {
+
+	private static final int TENTATIVAS_ALTERACAO = 16;
+	private static final long PAUSA_BASE_NANOS = 500_000L;
+	private static final long PAUSA_MAXIMA_NANOS = 50_000_000L;
+
 	private final CarrinhoDeComprasRepository repository;
+	private final ProdutoRepository produtoRepository;
+	private final CatalogoProdutos catalogo;
+	private final SessaoCarrinhos sessao;
+	private final TransactionTemplate transacao;
+
+	/** Somente leitura e sem carrinhos em memória: toda leitura vai ao banco. */
+	public CarrinhoDeComprasService(CarrinhoDeComprasRepository repository, ProdutoRepository produtoRepository,
+			CatalogoProdutos catalogo)
+	{
+		this(repository, produtoRepository, catalogo, null, null);
+	}
 
 	@Autowired
-	public CarrinhoDeComprasService(CarrinhoDeComprasRepository repository)
+	public CarrinhoDeComprasService(CarrinhoDeComprasRepository repository, ProdutoRepository produtoRepository,
+			CatalogoProdutos catalogo, SessaoCarrinhos sessao, PlatformTransactionManager transactionManager)
 	{
 		this.repository = repository;
+		this.produtoRepository = produtoRepository;
+		this.catalogo = catalogo;
+		this.sessao = sessao;
+		this.transacao = transactionManager == null ? null : new TransactionTemplate(transactionManager);
+	}
+
+	/**
+	 * Soma {@code quantidade} à linha do produto, criando-a se preciso.
+	 * Adições concorrentes no mesmo carrinho não se perdem: a que perder a
+	 * corrida é reaplicada sobre o carrinho atualizado.
+	 *
+	 * @throws IllegalArgumentException se o carrinho ou o produto não existirem
+	 *                                  ou se a quantidade não for positiva
+	 * @throws IllegalStateException    se os conflitos persistirem após
+	 *                                  {@value #TENTATIVAS_ALTERACAO} tentativas
+	 */
+	public void adicionarItem(Long carrinhoId, Long clienteId, Long produtoId, long quantidade)
+	{
+		validarQuantidade(quantidade);
+		if (sessaoHabilitada())
+		{
+			sessao.adicionarItem(carrinhoId, clienteId, produtoId, quantidade);
+			return;
+		}
+		alterar(carrinhoId, clienteId, carrinho -> carrinho.adicionarItem(produtoRepository.findById(produtoId)
+				.orElseThrow(() -> new IllegalArgumentException("Produto não encontrado.")), quantidade));
+	}
+
+	/**
+	 * Define a quantidade do produto. Em conflito, a alteração é reaplicada:
+	 * vence a última, sem desfazer mudanças concorrentes em outras linhas.
+	 *
+	 * @throws IllegalArgumentException se o produto não estiver no carrinho
+	 */
+	public void alterarQuantidade(Long carrinhoId, Long clienteId, Long produtoId, long quantidade)
+	{
+		validarQuantidade(quantidade);
+		if (sessaoHabilitada())
+		{
+			sessao.alterarQuantidade(carrinhoId, clienteId, produtoId, quantidade);
+			return;
+		}
+		alterar(carrinhoId, clienteId, carrinho -> carrinho.alterarQuantidade(produtoId, quantidade));
 	}
 
+	/** @throws IllegalArgumentException se o produto não estiver no carrinho */
+	public void removerItem(Long carrinhoId, Long clienteId, Long produtoId)
+	{
+		if (sessaoHabilitada())
+		{
+			sessao.removerItem(carrinhoId, clienteId, produtoId);
+			return;
+		}
+		alterar(carrinhoId, clienteId, carrinho -> carrinho.removerItem(produtoId));
+	}
+
+	/**
+	 * Sem trava prévia no banco: cada tentativa relê o carrinho, aplica a
+	 * alteração e, após o flush, incrementa a versão condicionada à lida (a do
+	 * próprio flush, se ele já versionou o carrinho), registrando o dia da
+	 * alteração para o arquivamento. Se outra transação a
+	 * incrementou antes, a alteração é desfeita e reaplicada sobre o estado
+	 * novo, após uma pausa aleatória que dobra a cada conflito, até um teto,
+	 * para desencontrar as concorrentes.
+	 */
+	private void alterar(Long carrinhoId, Long clienteId, Consumer<CarrinhoDeCompras> alteracao)
+	{
+		for (int tentativa = 1;; tentativa++)
+		{
+			try
+			{
+				transacao.executeWithoutResult(status -> {
+					CarrinhoDeCompras carrinho = repository.findParaAlteracao(carrinhoId, clienteId)
+							.orElseThrow(() -> new IllegalArgumentException("Carrinho não encontrado."));
+					alteracao.accept(carrinho);
+					repository.flush();
+					if (repository.incrementarVersao(carrinho.getId(), carrinho.getVersao(), LocalDate.now()) == 0)
+					{
+						throw new ObjectOptimisticLockingFailureException(CarrinhoDeCompras.class, carrinhoId);
+					}
+				});
+				return;
+			}
+			catch (OptimisticLockingFailureException e)
+			{
+				if (tentativa >= TENTATIVAS_ALTERACAO)
+				{
+					throw new IllegalStateException("Carrinho alterado por outra requisição; tente novamente.");
+				}
+				long pausa = Math.min(PAUSA_BASE_NANOS << tentativa, PAUSA_MAXIMA_NANOS);
+				LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(pausa));
+			}
+		}
+	}
+
+	private static void validarQuantidade(long quantidade)
+	{
+		if (quantidade <= 0)
+		{
+			throw new IllegalArgumentException("Quantidade deve ser maior que zero");
+		}
+	}
+
+	/**
+	 * Com a sessão de carrinhos habilitada, devolve uma cópia do carrinho em
+	 * memória (com as alterações ainda não gravadas).
+	 */
 	public CarrinhoDeCompras buscarPorCarrinhoIdEClienteId(Long carrinhoId, Cliente cliente)
 	{
-		return repository.findByIdAndCliente(carrinhoId, cliente)
+		if (sessaoHabilitada())
+		{
+			return sessao.buscar(carrinhoId, cliente.getId());
+		}
+		return repository.findComItensByIdAndCliente(carrinhoId, cliente)
 				.orElseThrow(() -> new IllegalArgumentException("Carrinho não encontrado."));
 	}
+
+	/**
+	 * Lê numa única consulta, como projeção, o carrinho, os itens, os atributos
+	 * de preço dos produtos e a região e o nível do cliente dono. Num carrinho
+	 * compacto, os produtos vêm numa segunda consulta pelos ids. Os produtos
+	 * saem sempre do banco, nunca do catálogo em memória: é o que o checkout
+	 * cobra. A transação somente leitura desliga o flush e o dirty checking.
+	 *
+	 * @return vazio se o carrinho não existir ou não pertencer ao cliente
+	 */
+	@Transactional(readOnly = true)
+	public Optional<CarrinhoPrecificavel> buscarParaPrecificacao(Long carrinhoId, Long clienteId)
+	{
+		return buscar(carrinhoId, clienteId, false);
+	}
+
+	/**
+	 * Como {@link #buscarParaPrecificacao}, mas, nos dois formatos de
+	 * armazenamento, os produtos vêm do catálogo em memória, como em
+	 * {@link #resolverLinhas}; os lidos do banco só valem para os ausentes
+	 * dele. Serve só à cotação: o catálogo pode estar até um intervalo de
+	 * atualização atrasado, e uma cotação que não confere com os preços do
+	 * banco é recalculada no checkout.
+	 */
+	@Transactional(readOnly = true)
+	public Optional<CarrinhoPrecificavel> buscarParaCotacao(Long carrinhoId, Long clienteId)
+	{
+		return buscar(carrinhoId, clienteId, true);
+	}
+
+	private Optional<CarrinhoPrecificavel> buscar(Long carrinhoId, Long clienteId, boolean usarCatalogo)
+	{
+		List<LinhaCarrinhoPrecificacao> linhas = repository.findLinhasParaPrecificacao(carrinhoId, clienteId);
+		if (linhas.isEmpty())
+		{
+			return Optional.empty();
+		}
+		LinhaCarrinhoPrecificacao cabecalho = linhas.get(0);
+		List<LinhaPrecificavel> itens;
+		if (cabecalho.compacto())
+		{
+			itens = resolverLinhas(cabecalho.linhasCompactas(), usarCatalogo);
+		}
+		else
+		{
+			itens = new ArrayList<>(linhas.size());
+			for (LinhaCarrinhoPrecificacao linha : linhas)
+			{
+				if (linha.temItem())
+				{
+					ProdutoPrecificavel produto = !usarCatalogo || linha.produtoId() == null ? null
+							: catalogo.buscar(linha.produtoId());
+					itens.add(produto == null ? linha.item() : new LinhaPrecificavel(produto, linha.quantidade()));
+				}
+			}
+		}
+		return Optional.of(new CarrinhoPrecificavel(cabecalho.carrinhoId(), cabecalho.clienteId(), cabecalho.regiao(),
+				cabecalho.tipoCliente(), itens));
+	}
+
+	/**
+	 * O carrinho para precificação a partir da memória, se ele estiver na
+	 * sessão; não consulta o banco para o carrinho. Serve à cotação, que deve
+	 * refletir as alterações ainda não gravadas.
+	 */
+	public Optional<CarrinhoPrecificavel> buscarEmSessao(Long carrinhoId, Long clienteId)
+	{
+		if (!sessaoHabilitada())
+		{
+			return Optional.empty();
+		}
+		return sessao.emMemoria(carrinhoId, clienteId).map(c -> new CarrinhoPrecificavel(c.getCarrinhoId(), clienteId,
+				c.getCliente().getRegiao(), c.getCliente().getTipo(), resolverLinhas(c.fotografar().linhas(), true)));
+	}
+
+	/** Grava as alterações do carrinho ainda em memória; ao retornar, o banco está atualizado. */
+	public void sincronizar(Long carrinhoId)
+	{
+		if (sessaoHabilitada())
+		{
+			sessao.sincronizar(carrinhoId);
+		}
+	}
+
+	private boolean sessaoHabilitada()
+	{
+		return sessao != null && sessao.isHabilitada();
+	}
+
+	/**
+	 * Com {@code usarCatalogo}, os produtos vêm do catálogo em memória e só os
+	 * ausentes dele são lidos do banco; sem ele, todos são lidos do banco.
+	 */
+	private List<LinhaPrecificavel> resolverLinhas(LinhasCompactas linhas, boolean usarCatalogo)
+	{
+		if (linhas == null || linhas.tamanho() == 0)
+		{
+			return List.of();
+		}
+		Map<Long, ProdutoPrecificavel> produtos = new HashMap<>();
+		Set<Long> ausentes = new HashSet<>();
+		for (int i = 0; i < linhas.tamanho(); i++)
+		{
+			long id = linhas.produtoId(i);
+			if (!produtos.containsKey(id) && !ausentes.contains(id))
+			{
+				ProdutoPrecificavel produto = usarCatalogo ? catalogo.buscar(id) : null;
+				if (produto != null)
+				{
+					produtos.put(id, produto);
+				}
+				else
+				{
+					ausentes.add(id);
+				}
+			}
+		}
+		if (!ausentes.isEmpty())
+		{
+			for (ProdutoPrecificacao produto : produtoRepository.findPrecificacaoByIdIn(ausentes))
+			{
+				produtos.put(produto.id(), produto);
+			}
+		}
+		List<LinhaPrecificavel> resultado = new ArrayList<>(linhas.tamanho());
+		for (int i = 0; i < linhas.tamanho(); i++)
+		{
+			resultado.add(new LinhaPrecificavel(produtos.get(linhas.produtoId(i)), linhas.quantidade(i)));
+		}
+		return resultado;
+	}
+
+	public boolean existePorCarrinhoIdEClienteId(Long carrinhoId, Long clienteId)
+	{
+		return repository.existsByIdAndClienteId(carrinhoId, clienteId);
+	}
 }
@@ -0,0 +1,145 @@
+package ecommerce.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Cliente;
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.LinhasCompactas;
+import ecommerce.entity.Produto;
+
+/**
+ * Estado em memória de um carrinho ativo: uma quantidade por produto, na
+ * ordem em que os produtos entraram. Cada alteração incrementa
+ * {@code versao}; {@code versaoGravada} é a última versão confirmada no banco.
+ * <p>
+ * {@link #gravacao} serializa as gravações do carrinho, para que uma gravação
+ * mais antiga nunca confirme depois de uma mais nova.
+ */
+class CarrinhoEmSessao
+{
+
+	final ReentrantLock gravacao = new ReentrantLock();
+
+	private final Long carrinhoId;
+	private final Cliente cliente;
+	private final LocalDate data;
+	private final Map<Long, Long> quantidades = new LinkedHashMap<>();
+	private final Map<Long, Produto> produtos = new LinkedHashMap<>();
+
+	private long versao;
+	private long versaoGravada;
+
+	CarrinhoEmSessao(CarrinhoDeCompras carrinho, List<Produto> produtosCompactos)
+	{
+		this.carrinhoId = carrinho.getId();
+		this.cliente = carrinho.getCliente();
+		this.data = carrinho.getData();
+		if (carrinho.isCompacto())
+		{
+			LinhasCompactas linhas = carrinho.getLinhasCompactas() == null ? LinhasCompactas.VAZIAS
+					: carrinho.getLinhasCompactas();
+			for (Produto produto : produtosCompactos)
+			{
+				produtos.put(produto.getId(), produto);
+			}
+			for (int i = 0; i < linhas.tamanho(); i++)
+			{
+				quantidades.merge(linhas.produtoId(i), linhas.quantidade(i), Long::sum);
+			}
+			quantidades.keySet().retainAll(produtos.keySet());
+		}
+		else
+		{
+			for (ItemCompra item : carrinho.getItens())
+			{
+				if (item.getProduto() != null && item.getQuantidade() != null)
+				{
+					produtos.put(item.getProduto().getId(), item.getProduto());
+					quantidades.merge(item.getProduto().getId(), item.getQuantidade(), Long::sum);
+				}
+			}
+		}
+	}
+
+	Long getCarrinhoId()
+	{
+		return carrinhoId;
+	}
+
+	Cliente getCliente()
+	{
+		return cliente;
+	}
+
+	synchronized void adicionar(Produto produto, long quantidade)
+	{
+		produtos.putIfAbsent(produto.getId(), produto);
+		quantidades.merge(produto.getId(), quantidade, Long::sum);
+		versao++;
+	}
+
+	synchronized void alterar(Long produtoId, long quantidade)
+	{
+		if (!quantidades.containsKey(produtoId))
+		{
+			throw new IllegalArgumentException("Item não encontrado no carrinho.");
+		}
+		quantidades.put(produtoId, quantidade);
+		versao++;
+	}
+
+	synchronized void remover(Long produtoId)
+	{
+		if (quantidades.remove(produtoId) == null)
+		{
+			throw new IllegalArgumentException("Item não encontrado no carrinho.");
+		}
+		produtos.remove(produtoId);
+		versao++;
+	}
+
+	synchronized boolean isPendente()
+	{
+		return versao != versaoGravada;
+	}
+
+	/** Foto das linhas para gravação; a versão dela vai para {@link #marcarGravado}. */
+	synchronized Foto fotografar()
+	{
+		long[] ids = new long[quantidades.size()];
+		long[] qts = new long[quantidades.size()];
+		int i = 0;
+		for (Map.Entry<Long, Long> linha : quantidades.entrySet())
+		{
+			ids[i] = linha.getKey();
+			qts[i++] = linha.getValue();
+		}
+		return new Foto(new LinhasCompactas(ids, qts), versao);
+	}
+
+	synchronized void marcarGravado(long versaoFoto)
+	{
+		versaoGravada = Math.max(versaoGravada, versaoFoto);
+	}
+
+	/** Cópia desanexada como entidade; os itens não têm id. */
+	synchronized CarrinhoDeCompras paraEntidade()
+	{
+		List<ItemCompra> itens = new ArrayList<>(quantidades.size());
+		for (Map.Entry<Long, Long> linha : quantidades.entrySet())
+		{
+			itens.add(new ItemCompra(null, produtos.get(linha.getKey()), linha.getValue()));
+		}
+		return new CarrinhoDeCompras(carrinhoId, cliente, itens, data);
+	}
+
+	record Foto(LinhasCompactas linhas, long versao)
+	{
+	}
+}
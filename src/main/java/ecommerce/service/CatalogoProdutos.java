@@ -0,0 +1,139 @@
+package ecommerce.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import ecommerce.config.CatalogoProperties;
+import ecommerce.precificacao.ProdutoPrecificavel;
+import ecommerce.precificacao.RegistroCatalogo;
+import ecommerce.precificacao.TabelaProdutos;
+import ecommerce.repository.ProdutoRepository;
+
+/**
+ * Atributos de preço de todos os produtos em memória, para o cálculo do total
+ * resolver produtos sem passar pelo JPA. Carregado por completo na
+ * inicialização e periodicamente; entre as cargas, aplica os produtos gravados
+ * desde a última atualização (pela coluna {@code atualizadoEm}), mantendo o de
+ * maior {@code versao}.
+ * <p>
+ * Exclusões só são refletidas na carga completa. Enquanto o catálogo não for
+ * carregado, {@link #buscar} não encontra nada e quem o usa recorre ao banco.
+ * Por isso só a cotação o usa; o checkout cobra os preços lidos do banco.
+ * As cargas leem do primário, para a cotação partir dos mesmos preços.
+ */
+@Component
+@EnableConfigurationProperties(CatalogoProperties.class)
+public class CatalogoProdutos
+{
+
+	private static final Logger LOG = LoggerFactory.getLogger(CatalogoProdutos.class);
+
+	private final ProdutoRepository repository;
+	private final TransactionTemplate transacao;
+	private final CatalogoProperties properties;
+
+	private volatile TabelaProdutos tabela = TabelaProdutos.VAZIA;
+	private volatile boolean carregado;
+	private Instant ultimaGravacao;
+
+	@Autowired
+	public CatalogoProdutos(ProdutoRepository repository, PlatformTransactionManager transactionManager,
+			CatalogoProperties properties)
+	{
+		this.repository = repository;
+		this.transacao = new TransactionTemplate(transactionManager);
+		this.properties = properties;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void carregarNaInicializacao()
+	{
+		recarregar();
+	}
+
+	@Scheduled(fixedDelayString = "${ecommerce.catalogo.intervalo-recarga-ms:600000}",
+			initialDelayString = "${ecommerce.catalogo.intervalo-recarga-ms:600000}")
+	public synchronized void recarregar()
+	{
+		if (!properties.habilitado())
+		{
+			return;
+		}
+		List<RegistroCatalogo> registros = new ArrayList<>();
+		List<RegistroCatalogo> pagina;
+		long aposId = Long.MIN_VALUE;
+		do
+		{
+			// transação de escrita: as páginas vêm do primário, nunca de uma réplica atrasada
+			long cursor = aposId;
+			pagina = transacao.execute(
+					status -> repository.findCatalogoAposId(cursor, PageRequest.of(0, properties.tamanhoPagina())));
+			registros.addAll(pagina);
+			if (!pagina.isEmpty())
+			{
+				aposId = pagina.get(pagina.size() - 1).id();
+			}
+		}
+		while (pagina.size() == properties.tamanhoPagina());
+
+		ultimaGravacao = maisRecente(registros, null);
+		tabela = new TabelaProdutos(registros);
+		carregado = true;
+		LOG.info("Catálogo de preços carregado com {} produtos", registros.size());
+	}
+
+	@Scheduled(fixedDelayString = "${ecommerce.catalogo.intervalo-delta-ms:5000}")
+	public synchronized void atualizar()
+	{
+		if (!carregado)
+		{
+			return;
+		}
+		Instant desde = ultimaGravacao == null ? Instant.EPOCH : ultimaGravacao.minus(properties.margemDelta());
+		List<RegistroCatalogo> alterados = transacao.execute(status -> repository.findCatalogoAtualizadosDesde(desde));
+		ultimaGravacao = maisRecente(alterados, ultimaGravacao);
+		tabela = tabela.aplicar(alterados);
+	}
+
+	private static Instant maisRecente(List<RegistroCatalogo> registros, Instant atual)
+	{
+		Instant maior = atual;
+		for (RegistroCatalogo r : registros)
+		{
+			if (r.atualizadoEm() != null && (maior == null || r.atualizadoEm().isAfter(maior)))
+			{
+				maior = r.atualizadoEm();
+			}
+		}
+		return maior;
+	}
+
+	/** @return o produto, ou {@code null} se não estiver no catálogo */
+	public ProdutoPrecificavel buscar(long id)
+	{
+		return tabela.buscar(id);
+	}
+
+	public boolean isCarregado()
+	{
+		return carregado;
+	}
+
+	public int tamanho()
+	{
+		return tabela.tamanho();
+	}
+}
@@ -0,0 +1,175 @@
+package ecommerce.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import ecommerce.config.CheckoutAssincronoProperties;
+import ecommerce.config.FaixasCheckoutProperties;
+import ecommerce.dto.CompraDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Modo assíncrono do checkout: valida e enfileira o pedido, devolvendo um
+ * identificador imediatamente, e executa {@code finalizarPedido} num pool de
+ * threads limitado, na faixa do cliente ({@link FaixasCheckout}).
+ * <p>
+ * Métricas: {@code checkout.assincrono.fila} (profundidade),
+ * {@code checkout.assincrono.espera} (tempo na fila),
+ * {@code checkout.assincrono.processamento} e
+ * {@code checkout.assincrono.rejeitados}.
+ */
+@Service
+@EnableConfigurationProperties(CheckoutAssincronoProperties.class)
+public class CheckoutAssincronoService implements DisposableBean
+{
+
+	private static final Logger LOG = LoggerFactory.getLogger(CheckoutAssincronoService.class);
+
+	private final CompraService compraService;
+	private final ClienteService customerService;
+	private final CarrinhoDeComprasService cartService;
+	private final CheckoutAssincronoProperties properties;
+	private final FaixasCheckout faixas;
+	private final ThreadPoolExecutor executor;
+	private final Map<String, PedidoAssincrono> pedidos = new ConcurrentHashMap<>();
+
+	private final Timer espera;
+	private final Timer processamento;
+	private final Counter rejeitados;
+
+	/** Sem faixas por cliente: cada checkout roda direto na thread do pool. */
+	public CheckoutAssincronoService(CompraService compraService, ClienteService customerService,
+			CarrinhoDeComprasService cartService, CheckoutAssincronoProperties properties, MeterRegistry registry)
+	{
+		this(compraService, customerService, cartService, properties,
+				new FaixasCheckout(new FaixasCheckoutProperties(false, 1, 1, 1, Duration.ZERO), registry), registry);
+	}
+
+	@Autowired
+	public CheckoutAssincronoService(CompraService compraService, ClienteService customerService,
+			CarrinhoDeComprasService cartService, CheckoutAssincronoProperties properties, FaixasCheckout faixas,
+			MeterRegistry registry)
+	{
+		this.compraService = compraService;
+		this.customerService = customerService;
+		this.cartService = cartService;
+		this.properties = properties;
+		this.faixas = faixas;
+
+		AtomicInteger sequencia = new AtomicInteger();
+		this.executor = new ThreadPoolExecutor(properties.threads(), properties.threads(), 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(properties.capacidadeFila()),
+				r -> new Thread(r, "checkout-assincrono-" + sequencia.incrementAndGet()));
+
+		Gauge.builder("checkout.assincrono.fila", executor, e -> e.getQueue().size()).register(registry);
+		this.espera = Timer.builder("checkout.assincrono.espera").register(registry);
+		this.processamento = Timer.builder("checkout.assincrono.processamento").register(registry);
+		this.rejeitados = Counter.builder("checkout.assincrono.rejeitados").register(registry);
+	}
+
+	/**
+	 * Valida o cliente e o carrinho e enfileira o checkout. A validação lê do
+	 * primário, como o próprio checkout, para não recusar um carrinho recém-criado
+	 * que a réplica ainda não recebeu.
+	 *
+	 * @throws IllegalArgumentException        se o cliente ou o carrinho não
+	 *                                         existirem
+	 * @throws CheckoutSobrecarregadoException se a fila estiver cheia
+	 */
+	@Transactional
+	public PedidoAssincrono enfileirar(Long carrinhoId, Long clienteId)
+	{
+		customerService.buscarPorId(clienteId);
+		if (!cartService.existePorCarrinhoIdEClienteId(carrinhoId, clienteId))
+		{
+			throw new IllegalArgumentException("Carrinho não encontrado.");
+		}
+
+		PedidoAssincrono pedido = new PedidoAssincrono(UUID.randomUUID().toString(), carrinhoId, clienteId);
+		pedidos.put(pedido.getId(), pedido);
+		try
+		{
+			executor.execute(() -> processar(pedido));
+		}
+		catch (RejectedExecutionException e)
+		{
+			pedidos.remove(pedido.getId());
+			rejeitados.increment();
+			throw new CheckoutSobrecarregadoException("Fila de checkout cheia, tente novamente.");
+		}
+		return pedido;
+	}
+
+	public Optional<PedidoAssincrono> buscar(String id)
+	{
+		return Optional.ofNullable(pedidos.get(id));
+	}
+
+	public CheckoutAssincronoProperties getProperties()
+	{
+		return properties;
+	}
+
+	private void processar(PedidoAssincrono pedido)
+	{
+		long inicio = System.nanoTime();
+		espera.record(inicio - pedido.getEnfileiradoEmNanos(), TimeUnit.NANOSECONDS);
+		pedido.iniciar();
+
+		CompraDTO resultado;
+		try
+		{
+			resultado = faixas.executar(pedido.getClienteId(),
+					() -> compraService.finalizarCompra(pedido.getCarrinhoId(), pedido.getClienteId()));
+		}
+		catch (IllegalArgumentException | IllegalStateException e)
+		{
+			resultado = new CompraDTO(false, null, e.getMessage());
+		}
+		catch (Exception e)
+		{
+			LOG.error("Erro ao processar o checkout assíncrono {}", pedido.getId(), e);
+			resultado = new CompraDTO(false, null, "Erro ao processar compra.");
+		}
+		finally
+		{
+			processamento.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+		}
+		pedido.concluir(resultado);
+	}
+
+	@Scheduled(fixedDelayString = "${ecommerce.checkout.assincrono.limpeza-ms:60000}")
+	public void removerExpirados()
+	{
+		Instant limite = Instant.now().minus(properties.retencao());
+		pedidos.values().removeIf(p -> p.getConcluidoEm() != null && p.getConcluidoEm().isBefore(limite));
+	}
+
+	@Override
+	public void destroy() throws InterruptedException
+	{
+		executor.shutdown();
+		executor.awaitTermination(30, TimeUnit.SECONDS);
+	}
+}
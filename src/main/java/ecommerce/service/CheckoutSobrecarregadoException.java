@@ -0,0 +1,17 @@
+package ecommerce.service;
+
+/**
+ * A fila do checkout assíncrono ou a faixa do cliente ({@link FaixasCheckout})
+ * está cheia. Estende {@link IllegalStateException}; o
+ * {@code CompraController} a traduz em 503.
+ */
+public class CheckoutSobrecarregadoException extends IllegalStateException
+{
+
+	private static final long serialVersionUID = 1L;
+
+	public CheckoutSobrecarregadoException(String mensagem)
+	{
+		super(mensagem);
+	}
+}
@@ -0,0 +1,47 @@
+package ecommerce.service;
+
+import java.time.Clock;
+import java.time.Instant;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import ecommerce.entity.CompensacaoPagamento;
+import ecommerce.repository.CompensacaoPagamentoRepository;
+
+/**
+ * Grava compensações na outbox em vez de chamar {@code cancelarPagamento}
+ * dentro da requisição.
+ */
+@Service
+public class CompensacaoPagamentoService implements AgendadorCompensacao
+{
+
+	private final CompensacaoPagamentoRepository repository;
+	private final Clock clock;
+
+	@Autowired
+	public CompensacaoPagamentoService(CompensacaoPagamentoRepository repository)
+	{
+		this(repository, Clock.systemUTC());
+	}
+
+	CompensacaoPagamentoService(CompensacaoPagamentoRepository repository, Clock clock)
+	{
+		this.repository = repository;
+		this.clock = clock;
+	}
+
+	/**
+	 * Usa uma transação própria: o checkout que a chama falha em seguida e tem a
+	 * sua transação revertida, mas a compensação precisa permanecer gravada.
+	 */
+	@Override
+	@Transactional(propagation = Propagation.REQUIRES_NEW)
+	public void agendar(Long clienteId, Long transacaoPagamentoId)
+	{
+		repository.save(new CompensacaoPagamento(clienteId, transacaoPagamentoId, Instant.now(clock)));
+	}
+}
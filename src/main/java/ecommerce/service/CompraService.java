@@ -2,27 +2,46 @@ package ecommerce.service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Optional;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import ecommerce.config.CotacaoProperties;
 import ecommerce.dto.CompraDTO;
+import ecommerce.dto.CotacaoDTO;
 import ecommerce.dto.DisponibilidadeDTO;
 import ecommerce.dto.EstoqueBaixaDTO;
 import ecommerce.dto.PagamentoDTO;
 import ecommerce.entity.CarrinhoDeCompras;
-import ecommerce.entity.Cliente;
-import ecommerce.entity.ItemCompra;
-import ecommerce.entity.Produto;
+import ecommerce.entity.ItemPedido;
+import ecommerce.entity.Pedido;
 import ecommerce.entity.Regiao;
+import ecommerce.entity.StatusPedido;
 import ecommerce.entity.TipoCliente;
 import ecommerce.entity.TipoProduto;
+import ecommerce.eventos.PublicadorEventosCheckout;
+import ecommerce.eventos.TipoEventoCheckout;
 import ecommerce.external.IEstoqueExternal;
 import ecommerce.external.IPagamentoExternal;
+import ecommerce.precificacao.CarrinhoPrecificavel;
+import ecommerce.precificacao.ComposicaoPreco;
+import ecommerce.precificacao.ItemPrecificavel;
+import ecommerce.precificacao.LinhasNormalizadas;
+import ecommerce.precificacao.PesoCubico;
+import ecommerce.precificacao.ProdutoPrecificavel;
+import ecommerce.prazo.ContextoPrazo;
+import ecommerce.prazo.ControlePrazo;
+import ecommerce.prazo.Prazo;
+import ecommerce.prazo.PrazoEsgotadoException;
+import ecommerce.vendas.RegistroVendas;
 
 @Service
 public class CompraService {
@@ -53,86 +72,318 @@ public class CompraService {
 	private static final BigDecimal TAXA_MINIMA = new BigDecimal("12.00");
 	private static final BigDecimal TAXA_FRAGIL = new BigDecimal("5.00");
 
-	private static final BigDecimal DIVISOR_PESO_CUBICO = new BigDecimal("6000");
+	private static final String ETAPA_CARRINHO = "carrinho";
+	private static final String ETAPA_ESTOQUE = "estoque";
+	private static final String ETAPA_PAGAMENTO = "pagamento";
+	private static final String ETAPA_BANCO = "banco";
+
+	// incrementar a cada mudança nas regras de preço: invalida as cotações já emitidas
+	static final int VERSAO_REGRAS = 1;
 
 	private final CarrinhoDeComprasService cartService;
 	private final ClienteService customerService;
 	private final IEstoqueExternal stockGateway;
 	private final IPagamentoExternal paymentGateway;
-
+	private final AgendadorCompensacao compensations;
+	private final ControlePrazo deadlines;
+	private final RegistroPedidos orders;
+	private final PublicadorEventosCheckout events;
+	private final RegistroVendas sales;
+	private final CotacoesAssinadas quotes;
+
+	/**
+	 * Sem outbox, reservas de prazo, registro de pedidos, eventos nem agregados
+	 * de vendas, e com cotações válidas só nesta instância: compensa chamando
+	 * {@code cancelarPagamento} diretamente.
+	 */
 	public CompraService(CarrinhoDeComprasService cartService,
 						 ClienteService customerService,
 						 IEstoqueExternal stockGateway,
 						 IPagamentoExternal paymentGateway) {
+		this(cartService, customerService, stockGateway, paymentGateway,
+				(clienteId, transacaoId) -> paymentGateway.cancelarPagamento(clienteId, transacaoId),
+				ControlePrazo.semReservas(), pedido -> {}, PublicadorEventosCheckout.NENHUM, RegistroVendas.NENHUM,
+				new CotacoesAssinadas(new CotacaoProperties(null, Duration.ofMinutes(15))));
+	}
+
+	@Autowired
+	public CompraService(CarrinhoDeComprasService cartService,
+						 ClienteService customerService,
+						 IEstoqueExternal stockGateway,
+						 IPagamentoExternal paymentGateway,
+						 AgendadorCompensacao compensations,
+						 ControlePrazo deadlines,
+						 RegistroPedidos orders,
+						 PublicadorEventosCheckout events,
+						 RegistroVendas sales,
+						 CotacoesAssinadas quotes) {
 		this.cartService = cartService;
 		this.customerService = customerService;
 		this.stockGateway = stockGateway;
 		this.paymentGateway = paymentGateway;
+		this.compensations = compensations;
+		this.deadlines = deadlines;
+		this.orders = orders;
+		this.events = events;
+		this.sales = sales;
+		this.quotes = quotes;
 	}
 
 	public CompraDTO finalizarCompra(Long carrinhoId, Long clienteId) {
 		return finalizarPedido(carrinhoId, clienteId);
 	}
 
+	public CompraDTO finalizarCompra(Long carrinhoId, Long clienteId, String cotacao) {
+		return finalizarPedido(carrinhoId, clienteId, cotacao);
+	}
+
 	public BigDecimal calcularCustoTotal(CarrinhoDeCompras carrinho, Regiao regiao, TipoCliente tipoCliente) {
 		return calcularTotalPedido(carrinho, regiao, tipoCliente);
 	}
 
+	/**
+	 * Cotação do carrinho, sem estoque nem pagamento. Somente leitura: com a
+	 * réplica habilitada, roda nela e não disputa o pool do primário com os
+	 * checkouts. Um carrinho em memória é cotado como está lá.
+	 */
+	@Transactional(readOnly = true)
+	public BigDecimal cotarPedido(Long carrinhoId, Long clienteId) {
+		return calcularTotalPedido(carregarParaCotacao(carrinhoId, clienteId));
+	}
+
+	/**
+	 * Como {@link #cotarPedido}, com a cotação assinada que o checkout aceita
+	 * no lugar de recalcular o preço (ver {@link CotacoesAssinadas}).
+	 */
+	@Transactional(readOnly = true)
+	public CotacaoDTO emitirCotacao(Long carrinhoId, Long clienteId) {
+		CarrinhoPrecificavel carrinho = carregarParaCotacao(carrinhoId, clienteId);
+		validarEntrada(carrinho.itens(), carrinho.regiao(), carrinho.tipoCliente());
+		LinhasNormalizadas linhas = LinhasNormalizadas.de(carrinho.itens());
+		ComposicaoPreco preco = comporPreco(linhas, carrinho.regiao(), carrinho.tipoCliente());
+		return new CotacaoDTO(carrinhoId, preco.total(), quotes.emitir(carrinho, linhas, VERSAO_REGRAS, preco), null);
+	}
+
+	private CarrinhoPrecificavel carregarParaCotacao(Long carrinhoId, Long clienteId) {
+		try {
+			Optional<CarrinhoPrecificavel> emSessao = cartService.buscarEmSessao(carrinhoId, clienteId);
+			return emSessao.isPresent() ? emSessao.get()
+					: exigirCarrinho(cartService.buscarParaCotacao(carrinhoId, clienteId), clienteId);
+		} catch (QueryTimeoutException e) {
+			deadlines.registrarExcedido(ETAPA_BANCO);
+			throw new PrazoEsgotadoException(ETAPA_BANCO);
+		}
+	}
+
+	/**
+	 * Cada etapa até a autorização do pagamento verifica antes se o prazo da
+	 * requisição ainda a comporta; estouros são contados por etapa. A transação
+	 * não é somente leitura de propósito: o checkout lê o carrinho do primário,
+	 * nunca de uma réplica atrasada (as compensações usam transação própria).
+	 * Alterações do carrinho ainda em memória são gravadas antes da leitura.
+	 * Linhas repetidas de um produto chegam somadas ao estoque, ao cálculo do
+	 * preço e ao pedido. Todo pagamento autorizado gera um {@link Pedido},
+	 * concluído ou estornado, entregue ao {@link RegistroPedidos}, que grava
+	 * fora desta transação. As etapas são publicadas como eventos, sem esperar
+	 * pelos consumidores, e as linhas dos pedidos concluídos entram nos
+	 * agregados de vendas.
+	 */
 	@Transactional
 	public CompraDTO finalizarPedido(Long carrinhoId, Long clienteId) {
-		Cliente cliente = customerService.buscarPorId(clienteId);
-		CarrinhoDeCompras carrinho = cartService.buscarPorCarrinhoIdEClienteId(carrinhoId, cliente);
+		return finalizarPedido(carrinhoId, clienteId, null);
+	}
 
-		List<Long> ids = carrinho.getItens().stream()
-				.map(i -> i.getProduto().getId())
-				.collect(Collectors.toList());
+	/**
+	 * Como {@link #finalizarPedido(Long, Long)}; uma {@code cotacao} emitida
+	 * por {@link #emitirCotacao} que ainda confere com o carrinho dispensa o
+	 * recálculo do preço. Se não conferir, o preço é recalculado.
+	 */
+	@Transactional
+	public CompraDTO finalizarPedido(Long carrinhoId, Long clienteId, String cotacao) {
+		try {
+			return executarCheckout(carrinhoId, clienteId, cotacao);
+		} catch (PrazoEsgotadoException e) {
+			deadlines.registrarExcedido(e.getEtapa());
+			throw e;
+		} catch (QueryTimeoutException e) {
+			deadlines.registrarExcedido(ETAPA_BANCO);
+			throw new PrazoEsgotadoException(ETAPA_BANCO);
+		}
+	}
 
-		List<Long> qts = carrinho.getItens().stream()
-				.map(ItemCompra::getQuantidade)
-				.map(Number::longValue)
-				.collect(Collectors.toList());
+	private CompraDTO executarCheckout(Long carrinhoId, Long clienteId, String cotacao) {
+		deadlines.verificar(ETAPA_CARRINHO);
+		cartService.sincronizar(carrinhoId);
+		CarrinhoPrecificavel carrinho = carregarCarrinho(carrinhoId, clienteId);
+		events.publicar(TipoEventoCheckout.INICIADO, carrinhoId, clienteId, null, null);
 
+		LinhasNormalizadas linhas = LinhasNormalizadas.de(carrinho.itens());
+		List<Long> ids = linhas.produtoIds();
+		List<Long> qts = linhas.quantidades();
+
+		deadlines.verificar(ETAPA_ESTOQUE);
 		DisponibilidadeDTO disponibilidade = stockGateway.verificarDisponibilidade(ids, qts);
 		if (!Boolean.TRUE.equals(disponibilidade.disponivel())) {
+			events.publicar(TipoEventoCheckout.SEM_ESTOQUE, carrinhoId, clienteId, null, null);
 			throw new IllegalStateException("Itens fora de estoque.");
 		}
 
-		BigDecimal total = calcularTotalPedido(carrinho, cliente.getRegiao(), cliente.getTipo());
+		ComposicaoPreco preco = quotes.validar(cotacao, carrinho, linhas, VERSAO_REGRAS)
+				.orElseGet(() -> comporPreco(linhas, carrinho.regiao(), carrinho.tipoCliente()));
 
-		PagamentoDTO pagamento = paymentGateway.autorizarPagamento(cliente.getId(), total.doubleValue());
+		deadlines.verificar(ETAPA_PAGAMENTO);
+		PagamentoDTO pagamento = autorizar(clienteId, preco.total());
 		if (!Boolean.TRUE.equals(pagamento.autorizado())) {
+			events.publicar(TipoEventoCheckout.PAGAMENTO_RECUSADO, carrinhoId, clienteId, null, preco.total());
 			throw new IllegalStateException("Pagamento não autorizado.");
 		}
 
-		EstoqueBaixaDTO baixa = stockGateway.darBaixa(ids, qts);
-		if (!Boolean.TRUE.equals(baixa.sucesso())) {
-			paymentGateway.cancelarPagamento(cliente.getId(), pagamento.transacaoId());
-			throw new IllegalStateException("Erro ao dar baixa no estoque.");
+		StatusPedido status = StatusPedido.ESTORNADO;
+		try {
+			darBaixaOuCompensar(clienteId, pagamento.transacaoId(), ids, qts);
+			status = StatusPedido.CONCLUIDO;
+			sales.registrar(carrinho.regiao(), carrinho.tipoCliente(), linhas.itens(), preco.subtotal());
+		} finally {
+			orders.registrar(novoPedido(carrinho, linhas, preco, pagamento.transacaoId(), status));
+			events.publicar(status == StatusPedido.CONCLUIDO ? TipoEventoCheckout.CONCLUIDO : TipoEventoCheckout.COMPENSADO,
+					carrinhoId, clienteId, pagamento.transacaoId(), preco.total());
 		}
 
 		return new CompraDTO(true, pagamento.transacaoId(), "Compra finalizada com sucesso.");
 	}
 
+	/**
+	 * Carrinho, itens, produtos e dados do cliente vêm numa única consulta. O
+	 * cliente só é consultado à parte quando o carrinho não é encontrado, para
+	 * distinguir "Cliente não encontrado" de "Carrinho não encontrado".
+	 */
+	private CarrinhoPrecificavel carregarCarrinho(Long carrinhoId, Long clienteId) {
+		return exigirCarrinho(cartService.buscarParaPrecificacao(carrinhoId, clienteId), clienteId);
+	}
+
+	private CarrinhoPrecificavel exigirCarrinho(Optional<CarrinhoPrecificavel> carrinho, Long clienteId) {
+		if (carrinho.isEmpty()) {
+			customerService.buscarPorId(clienteId);
+			throw new IllegalArgumentException("Carrinho não encontrado.");
+		}
+		return carrinho.get();
+	}
+
+	private static Pedido novoPedido(CarrinhoPrecificavel carrinho, LinhasNormalizadas linhas, ComposicaoPreco preco,
+			Long transacaoId, StatusPedido status) {
+		Pedido pedido = new Pedido();
+		pedido.setCarrinhoId(carrinho.carrinhoId());
+		pedido.setClienteId(carrinho.clienteId());
+		pedido.setTransacaoId(transacaoId);
+		pedido.setStatus(status);
+		pedido.setRegiao(carrinho.regiao());
+		pedido.setTipoCliente(carrinho.tipoCliente());
+		pedido.setSubtotal(preco.subtotal());
+		pedido.setDescontoTipo(preco.descontoTipo());
+		pedido.setDescontoValor(preco.descontoValor());
+		pedido.setFrete(preco.frete());
+		pedido.setTotal(preco.total());
+		for (ItemPrecificavel item : linhas.itens()) {
+			pedido.getItens().add(new ItemPedido(item.getProduto().getId(), item.getQuantidade(),
+					item.getProduto().getPreco()));
+		}
+		pedido.setCriadoEm(Instant.now());
+		return pedido;
+	}
+
+	/**
+	 * O prazo só decide se a autorização começa: depois de enviada, ela roda
+	 * sem o prazo da requisição, porque abandoná-la deixaria uma cobrança
+	 * possivelmente feita sem pedido nem compensação.
+	 */
+	private PagamentoDTO autorizar(Long clienteId, BigDecimal total) {
+		Prazo prazo = ContextoPrazo.atual();
+		ContextoPrazo.definir(Prazo.SEM_PRAZO);
+		try {
+			return paymentGateway.autorizarPagamento(clienteId, total.doubleValue());
+		} finally {
+			ContextoPrazo.definir(prazo);
+		}
+	}
+
+	/**
+	 * Com o pagamento já autorizado, concluir é mais barato que compensar: a
+	 * baixa roda sem o prazo da requisição, e qualquer falha (inclusive do
+	 * gateway) agenda o cancelamento do pagamento.
+	 */
+	private void darBaixaOuCompensar(Long clienteId, Long transacaoId, List<Long> ids, List<Long> qts) {
+		Prazo prazo = ContextoPrazo.atual();
+		ContextoPrazo.definir(Prazo.SEM_PRAZO);
+		EstoqueBaixaDTO baixa;
+		try {
+			baixa = stockGateway.darBaixa(ids, qts);
+		} catch (RuntimeException e) {
+			compensations.agendar(clienteId, transacaoId);
+			throw e;
+		} finally {
+			ContextoPrazo.definir(prazo);
+		}
+		if (baixa == null || !Boolean.TRUE.equals(baixa.sucesso())) {
+			compensations.agendar(clienteId, transacaoId);
+			throw new IllegalStateException("Erro ao dar baixa no estoque.");
+		}
+	}
+
 	public BigDecimal calcularTotalPedido(CarrinhoDeCompras carrinho, Regiao regiao, TipoCliente tipoCliente) {
-		validarEntrada(carrinho, regiao, tipoCliente);
+		return calcularTotalItens(carrinho == null ? null : carrinho.getItens(), regiao, tipoCliente);
+	}
 
-		BigDecimal subtotal = calcularSubtotal(carrinho);
-		BigDecimal subtotalAposTipo = aplicarDescontosPorTipo(carrinho, subtotal);
+	public BigDecimal calcularTotalPedido(CarrinhoPrecificavel carrinho) {
+		return comporPreco(carrinho).total();
+	}
+
+	/** Como {@link #calcularTotalPedido(CarrinhoPrecificavel)}, com os componentes do total. */
+	public ComposicaoPreco comporPreco(CarrinhoPrecificavel carrinho) {
+		if (carrinho == null) {
+			throw new IllegalArgumentException("Carrinho não pode ser nulo/vazio");
+		}
+		return comporPreco(carrinho.itens(), carrinho.regiao(), carrinho.tipoCliente());
+	}
+
+	private BigDecimal calcularTotalItens(List<? extends ItemPrecificavel> itens, Regiao regiao, TipoCliente tipoCliente) {
+		return comporPreco(itens, regiao, tipoCliente).total();
+	}
+
+	private ComposicaoPreco comporPreco(List<? extends ItemPrecificavel> itens, Regiao regiao, TipoCliente tipoCliente) {
+		validarEntrada(itens, regiao, tipoCliente);
+		return comporPreco(LinhasNormalizadas.de(itens), regiao, tipoCliente);
+	}
+
+	/**
+	 * Calcula sobre uma linha por produto. O resultado é o mesmo das linhas
+	 * originais, com menos linhas a percorrer (ver {@link LinhasNormalizadas}).
+	 */
+	private ComposicaoPreco comporPreco(LinhasNormalizadas linhas, Regiao regiao, TipoCliente tipoCliente) {
+		List<ItemPrecificavel> itens = linhas.itens();
+		validarEntrada(itens, regiao, tipoCliente);
+
+		BigDecimal subtotal = calcularSubtotal(itens);
+		BigDecimal subtotalAposTipo = aplicarDescontosPorTipo(itens, subtotal);
 		BigDecimal subtotalFinal = aplicarDescontoPorValor(subtotalAposTipo);
 
-		BigDecimal frete = calcularFreteFinal(carrinho, regiao, tipoCliente);
+		BigDecimal frete = calcularFreteFinal(itens, regiao, tipoCliente);
 
-		return subtotalFinal.add(frete).setScale(2, ROUNDING);
+		return new ComposicaoPreco(
+				subtotal.setScale(2, ROUNDING),
+				subtotal.subtract(subtotalAposTipo).setScale(2, ROUNDING),
+				subtotalAposTipo.subtract(subtotalFinal).setScale(2, ROUNDING),
+				frete.setScale(2, ROUNDING),
+				subtotalFinal.add(frete).setScale(2, ROUNDING));
 	}
 
-	private BigDecimal calcularSubtotal(CarrinhoDeCompras carrinho) {
+	private BigDecimal calcularSubtotal(List<? extends ItemPrecificavel> itens) {
 		BigDecimal subtotal = ZERO;
-		for (ItemCompra item : carrinho.getItens()) {
+		for (ItemPrecificavel item : itens) {
 			Long qtd = item.getQuantidade();
 			if (qtd == null || qtd.longValue() <= 0L) {
 				throw new IllegalArgumentException("Quantidade deve ser maior que zero");
 			}
-			Produto p = item.getProduto();
+			ProdutoPrecificavel p = item.getProduto();
 			// >>> ALTERAÇÃO: agora exige preço POSITIVO (> 0). Zero é inválido.
 			if (p == null || p.getPreco() == null || p.getPreco().compareTo(ZERO) <= 0) {
 				throw new IllegalArgumentException("Preço inválido: preço deve ser maior que zero");
@@ -142,12 +393,12 @@ public class CompraService {
 		return subtotal;
 	}
 
-	private BigDecimal aplicarDescontosPorTipo(CarrinhoDeCompras carrinho, BigDecimal subtotalGlobal) {
+	private BigDecimal aplicarDescontosPorTipo(List<? extends ItemPrecificavel> itens, BigDecimal subtotalGlobal) {
 		Map<TipoProduto, BigDecimal> subtotalPorTipo = new EnumMap<>(TipoProduto.class);
 		Map<TipoProduto, Integer> qtPorTipo = new EnumMap<>(TipoProduto.class);
 
-		for (ItemCompra item : carrinho.getItens()) {
-			Produto p = item.getProduto();
+		for (ItemPrecificavel item : itens) {
+			ProdutoPrecificavel p = item.getProduto();
 			TipoProduto t = p.getTipo();
 
 			BigDecimal linha = p.getPreco().multiply(BigDecimal.valueOf(item.getQuantidade().longValue()));
@@ -181,11 +432,11 @@ public class CompraService {
 		return (perc.signum() > 0) ? subtotal.subtract(subtotal.multiply(perc)) : subtotal;
 	}
 
-	private BigDecimal calcularFreteFinal(CarrinhoDeCompras carrinho, Regiao regiao, TipoCliente tipoCliente) {
-		BigDecimal pesoTotal = calcularPesoTributavelTotal(carrinho);
+	private BigDecimal calcularFreteFinal(List<? extends ItemPrecificavel> itens, Regiao regiao, TipoCliente tipoCliente) {
+		BigDecimal pesoTotal = calcularPesoTributavelTotal(itens);
 		BigDecimal freteBase = calcularFaixaFrete(pesoTotal);
 
-		BigDecimal taxaManuseioFrageis = calcularTaxaFrageis(carrinho);
+		BigDecimal taxaManuseioFrageis = calcularTaxaFrageis(itens);
 		BigDecimal minimo = (freteBase.signum() > 0) ? TAXA_MINIMA : ZERO;
 		BigDecimal fatorRegiao = fatorPorRegiao(regiao);
 
@@ -193,10 +444,10 @@ public class CompraService {
 		return aplicarBeneficioNivel(freteBruto, tipoCliente);
 	}
 
-	private BigDecimal calcularPesoTributavelTotal(CarrinhoDeCompras carrinho) {
+	private BigDecimal calcularPesoTributavelTotal(List<? extends ItemPrecificavel> itens) {
 		BigDecimal total = ZERO;
-		for (ItemCompra item : carrinho.getItens()) {
-			Produto p = item.getProduto();
+		for (ItemPrecificavel item : itens) {
+			ProdutoPrecificavel p = item.getProduto();
 			if (p.getPesoFisico() == null || p.getPesoFisico().compareTo(ZERO) < 0) {
 				throw new IllegalArgumentException("Peso físico não pode ser nulo/negativo");
 			}
@@ -208,15 +459,12 @@ public class CompraService {
 		return total;
 	}
 
-	private BigDecimal calcularPesoCubico(Produto p) {
-		if (p.getComprimento() == null || p.getLargura() == null || p.getAltura() == null) {
-			return ZERO;
-		}
-		if (p.getComprimento().compareTo(ZERO) < 0 || p.getLargura().compareTo(ZERO) < 0 || p.getAltura().compareTo(ZERO) < 0) {
-			throw new IllegalArgumentException("Dimensões não podem ser negativas");
+	private BigDecimal calcularPesoCubico(ProdutoPrecificavel p) {
+		BigDecimal precalculado = p.getPesoCubico();
+		if (precalculado != null) {
+			return precalculado;
 		}
-		BigDecimal volume = p.getComprimento().multiply(p.getLargura()).multiply(p.getAltura());
-		return volume.divide(DIVISOR_PESO_CUBICO, 2, ROUNDING);
+		return PesoCubico.calcular(p.getComprimento(), p.getLargura(), p.getAltura());
 	}
 
 	private BigDecimal calcularFaixaFrete(BigDecimal pesoTotal) {
@@ -231,9 +479,9 @@ public class CompraService {
 		}
 	}
 
-	private BigDecimal calcularTaxaFrageis(CarrinhoDeCompras carrinho) {
+	private BigDecimal calcularTaxaFrageis(List<? extends ItemPrecificavel> itens) {
 		BigDecimal taxa = ZERO;
-		for (ItemCompra item : carrinho.getItens()) {
+		for (ItemPrecificavel item : itens) {
 			Boolean fragil = item.getProduto().isFragil();
 			if (fragil != null && fragil) {
 				taxa = taxa.add(TAXA_FRAGIL.multiply(BigDecimal.valueOf(item.getQuantidade().longValue())));
@@ -260,8 +508,8 @@ public class CompraService {
 		};
 	}
 
-	private void validarEntrada(CarrinhoDeCompras carrinho, Regiao regiao, TipoCliente tipo) {
-		if (carrinho == null || carrinho.getItens() == null || carrinho.getItens().isEmpty()) {
+	private void validarEntrada(List<? extends ItemPrecificavel> itens, Regiao regiao, TipoCliente tipo) {
+		if (itens == null || itens.isEmpty()) {
 			throw new IllegalArgumentException("Carrinho não pode ser nulo/vazio");
 		}
 		if (regiao == null) {
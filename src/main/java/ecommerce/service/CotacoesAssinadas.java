@@ -0,0 +1,278 @@
+package ecommerce.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Optional;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import ecommerce.config.CotacaoProperties;
+import ecommerce.precificacao.CarrinhoPrecificavel;
+import ecommerce.precificacao.ComposicaoPreco;
+import ecommerce.precificacao.ItemPrecificavel;
+import ecommerce.precificacao.LinhasNormalizadas;
+import ecommerce.precificacao.ProdutoPrecificavel;
+
+/**
+ * Emite e confere cotações assinadas: o preço calculado para o cliente vai
+ * junto com o que o determinou, e o checkout pode reaproveitá-lo em vez de
+ * recalcular.
+ * <p>
+ * A cotação é {@code dados.assinatura} em Base64 URL, com HMAC-SHA256
+ * truncado. Os dados são o carrinho e o cliente, a região e o tipo do
+ * cliente, a versão das regras de preço, uma impressão das linhas
+ * normalizadas com os atributos de preço de cada produto, a composição do
+ * preço em centavos e o instante de emissão. A impressão faz o papel da
+ * versão do carrinho: muda com qualquer alteração de item ou de preço, peso
+ * ou tipo de produto, inclusive em carrinhos ainda em memória. É um SHA-256
+ * truncado de uma codificação canônica das linhas, então dois carrinhos só
+ * têm a mesma impressão se tiverem as mesmas quantidades e os mesmos
+ * atributos, a menos de zeros à direita nos decimais.
+ * <p>
+ * Qualquer divergência, assinatura inválida ou cotação vencida só faz o
+ * checkout recalcular; nunca é erro.
+ */
+@Component
+@EnableConfigurationProperties(CotacaoProperties.class)
+public class CotacoesAssinadas
+{
+
+	private static final byte FORMATO = 2;
+	private static final String ALGORITMO = "HmacSHA256";
+	private static final int TAMANHO_ASSINATURA = 16;
+	private static final int TAMANHO_IMPRESSAO = 16;
+	// formato, carrinho, cliente, região, tipo, regras, impressão, 5 valores, emissão
+	private static final int TAMANHO_DADOS = 1 + 8 + 8 + 1 + 1 + 4 + TAMANHO_IMPRESSAO + 5 * 8 + 8;
+	private static final ThreadLocal<MessageDigest> RESUMOS = ThreadLocal.withInitial(CotacoesAssinadas::novoResumo);
+
+	private static final Base64.Encoder CODIFICADOR = Base64.getUrlEncoder().withoutPadding();
+	private static final Base64.Decoder DECODIFICADOR = Base64.getUrlDecoder();
+
+	private final SecretKeySpec chave;
+	private final CotacaoProperties properties;
+	private final Clock relogio;
+	private final ThreadLocal<Mac> macs;
+
+	@Autowired
+	public CotacoesAssinadas(CotacaoProperties properties)
+	{
+		this(properties, Clock.systemUTC());
+	}
+
+	CotacoesAssinadas(CotacaoProperties properties, Clock relogio)
+	{
+		byte[] bytes;
+		if (properties.chave() == null || properties.chave().isBlank())
+		{
+			bytes = new byte[32];
+			new SecureRandom().nextBytes(bytes);
+		}
+		else
+		{
+			bytes = Base64.getDecoder().decode(properties.chave().trim());
+		}
+		this.chave = new SecretKeySpec(bytes, ALGORITMO);
+		this.properties = properties;
+		this.relogio = relogio;
+		this.macs = ThreadLocal.withInitial(this::novoMac);
+	}
+
+	private Mac novoMac()
+	{
+		try
+		{
+			Mac mac = Mac.getInstance(ALGORITMO);
+			mac.init(chave);
+			return mac;
+		}
+		catch (GeneralSecurityException e)
+		{
+			throw new IllegalStateException("HMAC indisponível", e);
+		}
+	}
+
+	private static MessageDigest novoResumo()
+	{
+		try
+		{
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			throw new IllegalStateException("SHA-256 indisponível", e);
+		}
+	}
+
+	public String emitir(CarrinhoPrecificavel carrinho, LinhasNormalizadas linhas, int versaoRegras,
+			ComposicaoPreco preco)
+	{
+		ByteBuffer dados = ByteBuffer.allocate(TAMANHO_DADOS)
+				.put(FORMATO)
+				.putLong(carrinho.carrinhoId())
+				.putLong(carrinho.clienteId())
+				.put((byte) carrinho.regiao().ordinal())
+				.put((byte) carrinho.tipoCliente().ordinal())
+				.putInt(versaoRegras)
+				.put(impressao(linhas))
+				.putLong(centavos(preco.subtotal()))
+				.putLong(centavos(preco.descontoTipo()))
+				.putLong(centavos(preco.descontoValor()))
+				.putLong(centavos(preco.frete()))
+				.putLong(centavos(preco.total()))
+				.putLong(relogio.instant().getEpochSecond());
+		byte[] bytes = dados.array();
+		return CODIFICADOR.encodeToString(bytes) + "." + CODIFICADOR.encodeToString(assinar(bytes));
+	}
+
+	/**
+	 * @return a composição cotada, se a cotação for autêntica, estiver no
+	 *         prazo e tudo o que determinou o preço continuar igual
+	 */
+	public Optional<ComposicaoPreco> validar(String cotacao, CarrinhoPrecificavel carrinho, LinhasNormalizadas linhas,
+			int versaoRegras)
+	{
+		if (cotacao == null || cotacao.isBlank())
+		{
+			return Optional.empty();
+		}
+		int ponto = cotacao.indexOf('.');
+		byte[] bytes;
+		byte[] assinatura;
+		try
+		{
+			bytes = DECODIFICADOR.decode(cotacao.substring(0, Math.max(ponto, 0)));
+			assinatura = DECODIFICADOR.decode(cotacao.substring(ponto + 1));
+		}
+		catch (IllegalArgumentException e)
+		{
+			return Optional.empty();
+		}
+		if (ponto < 0 || bytes.length != TAMANHO_DADOS || !MessageDigest.isEqual(assinatura, assinar(bytes)))
+		{
+			return Optional.empty();
+		}
+
+		ByteBuffer dados = ByteBuffer.wrap(bytes);
+		boolean confere = dados.get() == FORMATO
+				&& dados.getLong() == carrinho.carrinhoId()
+				&& dados.getLong() == carrinho.clienteId()
+				&& dados.get() == carrinho.regiao().ordinal()
+				&& dados.get() == carrinho.tipoCliente().ordinal()
+				&& dados.getInt() == versaoRegras
+				&& MessageDigest.isEqual(proximos(dados, TAMANHO_IMPRESSAO), impressao(linhas));
+		if (!confere)
+		{
+			return Optional.empty();
+		}
+		ComposicaoPreco preco = new ComposicaoPreco(reais(dados.getLong()), reais(dados.getLong()),
+				reais(dados.getLong()), reais(dados.getLong()), reais(dados.getLong()));
+		Instant emitidaEm = Instant.ofEpochSecond(dados.getLong());
+		Instant agora = relogio.instant();
+		if (emitidaEm.isAfter(agora) || emitidaEm.plus(properties.validade()).isBefore(agora))
+		{
+			return Optional.empty();
+		}
+		return Optional.of(preco);
+	}
+
+	private byte[] assinar(byte[] dados)
+	{
+		return Arrays.copyOf(macs.get().doFinal(dados), TAMANHO_ASSINATURA);
+	}
+
+	/**
+	 * Resumo das linhas e dos atributos de preço de cada produto, na ordem.
+	 * Cada campo entra com marca de presença e, se variável, com o tamanho, de
+	 * modo que codificações diferentes nunca se confundem; decimais entram
+	 * como valor sem escala e escala, sem os zeros à direita.
+	 */
+	static byte[] impressao(LinhasNormalizadas linhas)
+	{
+		MessageDigest resumo = RESUMOS.get();
+		ByteBuffer campo = ByteBuffer.allocate(Long.BYTES);
+		inteiro(resumo, campo, linhas.itens().size());
+		for (ItemPrecificavel item : linhas.itens())
+		{
+			longo(resumo, campo, item.getQuantidade());
+			ProdutoPrecificavel p = item.getProduto();
+			if (p == null)
+			{
+				resumo.update((byte) 0);
+				continue;
+			}
+			resumo.update((byte) 1);
+			longo(resumo, campo, p.getId());
+			decimal(resumo, campo, p.getPreco());
+			decimal(resumo, campo, p.getPesoFisico());
+			decimal(resumo, campo, p.getPesoCubico());
+			decimal(resumo, campo, p.getComprimento());
+			decimal(resumo, campo, p.getLargura());
+			decimal(resumo, campo, p.getAltura());
+			resumo.update((byte) (p.isFragil() == null ? -1 : p.isFragil() ? 1 : 0));
+			inteiro(resumo, campo, p.getTipo() == null ? -1 : p.getTipo().ordinal());
+		}
+		return Arrays.copyOf(resumo.digest(), TAMANHO_IMPRESSAO);
+	}
+
+	private static void longo(MessageDigest resumo, ByteBuffer campo, Long valor)
+	{
+		if (valor == null)
+		{
+			resumo.update((byte) 0);
+			return;
+		}
+		resumo.update((byte) 1);
+		resumo.update(campo.clear().putLong(valor).array(), 0, Long.BYTES);
+	}
+
+	private static void inteiro(MessageDigest resumo, ByteBuffer campo, int valor)
+	{
+		resumo.update(campo.clear().putInt(valor).array(), 0, Integer.BYTES);
+	}
+
+	private static void decimal(MessageDigest resumo, ByteBuffer campo, BigDecimal valor)
+	{
+		if (valor == null)
+		{
+			resumo.update((byte) 0);
+			return;
+		}
+		BigDecimal canonico = valor.stripTrailingZeros();
+		byte[] semEscala = canonico.unscaledValue().toByteArray();
+		resumo.update((byte) 1);
+		inteiro(resumo, campo, canonico.scale());
+		inteiro(resumo, campo, semEscala.length);
+		resumo.update(semEscala);
+	}
+
+	private static byte[] proximos(ByteBuffer dados, int tamanho)
+	{
+		byte[] bytes = new byte[tamanho];
+		dados.get(bytes);
+		return bytes;
+	}
+
+	private static long centavos(BigDecimal valor)
+	{
+		return valor.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+	}
+
+	private static BigDecimal reais(long centavos)
+	{
+		return BigDecimal.valueOf(centavos, 2);
+	}
+}
@@ -0,0 +1,124 @@
+package ecommerce.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import ecommerce.config.CompensacaoProperties;
+import ecommerce.entity.CompensacaoPagamento;
+import ecommerce.entity.StatusCompensacao;
+import ecommerce.external.IPagamentoExternal;
+import ecommerce.repository.CompensacaoPagamentoRepository;
+
+/**
+ * Esvazia a outbox de compensações em lotes, chamando
+ * {@code cancelarPagamento} para cada uma. Falhas são reagendadas com backoff
+ * exponencial até {@code maximoTentativas}; depois disso a compensação fica
+ * como {@link StatusCompensacao#FALHOU} para tratamento manual.
+ * <p>
+ * O resultado de cada compensação é gravado logo após o cancelamento, numa
+ * transação só dela: uma gravação que falha não desfaz o registro das
+ * demais do lote, cujos cancelamentos seriam reenviados.
+ * <p>
+ * Pressupõe um único despachante ativo por banco de dados.
+ */
+@Component
+@EnableConfigurationProperties(CompensacaoProperties.class)
+public class DespachanteCompensacoes
+{
+
+	private static final Logger LOG = LoggerFactory.getLogger(DespachanteCompensacoes.class);
+
+	private final CompensacaoPagamentoRepository repository;
+	private final IPagamentoExternal paymentGateway;
+	private final CompensacaoProperties properties;
+	private final Clock clock;
+
+	@Autowired
+	public DespachanteCompensacoes(CompensacaoPagamentoRepository repository, IPagamentoExternal paymentGateway,
+			CompensacaoProperties properties)
+	{
+		this(repository, paymentGateway, properties, Clock.systemUTC());
+	}
+
+	DespachanteCompensacoes(CompensacaoPagamentoRepository repository, IPagamentoExternal paymentGateway,
+			CompensacaoProperties properties, Clock clock)
+	{
+		this.repository = repository;
+		this.paymentGateway = paymentGateway;
+		this.properties = properties;
+		this.clock = clock;
+	}
+
+	@Scheduled(fixedDelayString = "${ecommerce.compensacao.intervalo-ms:5000}")
+	public void despachar()
+	{
+		Instant agora = Instant.now(clock);
+		List<CompensacaoPagamento> lote;
+		boolean gravouTodas;
+		do
+		{
+			lote = repository.findByStatusAndProximaTentativaLessThanEqualOrderByProximaTentativa(
+					StatusCompensacao.PENDENTE, agora, PageRequest.of(0, properties.tamanhoLote()));
+			gravouTodas = true;
+			for (CompensacaoPagamento compensacao : lote)
+			{
+				executar(compensacao, agora);
+				gravouTodas &= gravar(compensacao);
+			}
+		}
+		// uma compensação não gravada voltaria no próximo lote; fica para a próxima execução
+		while (gravouTodas && lote.size() == properties.tamanhoLote());
+	}
+
+	private boolean gravar(CompensacaoPagamento compensacao)
+	{
+		try
+		{
+			repository.save(compensacao);
+			return true;
+		}
+		catch (RuntimeException e)
+		{
+			LOG.error("Resultado da compensação do pagamento {} não gravado", compensacao.getTransacaoId(), e);
+			return false;
+		}
+	}
+
+	private void executar(CompensacaoPagamento compensacao, Instant agora)
+	{
+		try
+		{
+			paymentGateway.cancelarPagamento(compensacao.getClienteId(), compensacao.getTransacaoId());
+			compensacao.concluir();
+		}
+		catch (RuntimeException e)
+		{
+			Instant proxima = agora.plus(backoff(compensacao.getTentativas() + 1));
+			compensacao.registrarFalha(e.getMessage(), proxima, properties.maximoTentativas());
+			if (compensacao.getStatus() == StatusCompensacao.FALHOU)
+			{
+				LOG.error("Compensação do pagamento {} falhou após {} tentativas", compensacao.getTransacaoId(),
+						compensacao.getTentativas(), e);
+			}
+		}
+	}
+
+	/** Espera antes da tentativa {@code tentativa} (1 = após a primeira falha). */
+	Duration backoff(int tentativa)
+	{
+		Duration inicial = properties.backoffInicial();
+		int expoente = Math.min(tentativa - 1, 30);
+		Duration espera = inicial.multipliedBy(1L << expoente);
+		return espera.compareTo(properties.backoffMaximo()) > 0 ? properties.backoffMaximo() : espera;
+	}
+}
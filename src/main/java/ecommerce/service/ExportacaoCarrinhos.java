@@ -0,0 +1,138 @@
+package ecommerce.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ecommerce.config.ExportacaoProperties;
+import ecommerce.dto.CarrinhoExportadoDTO;
+import ecommerce.dto.LinhaExportadaDTO;
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.LinhasCompactas;
+import ecommerce.repository.CarrinhoDeComprasRepository;
+import jakarta.persistence.EntityManager;
+
+/**
+ * Exporta todos os carrinhos para um {@link OutputStream} com memória
+ * constante: os carrinhos vêm de um único cursor em blocos de
+ * {@code tamanhoBloco}; os itens de cada bloco são carregados em lote
+ * ({@code @BatchSize}) e o contexto de persistência é limpo ao fim do bloco.
+ */
+@Service
+@EnableConfigurationProperties(ExportacaoProperties.class)
+public class ExportacaoCarrinhos
+{
+
+	static final String CABECALHO_CSV = "carrinho_id,cliente_id,data,produto_id,quantidade\n";
+
+	private final CarrinhoDeComprasRepository repository;
+	private final EntityManager entityManager;
+	private final ObjectMapper objectMapper;
+	private final ExportacaoProperties properties;
+
+	@Autowired
+	public ExportacaoCarrinhos(CarrinhoDeComprasRepository repository, EntityManager entityManager,
+			ObjectMapper objectMapper, ExportacaoProperties properties)
+	{
+		this.repository = repository;
+		this.entityManager = entityManager;
+		this.objectMapper = objectMapper;
+		this.properties = properties;
+	}
+
+	/** @return quantidade de carrinhos exportados */
+	@Transactional(readOnly = true)
+	public long exportar(FormatoExportacao formato, OutputStream saida) throws IOException
+	{
+		Writer escritor = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8));
+		if (formato == FormatoExportacao.CSV)
+		{
+			escritor.write(CABECALHO_CSV);
+		}
+		long total = 0;
+		List<CarrinhoDeCompras> bloco = new ArrayList<>(properties.tamanhoBloco());
+		try (Stream<CarrinhoDeCompras> carrinhos = repository.streamTodosComCliente())
+		{
+			Iterator<CarrinhoDeCompras> iterador = carrinhos.iterator();
+			while (iterador.hasNext())
+			{
+				bloco.add(iterador.next());
+				if (bloco.size() == properties.tamanhoBloco() || !iterador.hasNext())
+				{
+					for (CarrinhoDeCompras carrinho : bloco)
+					{
+						escrever(formato, exportado(carrinho), escritor);
+					}
+					total += bloco.size();
+					bloco.clear();
+					escritor.flush();
+					entityManager.clear();
+				}
+			}
+		}
+		escritor.flush();
+		return total;
+	}
+
+	private static CarrinhoExportadoDTO exportado(CarrinhoDeCompras carrinho)
+	{
+		List<LinhaExportadaDTO> linhas = new ArrayList<>();
+		if (carrinho.isCompacto())
+		{
+			LinhasCompactas compactas = carrinho.getLinhasCompactas();
+			for (int i = 0; compactas != null && i < compactas.tamanho(); i++)
+			{
+				linhas.add(new LinhaExportadaDTO(compactas.produtoId(i), compactas.quantidade(i)));
+			}
+		}
+		else
+		{
+			for (ItemCompra item : carrinho.getItens())
+			{
+				linhas.add(new LinhaExportadaDTO(item.getProduto() == null ? null : item.getProduto().getId(),
+						item.getQuantidade()));
+			}
+		}
+		return new CarrinhoExportadoDTO(carrinho.getId(), carrinho.getCliente().getId(), carrinho.getData(), linhas);
+	}
+
+	private void escrever(FormatoExportacao formato, CarrinhoExportadoDTO carrinho, Writer escritor)
+			throws IOException
+	{
+		if (formato == FormatoExportacao.NDJSON)
+		{
+			escritor.write(objectMapper.writeValueAsString(carrinho));
+			escritor.write('\n');
+			return;
+		}
+		String prefixo = carrinho.id() + "," + carrinho.clienteId() + "," + valor(carrinho.data()) + ",";
+		if (carrinho.itens().isEmpty())
+		{
+			escritor.write(prefixo + ",\n");
+		}
+		for (LinhaExportadaDTO linha : carrinho.itens())
+		{
+			escritor.write(prefixo + valor(linha.produtoId()) + "," + valor(linha.quantidade()) + "\n");
+		}
+	}
+
+	private static String valor(Object valor)
+	{
+		return valor == null ? "" : valor.toString();
+	}
+}
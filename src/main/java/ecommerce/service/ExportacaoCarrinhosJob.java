@@ -0,0 +1,56 @@
+package ecommerce.service;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import ecommerce.config.ExportacaoProperties;
+
+/**
+ * Execução por linha de comando: com {@code --ecommerce.exportacao.arquivo=...}
+ * exporta os carrinhos para o arquivo e encerra a aplicação. Convém combinar
+ * com {@code --spring.main.web-application-type=none} e
+ * {@code --ecommerce.agendamento.habilitado=false}.
+ */
+@Component
+@ConditionalOnProperty("ecommerce.exportacao.arquivo")
+public class ExportacaoCarrinhosJob implements ApplicationRunner
+{
+
+	private static final Logger LOG = LoggerFactory.getLogger(ExportacaoCarrinhosJob.class);
+
+	private final ExportacaoCarrinhos exportacao;
+	private final ExportacaoProperties properties;
+	private final ConfigurableApplicationContext contexto;
+
+	public ExportacaoCarrinhosJob(ExportacaoCarrinhos exportacao, ExportacaoProperties properties,
+			ConfigurableApplicationContext contexto)
+	{
+		this.exportacao = exportacao;
+		this.properties = properties;
+		this.contexto = contexto;
+	}
+
+	@Override
+	public void run(ApplicationArguments args) throws Exception
+	{
+		Path arquivo = Path.of(properties.arquivo());
+		long total;
+		try (OutputStream saida = new BufferedOutputStream(Files.newOutputStream(arquivo)))
+		{
+			total = exportacao.exportar(properties.formato(), saida);
+		}
+		LOG.info("{} carrinhos exportados em {} para {}", total, properties.formato(), arquivo);
+		System.exit(SpringApplication.exit(contexto, () -> 0));
+	}
+}
@@ -0,0 +1,402 @@
+package ecommerce.service;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import ecommerce.config.FaixasCheckoutProperties;
+import ecommerce.prazo.ContextoPrazo;
+import ecommerce.prazo.Prazo;
+import ecommerce.prazo.PrazoEsgotadoException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Serializa os checkouts de um mesmo cliente sem trava global: cada
+ * {@code clienteId} cai sempre na mesma faixa, uma thread com fila própria, e
+ * clientes em faixas diferentes andam em paralelo. Dois cliques ou dois
+ * aparelhos do mesmo cliente passam por estoque e pagamento um depois do
+ * outro.
+ * <p>
+ * Dentro da faixa, a vez gira entre os clientes com checkouts pendentes, um
+ * checkout por cliente a cada volta: um cliente com a fila cheia não atrasa os
+ * demais da faixa por mais que um checkout. Quem chama espera o resultado até
+ * o fim do prazo da requisição; esgotado o prazo com o checkout ainda na
+ * fila, ele sai dela sem rodar e quem chama recebe
+ * {@link PrazoEsgotadoException}. Um checkout que já começou não é
+ * abandonado, pois pode cobrar: quem chama espera o resultado dele. O prazo
+ * segue para a thread da faixa, e o checkout falha na primeira verificação de
+ * prazo que ele não comportar.
+ * <p>
+ * Métricas: {@code checkout.faixas.fila} por faixa (profundidade),
+ * {@code checkout.faixas.espera} (tempo na fila),
+ * {@code checkout.faixas.rejeitados} e {@code checkout.faixas.abandonados}
+ * (tirados da fila com o prazo esgotado).
+ */
+@Component
+@EnableConfigurationProperties(FaixasCheckoutProperties.class)
+public class FaixasCheckout implements DisposableBean
+{
+
+	private static final Logger LOG = LoggerFactory.getLogger(FaixasCheckout.class);
+	private static final String ETAPA = "faixa";
+
+	// marca as threads das faixas, para um checkout aninhado não esperar pela própria faixa
+	private static final ThreadLocal<Boolean> NA_FAIXA = new ThreadLocal<>();
+
+	private final FaixasCheckoutProperties properties;
+	private final Faixa[] faixas;
+	private final Timer espera;
+	private final Counter rejeitados;
+	private final Counter abandonados;
+
+	private volatile boolean encerrando;
+
+	@Autowired
+	public FaixasCheckout(FaixasCheckoutProperties properties, MeterRegistry registry)
+	{
+		if (properties.faixas() <= 0)
+		{
+			throw new IllegalArgumentException("Número de faixas deve ser positivo");
+		}
+		this.properties = properties;
+		this.espera = Timer.builder("checkout.faixas.espera").register(registry);
+		this.rejeitados = Counter.builder("checkout.faixas.rejeitados").register(registry);
+		this.abandonados = Counter.builder("checkout.faixas.abandonados").register(registry);
+		this.faixas = new Faixa[properties.habilitado() ? properties.faixas() : 0];
+		for (int i = 0; i < faixas.length; i++)
+		{
+			faixas[i] = new Faixa(i);
+			Gauge.builder("checkout.faixas.fila", faixas[i], Faixa::pendentes).tag("faixa", String.valueOf(i))
+					.register(registry);
+		}
+		for (Faixa faixa : faixas)
+		{
+			faixa.thread.start();
+		}
+	}
+
+	/**
+	 * Executa {@code checkout} na faixa do cliente e devolve o resultado (ou
+	 * relança a exceção). Chamado de dentro de uma faixa, executa direto.
+	 *
+	 * @throws CheckoutSobrecarregadoException se a faixa ou os pendentes do
+	 *                                         cliente estiverem no limite
+	 * @throws PrazoEsgotadoException          se o prazo da requisição acabar
+	 *                                         antes de o checkout começar
+	 */
+	public <T> T executar(Long clienteId, Supplier<T> checkout)
+	{
+		if (faixas.length == 0 || clienteId == null || NA_FAIXA.get() != null)
+		{
+			return checkout.get();
+		}
+		Prazo prazo = ContextoPrazo.atual();
+		Tarefa<T> tarefa = new Tarefa<>(checkout, prazo);
+		Faixa faixa = faixaDe(clienteId);
+		faixa.enfileirar(clienteId, tarefa);
+		try
+		{
+			return prazo.isDefinido() ? tarefa.resultado.get(prazo.restanteNanos(), TimeUnit.NANOSECONDS)
+					: tarefa.resultado.get();
+		}
+		catch (ExecutionException e)
+		{
+			throw relancar(e.getCause());
+		}
+		catch (TimeoutException e)
+		{
+			if (desistir(faixa, clienteId, tarefa))
+			{
+				throw new PrazoEsgotadoException(ETAPA);
+			}
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			if (desistir(faixa, clienteId, tarefa))
+			{
+				throw new PrazoEsgotadoException(ETAPA);
+			}
+		}
+		// já começou: pode terminar cobrando, então quem chamou recebe o resultado
+		// real; a espera é limitada pelas verificações de prazo da própria faixa
+		try
+		{
+			return tarefa.resultado.join();
+		}
+		catch (CompletionException e)
+		{
+			throw relancar(e.getCause());
+		}
+	}
+
+	/**
+	 * Tira da fila o checkout que ainda não começou; um que já começou segue até o fim.
+	 *
+	 * @return se o checkout foi tirado da fila sem rodar
+	 */
+	private boolean desistir(Faixa faixa, Long clienteId, Tarefa<?> tarefa)
+	{
+		if (!tarefa.iniciada.compareAndSet(false, true))
+		{
+			return false;
+		}
+		faixa.remover(clienteId, tarefa);
+		abandonados.increment();
+		return true;
+	}
+
+	private static RuntimeException relancar(Throwable causa)
+	{
+		if (causa instanceof RuntimeException e)
+		{
+			return e;
+		}
+		if (causa instanceof Error erro)
+		{
+			throw erro;
+		}
+		return new IllegalStateException(causa);
+	}
+
+	private Faixa faixaDe(long clienteId)
+	{
+		// espalha ids sequenciais antes de reduzir ao número de faixas
+		long h = clienteId * 0x9E3779B97F4A7C15L;
+		return faixas[(int) Math.floorMod(h ^ (h >>> 32), (long) faixas.length)];
+	}
+
+	@Override
+	public void destroy() throws InterruptedException
+	{
+		encerrando = true;
+		long prazo = System.nanoTime() + properties.esperaDesligamento().toNanos();
+		for (Faixa faixa : faixas)
+		{
+			faixa.acordar();
+		}
+		for (Faixa faixa : faixas)
+		{
+			faixa.thread.join(Math.max(1L, TimeUnit.NANOSECONDS.toMillis(prazo - System.nanoTime())));
+			if (faixa.thread.isAlive())
+			{
+				LOG.warn("Faixa de checkout {} não esvaziou a tempo", faixa.indice);
+				faixa.thread.interrupt();
+			}
+		}
+	}
+
+	private static final class Tarefa<T>
+	{
+
+		private final Supplier<T> checkout;
+		private final Prazo prazo;
+		private final long enfileiradaEmNanos = System.nanoTime();
+		private final CompletableFuture<T> resultado = new CompletableFuture<>();
+		// marcada por quem chegar primeiro: a faixa, ao começar, ou quem chamou, ao desistir
+		private final AtomicBoolean iniciada = new AtomicBoolean();
+
+		Tarefa(Supplier<T> checkout, Prazo prazo)
+		{
+			this.checkout = checkout;
+			this.prazo = prazo;
+		}
+
+		void executar()
+		{
+			ContextoPrazo.definir(prazo);
+			try
+			{
+				resultado.complete(checkout.get());
+			}
+			catch (RuntimeException | Error e)
+			{
+				resultado.completeExceptionally(e);
+			}
+			finally
+			{
+				ContextoPrazo.limpar();
+			}
+		}
+	}
+
+	private final class Faixa implements Runnable
+	{
+
+		private final int indice;
+		private final Thread thread;
+		private final ReentrantLock trava = new ReentrantLock();
+		private final Condition trabalho = trava.newCondition();
+		// pendentes de cada cliente e a ordem em que os clientes serão atendidos
+		private final Map<Long, ArrayDeque<Tarefa<?>>> porCliente = new HashMap<>();
+		private final ArrayDeque<Long> vez = new ArrayDeque<>();
+		private int pendentes;
+
+		Faixa(int indice)
+		{
+			this.indice = indice;
+			this.thread = new Thread(this, "checkout-faixa-" + indice);
+			this.thread.setDaemon(true);
+		}
+
+		void enfileirar(Long clienteId, Tarefa<?> tarefa)
+		{
+			trava.lock();
+			try
+			{
+				ArrayDeque<Tarefa<?>> doCliente = porCliente.get(clienteId);
+				if (encerrando || pendentes >= properties.capacidadeFaixa()
+						|| (doCliente != null && doCliente.size() >= properties.maximoPendentesPorCliente()))
+				{
+					rejeitados.increment();
+					throw new CheckoutSobrecarregadoException("Muitos checkouts em andamento, tente novamente.");
+				}
+				if (doCliente == null)
+				{
+					doCliente = new ArrayDeque<>();
+					porCliente.put(clienteId, doCliente);
+					vez.addLast(clienteId);
+				}
+				doCliente.addLast(tarefa);
+				pendentes++;
+				trabalho.signal();
+			}
+			finally
+			{
+				trava.unlock();
+			}
+		}
+
+		void remover(Long clienteId, Tarefa<?> tarefa)
+		{
+			trava.lock();
+			try
+			{
+				ArrayDeque<Tarefa<?>> doCliente = porCliente.get(clienteId);
+				if (doCliente == null || !doCliente.remove(tarefa))
+				{
+					return;
+				}
+				pendentes--;
+				if (doCliente.isEmpty())
+				{
+					porCliente.remove(clienteId);
+					vez.remove(clienteId);
+				}
+			}
+			finally
+			{
+				trava.unlock();
+			}
+		}
+
+		/** Próximo checkout do cliente da vez; o cliente volta ao fim da fila se ainda tiver outros. */
+		private Tarefa<?> proxima() throws InterruptedException
+		{
+			trava.lock();
+			try
+			{
+				while (vez.isEmpty())
+				{
+					if (encerrando)
+					{
+						return null;
+					}
+					trabalho.await();
+				}
+				Long clienteId = vez.pollFirst();
+				ArrayDeque<Tarefa<?>> doCliente = porCliente.get(clienteId);
+				Tarefa<?> tarefa = doCliente.pollFirst();
+				if (doCliente.isEmpty())
+				{
+					porCliente.remove(clienteId);
+				}
+				else
+				{
+					vez.addLast(clienteId);
+				}
+				pendentes--;
+				return tarefa;
+			}
+			finally
+			{
+				trava.unlock();
+			}
+		}
+
+		void acordar()
+		{
+			trava.lock();
+			try
+			{
+				trabalho.signalAll();
+			}
+			finally
+			{
+				trava.unlock();
+			}
+		}
+
+		int pendentes()
+		{
+			trava.lock();
+			try
+			{
+				return pendentes;
+			}
+			finally
+			{
+				trava.unlock();
+			}
+		}
+
+		@Override
+		public void run()
+		{
+			NA_FAIXA.set(Boolean.TRUE);
+			while (true)
+			{
+				Tarefa<?> tarefa;
+				try
+				{
+					tarefa = proxima();
+				}
+				catch (InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+					return;
+				}
+				if (tarefa == null)
+				{
+					return;
+				}
+				if (!tarefa.iniciada.compareAndSet(false, true))
+				{
+					// quem chamou desistiu entre a retirada da fila e aqui
+					continue;
+				}
+				espera.record(System.nanoTime() - tarefa.enfileiradaEmNanos, TimeUnit.NANOSECONDS);
+				tarefa.executar();
+			}
+		}
+	}
+}
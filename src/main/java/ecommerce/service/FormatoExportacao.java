@@ -0,0 +1,28 @@
+package ecommerce.service;
+
+public enum FormatoExportacao
+{
+	/** Um objeto JSON por carrinho, um por linha. */
+	NDJSON("application/x-ndjson", "ndjson"),
+	/** Uma linha por item de carrinho, com cabeçalho. */
+	CSV("text/csv", "csv");
+
+	private final String contentType;
+	private final String extensao;
+
+	FormatoExportacao(String contentType, String extensao)
+	{
+		this.contentType = contentType;
+		this.extensao = extensao;
+	}
+
+	public String getContentType()
+	{
+		return contentType;
+	}
+
+	public String getExtensao()
+	{
+		return extensao;
+	}
+}
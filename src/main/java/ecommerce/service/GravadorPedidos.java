@@ -0,0 +1,183 @@
+package ecommerce.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import ecommerce.config.PedidoProperties;
+import ecommerce.entity.Pedido;
+import ecommerce.repository.PedidoRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Grava o registro de pedidos. No modo {@link ModoGravacaoPedido#EM_LOTE}, uma
+ * thread dedicada retira da fila tudo o que se acumulou enquanto o lote
+ * anterior era gravado e confirma numa única transação (group commit): sob
+ * carga, os lotes crescem sozinhos; com pouco movimento, cada pedido é gravado
+ * assim que chega. No desligamento, a fila é esvaziada antes de o
+ * {@code EntityManagerFactory} fechar.
+ * <p>
+ * Se um lote falha, os pedidos são regravados um a um para isolar o que
+ * falhou; pedidos que não puderem ser gravados são registrados em log com a
+ * transação de pagamento.
+ * <p>
+ * Métricas: {@code pedidos.gravacao.fila} (profundidade),
+ * {@code pedidos.gravacao.lote} (pedidos por transação),
+ * {@code pedidos.gravacao.fila.cheia} (gravados pelo próprio checkout) e
+ * {@code pedidos.gravacao.falhas}.
+ */
+@Component
+@EnableConfigurationProperties(PedidoProperties.class)
+public class GravadorPedidos implements RegistroPedidos, DisposableBean
+{
+
+	private static final Logger LOG = LoggerFactory.getLogger(GravadorPedidos.class);
+
+	private static final long ESPERA_FILA_MS = 100L;
+
+	private final PedidoRepository repository;
+	private final TransactionTemplate transacao;
+	private final PedidoProperties properties;
+	private final BlockingQueue<Pedido> fila;
+	private final Thread gravador;
+
+	private final DistributionSummary lotes;
+	private final Counter filaCheia;
+	private final Counter falhas;
+
+	private volatile boolean encerrando;
+
+	@Autowired
+	public GravadorPedidos(PedidoRepository repository, PlatformTransactionManager transactionManager,
+			PedidoProperties properties, MeterRegistry registry)
+	{
+		this.repository = repository;
+		this.transacao = new TransactionTemplate(transactionManager);
+		this.transacao.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		this.properties = properties;
+		this.fila = new ArrayBlockingQueue<>(properties.capacidadeFila());
+
+		Gauge.builder("pedidos.gravacao.fila", fila, BlockingQueue::size).register(registry);
+		this.lotes = DistributionSummary.builder("pedidos.gravacao.lote").register(registry);
+		this.filaCheia = Counter.builder("pedidos.gravacao.fila.cheia").register(registry);
+		this.falhas = Counter.builder("pedidos.gravacao.falhas").register(registry);
+
+		this.gravador = new Thread(this::executar, "gravador-pedidos");
+		if (properties.modo() == ModoGravacaoPedido.EM_LOTE)
+		{
+			gravador.start();
+		}
+	}
+
+	@Override
+	public void registrar(Pedido pedido)
+	{
+		if (properties.modo() == ModoGravacaoPedido.SINCRONO || encerrando)
+		{
+			gravar(List.of(pedido));
+			return;
+		}
+		if (!fila.offer(pedido))
+		{
+			filaCheia.increment();
+			gravar(List.of(pedido));
+		}
+	}
+
+	private void executar()
+	{
+		List<Pedido> lote = new ArrayList<>(properties.tamanhoLote());
+		while (!encerrando || !fila.isEmpty())
+		{
+			Pedido primeiro;
+			try
+			{
+				primeiro = fila.poll(ESPERA_FILA_MS, TimeUnit.MILLISECONDS);
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				return;
+			}
+			if (primeiro == null)
+			{
+				continue;
+			}
+			lote.add(primeiro);
+			fila.drainTo(lote, properties.tamanhoLote() - 1);
+			gravar(lote);
+			lote.clear();
+		}
+	}
+
+	private void gravar(List<Pedido> lote)
+	{
+		try
+		{
+			transacao.executeWithoutResult(status -> repository.saveAll(lote));
+			lotes.record(lote.size());
+		}
+		catch (RuntimeException e)
+		{
+			if (lote.size() == 1)
+			{
+				registrarFalha(lote.get(0), e);
+				return;
+			}
+			LOG.warn("Lote de {} pedidos não gravado; regravando um a um", lote.size(), e);
+			for (Pedido pedido : lote)
+			{
+				// o id alocado no lote desfeito não existe no banco
+				pedido.setId(null);
+				try
+				{
+					transacao.executeWithoutResult(status -> repository.save(pedido));
+					lotes.record(1);
+				}
+				catch (RuntimeException falha)
+				{
+					registrarFalha(pedido, falha);
+				}
+			}
+		}
+	}
+
+	private void registrarFalha(Pedido pedido, RuntimeException e)
+	{
+		falhas.increment();
+		LOG.error("Pedido do carrinho {} (transação de pagamento {}) não gravado", pedido.getCarrinhoId(),
+				pedido.getTransacaoId(), e);
+	}
+
+	@Override
+	public void destroy() throws InterruptedException
+	{
+		encerrando = true;
+		if (gravador.isAlive())
+		{
+			gravador.join(properties.esperaDesligamento().toMillis());
+		}
+		List<Pedido> restantes = new ArrayList<>();
+		fila.drainTo(restantes);
+		if (!restantes.isEmpty())
+		{
+			LOG.warn("Gravando {} pedidos restantes na fila durante o desligamento", restantes.size());
+			gravar(restantes);
+		}
+	}
+}
@@ -0,0 +1,89 @@
+package ecommerce.service;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import ecommerce.config.MigracaoCarrinhoProperties;
+import ecommerce.entity.ArmazenamentoLinhas;
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.repository.CarrinhoDeComprasRepository;
+
+/**
+ * Converte carrinhos de {@link ArmazenamentoLinhas#ENTIDADE} para
+ * {@link ArmazenamentoLinhas#COMPACTO} em lotes, um lote por execução e por
+ * transação, percorrendo os ids em ordem. Leitura e checkout aceitam os dois
+ * formatos, então a migração pode correr com a aplicação no ar e ser
+ * interrompida a qualquer momento.
+ * <p>
+ * Carrinhos com itens sem produto ou quantidade permanecem como entidade.
+ */
+@Component
+@EnableConfigurationProperties(MigracaoCarrinhoProperties.class)
+public class MigracaoLinhasCarrinho
+{
+
+	private static final Logger LOG = LoggerFactory.getLogger(MigracaoLinhasCarrinho.class);
+
+	private final CarrinhoDeComprasRepository repository;
+	private final TransactionTemplate transacao;
+	private final MigracaoCarrinhoProperties properties;
+	private final AtomicLong cursor = new AtomicLong();
+
+	@Autowired
+	public MigracaoLinhasCarrinho(CarrinhoDeComprasRepository repository, PlatformTransactionManager transactionManager,
+			MigracaoCarrinhoProperties properties)
+	{
+		this.repository = repository;
+		this.transacao = new TransactionTemplate(transactionManager);
+		this.properties = properties;
+	}
+
+	@Scheduled(fixedDelayString = "${ecommerce.carrinho.migracao.intervalo-ms:10000}")
+	public void migrarPendentes()
+	{
+		if (properties.habilitada())
+		{
+			cursor.set(migrarLote(cursor.get(), properties.tamanhoLote()));
+		}
+	}
+
+	/**
+	 * Compacta até {@code tamanho} carrinhos com id maior que {@code aposId}.
+	 *
+	 * @return o id do último carrinho examinado, ou {@code aposId} se não houver
+	 *         mais pendentes
+	 */
+	public long migrarLote(long aposId, int tamanho)
+	{
+		Long ultimo = transacao.execute(status -> {
+			List<Long> ids = repository.findIdsParaCompactar(aposId, PageRequest.of(0, tamanho));
+			if (ids.isEmpty())
+			{
+				return aposId;
+			}
+			for (CarrinhoDeCompras carrinho : repository.findComItensByIdIn(ids))
+			{
+				try
+				{
+					carrinho.compactarLinhas();
+				}
+				catch (IllegalStateException e)
+				{
+					LOG.warn("Carrinho {} mantido como entidade: {}", carrinho.getId(), e.getMessage());
+				}
+			}
+			return ids.get(ids.size() - 1);
+		});
+		return ultimo;
+	}
+}
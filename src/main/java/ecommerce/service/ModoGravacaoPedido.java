@@ -0,0 +1,13 @@
+package ecommerce.service;
+
+public enum ModoGravacaoPedido
+{
+	/** Grava na thread do checkout, numa transação própria, antes da resposta. */
+	SINCRONO,
+	/**
+	 * Enfileira e grava em lote numa thread dedicada: vários pedidos por
+	 * transação. Um pedido ainda na fila se perde se o processo morrer sem
+	 * desligamento ordenado.
+	 */
+	EM_LOTE
+}
@@ -0,0 +1,85 @@
+package ecommerce.service;
+
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+
+import ecommerce.dto.CompraDTO;
+
+/**
+ * Checkout aceito no modo assíncrono. O resultado é publicado em
+ * {@link #getResultado()} quando o processamento termina.
+ */
+public class PedidoAssincrono
+{
+
+	private final String id;
+	private final Long carrinhoId;
+	private final Long clienteId;
+	private final long enfileiradoEmNanos;
+	private final Instant enfileiradoEm;
+	private final CompletableFuture<CompraDTO> resultado = new CompletableFuture<>();
+
+	private volatile StatusPedidoAssincrono status = StatusPedidoAssincrono.NA_FILA;
+	private volatile Instant concluidoEm;
+
+	PedidoAssincrono(String id, Long carrinhoId, Long clienteId)
+	{
+		this.id = id;
+		this.carrinhoId = carrinhoId;
+		this.clienteId = clienteId;
+		this.enfileiradoEmNanos = System.nanoTime();
+		this.enfileiradoEm = Instant.now();
+	}
+
+	void iniciar()
+	{
+		status = StatusPedidoAssincrono.PROCESSANDO;
+	}
+
+	void concluir(CompraDTO compra)
+	{
+		status = Boolean.TRUE.equals(compra.sucesso()) ? StatusPedidoAssincrono.CONCLUIDO : StatusPedidoAssincrono.FALHOU;
+		concluidoEm = Instant.now();
+		resultado.complete(compra);
+	}
+
+	public String getId()
+	{
+		return id;
+	}
+
+	public Long getCarrinhoId()
+	{
+		return carrinhoId;
+	}
+
+	public Long getClienteId()
+	{
+		return clienteId;
+	}
+
+	long getEnfileiradoEmNanos()
+	{
+		return enfileiradoEmNanos;
+	}
+
+	public Instant getEnfileiradoEm()
+	{
+		return enfileiradoEm;
+	}
+
+	public StatusPedidoAssincrono getStatus()
+	{
+		return status;
+	}
+
+	public Instant getConcluidoEm()
+	{
+		return concluidoEm;
+	}
+
+	public CompletableFuture<CompraDTO> getResultado()
+	{
+		return resultado;
+	}
+}
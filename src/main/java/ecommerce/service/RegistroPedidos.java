@@ -0,0 +1,14 @@
+package ecommerce.service;
+
+import ecommerce.entity.Pedido;
+
+/**
+ * Destino dos pedidos concluídos (ou estornados) pelo checkout. Não lança:
+ * quando o pedido chega aqui, o pagamento já foi autorizado.
+ */
+@FunctionalInterface
+public interface RegistroPedidos
+{
+
+	void registrar(Pedido pedido);
+}
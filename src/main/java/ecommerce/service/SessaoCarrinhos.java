@@ -0,0 +1,421 @@
+package ecommerce.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import ecommerce.config.SessaoCarrinhoProperties;
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.LinhasCompactas;
+import ecommerce.entity.Produto;
+import ecommerce.repository.CarrinhoDeComprasRepository;
+import ecommerce.repository.ProdutoRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Carrinhos ativos em memória, com gravação posterior (write-behind). Um
+ * carrinho entra na memória no primeiro acesso e as alterações só marcam o
+ * carrinho como pendente; {@link #gravarPendentes()} grava, em lotes, o
+ * estado final de cada um, de modo que várias alterações seguidas custam uma
+ * única escrita. Carrinhos sem acesso por {@code ociosidade} (ou os menos
+ * usados, acima de {@code maximoCarrinhos}) são gravados ao sair da memória.
+ * <p>
+ * A memória vale para uma única instância da aplicação: com várias, cada
+ * carrinho precisa ser atendido sempre pela mesma. Alterações ainda não
+ * gravadas se perdem se o processo morrer sem desligamento ordenado.
+ * <p>
+ * Métricas: {@code carrinho.sessao.ativos}, {@code carrinho.sessao.pendentes}
+ * e {@code carrinho.sessao.gravacoes} (carrinhos gravados).
+ */
+@Component
+@EnableConfigurationProperties(SessaoCarrinhoProperties.class)
+public class SessaoCarrinhos implements DisposableBean
+{
+
+	private static final Logger LOG = LoggerFactory.getLogger(SessaoCarrinhos.class);
+
+	private final CarrinhoDeComprasRepository repository;
+	private final ProdutoRepository produtoRepository;
+	private final TransactionTemplate transacao;
+	private final SessaoCarrinhoProperties properties;
+	private final Cache<Long, CarrinhoEmSessao> carrinhos;
+	private final Set<Long> pendentes = ConcurrentHashMap.newKeySet();
+	private final Counter gravacoes;
+
+	@Autowired
+	public SessaoCarrinhos(CarrinhoDeComprasRepository repository, ProdutoRepository produtoRepository,
+			PlatformTransactionManager transactionManager, SessaoCarrinhoProperties properties, MeterRegistry registry)
+	{
+		this(repository, produtoRepository, transactionManager, properties, registry, Ticker.systemTicker());
+	}
+
+	SessaoCarrinhos(CarrinhoDeComprasRepository repository, ProdutoRepository produtoRepository,
+			PlatformTransactionManager transactionManager, SessaoCarrinhoProperties properties, MeterRegistry registry,
+			Ticker ticker)
+	{
+		this.repository = repository;
+		this.produtoRepository = produtoRepository;
+		this.transacao = new TransactionTemplate(transactionManager);
+		this.transacao.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		this.properties = properties;
+		// o listener de remoção roda dentro da remoção: ninguém recarrega o
+		// carrinho do banco antes de a gravação dele terminar
+		this.carrinhos = Caffeine.newBuilder()
+				.maximumSize(properties.maximoCarrinhos())
+				.expireAfterAccess(properties.ociosidade())
+				.ticker(ticker)
+				.executor(Runnable::run)
+				.<Long, CarrinhoEmSessao>evictionListener((id, carrinho, causa) -> gravarAoSair(carrinho))
+				.build();
+
+		Gauge.builder("carrinho.sessao.ativos", carrinhos, Cache::estimatedSize).register(registry);
+		Gauge.builder("carrinho.sessao.pendentes", pendentes, Set::size).register(registry);
+		this.gravacoes = Counter.builder("carrinho.sessao.gravacoes").register(registry);
+	}
+
+	public boolean isHabilitada()
+	{
+		return properties.habilitada();
+	}
+
+	/**
+	 * Cópia desanexada do carrinho como está na memória, carregando-o do banco
+	 * se preciso. Os itens da cópia não têm id.
+	 *
+	 * @throws IllegalArgumentException se o carrinho não existir ou não
+	 *                                  pertencer ao cliente
+	 */
+	public CarrinhoDeCompras buscar(Long carrinhoId, Long clienteId)
+	{
+		return abrir(carrinhoId, clienteId).paraEntidade();
+	}
+
+	/** Se o carrinho está na memória, sem contar como acesso. */
+	public boolean contem(Long carrinhoId)
+	{
+		return carrinhos.policy().getIfPresentQuietly(carrinhoId) != null;
+	}
+
+	/** O carrinho, só se já estiver na memória; não consulta o banco. */
+	Optional<CarrinhoEmSessao> emMemoria(Long carrinhoId, Long clienteId)
+	{
+		return Optional.ofNullable(carrinhos.policy().getIfPresentQuietly(carrinhoId))
+				.filter(c -> c.getCliente().getId().equals(clienteId));
+	}
+
+	/**
+	 * Soma {@code quantidade} à linha do produto, criando-a se preciso.
+	 *
+	 * @throws IllegalArgumentException se o carrinho ou o produto não existirem
+	 *                                  ou se a quantidade não for positiva
+	 */
+	public void adicionarItem(Long carrinhoId, Long clienteId, Long produtoId, long quantidade)
+	{
+		validarQuantidade(quantidade);
+		Produto produto = produtoRepository.findById(produtoId)
+				.orElseThrow(() -> new IllegalArgumentException("Produto não encontrado."));
+		alterar(carrinhoId, clienteId, c -> c.adicionar(produto, quantidade));
+	}
+
+	/** @throws IllegalArgumentException se o produto não estiver no carrinho */
+	public void alterarQuantidade(Long carrinhoId, Long clienteId, Long produtoId, long quantidade)
+	{
+		validarQuantidade(quantidade);
+		alterar(carrinhoId, clienteId, c -> c.alterar(produtoId, quantidade));
+	}
+
+	/** @throws IllegalArgumentException se o produto não estiver no carrinho */
+	public void removerItem(Long carrinhoId, Long clienteId, Long produtoId)
+	{
+		alterar(carrinhoId, clienteId, c -> c.remover(produtoId));
+	}
+
+	/**
+	 * Grava agora o carrinho, se houver alterações pendentes, esperando uma
+	 * gravação em segundo plano que esteja em curso. Ao retornar, o banco
+	 * reflete todas as alterações feitas antes da chamada.
+	 */
+	public void sincronizar(Long carrinhoId)
+	{
+		CarrinhoEmSessao carrinho = carrinhos.policy().getIfPresentQuietly(carrinhoId);
+		if (carrinho != null && carrinho.isPendente())
+		{
+			pendentes.remove(carrinhoId);
+			gravar(List.of(carrinho), true);
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${ecommerce.carrinho.sessao.intervalo-gravacao-ms:1000}")
+	public void gravarPendentes()
+	{
+		List<CarrinhoEmSessao> lote = new ArrayList<>(properties.tamanhoLote());
+		for (Long id : List.copyOf(pendentes))
+		{
+			// sai dos pendentes antes da foto: uma alteração depois dela o recoloca
+			pendentes.remove(id);
+			CarrinhoEmSessao carrinho = carrinhos.policy().getIfPresentQuietly(id);
+			if (carrinho == null)
+			{
+				continue;
+			}
+			lote.add(carrinho);
+			if (lote.size() == properties.tamanhoLote())
+			{
+				gravar(lote, false);
+				lote.clear();
+			}
+		}
+		if (!lote.isEmpty())
+		{
+			gravar(lote, false);
+		}
+	}
+
+	/** Aplica expirações pendentes (e as gravações que elas disparam). */
+	public void limparOciosos()
+	{
+		carrinhos.cleanUp();
+	}
+
+	private CarrinhoEmSessao abrir(Long carrinhoId, Long clienteId)
+	{
+		CarrinhoEmSessao carrinho = carrinhos.get(carrinhoId, this::carregar);
+		if (carrinho == null || !carrinho.getCliente().getId().equals(clienteId))
+		{
+			throw new IllegalArgumentException("Carrinho não encontrado.");
+		}
+		return carrinho;
+	}
+
+	/**
+	 * Um carrinho sem alteração hoje é tocado ao entrar na memória: a versão
+	 * nova impede que o arquivamento, que já o tenha lido, apague um carrinho
+	 * que a sessão vai gravar depois; se ele já foi arquivado, não é
+	 * encontrado.
+	 */
+	private CarrinhoEmSessao carregar(Long carrinhoId)
+	{
+		return transacao.execute(status -> {
+			List<CarrinhoDeCompras> encontrados = repository.findComItensByIdIn(List.of(carrinhoId));
+			if (encontrados.isEmpty())
+			{
+				return null;
+			}
+			CarrinhoDeCompras carrinho = encontrados.get(0);
+			LocalDate hoje = LocalDate.now();
+			if (!hoje.equals(carrinho.getUltimaAlteracao()) && repository.tocar(List.of(carrinhoId), hoje) == 0)
+			{
+				return null;
+			}
+			List<Produto> produtos = List.of();
+			if (carrinho.isCompacto() && carrinho.getLinhasCompactas() != null)
+			{
+				List<Long> ids = new ArrayList<>(carrinho.getLinhasCompactas().tamanho());
+				for (long id : carrinho.getLinhasCompactas().produtoIds())
+				{
+					ids.add(id);
+				}
+				produtos = produtoRepository.findAllById(ids);
+			}
+			return new CarrinhoEmSessao(carrinho, produtos);
+		});
+	}
+
+	/** Altera atomicamente em relação à saída da memória; se o carrinho saiu no meio, recarrega. */
+	private void alterar(Long carrinhoId, Long clienteId, Consumer<CarrinhoEmSessao> alteracao)
+	{
+		CarrinhoEmSessao alterado;
+		do
+		{
+			abrir(carrinhoId, clienteId);
+			alterado = carrinhos.asMap().computeIfPresent(carrinhoId, (id, carrinho) -> {
+				alteracao.accept(carrinho);
+				return carrinho;
+			});
+		}
+		while (alterado == null);
+		pendentes.add(carrinhoId);
+	}
+
+	private void gravarAoSair(CarrinhoEmSessao carrinho)
+	{
+		if (carrinho == null || !carrinho.isPendente())
+		{
+			return;
+		}
+		try
+		{
+			gravar(List.of(carrinho), true);
+		}
+		catch (RuntimeException e)
+		{
+			LOG.error("Alterações do carrinho {} perdidas ao sair da memória", carrinho.getCarrinhoId(), e);
+		}
+	}
+
+	/**
+	 * Grava o estado atual dos carrinhos numa transação. Sem {@code aguardar},
+	 * carrinhos com gravação em curso ficam para a próxima rodada; falhas
+	 * devolvem os carrinhos aos pendentes e, com {@code aguardar}, são
+	 * relançadas.
+	 */
+	private void gravar(List<CarrinhoEmSessao> lote, boolean aguardar)
+	{
+		List<CarrinhoEmSessao> travados = new ArrayList<>(lote.size());
+		for (CarrinhoEmSessao carrinho : lote)
+		{
+			if (aguardar)
+			{
+				carrinho.gravacao.lock();
+				travados.add(carrinho);
+			}
+			else if (carrinho.gravacao.tryLock())
+			{
+				travados.add(carrinho);
+			}
+			else
+			{
+				pendentes.add(carrinho.getCarrinhoId());
+			}
+		}
+		try
+		{
+			Map<Long, CarrinhoEmSessao.Foto> fotos = new HashMap<>();
+			for (CarrinhoEmSessao carrinho : travados)
+			{
+				if (carrinho.isPendente())
+				{
+					fotos.put(carrinho.getCarrinhoId(), carrinho.fotografar());
+				}
+			}
+			if (fotos.isEmpty())
+			{
+				return;
+			}
+			transacao.executeWithoutResult(status -> {
+				List<CarrinhoDeCompras> encontrados = repository.findComItensByIdIn(fotos.keySet());
+				for (CarrinhoDeCompras carrinho : encontrados)
+				{
+					aplicar(carrinho, fotos.get(carrinho.getId()).linhas());
+				}
+				if (encontrados.size() < fotos.size())
+				{
+					LOG.warn("{} carrinhos da sessão não existem mais no banco; alterações descartadas",
+							fotos.size() - encontrados.size());
+				}
+				// versiona a gravação como as alterações diretas, inclusive para o arquivamento
+				repository.tocar(fotos.keySet(), LocalDate.now());
+			});
+			for (CarrinhoEmSessao carrinho : travados)
+			{
+				CarrinhoEmSessao.Foto foto = fotos.get(carrinho.getCarrinhoId());
+				if (foto != null)
+				{
+					carrinho.marcarGravado(foto.versao());
+				}
+			}
+			gravacoes.increment(fotos.size());
+		}
+		catch (RuntimeException e)
+		{
+			for (CarrinhoEmSessao carrinho : travados)
+			{
+				pendentes.add(carrinho.getCarrinhoId());
+			}
+			if (aguardar)
+			{
+				throw e;
+			}
+			LOG.warn("Falha ao gravar {} carrinhos; nova tentativa na próxima rodada", travados.size(), e);
+		}
+		finally
+		{
+			for (CarrinhoEmSessao carrinho : travados)
+			{
+				carrinho.gravacao.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Leva as linhas do carrinho gerenciado ao estado da foto: ajusta
+	 * quantidades, remove linhas ausentes (e duplicadas ou sem produto) e
+	 * acrescenta as novas.
+	 */
+	private void aplicar(CarrinhoDeCompras carrinho, LinhasCompactas linhas)
+	{
+		if (carrinho.isCompacto())
+		{
+			carrinho.setLinhasCompactas(linhas);
+			return;
+		}
+		Map<Long, Long> alvo = new LinkedHashMap<>();
+		for (int i = 0; i < linhas.tamanho(); i++)
+		{
+			alvo.put(linhas.produtoId(i), linhas.quantidade(i));
+		}
+		Iterator<ItemCompra> itens = carrinho.getItens().iterator();
+		while (itens.hasNext())
+		{
+			ItemCompra item = itens.next();
+			Long quantidade = item.getProduto() == null ? null : alvo.remove(item.getProduto().getId());
+			if (quantidade == null)
+			{
+				itens.remove();
+			}
+			else if (!quantidade.equals(item.getQuantidade()))
+			{
+				item.setQuantidade(quantidade);
+			}
+		}
+		for (Map.Entry<Long, Long> linha : alvo.entrySet())
+		{
+			carrinho.getItens().add(
+					new ItemCompra(null, produtoRepository.getReferenceById(linha.getKey()), linha.getValue()));
+		}
+	}
+
+	private static void validarQuantidade(long quantidade)
+	{
+		if (quantidade <= 0)
+		{
+			throw new IllegalArgumentException("Quantidade deve ser maior que zero");
+		}
+	}
+
+	@Override
+	public void destroy()
+	{
+		gravarPendentes();
+		if (!pendentes.isEmpty())
+		{
+			LOG.warn("{} carrinhos com alterações não gravadas no desligamento", pendentes.size());
+		}
+	}
+}
@@ -0,0 +1,11 @@
+package ecommerce.service;
+
+public enum StatusPedidoAssincrono
+{
+	NA_FILA, PROCESSANDO, CONCLUIDO, FALHOU;
+
+	public boolean isFinal()
+	{
+		return this == CONCLUIDO || this == FALHOU;
+	}
+}
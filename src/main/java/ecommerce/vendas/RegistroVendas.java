@@ -0,0 +1,27 @@
+package ecommerce.vendas;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.precificacao.ItemPrecificavel;
+
+/**
+ * Destino das linhas de cada checkout concluído. Chamado no caminho do
+ * checkout: não lança e não faz E/S.
+ */
+@FunctionalInterface
+public interface RegistroVendas
+{
+
+	RegistroVendas NENHUM = (regiao, tipoCliente, itens, subtotal) -> {};
+
+	/**
+	 * @param itens    linhas normalizadas do pedido
+	 * @param subtotal subtotal efetivamente cobrado pelos itens (o da cotação,
+	 *                 quando ela foi usada), antes dos descontos e do frete
+	 */
+	void registrar(Regiao regiao, TipoCliente tipoCliente, List<? extends ItemPrecificavel> itens,
+			BigDecimal subtotal);
+}
@@ -0,0 +1,13 @@
+package ecommerce.vendas;
+
+import java.math.BigDecimal;
+
+/**
+ * Totais de vendas concluídas de um recorte das dimensões.
+ *
+ * @param unidades itens vendidos
+ * @param receita  preço × quantidade das linhas, antes dos descontos e do frete
+ */
+public record TotalVendas(long unidades, BigDecimal receita)
+{
+}
@@ -0,0 +1,289 @@
+package ecommerce.vendas;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import ecommerce.entity.ChaveVendaAgregada;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TipoProduto;
+import ecommerce.entity.VendaAgregada;
+import ecommerce.precificacao.ItemPrecificavel;
+import ecommerce.precificacao.ProdutoPrecificavel;
+import ecommerce.repository.VendaAgregadaRepository;
+
+/**
+ * Unidades e receita das vendas concluídas por região, tipo de cliente e tipo
+ * de produto, mantidas em memória à medida que os checkouts terminam. Cada
+ * combinação tem um par de {@link LongAdder} (a receita em centavos), então
+ * checkouts simultâneos não disputam o mesmo contador, e qualquer consulta
+ * percorre o mesmo número fixo de combinações, seja qual for o volume de
+ * pedidos. A receita é o subtotal cobrado no checkout, rateado entre as
+ * linhas pelo preço × quantidade de cada uma.
+ * <p>
+ * Os contadores só crescem. A gravação periódica soma o que eles avançaram
+ * desde a última gravação às linhas de {@link VendaAgregada} com
+ * {@code unidades = unidades + ?}, sem ler antes; assim várias instâncias
+ * somam na mesma tabela sem sobrescrever umas às outras, e uma gravação que
+ * falha é repetida por inteiro na próxima. As consultas somam aos totais lidos
+ * na última gravação (ou na inicialização), que incluem as vendas das outras
+ * instâncias até ali, o quanto os contadores avançaram depois dela. Totais
+ * lidos e posição dos contadores são publicados juntos num só objeto, então
+ * uma consulta simultânea à gravação nunca conta uma venda duas vezes nem
+ * deixa de contá-la.
+ * Vendas entre a última gravação e uma parada abrupta se perdem; o
+ * {@link ecommerce.entity.Pedido} continua sendo o registro completo.
+ */
+@Component
+public class VendasAgregadas implements RegistroVendas, DisposableBean
+{
+
+	private static final Logger LOG = LoggerFactory.getLogger(VendasAgregadas.class);
+
+	private static final Regiao[] REGIOES = Regiao.values();
+	private static final TipoCliente[] TIPOS_CLIENTE = TipoCliente.values();
+	private static final TipoProduto[] TIPOS_PRODUTO = TipoProduto.values();
+	private static final int CELULAS = REGIOES.length * TIPOS_CLIENTE.length * TIPOS_PRODUTO.length;
+
+	private final VendaAgregadaRepository repository;
+	private final TransactionTemplate transacao;
+	// vendas desde a criação; só crescem
+	private final LongAdder[] unidades = new LongAdder[CELULAS];
+	private final LongAdder[] centavos = new LongAdder[CELULAS];
+
+	private volatile Gravados gravados = Gravados.de(List.of(), new long[CELULAS], new long[CELULAS]);
+	private volatile Instant ultimaGravacao;
+
+	@Autowired
+	public VendasAgregadas(VendaAgregadaRepository repository, PlatformTransactionManager transactionManager)
+	{
+		this.repository = repository;
+		this.transacao = new TransactionTemplate(transactionManager);
+		for (int i = 0; i < CELULAS; i++)
+		{
+			unidades[i] = new LongAdder();
+			centavos[i] = new LongAdder();
+		}
+	}
+
+	@Override
+	public void registrar(Regiao regiao, TipoCliente tipoCliente, List<? extends ItemPrecificavel> itens,
+			BigDecimal subtotal)
+	{
+		if (regiao == null || tipoCliente == null)
+		{
+			return;
+		}
+		int n = itens.size();
+		int[] celulas = new int[n];
+		long[] pesos = new long[n];
+		long somaPesos = 0L;
+		for (int i = 0; i < n; i++)
+		{
+			ItemPrecificavel item = itens.get(i);
+			ProdutoPrecificavel produto = item.getProduto();
+			Long quantidade = item.getQuantidade();
+			celulas[i] = -1;
+			if (produto == null || produto.getTipo() == null || quantidade == null)
+			{
+				continue;
+			}
+			celulas[i] = celula(regiao, tipoCliente, produto.getTipo());
+			unidades[celulas[i]].add(quantidade);
+			if (produto.getPreco() != null)
+			{
+				pesos[i] = emCentavos(produto.getPreco().multiply(BigDecimal.valueOf(quantidade)));
+				somaPesos += pesos[i];
+			}
+		}
+		if (subtotal != null && somaPesos > 0L)
+		{
+			ratear(emCentavos(subtotal), celulas, pesos, somaPesos);
+		}
+	}
+
+	/** Distribui {@code total} centavos pelos pesos; o resto do arredondamento fica com a última linha. */
+	private void ratear(long total, int[] celulas, long[] pesos, long somaPesos)
+	{
+		BigInteger totalGrande = BigInteger.valueOf(total);
+		BigInteger somaGrande = BigInteger.valueOf(somaPesos);
+		long restante = total;
+		int ultima = -1;
+		for (int i = 0; i < celulas.length; i++)
+		{
+			if (pesos[i] <= 0L)
+			{
+				continue;
+			}
+			long parte = totalGrande.multiply(BigInteger.valueOf(pesos[i])).divide(somaGrande).longValue();
+			centavos[celulas[i]].add(parte);
+			restante -= parte;
+			ultima = i;
+		}
+		centavos[celulas[ultima]].add(restante);
+	}
+
+	/**
+	 * Totais do recorte; {@code null} em uma dimensão soma todos os seus
+	 * valores.
+	 */
+	public TotalVendas total(Regiao regiao, TipoCliente tipoCliente, TipoProduto tipoProduto)
+	{
+		Gravados base = gravados;
+		long somaUnidades = 0L;
+		long somaCentavos = 0L;
+		for (Regiao r : REGIOES)
+		{
+			if (regiao != null && r != regiao)
+			{
+				continue;
+			}
+			for (TipoCliente c : TIPOS_CLIENTE)
+			{
+				if (tipoCliente != null && c != tipoCliente)
+				{
+					continue;
+				}
+				for (TipoProduto p : TIPOS_PRODUTO)
+				{
+					if (tipoProduto != null && p != tipoProduto)
+					{
+						continue;
+					}
+					int celula = celula(r, c, p);
+					somaUnidades += base.unidades[celula] + unidades[celula].sum() - base.unidadesGravadas[celula];
+					somaCentavos += base.centavos[celula] + centavos[celula].sum() - base.centavosGravados[celula];
+				}
+			}
+		}
+		return new TotalVendas(somaUnidades, BigDecimal.valueOf(somaCentavos, 2));
+	}
+
+	/** Lê os totais gravados, para as consultas partirem deles. */
+	@EventListener(ApplicationReadyEvent.class)
+	public synchronized void carregar()
+	{
+		// transação de escrita: os totais vêm do primário, nunca de uma réplica atrasada
+		List<VendaAgregada> lidas = transacao.execute(status -> repository.findAll());
+		Gravados anterior = gravados;
+		gravados = Gravados.de(lidas, anterior.unidadesGravadas, anterior.centavosGravados);
+		LOG.info("Agregados de vendas retomados de {} combinações", lidas.size());
+	}
+
+	/**
+	 * Soma aos totais gravados o quanto os contadores de cada combinação
+	 * avançaram desde a última gravação, numa única transação, e relê os
+	 * totais. Só depois de confirmada a transação os totais lidos e a nova
+	 * posição dos contadores são publicados, de uma vez; vendas registradas
+	 * durante a gravação ficam para a próxima.
+	 */
+	@Scheduled(fixedDelayString = "${ecommerce.vendas.intervalo-gravacao-ms:60000}")
+	public synchronized void gravar()
+	{
+		Instant agora = Instant.now();
+		Gravados anterior = gravados;
+		long[] posicaoUnidades = new long[CELULAS];
+		long[] posicaoCentavos = new long[CELULAS];
+		long[] u = new long[CELULAS];
+		long[] v = new long[CELULAS];
+		for (int i = 0; i < CELULAS; i++)
+		{
+			posicaoUnidades[i] = unidades[i].sum();
+			posicaoCentavos[i] = centavos[i].sum();
+			u[i] = posicaoUnidades[i] - anterior.unidadesGravadas[i];
+			v[i] = posicaoCentavos[i] - anterior.centavosGravados[i];
+		}
+		List<VendaAgregada> lidas = transacao.execute(status -> {
+			for (Regiao r : REGIOES)
+			{
+				for (TipoCliente c : TIPOS_CLIENTE)
+				{
+					for (TipoProduto p : TIPOS_PRODUTO)
+					{
+						int celula = celula(r, c, p);
+						if (u[celula] == 0L && v[celula] == 0L)
+						{
+							continue;
+						}
+						BigDecimal receita = BigDecimal.valueOf(v[celula], 2);
+						// se outra instância criar a linha entre as duas, a transação falha e é repetida
+						if (repository.somar(r, c, p, u[celula], receita, agora) == 0)
+						{
+							repository.inserir(r, c, p, u[celula], receita, agora);
+						}
+					}
+				}
+			}
+			return repository.findAll();
+		});
+		gravados = Gravados.de(lidas, posicaoUnidades, posicaoCentavos);
+		ultimaGravacao = agora;
+	}
+
+	/** @return o instante da última gravação, ou {@code null} se ainda não houve */
+	public Instant getUltimaGravacao()
+	{
+		return ultimaGravacao;
+	}
+
+	@Override
+	public void destroy()
+	{
+		try
+		{
+			gravar();
+		}
+		catch (RuntimeException e)
+		{
+			LOG.warn("Agregados de vendas não gravados no desligamento", e);
+		}
+	}
+
+	private static int celula(Regiao regiao, TipoCliente tipoCliente, TipoProduto tipoProduto)
+	{
+		return (regiao.ordinal() * TIPOS_CLIENTE.length + tipoCliente.ordinal()) * TIPOS_PRODUTO.length
+				+ tipoProduto.ordinal();
+	}
+
+	private static long emCentavos(BigDecimal valor)
+	{
+		return valor.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+	}
+
+	/**
+	 * Totais lidos da tabela numa gravação ou na inicialização, com a posição
+	 * dos contadores que eles já incluem.
+	 */
+	private record Gravados(long[] unidades, long[] centavos, long[] unidadesGravadas, long[] centavosGravados)
+	{
+
+		static Gravados de(List<VendaAgregada> lidas, long[] unidadesGravadas, long[] centavosGravados)
+		{
+			long[] u = new long[CELULAS];
+			long[] v = new long[CELULAS];
+			for (VendaAgregada venda : lidas)
+			{
+				ChaveVendaAgregada chave = venda.getChave();
+				int celula = celula(chave.getRegiao(), chave.getTipoCliente(), chave.getTipoProduto());
+				u[celula] = venda.getUnidades();
+				v[celula] = emCentavos(venda.getReceita());
+			}
+			return new Gravados(u, v, unidadesGravadas, centavosGravados);
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package ecommerce.vendas;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TipoProduto;
+
+/**
+ * Expõe em {@code /actuator/vendas} os totais de vendas concluídas, com a
+ * abertura por região, tipo de cliente e tipo de produto. Os parâmetros
+ * {@code regiao}, {@code tipoCliente} e {@code tipoProduto} restringem o
+ * recorte. Lido direto dos contadores em memória, sem consultar pedidos.
+ */
+@Component
+@Endpoint(id = "vendas")
+public class VendasEndpoint
+{
+
+	private final VendasAgregadas vendas;
+
+	public VendasEndpoint(VendasAgregadas vendas)
+	{
+		this.vendas = vendas;
+	}
+
+	@ReadOperation
+	public Map<String, Object> vendas(@Nullable Regiao regiao, @Nullable TipoCliente tipoCliente,
+			@Nullable TipoProduto tipoProduto)
+	{
+		Map<String, TotalVendas> porRegiao = new LinkedHashMap<>();
+		for (Regiao r : Regiao.values())
+		{
+			if (regiao == null || r == regiao)
+			{
+				porRegiao.put(r.name(), vendas.total(r, tipoCliente, tipoProduto));
+			}
+		}
+		Map<String, TotalVendas> porTipoCliente = new LinkedHashMap<>();
+		for (TipoCliente c : TipoCliente.values())
+		{
+			if (tipoCliente == null || c == tipoCliente)
+			{
+				porTipoCliente.put(c.name(), vendas.total(regiao, c, tipoProduto));
+			}
+		}
+		Map<String, TotalVendas> porTipoProduto = new LinkedHashMap<>();
+		for (TipoProduto p : TipoProduto.values())
+		{
+			if (tipoProduto == null || p == tipoProduto)
+			{
+				porTipoProduto.put(p.name(), vendas.total(regiao, tipoCliente, p));
+			}
+		}
+
+		Map<String, Object> resposta = new LinkedHashMap<>();
+		resposta.put("total", vendas.total(regiao, tipoCliente, tipoProduto));
+		resposta.put("porRegiao", porRegiao);
+		resposta.put("porTipoCliente", porTipoCliente);
+		resposta.put("porTipoProduto", porTipoProduto);
+		resposta.put("ultimaGravacao", vendas.getUltimaGravacao());
+		return resposta;
+	}
+}
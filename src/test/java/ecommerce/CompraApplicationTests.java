@@ -0,0 +1,15 @@
+package ecommerce;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest
+@DisplayName("CompraApplication – Contexto")
+class CompraApplicationTests {
+
+    @Test
+    @DisplayName("Contexto Spring sobe com todas as configurações")
+    void contextLoads() {
+    }
+}
@@ -0,0 +1,231 @@
+package ecommerce.eventos;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.*;
+
+import ecommerce.config.EventosCheckoutProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("AnelEventosCheckout – Publicação sem bloqueio e consumo por thread")
+class AnelEventosCheckoutTest {
+
+    // ===================== Constantes =====================
+    private static final int PRODUTORES = 4;
+    private static final int EVENTOS_POR_PRODUTOR = 5000;
+    private static final Duration ESPERA_TESTE = Duration.ofSeconds(10);
+
+    // ===================== SUT =====================
+    private AnelEventosCheckout anel;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (anel != null) {
+            anel.destroy();
+        }
+    }
+
+    // ===================== Auxiliares =====================
+    private AnelEventosCheckout anel(int capacidade, EstrategiaEspera espera, PoliticaAnelCheio politica,
+            Duration esperaMaxima, ConsumidorEventosCheckout... consumidores) {
+        anel = new AnelEventosCheckout(new EventosCheckoutProperties(capacidade, espera, politica, esperaMaxima,
+                ESPERA_TESTE), List.of(consumidores), registry);
+        return anel;
+    }
+
+    private boolean publicar(long carrinhoId) {
+        return anel.publicar(TipoEventoCheckout.CONCLUIDO, carrinhoId, 1L, carrinhoId, BigDecimal.TEN);
+    }
+
+    private double descartados() {
+        return registry.get("checkout.eventos.descartados").counter().count();
+    }
+
+    /** Guarda os ids dos carrinhos recebidos; libera o latch no {@code esperados}-ésimo. */
+    private static final class Registro implements ConsumidorEventosCheckout {
+        final List<Long> carrinhos = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch fim;
+
+        Registro(int esperados) {
+            fim = new CountDownLatch(esperados);
+        }
+
+        @Override
+        public void aoReceber(EventoCheckout evento) {
+            carrinhos.add(evento.getCarrinhoId());
+            fim.countDown();
+        }
+    }
+
+    // ===================== Testes =====================
+
+    @Test
+    @DisplayName("E01 | Vários produtores e dois consumidores → cada consumidor vê tudo, na ordem de cada produtor")
+    void quandoVariosProdutores_entaoTodosConsumidoresRecebemTudo() throws Exception {
+        int total = PRODUTORES * EVENTOS_POR_PRODUTOR;
+        Registro primeiro = new Registro(total);
+        Registro segundo = new Registro(total);
+        anel(1024, EstrategiaEspera.CEDENDO, PoliticaAnelCheio.AGUARDAR, ESPERA_TESTE, primeiro, segundo);
+
+        ExecutorService executor = Executors.newFixedThreadPool(PRODUTORES);
+        try {
+            List<Future<?>> produtores = new ArrayList<>();
+            for (int p = 0; p < PRODUTORES; p++) {
+                long base = (long) p * EVENTOS_POR_PRODUTOR;
+                produtores.add(executor.submit(() -> {
+                    for (int i = 0; i < EVENTOS_POR_PRODUTOR; i++) {
+                        assertThat(publicar(base + i)).isTrue();
+                    }
+                }));
+            }
+            for (Future<?> produtor : produtores) {
+                produtor.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(primeiro.fim.await(ESPERA_TESTE.toSeconds(), TimeUnit.SECONDS)).isTrue();
+        assertThat(segundo.fim.await(ESPERA_TESTE.toSeconds(), TimeUnit.SECONDS)).isTrue();
+        for (Registro registro : List.of(primeiro, segundo)) {
+            assertThat(registro.carrinhos).hasSize(total).doesNotHaveDuplicates();
+            for (int p = 0; p < PRODUTORES; p++) {
+                long inicio = (long) p * EVENTOS_POR_PRODUTOR;
+                assertThat(registro.carrinhos.stream().filter(c -> c >= inicio && c < inicio + EVENTOS_POR_PRODUTOR))
+                        .isSorted();
+            }
+        }
+        assertThat(descartados()).isZero();
+        assertThat(registry.get("checkout.eventos.publicados").functionCounter().count()).isEqualTo(total);
+    }
+
+    @Test
+    @DisplayName("E02 | Consumidor parado e política DESCARTAR → anel enche e o excedente é descartado sem espera")
+    void quandoConsumidorParadoEDescartar_entaoDescartaExcedente() throws Exception {
+        CountDownLatch liberar = new CountDownLatch(1);
+        Registro registro = new Registro(8);
+        anel(8, EstrategiaEspera.DORMINDO, PoliticaAnelCheio.DESCARTAR, Duration.ZERO, evento -> {
+            awaitUninterruptibly(liberar);
+            registro.aoReceber(evento);
+        });
+
+        int aceitos = 0;
+        long inicio = System.nanoTime();
+        for (int i = 0; i < 20; i++) {
+            if (publicar(i)) {
+                aceitos++;
+            }
+        }
+        long duracao = System.nanoTime() - inicio;
+        liberar.countDown();
+
+        assertThat(aceitos).isEqualTo(8);
+        assertThat(descartados()).isEqualTo(12.0);
+        assertThat(duracao).isLessThan(Duration.ofMillis(500).toNanos());
+        assertThat(registro.fim.await(ESPERA_TESTE.toSeconds(), TimeUnit.SECONDS)).isTrue();
+        assertThat(registro.carrinhos).containsExactly(0L, 1L, 2L, 3L, 4L, 5L, 6L, 7L);
+    }
+
+    @Test
+    @DisplayName("E03 | Consumidor parado e política AGUARDAR → publicação desiste após a espera máxima")
+    void quandoConsumidorParadoEAguardar_entaoEsperaLimitada() {
+        CountDownLatch liberar = new CountDownLatch(1);
+        anel(2, EstrategiaEspera.OCUPADA, PoliticaAnelCheio.AGUARDAR, Duration.ofMillis(20),
+                evento -> awaitUninterruptibly(liberar));
+        try {
+            assertThat(publicar(1)).isTrue();
+            assertThat(publicar(2)).isTrue();
+
+            long inicio = System.nanoTime();
+            boolean aceito = publicar(3);
+            long duracao = System.nanoTime() - inicio;
+
+            assertThat(aceito).isFalse();
+            assertThat(duracao).isBetween(Duration.ofMillis(20).toNanos(), Duration.ofSeconds(2).toNanos());
+            assertThat(descartados()).isEqualTo(1.0);
+        } finally {
+            liberar.countDown();
+        }
+    }
+
+    @Test
+    @DisplayName("E04 | Consumidor que lança → falha contada e eventos seguintes entregues")
+    void quandoConsumidorLanca_entaoSegueEntregando() throws Exception {
+        Registro registro = new Registro(3);
+        anel(16, EstrategiaEspera.CEDENDO, PoliticaAnelCheio.DESCARTAR, Duration.ZERO, evento -> {
+            registro.aoReceber(evento);
+            if (evento.getCarrinhoId() == 2L) {
+                throw new IllegalStateException("falha simulada");
+            }
+        });
+
+        publicar(1);
+        publicar(2);
+        publicar(3);
+
+        assertThat(registro.fim.await(ESPERA_TESTE.toSeconds(), TimeUnit.SECONDS)).isTrue();
+        assertThat(registro.carrinhos).containsExactly(1L, 2L, 3L);
+        esperarAte(() -> registry.get("checkout.eventos.falhas").counter().count() == 1.0);
+    }
+
+    @Test
+    @DisplayName("E05 | Desligamento → eventos pendentes entregues antes de encerrar")
+    void quandoDesligado_entaoEsvazia() throws Exception {
+        Registro registro = new Registro(100);
+        anel(128, EstrategiaEspera.DORMINDO, PoliticaAnelCheio.DESCARTAR, Duration.ZERO, evento -> {
+            registro.aoReceber(evento);
+            Thread.onSpinWait();
+        });
+        for (int i = 0; i < 100; i++) {
+            publicar(i);
+        }
+
+        anel.destroy();
+        anel = null;
+
+        assertThat(registro.carrinhos).hasSize(100);
+    }
+
+    @Test
+    @DisplayName("E06 | Capacidade que não é potência de 2 → IllegalArgumentException")
+    void quandoCapacidadeInvalida_entaoRejeita() {
+        assertThrows(IllegalArgumentException.class, () -> new AnelEventosCheckout(new EventosCheckoutProperties(
+                100, EstrategiaEspera.DORMINDO, PoliticaAnelCheio.DESCARTAR, Duration.ZERO, ESPERA_TESTE),
+                List.of(), registry));
+    }
+
+    private static void esperarAte(BooleanSupplier condicao) throws InterruptedException {
+        long prazo = System.nanoTime() + ESPERA_TESTE.toNanos();
+        while (!condicao.getAsBoolean()) {
+            assertThat(System.nanoTime()).isLessThan(prazo);
+            Thread.sleep(1);
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
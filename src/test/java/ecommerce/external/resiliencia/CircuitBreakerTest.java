@@ -0,0 +1,97 @@
+package ecommerce.external.resiliencia;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.*;
+
+import ecommerce.external.resiliencia.CircuitBreaker.Estado;
+
+@DisplayName("CircuitBreaker – Transições de estado")
+class CircuitBreakerTest {
+
+    // ===================== Constantes =====================
+    private static final int JANELA = 10;
+    private static final double TAXA_LIMITE = 0.5;
+    private static final int CHAMADAS_MINIMAS = 4;
+    private static final Duration TEMPO_ABERTO = Duration.ofSeconds(30);
+    private static final int SONDAS = 2;
+
+    // ===================== SUT =====================
+    private AtomicLong relogio;
+    private CircuitBreaker circuito;
+
+    @BeforeEach
+    void setUp() {
+        relogio = new AtomicLong();
+        circuito = new CircuitBreaker("teste", JANELA, TAXA_LIMITE, CHAMADAS_MINIMAS, TEMPO_ABERTO, SONDAS, relogio::get);
+    }
+
+    private void falhar(int vezes) {
+        for (int i = 0; i < vezes; i++) {
+            assertThat(circuito.tentarAdquirir()).isTrue();
+            circuito.registrarFalha();
+        }
+    }
+
+    @Test
+    @DisplayName("CB01 | Falhas abaixo do mínimo de chamadas → permanece fechado")
+    void quandoFalhasAbaixoDoMinimo_entaoFechado() {
+        falhar(CHAMADAS_MINIMAS - 1);
+        assertThat(circuito.getEstado()).isEqualTo(Estado.FECHADO);
+    }
+
+    @Test
+    @DisplayName("CB02 | Taxa de falha ≥ limite → abre e rejeita chamadas")
+    void quandoTaxaAtingeLimite_entaoAbre() {
+        circuito.registrarSucesso();
+        circuito.registrarSucesso();
+        falhar(2);
+
+        assertThat(circuito.getEstado()).isEqualTo(Estado.ABERTO);
+        assertThat(circuito.tentarAdquirir()).isFalse();
+    }
+
+    @Test
+    @DisplayName("CB03 | Tempo aberto expirado → meio-aberto libera apenas as sondas")
+    void quandoTempoAbertoExpira_entaoLiberaSondas() {
+        falhar(CHAMADAS_MINIMAS);
+        relogio.addAndGet(TEMPO_ABERTO.toNanos());
+
+        assertThat(circuito.tentarAdquirir()).isTrue();
+        assertThat(circuito.tentarAdquirir()).isTrue();
+        assertThat(circuito.tentarAdquirir()).isFalse();
+        assertThat(circuito.getEstado()).isEqualTo(Estado.MEIO_ABERTO);
+    }
+
+    @Test
+    @DisplayName("CB04 | Todas as sondas com sucesso → fecha o circuito")
+    void quandoSondasComSucesso_entaoFecha() {
+        falhar(CHAMADAS_MINIMAS);
+        relogio.addAndGet(TEMPO_ABERTO.toNanos());
+
+        for (int i = 0; i < SONDAS; i++) {
+            circuito.tentarAdquirir();
+            circuito.registrarSucesso();
+        }
+
+        assertThat(circuito.getEstado()).isEqualTo(Estado.FECHADO);
+        assertThat(circuito.getTransicoes()).containsEntry(Estado.FECHADO, 1L);
+    }
+
+    @Test
+    @DisplayName("CB05 | Falha de sonda → reabre o circuito")
+    void quandoSondaFalha_entaoReabre() {
+        falhar(CHAMADAS_MINIMAS);
+        relogio.addAndGet(TEMPO_ABERTO.toNanos());
+
+        circuito.tentarAdquirir();
+        circuito.registrarFalha();
+
+        assertThat(circuito.getEstado()).isEqualTo(Estado.ABERTO);
+        assertThat(circuito.nanosAteSondagem()).isEqualTo(TEMPO_ABERTO.toNanos());
+        assertThat(circuito.getTransicoes()).containsEntry(Estado.ABERTO, 2L);
+    }
+}
@@ -0,0 +1,203 @@
+package ecommerce.external.resiliencia;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.*;
+
+import ecommerce.config.GatewayProperties;
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.external.IEstoqueExternal;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("EstoqueComHedging – Consultas duplicadas apenas quando idempotentes")
+class EstoqueComHedgingTest {
+
+    // ===================== Constantes =====================
+    private static final List<Long> IDS = List.of(1L);
+    private static final List<Long> QTDS = List.of(2L);
+    private static final Duration ATRASO = Duration.ofMillis(20);
+    private static final long ESPERA_LENTA_MS = 2_000L;
+
+    /** Estoque cuja próxima chamada fica presa até o latch ser liberado. */
+    private static class EstoqueLento implements IEstoqueExternal {
+        final AtomicInteger consultas = new AtomicInteger();
+        final AtomicInteger baixas = new AtomicInteger();
+        final AtomicInteger interrompidas = new AtomicInteger();
+        final CountDownLatch liberar = new CountDownLatch(1);
+        volatile boolean travarPrimeira;
+        volatile boolean travarTodas;
+
+        @Override
+        public EstoqueBaixaDTO darBaixa(List<Long> ids, List<Long> qtds) {
+            baixas.incrementAndGet();
+            esperar();
+            return new EstoqueBaixaDTO(true);
+        }
+
+        @Override
+        public DisponibilidadeDTO verificarDisponibilidade(List<Long> ids, List<Long> qtds) {
+            int n = consultas.incrementAndGet();
+            if (travarTodas || travarPrimeira && n == 1) {
+                esperar();
+            }
+            return new DisponibilidadeDTO(true, List.of());
+        }
+
+        private void esperar() {
+            try {
+                liberar.await(ESPERA_LENTA_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                interrompidas.incrementAndGet();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private EstoqueLento estoque;
+    private Hedging hedging;
+    private EstoqueComHedging sut;
+
+    private static GatewayProperties.Hedging config(double taxaMaxima, int rajada) {
+        return config(taxaMaxima, rajada, 4, 64);
+    }
+
+    private static GatewayProperties.Hedging config(double taxaMaxima, int rajada, int threads, int fila) {
+        return new GatewayProperties.Hedging(true, 10, 0.5, ATRASO, 0, taxaMaxima, rajada, threads, fila);
+    }
+
+    @BeforeEach
+    void setUp() {
+        estoque = new EstoqueLento();
+    }
+
+    @AfterEach
+    void tearDown() {
+        estoque.liberar.countDown();
+        hedging.close();
+    }
+
+    @Test
+    @DisplayName("H01 | Primeira consulta lenta → segunda consulta responde antes")
+    void quandoPrimeiraLenta_entaoHedgeResponde() {
+        hedging = new Hedging("estoque", config(1.0, 1), new SimpleMeterRegistry());
+        sut = new EstoqueComHedging(estoque, hedging);
+        estoque.travarPrimeira = true;
+
+        long inicio = System.nanoTime();
+        DisponibilidadeDTO resposta = sut.verificarDisponibilidade(IDS, QTDS);
+        long decorridoMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+
+        assertThat(resposta.disponivel()).isTrue();
+        assertThat(estoque.consultas).hasValue(2);
+        assertThat(decorridoMs).isLessThan(ESPERA_LENTA_MS);
+    }
+
+    @Test
+    @DisplayName("H02 | Orçamento de hedge esgotado → aguarda a primeira consulta")
+    void quandoOrcamentoEsgotado_entaoNaoDuplica() {
+        hedging = new Hedging("estoque", config(0.0, 0), new SimpleMeterRegistry());
+        sut = new EstoqueComHedging(estoque, hedging);
+        estoque.travarPrimeira = true;
+
+        new Thread(() -> {
+            sleep(ATRASO.toMillis() * 3);
+            estoque.liberar.countDown();
+        }).start();
+        sut.verificarDisponibilidade(IDS, QTDS);
+
+        assertThat(estoque.consultas).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("H03 | darBaixa lenta → nunca é duplicada")
+    void quandoBaixaLenta_entaoChamadaUnica() {
+        hedging = new Hedging("estoque", config(1.0, 10), new SimpleMeterRegistry());
+        sut = new EstoqueComHedging(estoque, hedging);
+
+        new Thread(() -> {
+            sleep(ATRASO.toMillis() * 3);
+            estoque.liberar.countDown();
+        }).start();
+        sut.darBaixa(IDS, QTDS);
+
+        assertThat(estoque.baixas).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("H04 | Quem chamou desiste (thread interrompida) → consulta primária e hedge canceladas")
+    void quandoChamadorDesiste_entaoConsultasCanceladas() throws Exception {
+        hedging = new Hedging("estoque", config(1.0, 1), new SimpleMeterRegistry());
+        sut = new EstoqueComHedging(estoque, hedging);
+        estoque.travarTodas = true;
+
+        Thread chamador = new Thread(() -> {
+            try {
+                sut.verificarDisponibilidade(IDS, QTDS);
+            } catch (GatewayIndisponivelException e) {
+                // esperado: consulta interrompida
+            }
+        });
+        chamador.start();
+        aguardarAte(() -> estoque.consultas.get() == 2);
+        chamador.interrupt();
+        chamador.join(ESPERA_LENTA_MS);
+
+        aguardarAte(() -> estoque.interrompidas.get() == 2);
+        assertThat(estoque.interrompidas).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("H05 | Threads e fila ocupadas → rejeita em vez de enfileirar sem limite")
+    void quandoFilaCheia_entaoRejeita() throws Exception {
+        hedging = new Hedging("estoque", config(0.0, 0, 1, 1), new SimpleMeterRegistry());
+        sut = new EstoqueComHedging(estoque, hedging);
+        estoque.travarTodas = true;
+
+        new Thread(() -> sut.verificarDisponibilidade(IDS, QTDS)).start();
+        aguardarAte(() -> estoque.consultas.get() == 1);
+        new Thread(() -> sut.verificarDisponibilidade(IDS, QTDS)).start();
+        aguardarAte(() -> hedging.getFilaPendente() == 1);
+
+        assertThrows(GatewayIndisponivelException.class, () -> sut.verificarDisponibilidade(IDS, QTDS));
+    }
+
+    @Test
+    @DisplayName("H06 | Pool nunca menor que as threads do gateway mais a rajada")
+    void quandoConcorrenciaMaior_entaoPoolAcompanha() throws Exception {
+        hedging = new Hedging("estoque", config(0.0, 2, 1, 1), 3, new SimpleMeterRegistry());
+        sut = new EstoqueComHedging(estoque, hedging);
+        estoque.travarTodas = true;
+
+        for (int i = 0; i < 5; i++) {
+            new Thread(() -> sut.verificarDisponibilidade(IDS, QTDS)).start();
+        }
+
+        // com só a thread configurada, apenas uma consulta estaria em andamento
+        aguardarAte(() -> estoque.consultas.get() >= 5);
+    }
+
+    private static void aguardarAte(BooleanSupplier condicao) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ESPERA_LENTA_MS);
+        while (!condicao.getAsBoolean() && System.nanoTime() < limite) {
+            Thread.sleep(5);
+        }
+        assertThat(condicao.getAsBoolean()).isTrue();
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
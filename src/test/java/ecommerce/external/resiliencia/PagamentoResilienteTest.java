@@ -0,0 +1,111 @@
+package ecommerce.external.resiliencia;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.*;
+
+import ecommerce.config.GatewayProperties;
+import ecommerce.dto.PagamentoDTO;
+import ecommerce.external.IPagamentoExternal;
+import ecommerce.prazo.ContextoPrazo;
+import ecommerce.prazo.Prazo;
+import ecommerce.prazo.PrazoEsgotadoException;
+
+@DisplayName("PagamentoResiliente – Autorização em andamento nunca é abandonada")
+class PagamentoResilienteTest {
+
+    // ===================== Constantes =====================
+    private static final Long CLIENTE_ID = 1L;
+    private static final Long TRANSACAO_ID = 77L;
+    private static final Duration TIMEOUT = Duration.ofMillis(50);
+    private static final long LATENCIA_MS = 300L;
+
+    /** Fornecedor que autoriza só depois que o tempo limite do gateway já teria estourado. */
+    private static class PagamentoLento implements IPagamentoExternal {
+        final AtomicInteger autorizacoes = new AtomicInteger();
+        final AtomicInteger cancelamentos = new AtomicInteger();
+
+        @Override
+        public PagamentoDTO autorizarPagamento(Long clienteId, Double custoTotal) {
+            autorizacoes.incrementAndGet();
+            dormir();
+            return new PagamentoDTO(true, TRANSACAO_ID);
+        }
+
+        @Override
+        public void cancelarPagamento(Long clienteId, Long pagamentoTransacaoId) {
+            cancelamentos.incrementAndGet();
+            dormir();
+        }
+
+        private void dormir() {
+            try {
+                Thread.sleep(LATENCIA_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrompido");
+            }
+        }
+    }
+
+    // ===================== SUT =====================
+    private PagamentoLento pagamento;
+    private GatewayProtegido gateway;
+    private PagamentoResiliente sut;
+
+    @BeforeEach
+    void setUp() {
+        pagamento = new PagamentoLento();
+        GatewayProperties.Politica politica = new GatewayProperties.Politica(
+                10, 0.5, 100, Duration.ofSeconds(30), 1, 0.99, 2.0, TIMEOUT, TIMEOUT, 2, 4);
+        gateway = new GatewayProtegido("pagamento", politica);
+        sut = new PagamentoResiliente(pagamento, gateway);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ContextoPrazo.limpar();
+        gateway.close();
+    }
+
+    // ===================== Testes =====================
+    @Test
+    @DisplayName("P01 | Autorização mais lenta que o tempo limite → aguarda e devolve a transação")
+    void autorizacaoLenta_devolveTransacao() {
+        PagamentoDTO resultado = sut.autorizarPagamento(CLIENTE_ID, 100.0);
+
+        assertThat(resultado.autorizado()).isTrue();
+        assertThat(resultado.transacaoId()).isEqualTo(TRANSACAO_ID);
+        assertThat(pagamento.autorizacoes).hasValue(1);
+        assertThat(gateway.getCircuito().getEstado()).isEqualTo(CircuitBreaker.Estado.FECHADO);
+    }
+
+    @Test
+    @DisplayName("P02 | Prazo da requisição estoura durante a autorização → ainda devolve a transação")
+    void prazoEstouraDuranteAutorizacao_devolveTransacao() {
+        ContextoPrazo.definir(Prazo.daquiA(Duration.ofMillis(100)));
+
+        PagamentoDTO resultado = sut.autorizarPagamento(CLIENTE_ID, 100.0);
+
+        assertThat(resultado.transacaoId()).isEqualTo(TRANSACAO_ID);
+    }
+
+    @Test
+    @DisplayName("P03 | Prazo já esgotado antes de enviar → não autoriza")
+    void prazoEsgotadoAntes_naoAutoriza() {
+        ContextoPrazo.definir(Prazo.daquiA(Duration.ZERO));
+
+        assertThrows(PrazoEsgotadoException.class, () -> sut.autorizarPagamento(CLIENTE_ID, 100.0));
+        assertThat(pagamento.autorizacoes).hasValue(0);
+    }
+
+    @Test
+    @DisplayName("P04 | Cancelamento continua sujeito ao tempo limite do gateway")
+    void cancelamentoLento_estouraTempoLimite() {
+        assertThrows(GatewayIndisponivelException.class, () -> sut.cancelarPagamento(CLIENTE_ID, TRANSACAO_ID));
+    }
+}
@@ -0,0 +1,247 @@
+package ecommerce.limite;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import ecommerce.config.LimiteRequisicoesProperties;
+import ecommerce.config.LimiteRequisicoesProperties.Taxa;
+import ecommerce.entity.Cliente;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.service.ClienteService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("LimiteRequisicoes – Balde de tokens por cliente e por IP")
+class LimiteRequisicoesTest {
+
+    // ===================== Constantes =====================
+    private static final long BRONZE_ID = 1L;
+    private static final long OURO_ID = 2L;
+    private static final long INEXISTENTE_ID = 99L;
+    private static final String IP = "10.0.0.1";
+    private static final Taxa PADRAO = new Taxa(2, 3);
+    private static final Taxa OURO = new Taxa(10, 20);
+
+    // ===================== SUT =====================
+    private final AtomicLong relogio = new AtomicLong(1_000_000_000L);
+    private ClienteService customerService;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        customerService = mock(ClienteService.class);
+        when(customerService.buscarPorId(BRONZE_ID)).thenReturn(new Cliente(BRONZE_ID, "B", Regiao.SUL, TipoCliente.BRONZE));
+        when(customerService.buscarPorId(OURO_ID)).thenReturn(new Cliente(OURO_ID, "O", Regiao.SUL, TipoCliente.OURO));
+        when(customerService.buscarPorId(INEXISTENTE_ID)).thenThrow(new IllegalArgumentException("Cliente não encontrado"));
+        registry = new SimpleMeterRegistry();
+    }
+
+    // ===================== Auxiliares =====================
+    private LimiteRequisicoes limite(boolean porIp, Taxa ip, int maximoBaldes) {
+        return limite(porIp, null, ip, maximoBaldes);
+    }
+
+    private LimiteRequisicoes limite(boolean porIp, String cabecalhoIp, Taxa ip, int maximoBaldes) {
+        return new LimiteRequisicoes(customerService, new LimiteRequisicoesProperties(true, maximoBaldes,
+                Duration.ofMinutes(10), porIp, cabecalhoIp, ip, PADRAO, Map.of(TipoCliente.OURO, OURO)), registry,
+                relogio::get);
+    }
+
+    private static int aceitas(LimiteRequisicoes limite, long clienteId, String ip, int tentativas) {
+        int aceitas = 0;
+        for (int i = 0; i < tentativas; i++) {
+            try {
+                limite.verificar(clienteId, ip);
+                aceitas++;
+            } catch (LimiteExcedidoException e) {
+                // esperado além da rajada
+            }
+        }
+        return aceitas;
+    }
+
+    private void avancar(Duration duracao) {
+        relogio.addAndGet(duracao.toNanos());
+    }
+
+    // ===================== Testes =====================
+
+    @Test
+    @DisplayName("L01 | Rajada esgotada → LimiteExcedidoException com Retry-After; token volta após o intervalo")
+    void quandoRajadaEsgotada_entaoRejeitaAteRecarregar() {
+        LimiteRequisicoes limite = limite(false, PADRAO, 100);
+
+        assertThat(aceitas(limite, BRONZE_ID, IP, 3)).isEqualTo(3);
+        LimiteExcedidoException erro = assertThrows(LimiteExcedidoException.class,
+                () -> limite.verificar(BRONZE_ID, IP));
+        assertThat(erro.getRetryAfterSegundos()).isEqualTo(1L);
+
+        avancar(Duration.ofMillis(499));
+        assertThrows(LimiteExcedidoException.class, () -> limite.verificar(BRONZE_ID, IP));
+        avancar(Duration.ofMillis(1));
+        limite.verificar(BRONZE_ID, IP);
+
+        avancar(Duration.ofSeconds(60));
+        assertThat(aceitas(limite, BRONZE_ID, IP, 10)).isEqualTo(3);
+        assertThat(registry.get("limite.requisicoes.rejeitadas").tag("origem", "cliente").counter().count())
+                .isEqualTo(9.0);
+    }
+
+    @Test
+    @DisplayName("L02 | Taxa pelo tipo do cliente; sem taxa própria ou inexistente → padrão; tipo lido uma vez")
+    void quandoTiposDiferentes_entaoTaxasDiferentes() {
+        LimiteRequisicoes limite = limite(false, PADRAO, 100);
+
+        assertThat(aceitas(limite, OURO_ID, IP, 50)).isEqualTo(20);
+        assertThat(aceitas(limite, BRONZE_ID, IP, 50)).isEqualTo(3);
+        assertThat(aceitas(limite, INEXISTENTE_ID, IP, 50)).isEqualTo(3);
+        verify(customerService, times(1)).buscarPorId(OURO_ID);
+        verify(customerService, times(1)).buscarPorId(INEXISTENTE_ID);
+    }
+
+    @Test
+    @DisplayName("L03 | Mesmo IP variando clientes → contido pelo limite do IP, sem consultar o banco além dele")
+    void quandoIpVariaClientes_entaoLimitadoPorIp() {
+        when(customerService.buscarPorId(anyLong())).thenThrow(new IllegalArgumentException("Cliente não encontrado"));
+        LimiteRequisicoes limite = limite(true, new Taxa(1, 2), 100);
+
+        int aceitas = 0;
+        for (long id = 1000; id < 1100; id++) {
+            aceitas += aceitas(limite, id, IP, 1);
+        }
+
+        assertThat(aceitas).isEqualTo(2);
+        verify(customerService, times(2)).buscarPorId(anyLong());
+        assertThat(aceitas(limite, 1000L, "10.0.0.2", 1)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("L04 | Muitas threads no mesmo balde → exatamente a rajada aceita")
+    void quandoConcorrente_entaoSemTokenExtra() throws Exception {
+        LimiteRequisicoes limite = limite(false, PADRAO, 100);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> tarefas = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                tarefas.add(executor.submit(() -> aceitas(limite, OURO_ID, null, 1000)));
+            }
+            int total = 0;
+            for (Future<Integer> tarefa : tarefas) {
+                total += tarefa.get(10, TimeUnit.SECONDS);
+            }
+            assertThat(total).isEqualTo(20);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("L05 | Muitas chaves → tabela limitada ao máximo de baldes")
+    void quandoMuitasChaves_entaoTabelaLimitada() {
+        LimiteRequisicoes limite = limite(true, PADRAO, 50);
+
+        for (int i = 0; i < 1000; i++) {
+            limite.verificar(null, "10.1." + (i / 256) + "." + (i % 256));
+        }
+
+        assertThat(registry.get("limite.requisicoes.baldes").tag("tabela", "ip").gauge().value())
+                .isLessThanOrEqualTo(50.0 + 1);
+    }
+
+    @Test
+    @DisplayName("L06 | Vazão: 2 milhões de verificações em 8 threads bem acima de 50 mil por segundo")
+    void quandoAltaVazao_entaoCustoDesprezivel() throws Exception {
+        when(customerService.buscarPorId(anyLong()))
+                .thenAnswer(inv -> new Cliente(inv.getArgument(0), "C", Regiao.SUL, TipoCliente.BRONZE));
+        LimiteRequisicoes limite = new LimiteRequisicoes(customerService, new LimiteRequisicoesProperties(true,
+                100_000, Duration.ofMinutes(10), true, null, new Taxa(1_000_000, 1_000_000), new Taxa(1_000_000, 1_000_000),
+                Map.of()), registry);
+        int threads = 8;
+        int porThread = 250_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            long inicio = System.nanoTime();
+            List<Future<?>> tarefas = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int base = t;
+                tarefas.add(executor.submit(() -> {
+                    for (int i = 0; i < porThread; i++) {
+                        limite.verificar((long) (i % 10_000), "10.2.0." + base);
+                    }
+                }));
+            }
+            for (Future<?> tarefa : tarefas) {
+                tarefa.get(60, TimeUnit.SECONDS);
+            }
+            double porSegundo = threads * (double) porThread / ((System.nanoTime() - inicio) / 1e9);
+
+            // folga grande: o teste não é um benchmark, só pega regressões de ordem de grandeza
+            assertThat(porSegundo).isGreaterThan(500_000);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("L07 | Cliente recusado → token do IP preservado para os outros clientes do mesmo IP")
+    void quandoClienteRecusado_entaoIpNaoGasta() {
+        LimiteRequisicoes limite = limite(true, new Taxa(1, 5), 100);
+
+        assertThat(aceitas(limite, BRONZE_ID, IP, 10)).isEqualTo(3);
+        assertThat(aceitas(limite, OURO_ID, IP, 10)).isEqualTo(2);
+        assertThat(registry.get("limite.requisicoes.rejeitadas").tag("origem", "cliente").counter().count())
+                .isEqualTo(7.0);
+    }
+
+    @Test
+    @DisplayName("L08 | Origem: último endereço do cabeçalho confiável; sem cabeçalho configurado → conexão")
+    void quandoCabecalhoConfigurado_entaoOrigemDoProxy() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr("192.168.0.1");
+        request.addHeader("X-Forwarded-For", "1.1.1.1, 10.0.0.7");
+
+        assertThat(limite(true, "X-Forwarded-For", PADRAO, 100).origem(request)).isEqualTo("10.0.0.7");
+        assertThat(limite(true, null, PADRAO, 100).origem(request)).isEqualTo("192.168.0.1");
+        assertThat(limite(true, "X-Real-IP", PADRAO, 100).origem(request)).isEqualTo("192.168.0.1");
+    }
+
+    @Test
+    @DisplayName("L09 | Sem limite por IP, ids inexistentes variados → um balde só, sem consultas além da taxa padrão")
+    void quandoIdsInexistentesVariados_entaoBaldeCompartilhado() {
+        LimiteRequisicoes limite = limite(false, PADRAO, 100);
+        limite.verificar(OURO_ID, null);
+        when(customerService.buscarPorId(anyLong())).thenThrow(new IllegalArgumentException("Cliente não encontrado"));
+
+        int aceitas = 0;
+        for (long id = 1000; id < 1100; id++) {
+            aceitas += aceitas(limite, id, null, 1);
+        }
+
+        assertThat(aceitas).isEqualTo(PADRAO.rajada());
+        verify(customerService, times(PADRAO.rajada() + 1)).buscarPorId(anyLong());
+        assertThat(registry.get("limite.requisicoes.baldes").tag("tabela", "cliente").gauge().value())
+                .isEqualTo(PADRAO.rajada() + 1.0);
+        // o cliente que já tinha balde segue com a própria taxa
+        assertThat(aceitas(limite, OURO_ID, null, 50)).isEqualTo(OURO.rajada() - 1);
+        avancar(Duration.ofMillis(500));
+        assertThat(aceitas(limite, 5000L, null, 1)).isEqualTo(1);
+    }
+}
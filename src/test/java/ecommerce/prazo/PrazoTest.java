@@ -0,0 +1,63 @@
+package ecommerce.prazo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.Duration;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.*;
+
+@DisplayName("Prazo – Propagação do prazo da requisição")
+class PrazoTest {
+
+    // ===================== Constantes =====================
+    private static final Duration RESERVA_PAGAMENTO = Duration.ofMillis(300);
+    private static final Duration ORCAMENTO_CURTO = Duration.ofMillis(100);
+    private static final Duration ORCAMENTO_LONGO = Duration.ofSeconds(10);
+    private static final String ETAPA = "pagamento";
+
+    @AfterEach
+    void tearDown() {
+        ContextoPrazo.limpar();
+    }
+
+    @Test
+    @DisplayName("P01 | Restante menor que a reserva da etapa → PrazoEsgotadoException com a etapa")
+    void quandoRestanteMenorQueReserva_entaoLanca() {
+        Prazo prazo = Prazo.daquiA(ORCAMENTO_CURTO);
+        PrazoEsgotadoException ex = assertThrows(PrazoEsgotadoException.class,
+                () -> prazo.exigir(ETAPA, RESERVA_PAGAMENTO));
+        assertThat(ex.getEtapa()).isEqualTo(ETAPA);
+    }
+
+    @Test
+    @DisplayName("P02 | Sem prazo definido → nenhuma etapa é bloqueada")
+    void quandoSemPrazo_entaoNuncaLanca() {
+        assertDoesNotThrow(() -> Prazo.SEM_PRAZO.exigir(ETAPA, RESERVA_PAGAMENTO));
+        assertThat(ContextoPrazo.atual()).isSameAs(Prazo.SEM_PRAZO);
+    }
+
+    @Test
+    @DisplayName("P03 | Prazo na thread → statement JDBC recebe queryTimeout em segundos arredondado para cima")
+    void quandoPrazoDefinido_entaoAplicaQueryTimeout() throws Exception {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:prazo");
+        PrazoDataSource dataSource = new PrazoDataSource(h2);
+
+        ContextoPrazo.definir(Prazo.daquiA(ORCAMENTO_LONGO));
+        try (Connection conexao = dataSource.getConnection();
+             PreparedStatement statement = conexao.prepareStatement("select 1")) {
+            assertThat(statement.getQueryTimeout()).isBetween(1, (int) ORCAMENTO_LONGO.toSeconds());
+        }
+
+        ContextoPrazo.limpar();
+        try (Connection conexao = dataSource.getConnection();
+             PreparedStatement statement = conexao.prepareStatement("select 1")) {
+            assertThat(statement.getQueryTimeout()).isZero();
+        }
+    }
+}
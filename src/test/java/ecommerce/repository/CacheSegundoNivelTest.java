@@ -0,0 +1,132 @@
+package ecommerce.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import ecommerce.entity.Cliente;
+import ecommerce.entity.Produto;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TipoProduto;
+import jakarta.persistence.CacheRetrieveMode;
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Mede as idas ao banco das leituras de {@link Cliente} e {@link Produto} por
+ * id em checkouts repetidos, cada um com a sua própria sessão, com e sem o
+ * cache de segundo nível.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Cache de segundo nível – Cliente e Produto")
+class CacheSegundoNivelTest {
+
+    // ===================== Constantes =====================
+    private static final int PRODUTOS = 20;
+    private static final int CHECKOUTS = 50;
+    private static final BigDecimal PRECO = new BigDecimal("10.00");
+    private static final BigDecimal PESO = new BigDecimal("1.00");
+
+    @Autowired
+    private EntityManagerFactory emf;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    private Statistics estatisticas;
+    private Long clienteId;
+    private List<Long> produtoIds;
+
+    @BeforeEach
+    void setUp() {
+        estatisticas = emf.unwrap(SessionFactory.class).getStatistics();
+        estatisticas.setStatisticsEnabled(true);
+
+        clienteId = clienteRepository.save(new Cliente(null, "Cliente", Regiao.SUDESTE, TipoCliente.OURO)).getId();
+        produtoIds = new ArrayList<>();
+        for (int i = 0; i < PRODUTOS; i++) {
+            produtoIds.add(produtoRepository.save(new Produto(null, "P" + i, "desc", PRECO, PESO, null, null, null,
+                    false, TipoProduto.LIVRO)).getId());
+        }
+        emf.getCache().evictAll();
+        estatisticas.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        produtoRepository.deleteAllById(produtoIds);
+        clienteRepository.deleteById(clienteId);
+    }
+
+    @Test
+    @DisplayName("L01 | Sem cache → cada checkout vai ao banco pelo cliente e por cada produto")
+    void semCache_cadaCheckoutConsultaOBanco() {
+        executarCheckouts(CacheRetrieveMode.BYPASS, CacheStoreMode.BYPASS);
+
+        assertThat(estatisticas.getPrepareStatementCount()).isEqualTo((long) CHECKOUTS * (1 + PRODUTOS));
+        assertThat(estatisticas.getSecondLevelCacheHitCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("L02 | Com cache → apenas o primeiro checkout vai ao banco; os demais são servidos pelo cache")
+    void comCache_somenteOPrimeiroCheckoutConsultaOBanco() {
+        executarCheckouts(CacheRetrieveMode.USE, CacheStoreMode.USE);
+
+        assertThat(estatisticas.getPrepareStatementCount()).isEqualTo(1L + PRODUTOS);
+        assertThat(estatisticas.getSecondLevelCacheHitCount()).isEqualTo((long) (CHECKOUTS - 1) * (1 + PRODUTOS));
+        assertThat(estatisticas.getDomainDataRegionStatistics("produto").getHitCount())
+                .isEqualTo((long) (CHECKOUTS - 1) * PRODUTOS);
+        assertThat(estatisticas.getDomainDataRegionStatistics("cliente").getHitCount()).isEqualTo(CHECKOUTS - 1L);
+    }
+
+    @Test
+    @DisplayName("L03 | Alteração de preço → entrada do cache atualizada, próxima leitura sem ida ao banco")
+    void alteracaoDePreco_atualizaOCache() {
+        executarCheckouts(CacheRetrieveMode.USE, CacheStoreMode.USE);
+        Produto produto = produtoRepository.findById(produtoIds.get(0)).orElseThrow();
+        produto.setPreco(new BigDecimal("12.50"));
+        produtoRepository.save(produto);
+        estatisticas.clear();
+
+        EntityManager sessao = emf.createEntityManager();
+        try {
+            assertThat(sessao.find(Produto.class, produtoIds.get(0)).getPreco()).isEqualByComparingTo("12.50");
+        } finally {
+            sessao.close();
+        }
+        assertThat(estatisticas.getPrepareStatementCount()).isZero();
+    }
+
+    // ===================== Auxiliares =====================
+    private void executarCheckouts(CacheRetrieveMode leitura, CacheStoreMode escrita) {
+        for (int c = 0; c < CHECKOUTS; c++) {
+            EntityManager sessao = emf.createEntityManager();
+            try {
+                sessao.setProperty("jakarta.persistence.cache.retrieveMode", leitura);
+                sessao.setProperty("jakarta.persistence.cache.storeMode", escrita);
+                assertThat(sessao.find(Cliente.class, clienteId).getTipo()).isEqualTo(TipoCliente.OURO);
+                for (Long id : produtoIds) {
+                    assertThat(sessao.find(Produto.class, id).getPreco()).isEqualByComparingTo(PRECO);
+                }
+            } finally {
+                sessao.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package ecommerce.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import ecommerce.config.CatalogoProperties;
+import ecommerce.config.MigracaoCarrinhoProperties;
+import ecommerce.entity.ArmazenamentoLinhas;
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Cliente;
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.LinhasCompactas;
+import ecommerce.entity.Produto;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TipoProduto;
+import ecommerce.service.CarrinhoDeComprasService;
+import ecommerce.service.CatalogoProdutos;
+import ecommerce.service.CompraService;
+import ecommerce.service.MigracaoLinhasCarrinho;
+
+@DataJpaTest
+@DisplayName("CarrinhoDeCompras – Linhas compactas")
+class CarrinhoCompactoTest {
+
+    // ===================== Constantes =====================
+    private static final int LINHAS = 2000;
+    private static final int PRODUTOS_DISTINTOS = 100;
+    private static final BigDecimal PESO = new BigDecimal("1.00");
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private CarrinhoDeComprasRepository repository;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // ===================== SUT =====================
+    private CatalogoProdutos catalogo;
+    private CarrinhoDeComprasService carrinhoService;
+    private MigracaoLinhasCarrinho migracao;
+    private final CompraService compraService = new CompraService(null, null, null, null);
+
+    private Statistics estatisticas;
+    private Cliente cliente;
+    private List<Produto> produtos;
+
+    @BeforeEach
+    void setUp() {
+        catalogo = new CatalogoProdutos(produtoRepository, transactionManager,
+                new CatalogoProperties(true, 1000, Duration.ofSeconds(5)));
+        carrinhoService = new CarrinhoDeComprasService(repository, produtoRepository, catalogo);
+        migracao = new MigracaoLinhasCarrinho(repository, transactionManager, new MigracaoCarrinhoProperties(true, 2));
+        estatisticas = em.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        estatisticas.setStatisticsEnabled(true);
+
+        cliente = em.persist(new Cliente(null, "Cliente", Regiao.NORDESTE, TipoCliente.PRATA));
+        produtos = new ArrayList<>();
+        for (int i = 0; i < PRODUTOS_DISTINTOS; i++) {
+            produtos.add(em.persist(new Produto(null, "P" + i, "desc", new BigDecimal(10 + i), PESO, null, null,
+                    null, i % 7 == 0, TipoProduto.values()[i % TipoProduto.values().length])));
+        }
+        em.flush();
+        estatisticas.clear();
+    }
+
+    @Test
+    @DisplayName("C01 | Codificação → ida e volta preserva ordem, ids grandes e deltas negativos")
+    void codificacao_idaEVolta() {
+        LinhasCompactas linhas = new LinhasCompactas(new long[] { 5L, 3L, Long.MAX_VALUE / 2, 3L },
+                new long[] { 1L, 250L, 2L, -1L });
+
+        LinhasCompactas lidas = LinhasCompactas.decodificar(linhas.codificar());
+
+        assertThat(lidas).isEqualTo(linhas);
+        assertThat(lidas.produtoId(2)).isEqualTo(Long.MAX_VALUE / 2);
+        assertThat(lidas.quantidade(3)).isEqualTo(-1L);
+    }
+
+    @Test
+    @DisplayName("C02 | Carrinho de 2000 linhas compacto → uma linha gravada, poucos bytes por item")
+    void gravacao_compactaUmaLinha() {
+        CarrinhoDeCompras entidade = novoCarrinho();
+        em.flush();
+        long insertsEntidade = estatisticas.getEntityInsertCount();
+        estatisticas.clear();
+
+        CarrinhoDeCompras compacto = novoCarrinhoCompacto();
+        em.flush();
+
+        assertThat(insertsEntidade).isEqualTo(1L + LINHAS);
+        assertThat(estatisticas.getEntityInsertCount()).isEqualTo(1L);
+        assertThat(compacto.getLinhasCompactas().codificar().length).isLessThan(LINHAS * 4);
+        assertThat(entidade.getItens()).hasSize(LINHAS);
+    }
+
+    @Test
+    @DisplayName("C03 | Carrinho compacto → mesmo total que o equivalente em entidades, carrinho lido numa consulta")
+    void leitura_mesmoTotalQueEntidades() {
+        Long idEntidade = novoCarrinho().getId();
+        Long idCompacto = novoCarrinhoCompacto().getId();
+        em.flush();
+        em.clear();
+        estatisticas.clear();
+
+        BigDecimal totalCompacto = compraService.calcularTotalPedido(
+                carrinhoService.buscarParaPrecificacao(idCompacto, cliente.getId()).orElseThrow());
+        long consultasCompacto = estatisticas.getPrepareStatementCount();
+        BigDecimal totalEntidade = compraService.calcularTotalPedido(
+                carrinhoService.buscarParaPrecificacao(idEntidade, cliente.getId()).orElseThrow());
+
+        assertThat(totalCompacto).isEqualByComparingTo(totalEntidade);
+        // carrinho + produtos distintos (ausentes do contexto e do cache)
+        assertThat(consultasCompacto).isLessThanOrEqualTo(2L);
+    }
+
+    @Test
+    @DisplayName("C04 | Migração em lotes → carrinhos válidos compactados, inválido mantido, total preservado")
+    void migracao_compactaEmLotes() {
+        Long a = novoCarrinho().getId();
+        Long b = novoCarrinho().getId();
+        List<ItemCompra> invalidos = new ArrayList<>(List.of(new ItemCompra(null, produtos.get(0), null)));
+        Long c = em.persist(new CarrinhoDeCompras(null, cliente, invalidos, LocalDate.now())).getId();
+        em.flush();
+        BigDecimal totalAntes = compraService.calcularTotalPedido(
+                carrinhoService.buscarParaPrecificacao(a, cliente.getId()).orElseThrow());
+        em.clear();
+
+        long cursor = migracao.migrarLote(0L, 2);
+        cursor = migracao.migrarLote(cursor, 2);
+        long fim = migracao.migrarLote(cursor, 2);
+        em.flush();
+        em.clear();
+
+        assertThat(cursor).isEqualTo(c);
+        assertThat(fim).isEqualTo(c);
+        assertThat(repository.findById(a).orElseThrow().getArmazenamento()).isEqualTo(ArmazenamentoLinhas.COMPACTO);
+        assertThat(repository.findById(b).orElseThrow().getArmazenamento()).isEqualTo(ArmazenamentoLinhas.COMPACTO);
+        assertThat(repository.findById(c).orElseThrow().getArmazenamento()).isEqualTo(ArmazenamentoLinhas.ENTIDADE);
+        assertThat(em.getEntityManager().createQuery("select count(i) from ItemCompra i", Long.class)
+                .getSingleResult()).isEqualTo(1L);
+        assertThat(compraService.calcularTotalPedido(
+                carrinhoService.buscarParaPrecificacao(a, cliente.getId()).orElseThrow())).isEqualByComparingTo(totalAntes);
+    }
+
+    @Test
+    @DisplayName("C05 | Catálogo carregado → carrinho compacto cotado com uma única consulta, mesmo total")
+    void cotacao_comCatalogoCarregado_umaConsulta() {
+        Long idEntidade = novoCarrinho().getId();
+        Long idCompacto = novoCarrinhoCompacto().getId();
+        em.flush();
+        em.clear();
+        catalogo.recarregar();
+        estatisticas.clear();
+
+        BigDecimal totalCompacto = compraService.calcularTotalPedido(
+                carrinhoService.buscarParaCotacao(idCompacto, cliente.getId()).orElseThrow());
+
+        assertThat(estatisticas.getPrepareStatementCount()).isEqualTo(1L);
+        assertThat(totalCompacto).isEqualByComparingTo(compraService.calcularTotalPedido(
+                carrinhoService.buscarParaPrecificacao(idEntidade, cliente.getId()).orElseThrow()));
+    }
+
+    @Test
+    @DisplayName("C06 | Preço alterado só no banco → checkout cobra o do banco nos dois formatos; cotação usa o catálogo")
+    void precificacao_ignoraCatalogoAtrasado() {
+        Long idEntidade = novoCarrinho().getId();
+        Long idCompacto = novoCarrinhoCompacto().getId();
+        em.flush();
+        catalogo.recarregar();
+        BigDecimal totalCatalogo = compraService.calcularTotalPedido(
+                carrinhoService.buscarParaCotacao(idEntidade, cliente.getId()).orElseThrow());
+        // preço alterado só no banco, sem versão nova: o catálogo não o vê
+        em.getEntityManager().createQuery("update Produto p set p.preco = p.preco + 1").executeUpdate();
+        em.clear();
+
+        BigDecimal totalEntidade = compraService.calcularTotalPedido(
+                carrinhoService.buscarParaPrecificacao(idEntidade, cliente.getId()).orElseThrow());
+        BigDecimal totalCompacto = compraService.calcularTotalPedido(
+                carrinhoService.buscarParaPrecificacao(idCompacto, cliente.getId()).orElseThrow());
+
+        assertThat(totalEntidade).isGreaterThan(totalCatalogo).isEqualByComparingTo(totalCompacto);
+        assertThat(compraService.calcularTotalPedido(
+                carrinhoService.buscarParaCotacao(idEntidade, cliente.getId()).orElseThrow()))
+                .isEqualByComparingTo(totalCatalogo);
+    }
+
+    // ===================== Auxiliares =====================
+    private CarrinhoDeCompras novoCarrinho() {
+        List<ItemCompra> itens = new ArrayList<>();
+        for (int i = 0; i < LINHAS; i++) {
+            itens.add(new ItemCompra(null, produtos.get((i * 37) % PRODUTOS_DISTINTOS), 1L + i % 3));
+        }
+        return em.persist(new CarrinhoDeCompras(null, cliente, itens, LocalDate.now()));
+    }
+
+    private CarrinhoDeCompras novoCarrinhoCompacto() {
+        long[] ids = new long[LINHAS];
+        long[] qts = new long[LINHAS];
+        for (int i = 0; i < LINHAS; i++) {
+            ids[i] = produtos.get((i * 37) % PRODUTOS_DISTINTOS).getId();
+            qts[i] = 1L + i % 3;
+        }
+        CarrinhoDeCompras carrinho = new CarrinhoDeCompras(null, cliente, new ArrayList<>(), LocalDate.now());
+        carrinho.setLinhasCompactas(new LinhasCompactas(ids, qts));
+        carrinho.setArmazenamento(ArmazenamentoLinhas.COMPACTO);
+        return em.persist(carrinho);
+    }
+}
@@ -0,0 +1,112 @@
+package ecommerce.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Cliente;
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.Produto;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TipoProduto;
+
+@DataJpaTest
+@DisplayName("CarrinhoDeComprasRepository – Gravação em lote")
+class CarrinhoDeComprasGravacaoTest {
+
+    // ===================== Constantes =====================
+    private static final int CARRINHOS = 4;
+    private static final int LINHAS = 500;
+    private static final int PRODUTOS_DISTINTOS = 50;
+    private static final int TAMANHO_LOTE = 50;
+    private static final BigDecimal PRECO = new BigDecimal("10.00");
+    private static final BigDecimal PESO = new BigDecimal("1.00");
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private CarrinhoDeComprasRepository repository;
+
+    private Statistics estatisticas;
+    private Cliente cliente;
+    private List<Produto> produtos;
+
+    @BeforeEach
+    void setUp() {
+        estatisticas = em.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        estatisticas.setStatisticsEnabled(true);
+
+        cliente = em.persist(new Cliente(null, "Cliente", Regiao.SUDESTE, TipoCliente.BRONZE));
+        produtos = new ArrayList<>();
+        for (int i = 0; i < PRODUTOS_DISTINTOS; i++) {
+            produtos.add(em.persist(new Produto(null, "P" + i, "desc", PRECO, PESO, null, null, null, false,
+                    TipoProduto.LIVRO)));
+        }
+        em.flush();
+        estatisticas.clear();
+    }
+
+    @Test
+    @DisplayName("G01 | Sem lote (batch 1) → um INSERT por linha, como com IDENTITY")
+    void semLote_umInsertPorLinha() {
+        em.getEntityManager().unwrap(Session.class).setJdbcBatchSize(1);
+
+        criarCarrinhos();
+
+        int linhas = CARRINHOS * LINHAS;
+        assertThat(estatisticas.getEntityInsertCount()).isEqualTo(CARRINHOS + linhas);
+        assertThat(estatisticas.getPrepareStatementCount()).isGreaterThanOrEqualTo(CARRINHOS + linhas);
+    }
+
+    @Test
+    @DisplayName("G02 | Com lote e sequência pooled-lo → INSERTs agrupados, sem UPDATE da FK e poucas idas à sequência")
+    void comLote_insertsAgrupados() {
+        criarCarrinhos();
+
+        int linhas = CARRINHOS * LINHAS;
+        long idasAoBanco = estatisticas.getPrepareStatementCount();
+        assertThat(estatisticas.getEntityInsertCount()).isEqualTo(CARRINHOS + linhas);
+        assertThat(estatisticas.getEntityUpdateCount()).isZero();
+        // lotes de itens + lote de carrinhos + uma ida à sequência a cada 50 ids
+        long esperado = linhas / TAMANHO_LOTE + 1 + (linhas / TAMANHO_LOTE + 1);
+        assertThat(idasAoBanco).isLessThanOrEqualTo(esperado);
+    }
+
+    @Test
+    @DisplayName("G03 | Carrinho gravado em lote → recarregado com todas as linhas e a FK preenchida")
+    void comLote_carrinhoRecarregadoIntegro() {
+        Long id = criarCarrinhos().get(0).getId();
+        em.clear();
+
+        CarrinhoDeCompras carrinho = repository.findComItensByIdAndCliente(id, cliente).orElseThrow();
+        assertThat(carrinho.getItens()).hasSize(LINHAS);
+    }
+
+    // ===================== Auxiliares =====================
+    private List<CarrinhoDeCompras> criarCarrinhos() {
+        List<CarrinhoDeCompras> carrinhos = new ArrayList<>();
+        for (int c = 0; c < CARRINHOS; c++) {
+            List<ItemCompra> itens = new ArrayList<>();
+            for (int i = 0; i < LINHAS; i++) {
+                itens.add(new ItemCompra(null, produtos.get(i % PRODUTOS_DISTINTOS), 1L));
+            }
+            carrinhos.add(repository.save(new CarrinhoDeCompras(null, cliente, itens, LocalDate.now())));
+        }
+        em.flush();
+        return carrinhos;
+    }
+}
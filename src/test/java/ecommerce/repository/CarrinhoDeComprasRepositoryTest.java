@@ -0,0 +1,115 @@
+package ecommerce.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Cliente;
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.Produto;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TipoProduto;
+import ecommerce.precificacao.LinhaCarrinhoPrecificacao;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@DisplayName("CarrinhoDeComprasRepository – Carregamento do carrinho")
+class CarrinhoDeComprasRepositoryTest {
+
+    // ===================== Constantes =====================
+    private static final int LINHAS = 200;
+    private static final int PRODUTOS_DISTINTOS = 50;
+    private static final BigDecimal PRECO = new BigDecimal("10.00");
+    private static final BigDecimal PESO = new BigDecimal("1.00");
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private CarrinhoDeComprasRepository repository;
+
+    private Statistics estatisticas;
+    private Cliente cliente;
+    private Long carrinhoId;
+
+    @BeforeEach
+    void setUp() {
+        estatisticas = em.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+
+        cliente = em.persist(new Cliente(null, "Cliente", Regiao.SUDESTE, TipoCliente.BRONZE));
+        List<Produto> produtos = new ArrayList<>();
+        for (int i = 0; i < PRODUTOS_DISTINTOS; i++) {
+            produtos.add(em.persist(new Produto(null, "P" + i, "desc", PRECO, PESO, null, null, null, false,
+                    TipoProduto.LIVRO)));
+        }
+        List<ItemCompra> itens = new ArrayList<>();
+        for (int i = 0; i < LINHAS; i++) {
+            itens.add(new ItemCompra(null, produtos.get(i % PRODUTOS_DISTINTOS), 1L));
+        }
+        carrinhoId = em.persist(new CarrinhoDeCompras(null, cliente, itens, LocalDate.now())).getId();
+        em.flush();
+        em.clear();
+        estatisticas.clear();
+    }
+
+    @Test
+    @DisplayName("F01 | Carrinho com 200 linhas → cliente, itens e produtos em um único SELECT")
+    void findComItens_carregaTudoEmUmaConsulta() {
+        CarrinhoDeCompras carrinho = repository.findComItensByIdAndCliente(carrinhoId, cliente).orElseThrow();
+
+        BigDecimal soma = BigDecimal.ZERO;
+        for (ItemCompra item : carrinho.getItens()) {
+            soma = soma.add(item.getProduto().getPreco().multiply(BigDecimal.valueOf(item.getQuantidade())));
+        }
+
+        assertThat(carrinho.getItens()).hasSize(LINHAS);
+        assertThat(soma).isEqualByComparingTo(PRECO.multiply(BigDecimal.valueOf(LINHAS)));
+        assertThat(estatisticas.getPrepareStatementCount()).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("F02 | Cliente diferente do dono → carrinho não encontrado")
+    void findComItens_quandoOutroCliente_entaoVazio() {
+        Cliente outro = em.persist(new Cliente(null, "Outro", Regiao.SUL, TipoCliente.OURO));
+        assertThat(repository.findComItensByIdAndCliente(carrinhoId, outro)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("F05 | Projeção de precificação → uma linha por item em um único SELECT, sem carregar entidades")
+    void findLinhasParaPrecificacao_semEntidades() {
+        List<LinhaCarrinhoPrecificacao> linhas = repository.findLinhasParaPrecificacao(carrinhoId, cliente.getId());
+
+        assertThat(linhas).hasSize(LINHAS).allSatisfy(l -> {
+            assertThat(l.regiao()).isEqualTo(Regiao.SUDESTE);
+            assertThat(l.item().getProduto().getPreco()).isEqualByComparingTo(PRECO);
+        });
+        assertThat(estatisticas.getPrepareStatementCount()).isEqualTo(1L);
+        assertThat(estatisticas.getEntityLoadCount()).isZero();
+        assertThat(em.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("F06 | Projeção de carrinho sem itens → uma linha só com os dados do carrinho e do cliente")
+    void findLinhasParaPrecificacao_carrinhoVazio() {
+        Long vazio = em.persist(new CarrinhoDeCompras(null, cliente, new ArrayList<>(), LocalDate.now())).getId();
+
+        List<LinhaCarrinhoPrecificacao> linhas = repository.findLinhasParaPrecificacao(vazio, cliente.getId());
+
+        assertThat(linhas).singleElement().satisfies(l -> {
+            assertThat(l.temItem()).isFalse();
+            assertThat(l.tipoCliente()).isEqualTo(TipoCliente.BRONZE);
+        });
+    }
+}
@@ -0,0 +1,149 @@
+package ecommerce.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import ecommerce.entity.Cliente;
+
+/**
+ * Popula o H2 com um volume sintético de carrinhos e itens e confere, pelo
+ * {@code EXPLAIN} do SQL gerado pelo Hibernate, que as buscas de carrinho e de
+ * itens usam índices em vez de varrer as tabelas.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "ecommerce.repository.PlanoConsultaCarrinhoTest$CapturaSql")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@DisplayName("CarrinhoDeComprasRepository – Plano de execução com volume")
+class PlanoConsultaCarrinhoTest {
+
+    // ===================== Constantes =====================
+    private static final int CLIENTES = 10_000;
+    private static final int PRODUTOS = 1_000;
+    private static final int CARRINHOS = 50_000;
+    private static final int ITENS_POR_CARRINHO = 4;
+    private static final long CARRINHO_ID = 43_210L;
+    private static final long CLIENTE_ID = CARRINHO_ID % CLIENTES + 1;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private CarrinhoDeComprasRepository repository;
+
+    @BeforeAll
+    void popular() {
+        jdbc.update("insert into cliente (id, nome, regiao, tipo) "
+                + "select x, 'C' || x, mod(x, 5), 'BRONZE' from system_range(1, " + CLIENTES + ")");
+        jdbc.update("insert into produto (id, nome, descricao, preco, peso_fisico, fragil, tipo, versao) "
+                + "select x, 'P' || x, 'desc', 10.00, 1.00, false, 'LIVRO', 0 from system_range(1, " + PRODUTOS + ")");
+        jdbc.update("insert into carrinho_de_compras (id, cliente_id, data, armazenamento) "
+                + "select x, mod(x, " + CLIENTES + ") + 1, current_date, 'ENTIDADE' from system_range(1, "
+                + CARRINHOS + ")");
+        jdbc.update("insert into item_compra (id, produto_id, quantidade, carrinho_id) "
+                + "select x, mod(x, " + PRODUTOS + ") + 1, 1, (x - 1) / " + ITENS_POR_CARRINHO + " + 1 "
+                + "from system_range(1, " + (long) CARRINHOS * ITENS_POR_CARRINHO + ")");
+        jdbc.execute("analyze");
+    }
+
+    @AfterAll
+    void limpar() {
+        jdbc.execute("set referential_integrity false");
+        for (String tabela : List.of("item_compra", "carrinho_de_compras", "produto", "cliente")) {
+            jdbc.execute("truncate table " + tabela);
+        }
+        jdbc.execute("set referential_integrity true");
+    }
+
+    @BeforeEach
+    void setUp() {
+        CapturaSql.SQL.clear();
+    }
+
+    @Test
+    @DisplayName("P01 | Índices declarados nas entidades → criados no esquema")
+    void indices_criados() {
+        List<String> indices = jdbc.queryForList(
+                "select lower(index_name) from information_schema.indexes where table_schema = 'PUBLIC'",
+                String.class);
+
+        assertThat(indices).contains("idx_carrinho_cliente", "idx_item_compra_carrinho", "idx_item_compra_produto");
+    }
+
+    @Test
+    @DisplayName("P02 | findByIdAndCliente → acesso pela chave primária, sem varredura")
+    void findByIdAndCliente_usaIndice() {
+        assertThat(repository.findByIdAndCliente(CARRINHO_ID, cliente())).isPresent();
+
+        assertThat(planos()).allSatisfy(PlanoConsultaCarrinhoTest::semVarredura);
+    }
+
+    @Test
+    @DisplayName("P03 | findComItensByIdAndCliente → itens buscados pelo índice de carrinho_id")
+    void findComItens_usaIndiceDeItens() {
+        assertThat(repository.findComItensByIdAndCliente(CARRINHO_ID, cliente()).orElseThrow().getItens())
+                .hasSize(ITENS_POR_CARRINHO);
+
+        assertThat(planos()).allSatisfy(PlanoConsultaCarrinhoTest::semVarredura)
+                .anySatisfy(p -> assertThat(p).containsIgnoringCase("idx_item_compra_carrinho"));
+    }
+
+    @Test
+    @DisplayName("P04 | findLinhasParaPrecificacao (checkout) → itens buscados pelo índice de carrinho_id")
+    void findLinhasParaPrecificacao_usaIndiceDeItens() {
+        assertThat(repository.findLinhasParaPrecificacao(CARRINHO_ID, CLIENTE_ID)).hasSize(ITENS_POR_CARRINHO);
+
+        assertThat(planos()).allSatisfy(PlanoConsultaCarrinhoTest::semVarredura)
+                .anySatisfy(p -> assertThat(p).containsIgnoringCase("idx_item_compra_carrinho"));
+    }
+
+    // ===================== Auxiliares =====================
+    private static Cliente cliente() {
+        Cliente cliente = new Cliente();
+        cliente.setId(CLIENTE_ID);
+        return cliente;
+    }
+
+    /**
+     * EXPLAIN de cada SELECT capturado, com os parâmetros preenchidos na ordem
+     * (carrinho, cliente); o valor não muda a forma do plano.
+     */
+    private List<String> planos() {
+        List<String> selects = CapturaSql.SQL.stream().filter(s -> s.startsWith("select")).toList();
+        assertThat(selects).isNotEmpty();
+        return selects.stream()
+                .map(sql -> {
+                    Object[] parametros = { CARRINHO_ID, CLIENTE_ID };
+                    int quantos = (int) sql.chars().filter(c -> c == '?').count();
+                    return jdbc.queryForObject("explain " + sql, String.class,
+                            Arrays.copyOf(parametros, quantos));
+                })
+                .toList();
+    }
+
+    private static void semVarredura(String plano) {
+        assertThat(plano).doesNotContainIgnoringCase("tableScan");
+    }
+
+    public static class CapturaSql implements StatementInspector {
+
+        static final List<String> SQL = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            SQL.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package ecommerce.roteamento;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import ecommerce.config.CatalogoProperties;
+import ecommerce.entity.Cliente;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.repository.CarrinhoDeComprasRepository;
+import ecommerce.repository.ClienteRepository;
+import ecommerce.repository.ProdutoRepository;
+import ecommerce.service.CarrinhoDeComprasService;
+import ecommerce.service.CatalogoProdutos;
+import ecommerce.service.CompraService;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Duas instâncias H2 em memória fazem o papel de primário e réplica. O esquema
+ * gerado no primário é copiado para a réplica, e as duas recebem os mesmos ids
+ * com valores diferentes, de modo que cada leitura revela de onde veio.
+ */
+@SpringBootTest(properties = {
+        "ecommerce.datasource.replica.habilitada=true",
+        "spring.datasource.url=jdbc:h2:mem:roteamento-primario;DB_CLOSE_DELAY=-1",
+        "ecommerce.datasource.replica.url=jdbc:h2:mem:roteamento-replica;DB_CLOSE_DELAY=-1",
+        "ecommerce.catalogo.habilitado=false" })
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@DisplayName("RoteamentoDataSource – Leituras na réplica, escritas no primário")
+class RoteamentoDataSourceTest {
+
+    // ===================== Constantes =====================
+    private static final long CLIENTE_ID = 900_001L;
+    private static final long PRODUTO_ID = 900_001L;
+    private static final long CARRINHO_ID = 900_001L;
+    private static final long ITEM_ID = 900_001L;
+
+    // ===================== SUT =====================
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    @Qualifier("dataSourcePrimario")
+    private DataSource primario;
+
+    @Autowired
+    @Qualifier("dataSourceReplica")
+    private DataSource replica;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CompraService compraService;
+
+    @Autowired
+    private CarrinhoDeComprasService carrinhoService;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private CarrinhoDeComprasRepository carrinhoRepository;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    private JdbcTemplate jdbcPrimario;
+    private JdbcTemplate jdbcReplica;
+
+    @BeforeAll
+    void copiarEsquemaEPopular() {
+        jdbcPrimario = new JdbcTemplate(primario);
+        jdbcReplica = new JdbcTemplate(replica);
+        for (String ddl : jdbcPrimario.queryForList("script nodata nopasswords nosettings", String.class)) {
+            jdbcReplica.execute(ddl);
+        }
+        popular(jdbcPrimario, "Primario", "10.00");
+        popular(jdbcReplica, "Replica", "20.00");
+    }
+
+    @AfterAll
+    void limpar() {
+        for (JdbcTemplate jdbc : new JdbcTemplate[] { jdbcPrimario, jdbcReplica }) {
+            jdbc.update("delete from item_compra where id = ?", ITEM_ID);
+            jdbc.update("delete from carrinho_de_compras where id = ?", CARRINHO_ID);
+            jdbc.update("delete from produto where id = ?", PRODUTO_ID);
+            jdbc.update("delete from cliente where nome in ('Primario', 'Replica', 'Novo')");
+        }
+    }
+
+    @Test
+    @DisplayName("R01 | Transação somente leitura → réplica; leitura e escrita → primário")
+    void quandoSomenteLeitura_entaoLeDaReplica() {
+        assertThat(nomeDoCliente(true)).isEqualTo("Replica");
+        assertThat(nomeDoCliente(false)).isEqualTo("Primario");
+    }
+
+    @Test
+    @DisplayName("R02 | Cotação usa os preços da réplica; a mesma precificação numa transação de escrita usa os do primário")
+    void quandoCotado_entaoPrecificaComDadosDaReplica() {
+        BigDecimal cotacao = compraService.cotarPedido(CARRINHO_ID, CLIENTE_ID);
+
+        TransactionTemplate escrita = new TransactionTemplate(transactionManager);
+        BigDecimal noPrimario = escrita.execute(status -> compraService.calcularTotalPedido(
+                carrinhoService.buscarParaPrecificacao(CARRINHO_ID, CLIENTE_ID).orElseThrow()));
+
+        assertThat(noPrimario).isNotNull();
+        assertThat(cotacao).isGreaterThan(noPrimario);
+    }
+
+    @Test
+    @DisplayName("R03 | Gravação fora de transação somente leitura → chega só ao primário")
+    void quandoGravado_entaoVaiParaOPrimario() {
+        Cliente novo = new Cliente();
+        novo.setNome("Novo");
+        novo.setRegiao(Regiao.SUL);
+        novo.setTipo(TipoCliente.PRATA);
+
+        clienteRepository.save(novo);
+
+        assertThat(jdbcPrimario.queryForObject("select count(*) from cliente where nome = 'Novo'", Long.class))
+                .isEqualTo(1L);
+        assertThat(jdbcReplica.queryForObject("select count(*) from cliente where nome = 'Novo'", Long.class))
+                .isZero();
+    }
+
+    @Test
+    @DisplayName("R05 | Catálogo carrega do primário → cotação pelo catálogo confere com o checkout")
+    void quandoCatalogoCarregado_entaoPrecosDoPrimario() {
+        CatalogoProdutos catalogo = new CatalogoProdutos(produtoRepository, transactionManager,
+                new CatalogoProperties(true, 1000, Duration.ofSeconds(5)));
+        catalogo.recarregar();
+        CarrinhoDeComprasService comCatalogo = new CarrinhoDeComprasService(carrinhoRepository, produtoRepository,
+                catalogo);
+
+        TransactionTemplate escrita = new TransactionTemplate(transactionManager);
+        BigDecimal checkout = escrita.execute(status -> compraService.calcularTotalPedido(
+                comCatalogo.buscarParaPrecificacao(CARRINHO_ID, CLIENTE_ID).orElseThrow()));
+        TransactionTemplate leitura = new TransactionTemplate(transactionManager);
+        leitura.setReadOnly(true);
+        BigDecimal cotacao = leitura.execute(status -> compraService.calcularTotalPedido(
+                comCatalogo.buscarParaCotacao(CARRINHO_ID, CLIENTE_ID).orElseThrow()));
+
+        assertThat(catalogo.buscar(PRODUTO_ID).getPreco()).isEqualByComparingTo("10.00");
+        assertThat(cotacao).isEqualByComparingTo(checkout);
+    }
+
+    @Test
+    @DisplayName("R04 | Cada pool publica métricas do Hikari com o próprio nome")
+    void quandoRoteado_entaoMetricasPorPool() {
+        assertThat(registry.find("hikaricp.connections").tag("pool", "primario").gauge()).isNotNull();
+        assertThat(registry.find("hikaricp.connections").tag("pool", "replica").gauge()).isNotNull();
+    }
+
+    // ===================== Auxiliares =====================
+    private String nomeDoCliente(boolean somenteLeitura) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(somenteLeitura);
+        return tx.execute(status -> new JdbcTemplate(dataSource)
+                .queryForObject("select nome from cliente where id = ?", String.class, CLIENTE_ID));
+    }
+
+    private static void popular(JdbcTemplate jdbc, String nome, String preco) {
+        jdbc.update("insert into cliente (id, nome, regiao, tipo) values (?, ?, 0, 'BRONZE')", CLIENTE_ID, nome);
+        jdbc.update("insert into produto (id, nome, descricao, preco, peso_fisico, fragil, tipo, versao) "
+                + "values (?, 'P', 'desc', " + preco + ", 1.00, false, 'LIVRO', 0)", PRODUTO_ID);
+        jdbc.update("insert into carrinho_de_compras (id, cliente_id, data, armazenamento) "
+                + "values (?, ?, current_date, 'ENTIDADE')", CARRINHO_ID, CLIENTE_ID);
+        jdbc.update("insert into item_compra (id, produto_id, quantidade, carrinho_id) values (?, ?, 1, ?)",
+                ITEM_ID, PRODUTO_ID, CARRINHO_ID);
+    }
+}
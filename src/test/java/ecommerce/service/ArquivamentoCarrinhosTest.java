@@ -0,0 +1,238 @@
+package ecommerce.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import ecommerce.config.ArquivamentoCarrinhoProperties;
+import ecommerce.config.CatalogoProperties;
+import ecommerce.config.SessaoCarrinhoProperties;
+import ecommerce.entity.CarrinhoArquivado;
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Cliente;
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.Produto;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TipoProduto;
+import ecommerce.repository.CarrinhoArquivadoRepository;
+import ecommerce.repository.CarrinhoDeComprasRepository;
+import ecommerce.repository.ClienteRepository;
+import ecommerce.repository.ProdutoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+
+// cada lote confirma a própria transação
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("ArquivamentoCarrinhos – Arquivamento por idade em lotes")
+class ArquivamentoCarrinhosTest {
+
+    // ===================== Constantes =====================
+    private static final Period IDADE = Period.ofDays(90);
+    private static final LocalDate LIMITE = LocalDate.now().minus(IDADE);
+    private static final LocalDate ANTIGA = LIMITE.minusDays(10);
+    private static final BigDecimal PRECO = new BigDecimal("10.00");
+    private static final BigDecimal PESO = new BigDecimal("1.00");
+
+    @Autowired
+    private CarrinhoDeComprasRepository repository;
+
+    @Autowired
+    private CarrinhoArquivadoRepository arquivoRepository;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Cliente cliente;
+    private Produto produtoA;
+    private Produto produtoB;
+
+    @BeforeEach
+    void setUp() {
+        cliente = clienteRepository.save(new Cliente(null, "Cliente", Regiao.SUDESTE, TipoCliente.BRONZE));
+        produtoA = produtoRepository.save(new Produto(null, "A", "desc", PRECO, PESO, null, null, null, false,
+                TipoProduto.LIVRO));
+        produtoB = produtoRepository.save(new Produto(null, "B", "desc", PRECO, PESO, null, null, null, false,
+                TipoProduto.LIVRO));
+    }
+
+    @AfterEach
+    void tearDown() {
+        arquivoRepository.deleteAll();
+        repository.deleteAll();
+        produtoRepository.deleteAll();
+        clienteRepository.deleteAll();
+    }
+
+    // ===================== Auxiliares =====================
+    private ArquivamentoCarrinhos arquivamento(int tamanhoLote, int maximoLotes, SessaoCarrinhos sessao) {
+        return new ArquivamentoCarrinhos(repository, entityManager, sessao, transactionManager,
+                new ArquivamentoCarrinhoProperties(true, IDADE, tamanhoLote, maximoLotes, Duration.ZERO));
+    }
+
+    private Long carrinho(LocalDate data, boolean compacto) {
+        List<ItemCompra> itens = new ArrayList<>(List.of(new ItemCompra(null, produtoB, 2L),
+                new ItemCompra(null, produtoA, 1L)));
+        CarrinhoDeCompras carrinho = new CarrinhoDeCompras(null, cliente, itens, data);
+        if (compacto) {
+            carrinho.compactarLinhas();
+        }
+        return repository.save(carrinho).getId();
+    }
+
+    private SessaoCarrinhos sessao() {
+        return new SessaoCarrinhos(repository, produtoRepository, transactionManager,
+                new SessaoCarrinhoProperties(true, 100, Duration.ofMinutes(30), 10), new SimpleMeterRegistry(),
+                System::nanoTime);
+    }
+
+    private static List<String> linhas(CarrinhoArquivado arquivado) {
+        return arquivado.getItens().stream().map(i -> i.getProdutoId() + "x" + i.getQuantidade()).toList();
+    }
+
+    // ===================== Testes =====================
+
+    @Test
+    @DisplayName("A01 | Carrinhos antigos → movidos em lotes para o arquivo; recentes e o do limite ficam")
+    void quandoAntigos_entaoMoveParaArquivo() {
+        Long entidade = carrinho(ANTIGA, false);
+        Long compacto = carrinho(ANTIGA, true);
+        Long outro = carrinho(ANTIGA.minusYears(1), false);
+        Long noLimite = carrinho(LIMITE, false);
+        Long recente = carrinho(LocalDate.now(), false);
+
+        long arquivados = arquivamento(2, 10, null).arquivar(LIMITE);
+
+        assertThat(arquivados).isEqualTo(3L);
+        assertThat(repository.findAll()).extracting(CarrinhoDeCompras::getId).containsExactlyInAnyOrder(noLimite, recente);
+        assertThat(repository.findById(entidade)).isEmpty();
+        for (Long id : List.of(entidade, compacto, outro)) {
+            CarrinhoArquivado arquivado = arquivoRepository.findComItensByIdAndClienteId(id, cliente.getId())
+                    .orElseThrow();
+            assertThat(linhas(arquivado)).containsExactly(produtoB.getId() + "x2", produtoA.getId() + "x1");
+            assertThat(arquivado.getData()).isBefore(LIMITE);
+        }
+    }
+
+    @Test
+    @DisplayName("A02 | Mais lotes que o máximo por execução → restante fica para a próxima")
+    void quandoExcedeMaximoLotes_entaoContinuaNaProxima() {
+        for (int i = 0; i < 5; i++) {
+            carrinho(ANTIGA, i % 2 == 0);
+        }
+        ArquivamentoCarrinhos arquivamento = arquivamento(2, 2, null);
+
+        assertThat(arquivamento.arquivar(LIMITE)).isEqualTo(4L);
+        assertThat(arquivamento.arquivar(LIMITE)).isEqualTo(1L);
+        assertThat(arquivamento.arquivar(LIMITE)).isZero();
+        assertThat(repository.count()).isZero();
+        assertThat(arquivoRepository.count()).isEqualTo(5L);
+    }
+
+    @Test
+    @DisplayName("A03 | Carrinho aberto na sessão em memória → não é arquivado")
+    void quandoEmSessao_entaoMantido() {
+        Long emUso = carrinho(ANTIGA, false);
+        Long ocioso = carrinho(ANTIGA, false);
+        SessaoCarrinhos sessao = sessao();
+        sessao.buscar(emUso, cliente.getId());
+
+        assertThat(arquivamento(10, 10, sessao).arquivar(LIMITE)).isEqualTo(1L);
+
+        assertThat(repository.findById(emUso)).isPresent();
+        assertThat(arquivoRepository.findById(ocioso)).isPresent();
+    }
+
+    @Test
+    @DisplayName("A04 | Consulta ao arquivo por outro cliente → vazio")
+    void quandoOutroCliente_entaoVazio() {
+        Long id = carrinho(ANTIGA, false);
+        arquivamento(10, 10, null).arquivar(LIMITE);
+
+        assertThat(arquivoRepository.findComItensByIdAndClienteId(id, cliente.getId() + 1)).isEmpty();
+        assertThat(arquivoRepository.findComItensByIdAndClienteId(id, cliente.getId())).isPresent();
+    }
+
+    @Test
+    @DisplayName("A05 | Carrinho antigo alterado hoje → idade conta da alteração, não é arquivado")
+    void quandoAlteradoHoje_entaoMantido() {
+        Long alterado = carrinho(ANTIGA, false);
+        Long parado = carrinho(ANTIGA, true);
+        CarrinhoDeComprasService service = new CarrinhoDeComprasService(repository, produtoRepository,
+                new CatalogoProdutos(produtoRepository, transactionManager,
+                        new CatalogoProperties(false, 1000, Duration.ZERO)), null,
+                transactionManager);
+        service.alterarQuantidade(alterado, cliente.getId(), produtoA.getId(), 5L);
+
+        assertThat(arquivamento(10, 10, null).arquivar(LIMITE)).isEqualTo(1L);
+
+        assertThat(repository.findById(alterado).orElseThrow().getAlteradoEm()).isEqualTo(LocalDate.now());
+        assertThat(arquivoRepository.findById(parado)).isPresent();
+    }
+
+    @Test
+    @DisplayName("A06 | Carrinho carregado na sessão logo após a verificação → não é arquivado; gravação posterior chega ao banco")
+    void quandoCarregadoNaSessaoDuranteArquivamento_entaoMantido() {
+        Long id = carrinho(ANTIGA, false);
+        SessaoCarrinhos sessao = new SessaoCarrinhos(repository, produtoRepository, transactionManager,
+                new SessaoCarrinhoProperties(true, 100, Duration.ofMinutes(30), 10), new SimpleMeterRegistry(),
+                System::nanoTime) {
+            @Override
+            public boolean contem(Long carrinhoId) {
+                boolean contem = super.contem(carrinhoId);
+                if (!contem) {
+                    // o cliente abre o carrinho logo depois da verificação
+                    buscar(carrinhoId, cliente.getId());
+                }
+                return contem;
+            }
+        };
+
+        assertThat(arquivamento(10, 10, sessao).arquivar(LIMITE)).isZero();
+
+        sessao.alterarQuantidade(id, cliente.getId(), produtoA.getId(), 7L);
+        sessao.sincronizar(id);
+        assertThat(arquivoRepository.count()).isZero();
+        assertThat(repository.findComItensByIdIn(List.of(id))).singleElement()
+                .satisfies(c -> assertThat(c.getItens()).extracting(ItemCompra::getQuantidade).contains(7L));
+    }
+
+    @Test
+    @DisplayName("A07 | Gravação da sessão → versão incrementada e alteração datada de hoje")
+    void quandoSessaoGrava_entaoVersionaETocaData() {
+        Long id = carrinho(ANTIGA, false);
+        SessaoCarrinhos sessao = sessao();
+        sessao.buscar(id, cliente.getId());
+        Long versaoCarregada = repository.findById(id).orElseThrow().getVersao();
+
+        sessao.alterarQuantidade(id, cliente.getId(), produtoA.getId(), 3L);
+        sessao.sincronizar(id);
+
+        CarrinhoDeCompras gravado = repository.findById(id).orElseThrow();
+        assertThat(gravado.getVersao()).isGreaterThan(versaoCarregada);
+        assertThat(gravado.getAlteradoEm()).isEqualTo(LocalDate.now());
+        assertThat(gravado.getData()).isEqualTo(ANTIGA);
+    }
+}
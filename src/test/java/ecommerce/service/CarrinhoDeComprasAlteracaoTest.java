@@ -0,0 +1,185 @@
+package ecommerce.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import ecommerce.config.CatalogoProperties;
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Cliente;
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.LinhasCompactas;
+import ecommerce.entity.Produto;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TipoProduto;
+import ecommerce.repository.CarrinhoDeComprasRepository;
+import ecommerce.repository.ClienteRepository;
+import ecommerce.repository.ProdutoRepository;
+
+// cada alteração confirma a própria transação; as concorrentes rodam noutras threads
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("CarrinhoDeComprasService – Alterações com concorrência otimista")
+class CarrinhoDeComprasAlteracaoTest {
+
+    // ===================== Constantes =====================
+    private static final int THREADS = 4;
+    private static final int ADICOES_POR_THREAD = 10;
+    private static final BigDecimal PRECO = new BigDecimal("10.00");
+    private static final BigDecimal PESO = new BigDecimal("1.00");
+
+    @Autowired
+    private CarrinhoDeComprasRepository repository;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // ===================== SUT =====================
+    private CarrinhoDeComprasService service;
+
+    private Cliente cliente;
+    private Produto produtoA;
+    private Produto produtoB;
+
+    @BeforeEach
+    void setUp() {
+        cliente = clienteRepository.save(new Cliente(null, "Cliente", Regiao.SUDESTE, TipoCliente.BRONZE));
+        produtoA = produtoRepository.save(new Produto(null, "A", "desc", PRECO, PESO, null, null, null, false,
+                TipoProduto.LIVRO));
+        produtoB = produtoRepository.save(new Produto(null, "B", "desc", PRECO, PESO, null, null, null, false,
+                TipoProduto.LIVRO));
+        service = new CarrinhoDeComprasService(repository, produtoRepository,
+                new CatalogoProdutos(produtoRepository, transactionManager,
+                        new CatalogoProperties(false, 1000, Duration.ZERO)), null,
+                transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.deleteAll();
+        produtoRepository.deleteAll();
+        clienteRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("O01 | Adicionar, alterar e remover → linhas atualizadas e versão incrementada a cada alteração")
+    void quandoAlterado_entaoLinhasEVersaoAtualizadas() {
+        Long carrinhoId = criarCarrinho(false);
+        Long versaoInicial = versao(carrinhoId);
+
+        service.adicionarItem(carrinhoId, cliente.getId(), produtoA.getId(), 2L);
+        service.adicionarItem(carrinhoId, cliente.getId(), produtoB.getId(), 1L);
+        service.alterarQuantidade(carrinhoId, cliente.getId(), produtoB.getId(), 4L);
+        service.removerItem(carrinhoId, cliente.getId(), produtoA.getId());
+
+        assertThat(linhas(carrinhoId)).containsExactly(produtoB.getId() + "x4");
+        assertThat(versao(carrinhoId)).isEqualTo(versaoInicial + 4);
+    }
+
+    @Test
+    @DisplayName("O02 | Carrinho compacto → mesmas alterações aplicadas à coluna compacta")
+    void quandoCompacto_entaoAlteraLinhasCompactas() {
+        Long carrinhoId = criarCarrinho(true);
+
+        service.adicionarItem(carrinhoId, cliente.getId(), produtoA.getId(), 2L);
+        service.adicionarItem(carrinhoId, cliente.getId(), produtoB.getId(), 1L);
+        service.removerItem(carrinhoId, cliente.getId(), produtoA.getId());
+
+        assertThat(linhas(carrinhoId)).containsExactly(produtoB.getId() + "x1");
+    }
+
+    @Test
+    @DisplayName("O03 | Adições concorrentes no mesmo produto → nenhuma perdida")
+    void quandoConcorrente_entaoNenhumaAdicaoPerdida() throws Exception {
+        Long carrinhoId = criarCarrinho(false);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Callable<Void>> tarefas = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                tarefas.add(() -> {
+                    for (int i = 0; i < ADICOES_POR_THREAD; i++) {
+                        service.adicionarItem(carrinhoId, cliente.getId(), produtoA.getId(), 1L);
+                    }
+                    return null;
+                });
+            }
+            for (Future<Void> resultado : executor.invokeAll(tarefas)) {
+                resultado.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(linhas(carrinhoId)).containsExactly(produtoA.getId() + "x" + (1 + THREADS * ADICOES_POR_THREAD));
+    }
+
+    @Test
+    @DisplayName("O04 | Produto ausente, item inexistente ou quantidade não positiva → IllegalArgumentException")
+    void quandoInvalido_entaoRejeita() {
+        Long carrinhoId = criarCarrinho(false);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> service.adicionarItem(carrinhoId, cliente.getId(), Long.MAX_VALUE, 1L));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.alterarQuantidade(carrinhoId, cliente.getId(), produtoB.getId(), 2L));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.adicionarItem(carrinhoId, cliente.getId(), produtoA.getId(), 0L));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.removerItem(carrinhoId, cliente.getId() + 1, produtoA.getId()));
+    }
+
+    // ===================== Auxiliares =====================
+    private Long criarCarrinho(boolean compacto) {
+        List<ItemCompra> itens = new ArrayList<>(List.of(new ItemCompra(null, produtoA, 1L)));
+        CarrinhoDeCompras carrinho = new CarrinhoDeCompras(null, cliente, itens, LocalDate.now());
+        if (compacto) {
+            carrinho.compactarLinhas();
+        }
+        return repository.save(carrinho).getId();
+    }
+
+    private Long versao(Long carrinhoId) {
+        return repository.findById(carrinhoId).orElseThrow().getVersao();
+    }
+
+    private List<String> linhas(Long carrinhoId) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            CarrinhoDeCompras carrinho = repository.findById(carrinhoId).orElseThrow();
+            List<String> linhas = new ArrayList<>();
+            if (carrinho.isCompacto()) {
+                LinhasCompactas compactas = carrinho.getLinhasCompactas();
+                for (int i = 0; i < compactas.tamanho(); i++) {
+                    linhas.add(compactas.produtoId(i) + "x" + compactas.quantidade(i));
+                }
+            } else {
+                carrinho.getItens().forEach(i -> linhas.add(i.getProduto().getId() + "x" + i.getQuantidade()));
+            }
+            return linhas;
+        });
+    }
+}
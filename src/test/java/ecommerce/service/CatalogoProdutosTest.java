@@ -0,0 +1,192 @@
+package ecommerce.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.*;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import ecommerce.config.CatalogoProperties;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TipoProduto;
+import ecommerce.precificacao.CarrinhoPrecificavel;
+import ecommerce.precificacao.LinhaPrecificavel;
+import ecommerce.precificacao.ProdutoPrecificacao;
+import ecommerce.precificacao.ProdutoPrecificavel;
+import ecommerce.precificacao.RegistroCatalogo;
+import ecommerce.repository.ProdutoRepository;
+
+@DisplayName("CatalogoProdutos – Catálogo de preços em memória")
+class CatalogoProdutosTest {
+
+    // ===================== Constantes =====================
+    private static final int TAMANHO_PAGINA = 100;
+    private static final Instant T0 = Instant.parse("2026-01-01T00:00:00Z");
+    private static final BigDecimal PRECO = new BigDecimal("10.00");
+    private static final BigDecimal PESO = new BigDecimal("1.00");
+
+    // ===================== SUT =====================
+    private ProdutoRepository repository;
+    private CatalogoProdutos catalogo;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ProdutoRepository.class);
+        catalogo = new CatalogoProdutos(repository, mock(PlatformTransactionManager.class),
+                new CatalogoProperties(true, TAMANHO_PAGINA, Duration.ofSeconds(5)));
+    }
+
+    @Test
+    @DisplayName("K01 | Carga paginada de 1000 ids esparsos → todos encontrados, ausentes retornam null")
+    void carga_encontraTodosOsIds() {
+        Random aleatorio = new Random(42);
+        List<RegistroCatalogo> registros = new ArrayList<>();
+        long id = 0;
+        for (int i = 0; i < 1000; i++) {
+            id += 1 + aleatorio.nextInt(1_000_000);
+            registros.add(registro(id, PRECO, 1L, T0));
+        }
+        paginar(registros);
+
+        catalogo.recarregar();
+
+        assertThat(catalogo.isCarregado()).isTrue();
+        assertThat(catalogo.tamanho()).isEqualTo(1000);
+        for (RegistroCatalogo r : registros) {
+            assertThat(catalogo.buscar(r.id()).getId()).isEqualTo(r.id());
+        }
+        assertThat(catalogo.buscar(id + 1)).isNull();
+        assertThat(catalogo.buscar(-1L)).isNull();
+    }
+
+    @Test
+    @DisplayName("K02 | Peso cúbico → pré-calculado; dimensões negativas ficam para o cálculo rejeitar")
+    void pesoCubico_precalculado() {
+        paginar(List.of(
+                new RegistroCatalogo(1L, PRECO, PESO, new BigDecimal("40"), new BigDecimal("30"),
+                        new BigDecimal("50"), true, TipoProduto.MOVEL, 1L, T0),
+                new RegistroCatalogo(2L, PRECO, PESO, new BigDecimal("-1"), new BigDecimal("30"),
+                        new BigDecimal("50"), null, TipoProduto.LIVRO, 1L, T0)));
+
+        catalogo.recarregar();
+
+        ProdutoPrecificavel movel = catalogo.buscar(1L);
+        assertThat(movel.getPesoCubico()).isEqualByComparingTo("10.00");
+        assertThat(movel.isFragil()).isTrue();
+        assertThat(movel.getTipo()).isEqualTo(TipoProduto.MOVEL);
+        ProdutoPrecificavel invalido = catalogo.buscar(2L);
+        assertThat(invalido.getPesoCubico()).isNull();
+        assertThat(invalido.isFragil()).isNull();
+
+        CompraService compraService = new CompraService(null, null, null, null);
+        assertThatThrownBy(() -> compraService.calcularTotalPedido(new CarrinhoPrecificavel(1L, 1L, Regiao.SUL,
+                TipoCliente.BRONZE, List.of(new LinhaPrecificavel(invalido, 1L)))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Dimensões não podem ser negativas");
+    }
+
+    @Test
+    @DisplayName("K03 | Atualização incremental → versão nova substitui, antiga é ignorada, novo produto entra")
+    void atualizacao_aplicaSomenteVersoesNovas() {
+        paginar(List.of(registro(1L, PRECO, 2L, T0), registro(2L, PRECO, 1L, T0)));
+        catalogo.recarregar();
+        ProdutoPrecificavel antes = catalogo.buscar(1L);
+        when(repository.findCatalogoAtualizadosDesde(T0.minusSeconds(5))).thenReturn(List.of(
+                registro(1L, new BigDecimal("12.00"), 3L, T0.plusSeconds(1)),
+                registro(2L, new BigDecimal("99.00"), 1L, T0.plusSeconds(1)),
+                registro(3L, new BigDecimal("7.00"), 1L, T0.plusSeconds(2))));
+
+        catalogo.atualizar();
+
+        assertThat(catalogo.buscar(1L).getPreco()).isEqualByComparingTo("12.00");
+        assertThat(catalogo.buscar(2L).getPreco()).isEqualByComparingTo(PRECO);
+        assertThat(catalogo.buscar(3L).getPreco()).isEqualByComparingTo("7.00");
+        assertThat(antes.getPreco()).isEqualByComparingTo(PRECO);
+    }
+
+    @Test
+    @DisplayName("K04 | Produto do catálogo → mesmo total que a projeção lida do banco")
+    void precificacao_mesmoTotalQueProjecao() {
+        RegistroCatalogo r = new RegistroCatalogo(5L, new BigDecimal("59.90"), new BigDecimal("2.50"),
+                new BigDecimal("60"), new BigDecimal("40"), new BigDecimal("30"), true, TipoProduto.ELETRONICO, 1L, T0);
+        paginar(List.of(r));
+        catalogo.recarregar();
+        ProdutoPrecificacao projecao = new ProdutoPrecificacao(r.id(), r.preco(), r.pesoFisico(), r.comprimento(),
+                r.largura(), r.altura(), r.fragil(), r.tipo());
+
+        CompraService compraService = new CompraService(null, null, null, null);
+        BigDecimal doCatalogo = compraService.calcularTotalPedido(new CarrinhoPrecificavel(1L, 1L, Regiao.NORTE,
+                TipoCliente.BRONZE, List.of(new LinhaPrecificavel(catalogo.buscar(5L), 6L))));
+        BigDecimal doBanco = compraService.calcularTotalPedido(new CarrinhoPrecificavel(1L, 1L, Regiao.NORTE,
+                TipoCliente.BRONZE, List.of(new LinhaPrecificavel(projecao, 6L))));
+
+        assertThat(doCatalogo).isEqualByComparingTo(doBanco);
+    }
+
+    @Test
+    @DisplayName("K05 | Catálogo desabilitado → nada é carregado")
+    void desabilitado_naoCarrega() {
+        catalogo = new CatalogoProdutos(repository, mock(PlatformTransactionManager.class),
+                new CatalogoProperties(false, TAMANHO_PAGINA, Duration.ZERO));
+
+        catalogo.recarregar();
+        catalogo.atualizar();
+
+        assertThat(catalogo.isCarregado()).isFalse();
+        assertThat(catalogo.buscar(1L)).isNull();
+    }
+
+    @Test
+    @DisplayName("K06 | Muitas atualizações incrementais → tabela cresce, todos encontrados, instantâneo antigo intacto")
+    void atualizacao_crescimentoPreservaInstantaneos() {
+        paginar(List.of(registro(1L, PRECO, 1L, T0)));
+        catalogo.recarregar();
+        ProdutoPrecificavel antes = catalogo.buscar(1L);
+        Instant desde = T0;
+        for (long id = 2; id <= 300; id++) {
+            Instant gravado = T0.plusSeconds(id);
+            when(repository.findCatalogoAtualizadosDesde(desde.minusSeconds(5))).thenReturn(List.of(
+                    registro(1L, new BigDecimal(id), id, gravado),
+                    registro(id, new BigDecimal(id), 1L, gravado),
+                    registro(id, new BigDecimal(id + 1), 2L, gravado)));
+            catalogo.atualizar();
+            desde = gravado;
+        }
+
+        assertThat(catalogo.tamanho()).isEqualTo(300);
+        for (long id = 2; id <= 300; id++) {
+            assertThat(catalogo.buscar(id).getPreco()).isEqualByComparingTo(new BigDecimal(id + 1));
+        }
+        assertThat(catalogo.buscar(1L).getPreco()).isEqualByComparingTo("300");
+        assertThat(antes.getPreco()).isEqualByComparingTo(PRECO);
+        assertThat(catalogo.buscar(301L)).isNull();
+    }
+
+    // ===================== Auxiliares =====================
+    private static RegistroCatalogo registro(long id, BigDecimal preco, long versao, Instant atualizadoEm) {
+        return new RegistroCatalogo(id, preco, PESO, null, null, null, false, TipoProduto.LIVRO, versao, atualizadoEm);
+    }
+
+    private void paginar(List<RegistroCatalogo> registros) {
+        when(repository.findCatalogoAposId(any(), any(Pageable.class))).thenReturn(List.of());
+        long aposId = Long.MIN_VALUE;
+        for (int i = 0; i < registros.size(); i += TAMANHO_PAGINA) {
+            List<RegistroCatalogo> pagina = registros.subList(i, Math.min(registros.size(), i + TAMANHO_PAGINA));
+            when(repository.findCatalogoAposId(eq(aposId), any(Pageable.class))).thenReturn(pagina);
+            aposId = pagina.get(pagina.size() - 1).id();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package ecommerce.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.*;
+
+import ecommerce.config.CheckoutAssincronoProperties;
+import ecommerce.dto.CompraDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("CheckoutAssincronoService – Fila limitada e status")
+class CheckoutAssincronoServiceTest {
+
+    // ===================== Constantes =====================
+    private static final Long CARRINHO_ID = 1L;
+    private static final Long CLIENTE_ID = 2L;
+    private static final Long TRANSACAO_ID = 3L;
+    private static final long ESPERA_MS = 2_000L;
+
+    // ===================== SUT =====================
+    private CompraService compraService;
+    private CarrinhoDeComprasService cartService;
+    private CheckoutAssincronoService service;
+
+    @BeforeEach
+    void setUp() {
+        compraService = mock(CompraService.class);
+        cartService = mock(CarrinhoDeComprasService.class);
+        when(cartService.existePorCarrinhoIdEClienteId(CARRINHO_ID, CLIENTE_ID)).thenReturn(true);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        service.destroy();
+    }
+
+    private void criar(int threads, int fila) {
+        service = new CheckoutAssincronoService(compraService, mock(ClienteService.class), cartService,
+                new CheckoutAssincronoProperties(threads, fila, Duration.ofMinutes(1), Duration.ofSeconds(1)),
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("A01 | Pedido enfileirado → processado e consultável pelo identificador")
+    void quandoEnfileirado_entaoConcluiComResultado() throws Exception {
+        criar(1, 1);
+        CompraDTO esperado = new CompraDTO(true, TRANSACAO_ID, "ok");
+        when(compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID)).thenReturn(esperado);
+
+        PedidoAssincrono pedido = service.enfileirar(CARRINHO_ID, CLIENTE_ID);
+
+        assertThat(pedido.getResultado().get(ESPERA_MS, TimeUnit.MILLISECONDS)).isEqualTo(esperado);
+        assertThat(service.buscar(pedido.getId())).contains(pedido);
+        assertThat(pedido.getStatus()).isEqualTo(StatusPedidoAssincrono.CONCLUIDO);
+    }
+
+    @Test
+    @DisplayName("A02 | Checkout lança IllegalStateException → pedido FALHOU com a mensagem")
+    void quandoCheckoutFalha_entaoStatusFalhou() throws Exception {
+        criar(1, 1);
+        when(compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID))
+                .thenThrow(new IllegalStateException("Pagamento não autorizado."));
+
+        PedidoAssincrono pedido = service.enfileirar(CARRINHO_ID, CLIENTE_ID);
+
+        assertThat(pedido.getResultado().get(ESPERA_MS, TimeUnit.MILLISECONDS).mensagem())
+                .isEqualTo("Pagamento não autorizado.");
+        assertThat(pedido.getStatus()).isEqualTo(StatusPedidoAssincrono.FALHOU);
+    }
+
+    @Test
+    @DisplayName("A03 | Carrinho inexistente → IllegalArgumentException sem enfileirar")
+    void quandoCarrinhoInexistente_entaoRejeita() {
+        criar(1, 1);
+        assertThrows(IllegalArgumentException.class, () -> service.enfileirar(99L, CLIENTE_ID));
+    }
+
+    @Test
+    @DisplayName("A04 | Fila cheia → CheckoutSobrecarregadoException")
+    void quandoFilaCheia_entaoRejeita() {
+        criar(1, 1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        when(compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID)).thenAnswer(inv -> {
+            liberar.await(ESPERA_MS, TimeUnit.MILLISECONDS);
+            return new CompraDTO(true, TRANSACAO_ID, "ok");
+        });
+
+        service.enfileirar(CARRINHO_ID, CLIENTE_ID);
+        service.enfileirar(CARRINHO_ID, CLIENTE_ID);
+        // um pedido ocupa a única thread e o outro a única vaga da fila
+        assertThrows(CheckoutSobrecarregadoException.class, () -> service.enfileirar(CARRINHO_ID, CLIENTE_ID));
+        liberar.countDown();
+    }
+}
@@ -0,0 +1,164 @@
+package ecommerce.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import ecommerce.config.CotacaoProperties;
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.PagamentoDTO;
+import ecommerce.entity.CompensacaoPagamento;
+import ecommerce.entity.Produto;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.StatusCompensacao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TipoProduto;
+import ecommerce.eventos.TipoEventoCheckout;
+import ecommerce.external.IEstoqueExternal;
+import ecommerce.external.IPagamentoExternal;
+import ecommerce.precificacao.CarrinhoPrecificavel;
+import ecommerce.precificacao.LinhaPrecificavel;
+import ecommerce.prazo.ContextoPrazo;
+import ecommerce.prazo.ControlePrazo;
+import ecommerce.prazo.Prazo;
+import ecommerce.repository.CompensacaoPagamentoRepository;
+
+@DisplayName("CompraService – Eventos do checkout e agregados de vendas")
+class CompraServiceEventosTest {
+
+    // ===================== Constantes =====================
+    private static final long CARRINHO_ID = 10L;
+    private static final long CLIENTE_ID = 20L;
+    private static final long TRANSACAO_ID = 30L;
+
+    // ===================== SUT =====================
+    private CompraService service;
+    private IEstoqueExternal estoque;
+    private IPagamentoExternal pagamento;
+    private final List<String> eventos = new ArrayList<>();
+    private final List<String> vendas = new ArrayList<>();
+    private final List<CompensacaoPagamento> compensacoes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        Produto produto = new Produto();
+        produto.setId(1L);
+        produto.setPreco(new BigDecimal("10.00"));
+        produto.setPesoFisico(new BigDecimal("1.00"));
+        produto.setTipo(TipoProduto.LIVRO);
+        CarrinhoDeComprasService cartService = mock(CarrinhoDeComprasService.class);
+        when(cartService.buscarParaPrecificacao(CARRINHO_ID, CLIENTE_ID)).thenReturn(Optional.of(new CarrinhoPrecificavel(
+                CARRINHO_ID, CLIENTE_ID, Regiao.SUDESTE, TipoCliente.BRONZE, List.of(new LinhaPrecificavel(produto, 1L)))));
+        estoque = mock(IEstoqueExternal.class);
+        pagamento = mock(IPagamentoExternal.class);
+        when(estoque.verificarDisponibilidade(anyList(), anyList())).thenReturn(new DisponibilidadeDTO(true, List.of()));
+        when(estoque.darBaixa(anyList(), anyList())).thenReturn(new EstoqueBaixaDTO(true));
+        when(pagamento.autorizarPagamento(anyLong(), anyDouble())).thenReturn(new PagamentoDTO(true, TRANSACAO_ID));
+        CompensacaoPagamentoRepository compensacaoRepository = mock(CompensacaoPagamentoRepository.class);
+        when(compensacaoRepository.save(any(CompensacaoPagamento.class))).thenAnswer(inv -> {
+            compensacoes.add(inv.getArgument(0));
+            return inv.getArgument(0);
+        });
+        service = new CompraService(cartService, null, estoque, pagamento,
+                new CompensacaoPagamentoService(compensacaoRepository),
+                ControlePrazo.semReservas(), pedido -> {}, (tipo, carrinhoId, clienteId, transacaoId, total) -> {
+                    eventos.add(tipo + ":" + transacaoId + ":" + total);
+                    return true;
+                }, (regiao, tipoCliente, itens, subtotal) -> itens.forEach(i -> vendas.add(regiao + ":" + i.getQuantidade())),
+                new CotacoesAssinadas(new CotacaoProperties(null, Duration.ofMinutes(15))));
+    }
+
+    @AfterEach
+    void tearDown() {
+        ContextoPrazo.limpar();
+    }
+
+    @Test
+    @DisplayName("V01 | Checkout concluído → INICIADO e CONCLUIDO com transação e total; linhas nos agregados")
+    void quandoConcluido_entaoPublicaInicioEFim() {
+        service.finalizarPedido(CARRINHO_ID, CLIENTE_ID);
+
+        assertThat(eventos).containsExactly(TipoEventoCheckout.INICIADO + ":null:null",
+                TipoEventoCheckout.CONCLUIDO + ":" + TRANSACAO_ID + ":10.00");
+        assertThat(vendas).containsExactly("SUDESTE:1");
+    }
+
+    @Test
+    @DisplayName("V02 | Sem estoque ou pagamento recusado → evento da etapa que interrompeu")
+    void quandoInterrompido_entaoPublicaEtapa() {
+        when(estoque.verificarDisponibilidade(anyList(), anyList())).thenReturn(new DisponibilidadeDTO(false, List.of()));
+        assertThrows(IllegalStateException.class, () -> service.finalizarPedido(CARRINHO_ID, CLIENTE_ID));
+
+        when(estoque.verificarDisponibilidade(anyList(), anyList())).thenReturn(new DisponibilidadeDTO(true, List.of()));
+        when(pagamento.autorizarPagamento(anyLong(), anyDouble())).thenReturn(new PagamentoDTO(false, null));
+        assertThrows(IllegalStateException.class, () -> service.finalizarPedido(CARRINHO_ID, CLIENTE_ID));
+
+        assertThat(eventos).extracting(e -> e.substring(0, e.indexOf(':'))).containsExactly("INICIADO", "SEM_ESTOQUE",
+                "INICIADO", "PAGAMENTO_RECUSADO");
+    }
+
+    @Test
+    @DisplayName("V03 | Baixa no estoque falha após o pagamento → COMPENSADO, fora dos agregados")
+    void quandoBaixaFalha_entaoPublicaCompensado() {
+        when(estoque.darBaixa(anyList(), anyList())).thenReturn(new EstoqueBaixaDTO(false));
+
+        assertThrows(IllegalStateException.class, () -> service.finalizarPedido(CARRINHO_ID, CLIENTE_ID));
+
+        assertThat(eventos).last().isEqualTo(TipoEventoCheckout.COMPENSADO + ":" + TRANSACAO_ID + ":10.00");
+        assertThat(vendas).isEmpty();
+        assertThat(compensacoes).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("V04 | Baixa no estoque lança exceção qualquer após o pagamento → uma compensação PENDENTE")
+    void quandoBaixaLancaExcecao_entaoAgendaCompensacao() {
+        when(estoque.darBaixa(anyList(), anyList())).thenThrow(new RuntimeException("falha de rede"));
+
+        assertThrows(RuntimeException.class, () -> service.finalizarPedido(CARRINHO_ID, CLIENTE_ID));
+
+        assertThat(compensacoes).singleElement().satisfies(c -> {
+            assertThat(c.getStatus()).isEqualTo(StatusCompensacao.PENDENTE);
+            assertThat(c.getClienteId()).isEqualTo(CLIENTE_ID);
+            assertThat(c.getTransacaoId()).isEqualTo(TRANSACAO_ID);
+        });
+        assertThat(eventos).last().isEqualTo(TipoEventoCheckout.COMPENSADO + ":" + TRANSACAO_ID + ":10.00");
+        assertThat(vendas).isEmpty();
+    }
+
+    @Test
+    @DisplayName("V05 | Prazo da requisição esgota durante a autorização → checkout conclui com pedido")
+    void quandoPrazoEsgotaDuranteAutorizacao_entaoConclui() {
+        List<Boolean> prazoNaAutorizacao = new ArrayList<>();
+        when(pagamento.autorizarPagamento(anyLong(), anyDouble())).thenAnswer(inv -> {
+            prazoNaAutorizacao.add(ContextoPrazo.atual().isDefinido());
+            Thread.sleep(60);
+            return new PagamentoDTO(true, TRANSACAO_ID);
+        });
+        Prazo prazo = Prazo.daquiA(Duration.ofMillis(50));
+        ContextoPrazo.definir(prazo);
+
+        service.finalizarPedido(CARRINHO_ID, CLIENTE_ID);
+
+        assertThat(prazoNaAutorizacao).containsExactly(false);
+        assertThat(ContextoPrazo.atual()).isSameAs(prazo);
+        assertThat(eventos).last().isEqualTo(TipoEventoCheckout.CONCLUIDO + ":" + TRANSACAO_ID + ":10.00");
+        assertThat(compensacoes).isEmpty();
+    }
+}
@@ -0,0 +1,169 @@
+package ecommerce.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import ecommerce.config.CotacaoProperties;
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.PagamentoDTO;
+import ecommerce.entity.Pedido;
+import ecommerce.entity.Produto;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TipoProduto;
+import ecommerce.eventos.PublicadorEventosCheckout;
+import ecommerce.external.IEstoqueExternal;
+import ecommerce.external.IPagamentoExternal;
+import ecommerce.precificacao.CarrinhoPrecificavel;
+import ecommerce.precificacao.ComposicaoPreco;
+import ecommerce.precificacao.ItemPrecificavel;
+import ecommerce.precificacao.LinhaPrecificavel;
+import ecommerce.precificacao.LinhasNormalizadas;
+import ecommerce.prazo.ControlePrazo;
+import ecommerce.vendas.RegistroVendas;
+
+@DisplayName("CompraService – Normalização de linhas repetidas")
+class CompraServiceNormalizacaoTest {
+
+    // ===================== Constantes =====================
+    private static final long SEMENTE = 44L;
+    private static final int CARRINHOS = 500;
+    private static final int PRODUTOS = 6;
+    private static final long CARRINHO_ID = 10L;
+    private static final long CLIENTE_ID = 20L;
+
+    // ===================== SUT =====================
+    private CompraService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new CompraService(null, null, null, null);
+    }
+
+    // ===================== Auxiliares =====================
+    private static Produto produto(Long id, String preco, String peso, boolean fragil, TipoProduto tipo) {
+        Produto p = new Produto();
+        p.setId(id);
+        p.setPreco(new BigDecimal(preco));
+        p.setPesoFisico(new BigDecimal(peso));
+        p.setFragil(fragil);
+        p.setTipo(tipo);
+        return p;
+    }
+
+    /** Cópia sem id: a normalização não a soma a outras linhas. */
+    private static Produto semId(Produto p) {
+        return produto(null, p.getPreco().toPlainString(), p.getPesoFisico().toPlainString(), p.isFragil(),
+                p.getTipo());
+    }
+
+    private static CarrinhoPrecificavel carrinho(Regiao regiao, TipoCliente tipo, List<? extends ItemPrecificavel> itens) {
+        return new CarrinhoPrecificavel(CARRINHO_ID, CLIENTE_ID, regiao, tipo, itens);
+    }
+
+    // ===================== Testes =====================
+
+    @Test
+    @DisplayName("N01 | Linhas do mesmo produto → somadas na primeira ocorrência, na ordem")
+    void quandoLinhasRepetidas_entaoSomaPorProduto() {
+        Produto a = produto(1L, "10.00", "1.00", false, TipoProduto.ELETRONICO);
+        Produto b = produto(2L, "20.00", "1.00", true, TipoProduto.ELETRONICO);
+        List<LinhaPrecificavel> linhas = List.of(new LinhaPrecificavel(b, 1L), new LinhaPrecificavel(a, 2L),
+                new LinhaPrecificavel(b, 3L), new LinhaPrecificavel(a, 4L), new LinhaPrecificavel(b, 5L));
+
+        LinhasNormalizadas normalizadas = LinhasNormalizadas.de(linhas);
+
+        assertThat(normalizadas.produtoIds()).containsExactly(2L, 1L);
+        assertThat(normalizadas.quantidades()).containsExactly(9L, 6L);
+        assertThat(normalizadas.itens()).extracting(i -> i.getProduto().getId() + "x" + i.getQuantidade())
+                .containsExactly("2x9", "1x6");
+    }
+
+    @Test
+    @DisplayName("N02 | Carrinhos aleatórios com repetição → composição do preço idêntica à das linhas originais")
+    void quandoNormalizado_entaoPrecoIdentico() {
+        Random aleatorio = new Random(SEMENTE);
+        TipoProduto[] tipos = TipoProduto.values();
+        for (int c = 0; c < CARRINHOS; c++) {
+            List<Produto> catalogo = new ArrayList<>();
+            for (int p = 0; p < PRODUTOS; p++) {
+                catalogo.add(produto((long) p + 1, (1 + aleatorio.nextInt(400)) + "." + aleatorio.nextInt(100),
+                        aleatorio.nextInt(8) + "." + aleatorio.nextInt(100), aleatorio.nextBoolean(),
+                        tipos[aleatorio.nextInt(tipos.length)]));
+            }
+            List<LinhaPrecificavel> comId = new ArrayList<>();
+            List<LinhaPrecificavel> semId = new ArrayList<>();
+            int linhas = 1 + aleatorio.nextInt(12);
+            for (int l = 0; l < linhas; l++) {
+                Produto p = catalogo.get(aleatorio.nextInt(PRODUTOS));
+                long quantidade = 1 + aleatorio.nextInt(6);
+                comId.add(new LinhaPrecificavel(p, quantidade));
+                semId.add(new LinhaPrecificavel(semId(p), quantidade));
+            }
+            Regiao regiao = Regiao.values()[aleatorio.nextInt(Regiao.values().length)];
+            TipoCliente tipo = TipoCliente.values()[aleatorio.nextInt(TipoCliente.values().length)];
+
+            ComposicaoPreco normalizado = service.comporPreco(carrinho(regiao, tipo, comId));
+            ComposicaoPreco original = service.comporPreco(carrinho(regiao, tipo, semId));
+
+            assertThat(normalizado).as("carrinho %d: %s", c, comId).isEqualTo(original);
+        }
+    }
+
+    @Test
+    @DisplayName("N03 | Linha repetida com quantidade zero → mesma rejeição do carrinho original")
+    void quandoQuantidadeInvalidaRepetida_entaoMesmaExcecao() {
+        Produto a = produto(1L, "10.00", "1.00", false, TipoProduto.ELETRONICO);
+        List<LinhaPrecificavel> linhas = List.of(new LinhaPrecificavel(a, 2L), new LinhaPrecificavel(a, 0L));
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> service.comporPreco(carrinho(Regiao.SUDESTE, TipoCliente.BRONZE, linhas)));
+
+        assertThat(ex.getMessage()).isEqualTo("Quantidade deve ser maior que zero");
+    }
+
+    @Test
+    @DisplayName("N04 | Checkout → estoque e pedido recebem uma linha por produto")
+    void quandoCheckout_entaoGatewaysRecebemLinhasSomadas() {
+        Produto a = produto(1L, "10.00", "0.50", false, TipoProduto.ELETRONICO);
+        Produto b = produto(2L, "20.00", "0.50", false, TipoProduto.ROUPA);
+        CarrinhoPrecificavel carrinho = carrinho(Regiao.SUDESTE, TipoCliente.BRONZE, List.of(
+                new LinhaPrecificavel(a, 1L), new LinhaPrecificavel(b, 2L), new LinhaPrecificavel(a, 3L)));
+        CarrinhoDeComprasService cartService = mock(CarrinhoDeComprasService.class);
+        IEstoqueExternal estoque = mock(IEstoqueExternal.class);
+        IPagamentoExternal pagamento = mock(IPagamentoExternal.class);
+        when(cartService.buscarParaPrecificacao(CARRINHO_ID, CLIENTE_ID)).thenReturn(Optional.of(carrinho));
+        when(estoque.verificarDisponibilidade(List.of(1L, 2L), List.of(4L, 2L)))
+                .thenReturn(new DisponibilidadeDTO(true, List.of()));
+        when(estoque.darBaixa(List.of(1L, 2L), List.of(4L, 2L))).thenReturn(new EstoqueBaixaDTO(true));
+        when(pagamento.autorizarPagamento(anyLong(), anyDouble())).thenReturn(new PagamentoDTO(true, 7L));
+        List<Pedido> pedidos = new ArrayList<>();
+        CompraService compra = new CompraService(cartService, null, estoque, pagamento, (cliente, transacao) -> {},
+                ControlePrazo.semReservas(), pedidos::add, PublicadorEventosCheckout.NENHUM,
+                RegistroVendas.NENHUM, new CotacoesAssinadas(new CotacaoProperties(null, Duration.ofMinutes(15))));
+
+        assertThat(compra.finalizarPedido(CARRINHO_ID, CLIENTE_ID).sucesso()).isTrue();
+
+        // 4 eletrônicos a 10 (5% por tipo: 38) + 2 roupas a 20 (40), sem frete até 5 kg
+        verify(pagamento).autorizarPagamento(CLIENTE_ID, 78.0);
+        assertThat(pedidos).singleElement().satisfies(p -> assertThat(p.getItens())
+                .extracting(i -> i.getProdutoId() + "x" + i.getQuantidade()).containsExactly("1x4", "2x2"));
+    }
+}
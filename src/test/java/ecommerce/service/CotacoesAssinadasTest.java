@@ -0,0 +1,179 @@
+package ecommerce.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import ecommerce.config.CotacaoProperties;
+import ecommerce.dto.CotacaoDTO;
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.PagamentoDTO;
+import ecommerce.entity.Produto;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TipoProduto;
+import ecommerce.eventos.PublicadorEventosCheckout;
+import ecommerce.external.IEstoqueExternal;
+import ecommerce.external.IPagamentoExternal;
+import ecommerce.precificacao.CarrinhoPrecificavel;
+import ecommerce.precificacao.ComposicaoPreco;
+import ecommerce.precificacao.LinhaPrecificavel;
+import ecommerce.precificacao.LinhasNormalizadas;
+import ecommerce.prazo.ControlePrazo;
+import ecommerce.vendas.RegistroVendas;
+
+@DisplayName("CotacoesAssinadas – Cotação reaproveitada no checkout enquanto conferir")
+class CotacoesAssinadasTest {
+
+    // ===================== Constantes =====================
+    private static final long CARRINHO_ID = 10L;
+    private static final long CLIENTE_ID = 20L;
+    private static final String CHAVE = Base64.getEncoder().encodeToString(new byte[32]);
+    private static final Instant AGORA = Instant.parse("2026-01-01T12:00:00Z");
+    private static final Duration VALIDADE = Duration.ofMinutes(15);
+    private static final ComposicaoPreco PRECO = new ComposicaoPreco(new BigDecimal("30.00"), new BigDecimal("1.50"),
+            new BigDecimal("0.00"), new BigDecimal("12.00"), new BigDecimal("40.50"));
+
+    // ===================== SUT =====================
+    private CotacoesAssinadas cotacoes;
+    private Produto produto;
+
+    @BeforeEach
+    void setUp() {
+        cotacoes = cotacoes(CHAVE, AGORA);
+        produto = produto("10.00");
+    }
+
+    // ===================== Auxiliares =====================
+    private static CotacoesAssinadas cotacoes(String chave, Instant agora) {
+        return new CotacoesAssinadas(new CotacaoProperties(chave, VALIDADE), Clock.fixed(agora, ZoneOffset.UTC));
+    }
+
+    private static Produto produto(String preco) {
+        Produto p = new Produto();
+        p.setId(1L);
+        p.setPreco(new BigDecimal(preco));
+        p.setPesoFisico(new BigDecimal("3.00"));
+        p.setTipo(TipoProduto.LIVRO);
+        return p;
+    }
+
+    private static CarrinhoPrecificavel carrinho(TipoCliente tipo, Produto produto, long quantidade) {
+        return new CarrinhoPrecificavel(CARRINHO_ID, CLIENTE_ID, Regiao.SUL, tipo,
+                List.of(new LinhaPrecificavel(produto, quantidade)));
+    }
+
+    private Optional<ComposicaoPreco> validar(CotacoesAssinadas cotacoes, String cotacao,
+            CarrinhoPrecificavel carrinho, int versaoRegras) {
+        return cotacoes.validar(cotacao, carrinho, LinhasNormalizadas.de(carrinho.itens()), versaoRegras);
+    }
+
+    private String emitir(CarrinhoPrecificavel carrinho) {
+        return cotacoes.emitir(carrinho, LinhasNormalizadas.de(carrinho.itens()), 1, PRECO);
+    }
+
+    // ===================== Testes =====================
+
+    @Test
+    @DisplayName("Q01 | Nada mudou → devolve a composição cotada")
+    void quandoConfere_entaoDevolveComposicao() {
+        CarrinhoPrecificavel carrinho = carrinho(TipoCliente.BRONZE, produto, 3L);
+        String cotacao = emitir(carrinho);
+
+        assertThat(validar(cotacoes, cotacao, carrinho, 1)).contains(PRECO);
+        assertThat(validar(cotacoes(CHAVE, AGORA.plus(VALIDADE)), cotacao, carrinho, 1)).contains(PRECO);
+        assertThat(cotacao.length()).isLessThan(140);
+    }
+
+    @Test
+    @DisplayName("Q02 | Quantidade, preço, tipo do cliente ou versão das regras mudou → vazio")
+    void quandoAlgoMudou_entaoVazio() {
+        String cotacao = emitir(carrinho(TipoCliente.BRONZE, produto, 3L));
+
+        assertThat(validar(cotacoes, cotacao, carrinho(TipoCliente.BRONZE, produto, 4L), 1)).isEmpty();
+        assertThat(validar(cotacoes, cotacao, carrinho(TipoCliente.BRONZE, produto("10.01"), 3L), 1)).isEmpty();
+        assertThat(validar(cotacoes, cotacao, carrinho(TipoCliente.OURO, produto, 3L), 1)).isEmpty();
+        assertThat(validar(cotacoes, cotacao, carrinho(TipoCliente.BRONZE, produto, 3L), 2)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Q03 | Adulterada, de outra chave, malformada ou vencida → vazio")
+    void quandoInvalida_entaoVazio() {
+        CarrinhoPrecificavel carrinho = carrinho(TipoCliente.BRONZE, produto, 3L);
+        String cotacao = emitir(carrinho);
+        char[] adulterada = cotacao.toCharArray();
+        adulterada[5] = adulterada[5] == 'A' ? 'B' : 'A';
+        String outraChave = Base64.getEncoder().encodeToString(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+
+        assertThat(validar(cotacoes, new String(adulterada), carrinho, 1)).isEmpty();
+        assertThat(validar(cotacoes(outraChave, AGORA), cotacao, carrinho, 1)).isEmpty();
+        assertThat(validar(cotacoes, "lixo", carrinho, 1)).isEmpty();
+        assertThat(validar(cotacoes, "a.b.c", carrinho, 1)).isEmpty();
+        assertThat(validar(cotacoes, null, carrinho, 1)).isEmpty();
+        assertThat(validar(cotacoes(CHAVE, AGORA.plus(VALIDADE).plusSeconds(1)), cotacao, carrinho, 1)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Q04 | Checkout com cotação que confere → cobra o total cotado; sem ela → recalcula")
+    void quandoCheckoutComCotacao_entaoDispensaRecalculo() {
+        CarrinhoDeComprasService cartService = mock(CarrinhoDeComprasService.class);
+        CarrinhoPrecificavel carrinho = carrinho(TipoCliente.BRONZE, produto, 3L);
+        when(cartService.buscarParaPrecificacao(CARRINHO_ID, CLIENTE_ID)).thenReturn(Optional.of(carrinho));
+        when(cartService.buscarParaCotacao(CARRINHO_ID, CLIENTE_ID)).thenReturn(Optional.of(carrinho));
+        when(cartService.buscarEmSessao(CARRINHO_ID, CLIENTE_ID)).thenReturn(Optional.empty());
+        IEstoqueExternal estoque = mock(IEstoqueExternal.class);
+        IPagamentoExternal pagamento = mock(IPagamentoExternal.class);
+        when(estoque.verificarDisponibilidade(anyList(), anyList())).thenReturn(new DisponibilidadeDTO(true, List.of()));
+        when(estoque.darBaixa(anyList(), anyList())).thenReturn(new EstoqueBaixaDTO(true));
+        when(pagamento.autorizarPagamento(anyLong(), anyDouble())).thenReturn(new PagamentoDTO(true, 1L));
+        CompraService service = new CompraService(cartService, null, estoque, pagamento, (cliente, transacao) -> {},
+                ControlePrazo.semReservas(), pedido -> {}, PublicadorEventosCheckout.NENHUM, RegistroVendas.NENHUM,
+                cotacoes);
+
+        CotacaoDTO cotada = service.emitirCotacao(CARRINHO_ID, CLIENTE_ID);
+        assertThat(cotada.total()).isEqualByComparingTo(service.cotarPedido(CARRINHO_ID, CLIENTE_ID));
+        // total que o cálculo jamais daria: só é cobrado se o recálculo for dispensado
+        String reaproveitada = cotacoes.emitir(carrinho, LinhasNormalizadas.de(carrinho.itens()),
+                CompraService.VERSAO_REGRAS, PRECO);
+
+        service.finalizarPedido(CARRINHO_ID, CLIENTE_ID, reaproveitada);
+        verify(pagamento).autorizarPagamento(eq(CLIENTE_ID), eq(40.50));
+
+        service.finalizarPedido(CARRINHO_ID, CLIENTE_ID, cotada.cotacao());
+        service.finalizarPedido(CARRINHO_ID, CLIENTE_ID, "invalida");
+        verify(pagamento, times(2)).autorizarPagamento(eq(CLIENTE_ID),
+                eq(cotada.total().doubleValue()));
+    }
+
+    @Test
+    @DisplayName("Q05 | Quantidades com o mesmo hash de 32 bits → vazio; preço com outra escala → confere")
+    void quandoQuantidadeColide_entaoVazio() {
+        // Long.hashCode((2L << 32) | 3) == Long.hashCode(1L)
+        long colidente = (2L << 32) | 3L;
+        String cotacao = emitir(carrinho(TipoCliente.BRONZE, produto, 1L));
+
+        assertThat(validar(cotacoes, cotacao, carrinho(TipoCliente.BRONZE, produto, colidente), 1)).isEmpty();
+        assertThat(validar(cotacoes, cotacao, carrinho(TipoCliente.BRONZE, produto("10.0"), 1L), 1)).contains(PRECO);
+        assertThat(validar(cotacoes, cotacao, carrinho(TipoCliente.BRONZE, produto("100"), 1L), 1)).isEmpty();
+    }
+}
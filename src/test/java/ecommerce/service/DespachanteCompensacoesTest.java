@@ -0,0 +1,133 @@
+package ecommerce.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.junit.jupiter.api.*;
+
+import ecommerce.config.CompensacaoProperties;
+import ecommerce.entity.CompensacaoPagamento;
+import ecommerce.entity.StatusCompensacao;
+import ecommerce.external.IPagamentoExternal;
+import ecommerce.repository.CompensacaoPagamentoRepository;
+
+@DisplayName("DespachanteCompensacoes – Outbox de cancelamentos")
+class DespachanteCompensacoesTest {
+
+    // ===================== Constantes =====================
+    private static final Instant AGORA = Instant.parse("2026-01-01T00:00:00Z");
+    private static final Long CLIENTE_ID = 7L;
+    private static final Long TRANSACAO_ID = 99L;
+    private static final int TAMANHO_LOTE = 10;
+    private static final int MAXIMO_TENTATIVAS = 3;
+    private static final Duration BACKOFF_INICIAL = Duration.ofSeconds(1);
+    private static final Duration BACKOFF_MAXIMO = Duration.ofSeconds(5);
+
+    // ===================== SUT =====================
+    private CompensacaoPagamentoRepository repository;
+    private IPagamentoExternal pagamento;
+    private DespachanteCompensacoes despachante;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(CompensacaoPagamentoRepository.class);
+        pagamento = mock(IPagamentoExternal.class);
+        CompensacaoProperties properties =
+                new CompensacaoProperties(TAMANHO_LOTE, MAXIMO_TENTATIVAS, BACKOFF_INICIAL, BACKOFF_MAXIMO);
+        despachante = new DespachanteCompensacoes(repository, pagamento, properties,
+                Clock.fixed(AGORA, ZoneOffset.UTC));
+    }
+
+    private CompensacaoPagamento pendente() {
+        CompensacaoPagamento c = new CompensacaoPagamento(CLIENTE_ID, TRANSACAO_ID, AGORA);
+        when(repository.findByStatusAndProximaTentativaLessThanEqualOrderByProximaTentativa(
+                eq(StatusCompensacao.PENDENTE), eq(AGORA), any()))
+                .thenReturn(List.of(c));
+        return c;
+    }
+
+    @Test
+    @DisplayName("C01 | Cancelamento aceito → compensação concluída")
+    void quandoCancelamentoAceito_entaoConcluida() {
+        CompensacaoPagamento c = pendente();
+
+        despachante.despachar();
+
+        verify(pagamento).cancelarPagamento(CLIENTE_ID, TRANSACAO_ID);
+        assertThat(c.getStatus()).isEqualTo(StatusCompensacao.CONCLUIDA);
+    }
+
+    @Test
+    @DisplayName("C02 | Cancelamento falha → reagenda com backoff e continua pendente")
+    void quandoCancelamentoFalha_entaoReagenda() {
+        CompensacaoPagamento c = pendente();
+        doThrow(new IllegalStateException("indisponível")).when(pagamento).cancelarPagamento(CLIENTE_ID, TRANSACAO_ID);
+
+        despachante.despachar();
+
+        assertThat(c.getStatus()).isEqualTo(StatusCompensacao.PENDENTE);
+        assertThat(c.getTentativas()).isEqualTo(1);
+        assertThat(c.getProximaTentativa()).isEqualTo(AGORA.plus(BACKOFF_INICIAL));
+    }
+
+    @Test
+    @DisplayName("C03 | Última tentativa falha → compensação marcada como FALHOU")
+    void quandoEsgotaTentativas_entaoFalhou() {
+        CompensacaoPagamento c = pendente();
+        c.setTentativas(MAXIMO_TENTATIVAS - 1);
+        doThrow(new IllegalStateException("indisponível")).when(pagamento).cancelarPagamento(CLIENTE_ID, TRANSACAO_ID);
+
+        despachante.despachar();
+
+        assertThat(c.getStatus()).isEqualTo(StatusCompensacao.FALHOU);
+    }
+
+    @Test
+    @DisplayName("C04 | Backoff dobra a cada tentativa até o teto")
+    void backoff_dobraAteOTeto() {
+        assertThat(despachante.backoff(1)).isEqualTo(Duration.ofSeconds(1));
+        assertThat(despachante.backoff(2)).isEqualTo(Duration.ofSeconds(2));
+        assertThat(despachante.backoff(3)).isEqualTo(Duration.ofSeconds(4));
+        assertThat(despachante.backoff(4)).isEqualTo(BACKOFF_MAXIMO);
+    }
+
+    @Test
+    @DisplayName("C05 | Mensagem de erro longa → cortada no tamanho da coluna")
+    void quandoErroLongo_entaoCortado() {
+        CompensacaoPagamento c = pendente();
+        doThrow(new IllegalStateException("x".repeat(10_000))).when(pagamento).cancelarPagamento(CLIENTE_ID, TRANSACAO_ID);
+
+        despachante.despachar();
+
+        assertThat(c.getUltimoErro()).hasSize(CompensacaoPagamento.TAMANHO_ULTIMO_ERRO);
+    }
+
+    @Test
+    @DisplayName("C06 | Gravação de uma compensação falha → as demais do lote são gravadas uma a uma")
+    void quandoGravacaoFalha_entaoDemaisGravadas() {
+        CompensacaoPagamento primeira = new CompensacaoPagamento(CLIENTE_ID, TRANSACAO_ID, AGORA);
+        CompensacaoPagamento segunda = new CompensacaoPagamento(CLIENTE_ID, TRANSACAO_ID + 1, AGORA);
+        when(repository.findByStatusAndProximaTentativaLessThanEqualOrderByProximaTentativa(
+                eq(StatusCompensacao.PENDENTE), eq(AGORA), any()))
+                .thenReturn(List.of(primeira, segunda));
+        when(repository.save(primeira)).thenThrow(new IllegalStateException("valor grande demais"));
+
+        despachante.despachar();
+
+        verify(repository).save(segunda);
+        verify(repository, never()).saveAll(any());
+        assertThat(segunda.getStatus()).isEqualTo(StatusCompensacao.CONCLUIDA);
+    }
+}
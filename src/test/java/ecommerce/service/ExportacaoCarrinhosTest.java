@@ -0,0 +1,176 @@
+package ecommerce.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import ecommerce.config.ExportacaoProperties;
+import ecommerce.entity.ArmazenamentoLinhas;
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Cliente;
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.LinhasCompactas;
+import ecommerce.entity.Produto;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TipoProduto;
+import ecommerce.repository.CarrinhoDeComprasRepository;
+
+@DataJpaTest
+@DisplayName("ExportacaoCarrinhos – Exportação em streaming")
+class ExportacaoCarrinhosTest {
+
+    // ===================== Constantes =====================
+    private static final int TAMANHO_BLOCO = 100;
+    private static final LocalDate DATA = LocalDate.of(2026, 3, 1);
+    private static final BigDecimal PRECO = new BigDecimal("10.00");
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private CarrinhoDeComprasRepository repository;
+
+    // como o ObjectMapper do Spring Boot: datas em ISO-8601
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+
+    // ===================== SUT =====================
+    private ExportacaoCarrinhos exportacao;
+
+    private Statistics estatisticas;
+    private Cliente cliente;
+    private Produto produto;
+
+    @BeforeEach
+    void setUp() {
+        exportacao = new ExportacaoCarrinhos(repository, em.getEntityManager(), objectMapper,
+                new ExportacaoProperties(TAMANHO_BLOCO, null, FormatoExportacao.NDJSON));
+        estatisticas = em.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        estatisticas.setStatisticsEnabled(true);
+
+        cliente = em.persist(new Cliente(null, "Cliente", Regiao.SUL, TipoCliente.OURO));
+        produto = em.persist(new Produto(null, "P", "desc", PRECO, BigDecimal.ONE, null, null, null, false,
+                TipoProduto.LIVRO));
+    }
+
+    @Test
+    @DisplayName("E01 | NDJSON → um objeto por carrinho, com itens de entidade, compactos e carrinho vazio")
+    void ndjson_umObjetoPorCarrinho() throws IOException {
+        Long comItens = carrinho(3).getId();
+        Long compacto = compacto().getId();
+        Long vazio = carrinho(0).getId();
+        em.flush();
+        em.clear();
+
+        String saida = exportar(FormatoExportacao.NDJSON);
+
+        List<JsonNode> linhas = new ArrayList<>();
+        for (String linha : saida.split("\n")) {
+            linhas.add(objectMapper.readTree(linha));
+        }
+        assertThat(linhas).hasSize(3);
+        assertThat(linhas.get(0).get("id").asLong()).isEqualTo(comItens);
+        assertThat(linhas.get(0).get("clienteId").asLong()).isEqualTo(cliente.getId());
+        assertThat(linhas.get(0).get("data").asText()).isEqualTo("2026-03-01");
+        assertThat(linhas.get(0).get("itens")).hasSize(3);
+        assertThat(linhas.get(1).get("id").asLong()).isEqualTo(compacto);
+        assertThat(linhas.get(1).get("itens").get(1).get("quantidade").asLong()).isEqualTo(7L);
+        assertThat(linhas.get(2).get("id").asLong()).isEqualTo(vazio);
+        assertThat(linhas.get(2).get("itens")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("E02 | CSV → cabeçalho e uma linha por item; carrinho vazio com produto em branco")
+    void csv_umaLinhaPorItem() throws IOException {
+        Long comItens = carrinho(2).getId();
+        Long vazio = carrinho(0).getId();
+        em.flush();
+        em.clear();
+
+        String saida = exportar(FormatoExportacao.CSV);
+
+        assertThat(saida.split("\n")).containsExactly(
+                "carrinho_id,cliente_id,data,produto_id,quantidade",
+                comItens + "," + cliente.getId() + ",2026-03-01," + produto.getId() + ",1",
+                comItens + "," + cliente.getId() + ",2026-03-01," + produto.getId() + ",1",
+                vazio + "," + cliente.getId() + ",2026-03-01,,");
+    }
+
+    @Test
+    @DisplayName("E03 | 2000 carrinhos → contexto de persistência limitado a um bloco e itens lidos em lote")
+    void volume_memoriaConstante() throws IOException {
+        int carrinhos = 2000;
+        for (int i = 0; i < carrinhos; i++) {
+            carrinho(5);
+        }
+        em.flush();
+        em.clear();
+        estatisticas.clear();
+        Session sessao = em.getEntityManager().unwrap(Session.class);
+        int[] maximo = { 0 };
+        OutputStream amostrador = new OutputStream() {
+            @Override
+            public void write(int b) {
+                maximo[0] = Math.max(maximo[0], sessao.getStatistics().getEntityCount());
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                write(0);
+            }
+        };
+
+        long total = exportacao.exportar(FormatoExportacao.NDJSON, amostrador);
+
+        assertThat(total).isEqualTo(carrinhos);
+        // um bloco: carrinhos, itens, cliente e produto
+        assertThat(maximo[0]).isLessThanOrEqualTo(TAMANHO_BLOCO * (1 + 5) + 2);
+        assertThat(estatisticas.getEntityLoadCount()).isGreaterThan(carrinhos * 5L);
+        // cursor + um SELECT de itens a cada 100 carrinhos (@BatchSize), em vez de um por carrinho
+        assertThat(estatisticas.getPrepareStatementCount()).isLessThanOrEqualTo(1L + 2L * carrinhos / 100);
+    }
+
+    // ===================== Auxiliares =====================
+    private String exportar(FormatoExportacao formato) throws IOException {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        exportacao.exportar(formato, saida);
+        return saida.toString(StandardCharsets.UTF_8);
+    }
+
+    private CarrinhoDeCompras carrinho(int itens) {
+        List<ItemCompra> linhas = new ArrayList<>();
+        for (int i = 0; i < itens; i++) {
+            linhas.add(new ItemCompra(null, produto, 1L));
+        }
+        return em.persist(new CarrinhoDeCompras(null, cliente, linhas, DATA));
+    }
+
+    private CarrinhoDeCompras compacto() {
+        CarrinhoDeCompras carrinho = new CarrinhoDeCompras(null, cliente, new ArrayList<>(), DATA);
+        carrinho.setLinhasCompactas(new LinhasCompactas(new long[] { produto.getId(), produto.getId() },
+                new long[] { 2L, 7L }));
+        carrinho.setArmazenamento(ArmazenamentoLinhas.COMPACTO);
+        return em.persist(carrinho);
+    }
+}
@@ -0,0 +1,250 @@
+package ecommerce.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.*;
+
+import ecommerce.config.FaixasCheckoutProperties;
+import ecommerce.prazo.ContextoPrazo;
+import ecommerce.prazo.Prazo;
+import ecommerce.prazo.PrazoEsgotadoException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("FaixasCheckout – Checkouts em série por cliente, em paralelo entre clientes")
+class FaixasCheckoutTest {
+
+    // ===================== Constantes =====================
+    private static final long ESPERA_S = 10L;
+
+    // ===================== SUT =====================
+    private FaixasCheckout faixas;
+    private ExecutorService chamadores;
+    private SimpleMeterRegistry registry;
+    private final AtomicInteger iniciados = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        chamadores = Executors.newCachedThreadPool();
+        registry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        chamadores.shutdownNow();
+        if (faixas != null) {
+            faixas.destroy();
+        }
+    }
+
+    // ===================== Auxiliares =====================
+    private void criar(int quantidade, int capacidade, int pendentesPorCliente) {
+        faixas = new FaixasCheckout(new FaixasCheckoutProperties(true, quantidade, capacidade, pendentesPorCliente,
+                Duration.ofSeconds(ESPERA_S)), registry);
+    }
+
+    private Future<String> chamar(long clienteId, String resultado, CountDownLatch liberar, List<String> ordem) {
+        return chamadores.submit(() -> faixas.executar(clienteId, () -> {
+            iniciados.incrementAndGet();
+            awaitUninterruptibly(liberar);
+            ordem.add(resultado);
+            return resultado;
+        }));
+    }
+
+    private void esperarPendentes(int pendentes) throws InterruptedException {
+        esperarAte(() -> registry.get("checkout.faixas.fila").gauges().stream().mapToDouble(g -> g.value()).sum()
+                >= pendentes);
+    }
+
+    private void esperarIniciados(int quantidade) throws InterruptedException {
+        esperarAte(() -> iniciados.get() >= quantidade);
+    }
+
+    private static void esperarAte(BooleanSupplier condicao) throws InterruptedException {
+        long prazo = System.nanoTime() + TimeUnit.SECONDS.toNanos(ESPERA_S);
+        while (!condicao.getAsBoolean()) {
+            assertThat(System.nanoTime()).isLessThan(prazo);
+            Thread.sleep(1);
+        }
+    }
+
+    // ===================== Testes =====================
+
+    @Test
+    @DisplayName("F01 | Mesmo cliente nunca em paralelo; clientes diferentes em paralelo")
+    void quandoConcorrentes_entaoSerieSoPorCliente() throws Exception {
+        criar(8, 1000, 1000);
+        AtomicInteger emCurso = new AtomicInteger();
+        AtomicInteger maximoMesmoCliente = new AtomicInteger();
+        AtomicInteger emCursoGeral = new AtomicInteger();
+        AtomicInteger maximoGeral = new AtomicInteger();
+
+        List<Future<Integer>> chamadas = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            long clienteId = i % 2 == 0 ? 1L : 100L + i;
+            chamadas.add(chamadores.submit(() -> faixas.executar(clienteId, () -> {
+                int geral = emCursoGeral.incrementAndGet();
+                maximoGeral.accumulateAndGet(geral, Math::max);
+                if (clienteId == 1L) {
+                    maximoMesmoCliente.accumulateAndGet(emCurso.incrementAndGet(), Math::max);
+                }
+                sleep(1);
+                if (clienteId == 1L) {
+                    emCurso.decrementAndGet();
+                }
+                emCursoGeral.decrementAndGet();
+                return 1;
+            })));
+        }
+        int concluidas = 0;
+        for (Future<Integer> chamada : chamadas) {
+            concluidas += chamada.get(ESPERA_S, TimeUnit.SECONDS);
+        }
+
+        assertThat(concluidas).isEqualTo(200);
+        assertThat(maximoMesmoCliente.get()).isEqualTo(1);
+        assertThat(maximoGeral.get()).isGreaterThan(1);
+    }
+
+    @Test
+    @DisplayName("F02 | Cliente com vários checkouts na fila → outro cliente da faixa atendido na volta seguinte")
+    void quandoClienteOcupado_entaoOutroNaoEspera() throws Exception {
+        criar(1, 100, 100);
+        CountDownLatch liberar = new CountDownLatch(1);
+        List<String> ordem = Collections.synchronizedList(new ArrayList<>());
+
+        List<Future<String>> chamadas = new ArrayList<>();
+        chamadas.add(chamar(1L, "A0", liberar, ordem));
+        esperarIniciados(1);
+        for (int i = 1; i <= 5; i++) {
+            chamadas.add(chamar(1L, "A" + i, liberar, ordem));
+            esperarPendentes(i);
+        }
+        chamadas.add(chamar(2L, "B", liberar, ordem));
+        esperarPendentes(6);
+        liberar.countDown();
+        for (Future<String> chamada : chamadas) {
+            chamada.get(ESPERA_S, TimeUnit.SECONDS);
+        }
+
+        assertThat(ordem).hasSize(7);
+        assertThat(ordem.indexOf("B")).isLessThanOrEqualTo(2);
+        assertThat(ordem.stream().filter(r -> r.startsWith("A")).toList())
+                .containsExactly("A0", "A1", "A2", "A3", "A4", "A5");
+    }
+
+    @Test
+    @DisplayName("F03 | Pendentes do cliente no limite → CheckoutSobrecarregadoException; outro cliente entra")
+    void quandoLimiteDoCliente_entaoRejeita() throws Exception {
+        criar(1, 100, 1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        List<String> ordem = Collections.synchronizedList(new ArrayList<>());
+        Future<String> emCurso = chamar(1L, "A0", liberar, ordem);
+        esperarIniciados(1);
+        Future<String> pendente = chamar(1L, "A1", liberar, ordem);
+        esperarPendentes(1);
+
+        assertThrows(CheckoutSobrecarregadoException.class, () -> faixas.executar(1L, () -> "A2"));
+        Future<String> outro = chamar(2L, "B", liberar, ordem);
+        esperarPendentes(2);
+        liberar.countDown();
+
+        assertThat(List.of(emCurso.get(ESPERA_S, TimeUnit.SECONDS), pendente.get(ESPERA_S, TimeUnit.SECONDS),
+                outro.get(ESPERA_S, TimeUnit.SECONDS))).containsExactly("A0", "A1", "B");
+        assertThat(registry.get("checkout.faixas.rejeitados").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("F04 | Exceção do checkout e prazo da requisição chegam a quem chamou / à faixa")
+    void quandoExcecao_entaoRelancaNoChamador() {
+        criar(2, 10, 10);
+        Prazo prazo = Prazo.daquiA(Duration.ofSeconds(5));
+        ContextoPrazo.definir(prazo);
+        try {
+            assertThat(faixas.executar(1L, () -> ContextoPrazo.atual() == prazo
+                    && Thread.currentThread().getName().startsWith("checkout-faixa-"))).isTrue();
+            IllegalStateException erro = assertThrows(IllegalStateException.class,
+                    () -> faixas.executar(1L, () -> {
+                        throw new IllegalStateException("Pagamento não autorizado.");
+                    }));
+            assertThat(erro).hasMessage("Pagamento não autorizado.");
+        } finally {
+            ContextoPrazo.limpar();
+        }
+    }
+
+    @Test
+    @DisplayName("F05 | Prazo esgota com o checkout na fila → PrazoEsgotadoException e checkout retirado sem rodar")
+    void quandoPrazoEsgotaNaFila_entaoDesisteSemRodar() throws Exception {
+        criar(1, 100, 100);
+        CountDownLatch liberar = new CountDownLatch(1);
+        List<String> ordem = Collections.synchronizedList(new ArrayList<>());
+        Future<String> emCurso = chamar(1L, "A0", liberar, ordem);
+        esperarIniciados(1);
+        AtomicInteger executados = new AtomicInteger();
+
+        ContextoPrazo.definir(Prazo.daquiA(Duration.ofMillis(50)));
+        try {
+            long inicio = System.nanoTime();
+            PrazoEsgotadoException erro = assertThrows(PrazoEsgotadoException.class,
+                    () -> faixas.executar(2L, executados::incrementAndGet));
+            assertThat(erro.getEtapa()).isEqualTo("faixa");
+            assertThat(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - inicio)).isLessThan(ESPERA_S);
+        } finally {
+            ContextoPrazo.limpar();
+        }
+        esperarAte(() -> registry.get("checkout.faixas.fila").gauge().value() == 0.0);
+        liberar.countDown();
+
+        assertThat(emCurso.get(ESPERA_S, TimeUnit.SECONDS)).isEqualTo("A0");
+        assertThat(faixas.executar(3L, () -> "C")).isEqualTo("C");
+        assertThat(executados).hasValue(0);
+        assertThat(registry.get("checkout.faixas.abandonados").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("F06 | Prazo esgota com o checkout já em curso → quem chamou recebe o resultado, nada abandonado")
+    void quandoPrazoEsgotaEmCurso_entaoEsperaResultado() {
+        criar(1, 100, 100);
+
+        ContextoPrazo.definir(Prazo.daquiA(Duration.ofMillis(50)));
+        try {
+            assertThat(faixas.executar(1L, () -> {
+                sleep(200);
+                return "pago";
+            })).isEqualTo("pago");
+        } finally {
+            ContextoPrazo.limpar();
+        }
+        assertThat(registry.get("checkout.faixas.abandonados").counter().count()).isZero();
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
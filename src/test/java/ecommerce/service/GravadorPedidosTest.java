@@ -0,0 +1,141 @@
+package ecommerce.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import ecommerce.config.PedidoProperties;
+import ecommerce.entity.ItemPedido;
+import ecommerce.entity.Pedido;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.StatusPedido;
+import ecommerce.entity.TipoCliente;
+import ecommerce.repository.PedidoRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// a gravação em lote roda noutra thread e confirma as próprias transações
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("GravadorPedidos – Registro de pedidos síncrono e em lote")
+class GravadorPedidosTest {
+
+    // ===================== Constantes =====================
+    private static final int PEDIDOS = 1_000;
+    private static final BigDecimal PRECO = new BigDecimal("10.00");
+    private static final BigDecimal PRECO_INVALIDO = new BigDecimal("1E+40");
+
+    @Autowired
+    private PedidoRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // ===================== SUT =====================
+    private GravadorPedidos gravador;
+    private SimpleMeterRegistry registry;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (gravador != null) {
+            gravador.destroy();
+        }
+        repository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("P01 | SINCRONO → pedido gravado com itens e composição do preço antes de registrar retornar")
+    void quandoSincrono_entaoGravaNaHora() {
+        criar(ModoGravacaoPedido.SINCRONO, 10);
+
+        gravador.registrar(pedido(1L, PRECO));
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Pedido gravado = repository.findByTransacaoId(1L).orElseThrow();
+            assertThat(gravado.getStatus()).isEqualTo(StatusPedido.CONCLUIDO);
+            assertThat(gravado.getTotal()).isEqualByComparingTo("32.00");
+            assertThat(gravado.getFrete()).isEqualByComparingTo("12.00");
+            assertThat(gravado.getItens()).singleElement()
+                    .satisfies(i -> assertThat(i.getPrecoUnitario()).isEqualByComparingTo(PRECO));
+        });
+    }
+
+    @Test
+    @DisplayName("P02 | EM_LOTE → pedidos acumulados gravados em menos transações que pedidos, nenhum perdido no desligamento")
+    void quandoEmLote_entaoAgrupaEEsvaziaNoDesligamento() throws InterruptedException {
+        criar(ModoGravacaoPedido.EM_LOTE, PEDIDOS);
+
+        for (long i = 1; i <= PEDIDOS; i++) {
+            gravador.registrar(pedido(i, PRECO));
+        }
+        gravador.destroy();
+
+        DistributionSummary lotes = registry.get("pedidos.gravacao.lote").summary();
+        assertThat(repository.count()).isEqualTo(PEDIDOS);
+        assertThat(lotes.totalAmount()).isEqualTo(PEDIDOS);
+        assertThat(lotes.count()).isLessThan(PEDIDOS);
+    }
+
+    @Test
+    @DisplayName("P03 | Registro após o desligamento → gravado de forma síncrona")
+    void quandoEncerrado_entaoGravaSincrono() throws InterruptedException {
+        criar(ModoGravacaoPedido.EM_LOTE, 10);
+        gravador.destroy();
+
+        gravador.registrar(pedido(1L, PRECO));
+
+        assertThat(repository.findByTransacaoId(1L)).isPresent();
+    }
+
+    @Test
+    @DisplayName("P04 | Pedido inválido no lote → os demais são gravados e a falha é contada")
+    void quandoPedidoInvalido_entaoIsolaAFalha() throws InterruptedException {
+        criar(ModoGravacaoPedido.EM_LOTE, 10);
+
+        gravador.registrar(pedido(1L, PRECO));
+        gravador.registrar(pedido(2L, PRECO_INVALIDO));
+        gravador.registrar(pedido(3L, PRECO));
+        gravador.destroy();
+
+        assertThat(repository.findByTransacaoId(1L)).isPresent();
+        assertThat(repository.findByTransacaoId(2L)).isEmpty();
+        assertThat(repository.findByTransacaoId(3L)).isPresent();
+        assertThat(registry.get("pedidos.gravacao.falhas").counter().count()).isEqualTo(1.0);
+    }
+
+    // ===================== Auxiliares =====================
+    private void criar(ModoGravacaoPedido modo, int capacidade) {
+        registry = new SimpleMeterRegistry();
+        gravador = new GravadorPedidos(repository, transactionManager,
+                new PedidoProperties(modo, capacidade, 200, Duration.ofSeconds(10)), registry);
+    }
+
+    private static Pedido pedido(Long transacaoId, BigDecimal precoUnitario) {
+        Pedido pedido = new Pedido();
+        pedido.setCarrinhoId(transacaoId);
+        pedido.setClienteId(1L);
+        pedido.setTransacaoId(transacaoId);
+        pedido.setStatus(StatusPedido.CONCLUIDO);
+        pedido.setRegiao(Regiao.SUDESTE);
+        pedido.setTipoCliente(TipoCliente.BRONZE);
+        pedido.setSubtotal(new BigDecimal("20.00"));
+        pedido.setDescontoTipo(BigDecimal.ZERO);
+        pedido.setDescontoValor(BigDecimal.ZERO);
+        pedido.setFrete(new BigDecimal("12.00"));
+        pedido.setTotal(new BigDecimal("32.00"));
+        pedido.getItens().add(new ItemPedido(1L, 2L, precoUnitario));
+        pedido.setCriadoEm(Instant.now());
+        return pedido;
+    }
+}
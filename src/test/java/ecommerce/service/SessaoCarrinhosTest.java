@@ -0,0 +1,194 @@
+package ecommerce.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import ecommerce.config.CatalogoProperties;
+import ecommerce.config.SessaoCarrinhoProperties;
+import ecommerce.dto.CompraDTO;
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.PagamentoDTO;
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Cliente;
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.Produto;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TipoProduto;
+import ecommerce.external.IEstoqueExternal;
+import ecommerce.external.IPagamentoExternal;
+import ecommerce.repository.CarrinhoDeComprasRepository;
+import ecommerce.repository.ClienteRepository;
+import ecommerce.repository.ProdutoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+
+// as gravações em segundo plano confirmam transações próprias
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("SessaoCarrinhos – Carrinhos em memória com gravação posterior")
+class SessaoCarrinhosTest {
+
+    // ===================== Constantes =====================
+    private static final Duration OCIOSIDADE = Duration.ofMinutes(30);
+    private static final BigDecimal PRECO = new BigDecimal("10.00");
+    private static final BigDecimal PESO = new BigDecimal("1.00");
+
+    @Autowired
+    private CarrinhoDeComprasRepository repository;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    // ===================== SUT =====================
+    private SessaoCarrinhos sessao;
+    private CarrinhoDeComprasService cartService;
+    private SimpleMeterRegistry registry;
+    private final AtomicLong relogio = new AtomicLong();
+
+    private Cliente cliente;
+    private Produto produtoA;
+    private Produto produtoB;
+    private Long carrinhoId;
+
+    @BeforeEach
+    void setUp() {
+        cliente = clienteRepository.save(new Cliente(null, "Cliente", Regiao.SUDESTE, TipoCliente.BRONZE));
+        produtoA = produtoRepository.save(new Produto(null, "A", "desc", PRECO, PESO, null, null, null, false,
+                TipoProduto.LIVRO));
+        produtoB = produtoRepository.save(new Produto(null, "B", "desc", PRECO, PESO, null, null, null, false,
+                TipoProduto.LIVRO));
+        List<ItemCompra> itens = new ArrayList<>(List.of(new ItemCompra(null, produtoA, 1L)));
+        carrinhoId = repository.save(new CarrinhoDeCompras(null, cliente, itens, LocalDate.now())).getId();
+
+        registry = new SimpleMeterRegistry();
+        sessao = new SessaoCarrinhos(repository, produtoRepository, transactionManager,
+                new SessaoCarrinhoProperties(true, 100, OCIOSIDADE, 10), registry, relogio::get);
+        cartService = new CarrinhoDeComprasService(repository, produtoRepository,
+                new CatalogoProdutos(produtoRepository, transactionManager,
+                        new CatalogoProperties(false, 1000, Duration.ZERO)), sessao,
+                transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.deleteAll();
+        produtoRepository.deleteAll();
+        clienteRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("S01 | Várias alterações → banco intocado até a gravação, que escreve só o estado final")
+    void quandoAlterado_entaoGravaEstadoFinalDepois() {
+        sessao.adicionarItem(carrinhoId, cliente.getId(), produtoA.getId(), 2L);
+        sessao.adicionarItem(carrinhoId, cliente.getId(), produtoB.getId(), 1L);
+        sessao.alterarQuantidade(carrinhoId, cliente.getId(), produtoB.getId(), 5L);
+        sessao.removerItem(carrinhoId, cliente.getId(), produtoA.getId());
+
+        assertThat(linhasNoBanco()).containsExactly(produtoA.getId() + "x1");
+
+        sessao.gravarPendentes();
+
+        assertThat(linhasNoBanco()).containsExactly(produtoB.getId() + "x5");
+        assertThat(registry.get("carrinho.sessao.gravacoes").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("S02 | Leitura do carrinho em memória → reflete alterações não gravadas, sem SQL")
+    void quandoEmMemoria_entaoLeituraSemBanco() {
+        sessao.adicionarItem(carrinhoId, cliente.getId(), produtoB.getId(), 3L);
+        Statistics estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estatisticas.setStatisticsEnabled(true);
+        estatisticas.clear();
+
+        CarrinhoDeCompras carrinho = cartService.buscarPorCarrinhoIdEClienteId(carrinhoId, cliente);
+
+        assertThat(carrinho.getItens()).extracting(i -> i.getProduto().getId() + "x" + i.getQuantidade())
+                .containsExactly(produtoA.getId() + "x1", produtoB.getId() + "x3");
+        assertThat(estatisticas.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("S03 | Checkout → alterações pendentes gravadas antes da leitura do carrinho")
+    void quandoCheckout_entaoSincronizaAntes() {
+        IEstoqueExternal estoque = mock(IEstoqueExternal.class);
+        IPagamentoExternal pagamento = mock(IPagamentoExternal.class);
+        when(estoque.verificarDisponibilidade(anyList(), anyList())).thenReturn(new DisponibilidadeDTO(true, List.of()));
+        when(estoque.darBaixa(anyList(), anyList())).thenReturn(new EstoqueBaixaDTO(true));
+        when(pagamento.autorizarPagamento(eq(cliente.getId()), anyDouble()))
+                .thenReturn(new PagamentoDTO(true, 1L));
+        CompraService compraService = new CompraService(cartService, null, estoque, pagamento);
+
+        sessao.alterarQuantidade(carrinhoId, cliente.getId(), produtoA.getId(), 4L);
+        CompraDTO compra = compraService.finalizarPedido(carrinhoId, cliente.getId());
+
+        assertThat(compra.sucesso()).isTrue();
+        verify(estoque).verificarDisponibilidade(List.of(produtoA.getId()), List.of(4L));
+        assertThat(linhasNoBanco()).containsExactly(produtoA.getId() + "x4");
+    }
+
+    @Test
+    @DisplayName("S04 | Carrinho ocioso → gravado ao sair da memória e recarregado do banco no acesso seguinte")
+    void quandoOcioso_entaoGravaAoSair() {
+        sessao.adicionarItem(carrinhoId, cliente.getId(), produtoB.getId(), 2L);
+
+        relogio.addAndGet(OCIOSIDADE.plusSeconds(1).toNanos());
+        sessao.limparOciosos();
+
+        assertThat(linhasNoBanco()).containsExactly(produtoA.getId() + "x1", produtoB.getId() + "x2");
+        assertThat(sessao.buscar(carrinhoId, cliente.getId()).getItens()).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("S05 | Carrinho de outro cliente ou quantidade não positiva → IllegalArgumentException")
+    void quandoInvalido_entaoRejeita() {
+        assertThrows(IllegalArgumentException.class, () -> sessao.buscar(carrinhoId, cliente.getId() + 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> sessao.adicionarItem(carrinhoId, cliente.getId(), produtoB.getId(), 0L));
+        assertThrows(IllegalArgumentException.class,
+                () -> sessao.removerItem(carrinhoId, cliente.getId(), produtoB.getId()));
+    }
+
+    // ===================== Auxiliares =====================
+    private List<String> linhasNoBanco() {
+        return new TransactionTemplate(transactionManager).execute(status -> repository.findById(carrinhoId)
+                .orElseThrow().getItens().stream()
+                .sorted(Comparator.comparing(i -> i.getProduto().getId()))
+                .map(i -> i.getProduto().getId() + "x" + i.getQuantidade())
+                .toList());
+    }
+}
@@ -0,0 +1,201 @@
+package ecommerce.vendas;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import ecommerce.entity.Produto;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TipoProduto;
+import ecommerce.precificacao.LinhaPrecificavel;
+import ecommerce.repository.VendaAgregadaRepository;
+
+// a gravação confirma a própria transação
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("VendasAgregadas – Totais por região, tipo de cliente e tipo de produto")
+class VendasAgregadasTest {
+
+    // ===================== Constantes =====================
+    private static final int THREADS = 8;
+    private static final int CHECKOUTS_POR_THREAD = 2000;
+
+    @Autowired
+    private VendaAgregadaRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // ===================== SUT =====================
+    private VendasAgregadas vendas;
+
+    @BeforeEach
+    void setUp() {
+        vendas = novas();
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.deleteAll();
+    }
+
+    // ===================== Auxiliares =====================
+    private VendasAgregadas novas() {
+        VendasAgregadas agregadas = new VendasAgregadas(repository, transactionManager);
+        agregadas.carregar();
+        return agregadas;
+    }
+
+    private static LinhaPrecificavel linha(TipoProduto tipo, String preco, long quantidade) {
+        Produto produto = new Produto();
+        produto.setId((long) tipo.ordinal());
+        produto.setPreco(new BigDecimal(preco));
+        produto.setTipo(tipo);
+        return new LinhaPrecificavel(produto, quantidade);
+    }
+
+    // ===================== Testes =====================
+
+    @Test
+    @DisplayName("G01 | Checkouts simultâneos → nenhuma venda perdida, total em qualquer recorte")
+    void quandoSimultaneos_entaoSomaExata() throws Exception {
+        List<LinhaPrecificavel> itens = List.of(linha(TipoProduto.LIVRO, "10.50", 2L),
+                linha(TipoProduto.ROUPA, "3.33", 1L));
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> tarefas = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                Regiao regiao = t % 2 == 0 ? Regiao.SUL : Regiao.NORTE;
+                tarefas.add(executor.submit(() -> {
+                    for (int i = 0; i < CHECKOUTS_POR_THREAD; i++) {
+                        vendas.registrar(regiao, TipoCliente.OURO, itens, new BigDecimal("24.33"));
+                    }
+                }));
+            }
+            for (Future<?> tarefa : tarefas) {
+                tarefa.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long checkouts = (long) THREADS * CHECKOUTS_POR_THREAD;
+        assertThat(vendas.total(null, null, null))
+                .isEqualTo(new TotalVendas(3L * checkouts, new BigDecimal("24.33").multiply(BigDecimal.valueOf(checkouts))));
+        assertThat(vendas.total(Regiao.SUL, TipoCliente.OURO, TipoProduto.LIVRO))
+                .isEqualTo(new TotalVendas(checkouts, new BigDecimal("21.00").multiply(BigDecimal.valueOf(checkouts / 2))));
+        assertThat(vendas.total(null, TipoCliente.BRONZE, null)).isEqualTo(new TotalVendas(0L, new BigDecimal("0.00")));
+    }
+
+    @Test
+    @DisplayName("G02 | Gravado e retomado → nova instância continua de onde parou")
+    void quandoGravado_entaoRetomaNaInicializacao() {
+        vendas.registrar(Regiao.NORDESTE, TipoCliente.PRATA, List.of(linha(TipoProduto.MOVEL, "100.00", 1L)),
+                new BigDecimal("100.00"));
+        vendas.gravar();
+        vendas.registrar(Regiao.NORDESTE, TipoCliente.PRATA, List.of(linha(TipoProduto.MOVEL, "100.00", 1L)),
+                new BigDecimal("100.00"));
+        vendas.gravar();
+
+        VendasAgregadas retomadas = novas();
+        retomadas.registrar(Regiao.NORDESTE, TipoCliente.PRATA, List.of(linha(TipoProduto.MOVEL, "100.00", 3L)),
+                new BigDecimal("300.00"));
+
+        assertThat(repository.count()).isEqualTo(1L);
+        assertThat(retomadas.total(Regiao.NORDESTE, null, TipoProduto.MOVEL))
+                .isEqualTo(new TotalVendas(5L, new BigDecimal("500.00")));
+        assertThat(retomadas.getUltimaGravacao()).isNull();
+    }
+
+    @Test
+    @DisplayName("G03 | Duas instâncias gravando, uma sem carga → os totais se somam, nenhuma sobrescreve")
+    void quandoDuasInstancias_entaoSomam() {
+        vendas.registrar(Regiao.SUL, TipoCliente.OURO, List.of(linha(TipoProduto.LIVRO, "10.00", 4L)),
+                new BigDecimal("40.00"));
+        vendas.gravar();
+
+        VendasAgregadas outra = new VendasAgregadas(repository, transactionManager);
+        outra.registrar(Regiao.SUL, TipoCliente.OURO, List.of(linha(TipoProduto.LIVRO, "10.00", 1L)),
+                new BigDecimal("10.00"));
+        outra.gravar();
+        vendas.gravar();
+
+        assertThat(repository.findAll()).singleElement().satisfies(v -> {
+            assertThat(v.getUnidades()).isEqualTo(5L);
+            assertThat(v.getReceita()).isEqualByComparingTo("50.00");
+        });
+        assertThat(vendas.total(Regiao.SUL, null, null)).isEqualTo(new TotalVendas(5L, new BigDecimal("50.00")));
+    }
+
+    @Test
+    @DisplayName("G04 | Gravações seguidas sem vendas novas → incrementos gravados uma única vez")
+    void quandoGravadoDeNovo_entaoNaoDuplica() {
+        vendas.registrar(Regiao.CENTRO_OESTE, TipoCliente.BRONZE, List.of(linha(TipoProduto.ROUPA, "7.00", 2L)),
+                new BigDecimal("14.00"));
+
+        vendas.gravar();
+        vendas.gravar();
+        vendas.gravar();
+
+        assertThat(repository.findAll()).singleElement()
+                .satisfies(v -> assertThat(v.getUnidades()).isEqualTo(2L));
+        assertThat(vendas.total(null, null, null)).isEqualTo(new TotalVendas(2L, new BigDecimal("14.00")));
+    }
+
+    @Test
+    @DisplayName("G05 | Receita → subtotal cobrado, rateado pelas linhas, não o preço atual do produto")
+    void receita_subtotalCobradoRateado() {
+        vendas.registrar(Regiao.SUL, TipoCliente.OURO, List.of(linha(TipoProduto.LIVRO, "10.00", 2L),
+                linha(TipoProduto.ROUPA, "5.00", 1L), linha(TipoProduto.MOVEL, "0.01", 1L)), new BigDecimal("20.00"));
+
+        assertThat(vendas.total(null, null, TipoProduto.LIVRO).receita()).isEqualByComparingTo("15.99");
+        assertThat(vendas.total(null, null, TipoProduto.ROUPA).receita()).isEqualByComparingTo("3.99");
+        assertThat(vendas.total(null, null, null)).isEqualTo(new TotalVendas(4L, new BigDecimal("20.00")));
+    }
+
+    @Test
+    @DisplayName("G06 | Consultas durante as gravações → total nunca recua")
+    void quandoConsultadoDuranteGravacao_entaoTotalNuncaRecua() throws Exception {
+        AtomicBoolean gravando = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<List<Long>> leituras = executor.submit(() -> {
+                List<Long> recuos = new ArrayList<>();
+                long anterior = 0L;
+                while (gravando.get()) {
+                    long lido = vendas.total(null, null, null).unidades();
+                    if (lido < anterior) {
+                        recuos.add(lido);
+                    }
+                    anterior = lido;
+                }
+                return recuos;
+            });
+            for (int i = 0; i < 20; i++) {
+                vendas.registrar(Regiao.SUL, TipoCliente.OURO, List.of(linha(TipoProduto.LIVRO, "10.00", 1L)),
+                        new BigDecimal("10.00"));
+                vendas.gravar();
+            }
+            gravando.set(false);
+
+            assertThat(leituras.get()).isEmpty();
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(vendas.total(null, null, null)).isEqualTo(new TotalVendas(20L, new BigDecimal("200.00")));
+    }
+}